@@ -2,16 +2,21 @@ import axios from 'axios';
 import logger from '../utils/logger';
 
 const API_URL = '/api/v1/agriculture';
+// 轮询爬取任务状态的间隔（毫秒）
+const JOB_POLL_INTERVAL = 2000;
+
+const sleep = (ms) => new Promise(resolve => setTimeout(resolve, ms));
 
 export const priceDataService = {
   /**
-   * 获取农产品价格数据
+   * 获取农产品价格数据：提交爬取任务后轮询任务状态，完成后返回结果（file_name、split_files）
    * POST /api/v1/agriculture/price
    * @param {string} startTime - 开始时间，格式为YYYY-MM-DD
    * @param {string} endTime - 结束时间，格式为YYYY-MM-DD
    * @param {string} productName - 产品名称
+   * @param {function} onProgress - 可选，每次轮询后以任务信息回调（rows_fetched、varieties_split 等）
    */
-  async getPriceData(startTime, endTime, productName) {
+  async getPriceData(startTime, endTime, productName, onProgress) {
     try {
       logger.apiRequest('POST', `${API_URL}/price`, { startTime, endTime, productName });
       logger.info('PRICE_DATA', '获取农产品价格数据', { startTime, endTime, productName });
@@ -34,7 +39,18 @@ export const priceDataService = {
         throw new Error(response.data.message || '获取价格数据失败');
       }
 
-      return response.data.data;
+      const jobId = response.data.data.job_id;
+      for (;;) {
+        const job = await this.getCrawlJob(jobId);
+        if (onProgress) onProgress(job);
+        if (job.status === 'succeeded') {
+          return job;
+        }
+        if (job.status === 'failed') {
+          throw new Error(job.error || '获取价格数据失败');
+        }
+        await sleep(JOB_POLL_INTERVAL);
+      }
     } catch (error) {
       logger.apiError('POST', `${API_URL}/price`, error);
       logger.error('PRICE_DATA', '获取价格数据失败', {
@@ -44,6 +60,19 @@ export const priceDataService = {
     }
   },
 
+  /**
+   * 查询爬取任务的进度和结果
+   * GET /api/v1/agriculture/price/jobs/{jobId}
+   * @param {string} jobId - 提交爬取任务时返回的 job_id
+   */
+  async getCrawlJob(jobId) {
+    const response = await axios.get(`${API_URL}/price/jobs/${encodeURIComponent(jobId)}`);
+    if (response.data.code !== 200) {
+      throw new Error(response.data.message || '获取爬取任务失败');
+    }
+    return response.data.data;
+  },
+
   /**
    * 下载文件（CSV/XLS/XLSX）
    * GET /api/v1/agriculture/price/download?file_name=xxx
@@ -70,13 +70,14 @@ class XinfadiCrawler:
 
     def get_limited_price_data(self, max_pages=10, limit=20, pubDateStartTime=None,
                                pubDateEndTime=None, prodPcatid=None, prodCatid=None,
-                               prodName=None):
+                               prodName=None, on_page=None):
         """
         获取限定页数的价格数据
 
         参数说明:
         - max_pages: 最大获取页数，默认10页
         - limit: 每页显示数量
+        - on_page: 每获取一页后的回调 on_page(page, total_rows)，可选
         - 其他参数同 get_price_data 方法
         """
         print(f"开始获取数据，最多获取 {max_pages} 页...")
@@ -98,6 +99,8 @@ class XinfadiCrawler:
             if page_data and 'list' in page_data:
                 all_data.extend(page_data['list'])
                 print(f"已获取第 {page} 页，共 {len(page_data['list'])} 条记录")
+                if on_page:
+                    on_page(page, len(all_data))
             else:
                 print(f"第 {page} 页获取失败，停止获取")
                 break
@@ -208,6 +211,64 @@ def main():
                       f"平均价: {item.get('avgPrice', '')}, "
                       f"产地: {item.get('place', '')}")
 
+def crawl(start_time, end_time, product_name, result_dir="result", on_page=None):
+    """爬取指定时间范围和品种的数据并保存为CSV，返回文件名"""
+    crawler = XinfadiCrawler(result_dir=result_dir)
+
+    # 获取限定页数的数据并保存
+    all_data = crawler.get_limited_price_data(
+        max_pages=10,
+        limit=100,
+        pubDateStartTime=start_time,
+        pubDateEndTime=end_time,
+        prodName=product_name,
+        on_page=on_page
+    )
+
+    # 保存数据到CSV文件
+    return crawler.save_to_csv(all_data, product_name)
+
+
+def main_worker():
+    """
+    常驻工作进程模式（由 Java 端 CrawlerWorkerPool 启动），按行通信：
+    - stdin 每行一个任务：{"id", "start_time", "end_time", "product_name", "result_dir"}
+    - stdout 每行一条消息：
+      {"type": "ready"}                                   启动完成
+      {"id", "type": "progress", "page", "rows"}          每获取一页
+      {"id", "type": "result", "file_name"}               任务完成
+      {"id", "type": "error", "error"}                    任务失败
+    - 日志输出到 stderr；stdin 关闭后退出
+    """
+    protocol = sys.stdout
+    # 爬取过程中的 print 都改为输出到 stderr，stdout 只用于协议消息
+    sys.stdout = sys.stderr
+    stdin = io.TextIOWrapper(sys.stdin.buffer, encoding='utf-8')
+
+    def send(message):
+        protocol.write(json.dumps(message, ensure_ascii=False) + "\n")
+        protocol.flush()
+
+    send({"type": "ready"})
+    for line in stdin:
+        line = line.strip()
+        if not line:
+            continue
+        job_id = None
+        try:
+            job = json.loads(line)
+            job_id = job.get("id")
+
+            def on_page(page, rows):
+                send({"id": job_id, "type": "progress", "page": page, "rows": rows})
+
+            filename = crawl(job["start_time"], job["end_time"], job["product_name"],
+                             result_dir=job.get("result_dir") or "result", on_page=on_page)
+            send({"id": job_id, "type": "result", "file_name": filename})
+        except Exception as e:
+            send({"id": job_id, "type": "error", "error": str(e)})
+
+
 def main_cli():
     parser = argparse.ArgumentParser(description='农产品价格数据爬虫')
     parser.add_argument('--start_time', required=True, help='查询开始时间，格式为YYYY-MM-DD')
@@ -218,19 +279,7 @@ def main_cli():
 
     try:
         # 使用传入的参数
-        crawler = XinfadiCrawler(result_dir="result")
-
-        # 获取限定页数的数据并保存
-        all_data = crawler.get_limited_price_data(
-            max_pages=10,
-            limit=100,
-            pubDateStartTime=args.start_time,
-            pubDateEndTime=args.end_time,
-            prodName=args.product_name
-        )
-
-        # 保存数据到CSV文件
-        filename = crawler.save_to_csv(all_data, args.product_name)
+        filename = crawl(args.start_time, args.end_time, args.product_name)
 
         # 输出结果给Java调用方
         result = {
@@ -249,7 +298,9 @@ def main_cli():
 
 
 if __name__ == "__main__":
-    if len(sys.argv) > 1:
+    if len(sys.argv) > 1 and sys.argv[1] == "--worker":
+        main_worker()
+    elif len(sys.argv) > 1:
         main_cli()
     else:
         main()
@@ -0,0 +1,155 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 对比两份 JMH CSV 结果（-rf csv），输出每个基准测试的耗时和每次调用分配量（gc.alloc.rate.norm）的变化
+ *
+ * 按“基准测试名 + 全部参数”匹配两份结果，耗时或分配量变差超过阈值（默认 10%）时标记为回退，
+ * 存在回退时以退出码 1 结束，方便在发布流程中使用。gc.count、gc.time 等受运行时长影响的指标不参与对比。
+ *
+ * 运行方式：
+ *   mvn -Pbenchmark compile exec:exec -Djmh.main=benchmark.BaselineDiff \
+ *       -Djmh.args="src/jmh/baseline/jmh-baseline.csv target/jmh-result.csv 10"
+ */
+public final class BaselineDiff {
+
+    private static final String ALLOC_NORM = ":gc.alloc.rate.norm";
+
+    private BaselineDiff() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: BaselineDiff <基线结果.csv> <本次结果.csv> [阈值百分比，默认10]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Result> baseline = read(args[0]);
+        Map<String, Result> current = read(args[1]);
+
+        int regressions = 0;
+        System.out.printf("%-70s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-70s %14s %14s %9s%n", entry.getKey(), "-", format(now), "新增");
+                continue;
+            }
+            // 吞吐量模式越大越好，其余模式（耗时、分配量）越小越好
+            double change = (now.score - before.score) / before.score * 100.0;
+            double worse = "thrpt".equals(now.mode) && !now.key.contains(ALLOC_NORM) ? -change : change;
+            boolean regressed = worse > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf(Locale.ROOT, "%-70s %14s %14s %+8.1f%%%s%n", entry.getKey(), format(before), format(now),
+                    change, regressed ? "  回退" : "");
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("%-70s %14s %14s %9s%n", key, format(baseline.get(key)), "-", "缺失");
+            }
+        }
+
+        System.out.printf("共对比 %d 项，%d 项变差超过 %.0f%%%n", current.size(), regressions, threshold);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static String format(Result result) {
+        return String.format(Locale.ROOT, "%.3f %s", result.score, result.unit);
+    }
+
+    /**
+     * 读取 JMH CSV 结果，只保留主指标和 gc.alloc.rate.norm
+     */
+    private static Map<String, Result> read(String file) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+        Map<String, Result> results = new LinkedHashMap<>();
+        if (lines.isEmpty()) {
+            return results;
+        }
+        List<String> header = splitCsvLine(lines.get(0));
+        int benchmarkIdx = header.indexOf("Benchmark");
+        int modeIdx = header.indexOf("Mode");
+        int scoreIdx = header.indexOf("Score");
+        int unitIdx = header.indexOf("Unit");
+        if (benchmarkIdx < 0 || modeIdx < 0 || scoreIdx < 0 || unitIdx < 0) {
+            throw new IllegalArgumentException("不是 JMH CSV 结果文件: " + file);
+        }
+
+        for (int i = 1; i < lines.size(); i++) {
+            if (lines.get(i).trim().isEmpty()) {
+                continue;
+            }
+            List<String> cells = splitCsvLine(lines.get(i));
+            String benchmark = cells.get(benchmarkIdx);
+            if (benchmark.indexOf(':') >= 0 && !benchmark.endsWith(ALLOC_NORM)) {
+                continue;
+            }
+            // 参数按列名排序后拼进键里，两份结果的参数列顺序不同也能匹配
+            StringBuilder key = new StringBuilder(benchmark.replaceFirst("^benchmark\\.", ""));
+            List<String> params = new ArrayList<>();
+            for (int c = 0; c < header.size() && c < cells.size(); c++) {
+                if (header.get(c).startsWith("Param: ") && !cells.get(c).isEmpty()) {
+                    params.add(header.get(c).substring("Param: ".length()) + "=" + cells.get(c));
+                }
+            }
+            params.sort(null);
+            if (!params.isEmpty()) {
+                key.append(' ').append(String.join(",", params));
+            }
+
+            Result result = new Result();
+            result.key = key.toString();
+            result.mode = cells.get(modeIdx);
+            result.score = Double.parseDouble(cells.get(scoreIdx));
+            result.unit = cells.get(unitIdx);
+            results.put(result.key, result);
+        }
+        return results;
+    }
+
+    // JMH 只对字符串列加双引号，字段中不会出现换行
+    private static List<String> splitCsvLine(String line) {
+        List<String> out = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (ch == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cur.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (ch == ',' && !quoted) {
+                out.add(cur.toString());
+                cur.setLength(0);
+            } else {
+                cur.append(ch);
+            }
+        }
+        out.add(cur.toString());
+        return out;
+    }
+
+    private static class Result {
+        String key;
+        String mode;
+        double score;
+        String unit;
+    }
+}
@@ -0,0 +1,154 @@
+package benchmark;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import util.ExcelParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * 预测与解析基准测试共用的输入数据
+ *
+ * input 参数取值：
+ * - synthetic：趋势 + 周/月周期 + 随机噪声的合成价格（固定随机种子，每次运行相同）
+ * - sample：仓库根目录的样例文件（农产品价格样例数据.xlsx，共 90 天），长度不够时按原顺序循环拼接
+ *
+ * 样例文件位置可以用 -Dbenchmark.sample=路径 指定，默认在当前目录和上一级目录中查找。
+ */
+final class BenchmarkData {
+
+    static final String SYNTHETIC = "synthetic";
+    static final String SAMPLE = "sample";
+
+    private static final String SAMPLE_FILE = "农产品价格样例数据.xlsx";
+    // 2020-01-01 00:00 UTC，按天递增
+    private static final long START_MILLIS = 1_577_836_800_000L;
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private static double[] samplePrices;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * 长度为 length 的价格序列
+     */
+    static double[] prices(String input, int length) {
+        double[] prices = new double[length];
+        if (SAMPLE.equals(input)) {
+            double[] sample = samplePrices();
+            for (int i = 0; i < length; i++) {
+                prices[i] = sample[i % sample.length];
+            }
+            return prices;
+        }
+        if (!SYNTHETIC.equals(input)) {
+            throw new IllegalArgumentException("未知的输入类型: " + input);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < length; i++) {
+            double price = 8.0 + i * 0.001
+                    + Math.sin(i * 2 * Math.PI / 7) * 0.4
+                    + Math.sin(i * 2 * Math.PI / 30) * 0.8
+                    + random.nextGaussian() * 0.3;
+            prices[i] = Math.max(0.5, price);
+        }
+        return prices;
+    }
+
+    /**
+     * 从 2020-01-01 起逐日的数据点
+     */
+    static List<ExcelParser.DataPoint> dailyPoints(double[] prices) {
+        List<ExcelParser.DataPoint> points = new ArrayList<>(prices.length);
+        for (int i = 0; i < prices.length; i++) {
+            points.add(new ExcelParser.DataPoint(new Date(START_MILLIS + i * DAY_MILLIS), prices[i]));
+        }
+        return points;
+    }
+
+    /**
+     * 爬虫导出格式的 CSV（规格, 平均价, 发布日期），rows 行数据
+     * synthetic 轮流写三个规格，sample 只有一个规格
+     */
+    static byte[] csv(String input, int rows) {
+        double[] prices = prices(input, rows);
+        String[] specs = SAMPLE.equals(input) ? new String[] {"样例"} : new String[] {"一级", "二级", "统货"};
+        SimpleDateFormat format = dateFormat();
+        StringBuilder sb = new StringBuilder(rows * 32);
+        sb.append('\uFEFF').append("规格,平均价,发布日期\n");
+        for (int i = 0; i < rows; i++) {
+            sb.append(specs[i % specs.length]).append(',')
+                    .append(String.format(Locale.ROOT, "%.2f", prices[i])).append(',')
+                    .append(format.format(new Date(START_MILLIS + (i / specs.length) * DAY_MILLIS))).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 与样例文件相同格式的 xlsx（表头 + 字符串日期 + 数值价格），rows 行数据
+     */
+    static byte[] xlsx(String input, int rows) {
+        double[] prices = prices(input, rows);
+        SimpleDateFormat format = dateFormat();
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = workbook.createSheet("价格");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("日期");
+            header.createCell(1).setCellValue("价格");
+            for (int i = 0; i < rows; i++) {
+                Row row = sheet.createRow(i + 1);
+                row.createCell(0).setCellValue(format.format(new Date(START_MILLIS + i * DAY_MILLIS)));
+                row.createCell(1).setCellValue(Math.round(prices[i] * 100) / 100.0);
+            }
+            workbook.write(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static SimpleDateFormat dateFormat() {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format;
+    }
+
+    private static synchronized double[] samplePrices() {
+        if (samplePrices == null) {
+            Path file = sampleFile();
+            try (InputStream in = Files.newInputStream(file)) {
+                List<ExcelParser.DataPoint> points = new ExcelParser().parse(in, file.getFileName().toString());
+                samplePrices = points.stream().mapToDouble(ExcelParser.DataPoint::getPrice).toArray();
+            } catch (Exception e) {
+                throw new IllegalStateException("读取样例文件失败: " + file, e);
+            }
+        }
+        return samplePrices;
+    }
+
+    private static Path sampleFile() {
+        String configured = System.getProperty("benchmark.sample");
+        if (configured != null && !configured.isEmpty()) {
+            return Paths.get(configured);
+        }
+        // 在 farmer_happy_backend 目录下运行时样例文件在上一级
+        Path parent = Paths.get("..", SAMPLE_FILE);
+        return Files.exists(parent) ? parent : Paths.get(SAMPLE_FILE);
+    }
+}
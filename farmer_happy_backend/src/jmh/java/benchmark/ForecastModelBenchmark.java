@@ -0,0 +1,78 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import util.ARIMAModel;
+import util.HoltWintersModel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预测模型训练：ARIMAModel.train 与 HoltWintersModel.fit
+ *
+ * ARIMA 每次新建模型，与回测网格搜索中每个候选、每一折的用法一致；
+ * Holt-Winters 复用同一个模型实例（double[] 接口），另有 List 接口作对照。
+ * 配合 -prof gc 查看每次调用的分配量（gc.alloc.rate.norm）。
+ *
+ * 运行方式：mvn -Pbenchmark compile exec:exec -Djmh.args="ForecastModelBenchmark -f 1 -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ForecastModelBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int length;
+
+    @Param({BenchmarkData.SYNTHETIC, BenchmarkData.SAMPLE})
+    public String input;
+
+    private final ARIMAModel.ARIMAParams arima = new ARIMAModel.ARIMAParams(2, 1, 1);
+    private final ARIMAModel.ARIMAParams sarima = new ARIMAModel.ARIMAParams(1, 1, 1, 0, 1, 0, 7);
+    private final HoltWintersModel holtWinters = new HoltWintersModel();
+
+    private double[] prices;
+    private List<Double> boxedPrices;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        prices = BenchmarkData.prices(input, length);
+        boxedPrices = new ArrayList<>(length);
+        for (double price : prices) {
+            boxedPrices.add(price);
+        }
+    }
+
+    @Benchmark
+    public ARIMAModel arimaTrain() {
+        ARIMAModel model = new ARIMAModel();
+        model.train(prices, length, arima, null);
+        return model;
+    }
+
+    @Benchmark
+    public ARIMAModel sarimaTrain() {
+        ARIMAModel model = new ARIMAModel();
+        model.train(prices, length, sarima, null);
+        return model;
+    }
+
+    @Benchmark
+    public HoltWintersModel.FitResult holtWintersFit() {
+        return holtWinters.fit(prices, length, 7, 0.3, 0.1, 0.1, 0.98, 1.0);
+    }
+
+    @Benchmark
+    public HoltWintersModel.FitResult holtWintersFitList() {
+        return holtWinters.fit(boxedPrices, 7, 0.3, 0.1, 0.1, 0.98, 1.0);
+    }
+}
@@ -0,0 +1,160 @@
+package benchmark;
+
+import config.JsonSerializerConfig;
+import dto.buyer.OrderListItemDTO;
+import dto.buyer.OrderListResponseDTO;
+import dto.farmer.ProductListResponseDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import util.JsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应序列化对比：原字符串拼接实现 vs 流式 JsonWriter
+ *
+ * 负载与 ProductController / OrderController 的列表接口一致（code、message、data）。
+ * legacy 组包含原实现的 toJson + getBytes；streaming 组写入一个丢弃字节的输出流，
+ * 对应真实请求中直接写入 HttpExchange 响应流的开销。
+ *
+ * 运行方式：mvn -Pbenchmark compile exec:exec -Djmh.args="JsonWriterBenchmark -f 1 -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonWriterBenchmark {
+
+    @Param({"20", "200", "2000"})
+    public int size;
+
+    private Map<String, Object> productResponse;
+    private Map<String, Object> orderResponse;
+    private LegacyJsonSerializer legacy;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        JsonSerializerConfig.registerAll();
+        legacy = new LegacyJsonSerializer();
+
+        List<ProductListResponseDTO> products = new ArrayList<>(size);
+        List<OrderListItemDTO> orders = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ProductListResponseDTO product = new ProductListResponseDTO();
+            product.setProduct_id("P" + (100000 + i));
+            product.setTitle("山东烟台红富士苹果 " + i + " 号果园");
+            product.setPrice(12.5 + i % 50);
+            product.setStock(100 + i);
+            product.setStatus("on_shelf");
+            product.setMain_image_url("/uploads/products/" + i + "/main.jpg");
+            product.setDetailed_description("果径80mm以上，脆甜多汁，\"产地直发\"，坏果包赔。\n第" + i + "批次");
+            product.setImages(Arrays.asList("/uploads/products/" + i + "/1.jpg", "/uploads/products/" + i + "/2.jpg"));
+            products.add(product);
+
+            OrderListItemDTO order = new OrderListItemDTO();
+            order.setOrderId("ORD20240101" + (100000 + i));
+            order.setProductId("P" + (100000 + i));
+            order.setTitle("山东烟台红富士苹果 " + i + " 号果园");
+            order.setQuantity(1 + i % 5);
+            order.setTotalAmount(new BigDecimal("25.00").add(BigDecimal.valueOf(i)));
+            order.setStatus("pending_shipment");
+            order.setCreatedAt("2024-01-01 10:00:00");
+            order.setMainImageUrl("/uploads/products/" + i + "/main.jpg");
+            orders.add(order);
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("list", products);
+        productResponse = new HashMap<>();
+        productResponse.put("code", 200);
+        productResponse.put("message", "成功");
+        productResponse.put("data", data);
+
+        orderResponse = new HashMap<>();
+        orderResponse.put("code", 200);
+        orderResponse.put("message", "成功");
+        orderResponse.put("data", new OrderListResponseDTO(orders));
+
+        // 两种实现的输出必须一致，否则对比没有意义
+        if (!legacy.toJson(productResponse).equals(JsonWriter.toJson(productResponse))
+                || !legacy.toJson(orderResponse).equals(JsonWriter.toJson(orderResponse))) {
+            throw new IllegalStateException("JsonWriter 输出与原实现不一致");
+        }
+    }
+
+    @Benchmark
+    public byte[] legacyProductList() {
+        return legacy.toJson(productResponse).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void streamingProductList(Blackhole bh) throws IOException {
+        stream(productResponse, bh);
+    }
+
+    @Benchmark
+    public byte[] legacyOrderList() {
+        return legacy.toJson(orderResponse).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void streamingOrderList(Blackhole bh) throws IOException {
+        stream(orderResponse, bh);
+    }
+
+    private static void stream(Object body, Blackhole bh) throws IOException {
+        JsonWriter writer = JsonWriter.acquire(new BlackholeSink(bh));
+        try {
+            writer.writeValue(body);
+            writer.finish();
+        } finally {
+            writer.release();
+        }
+    }
+
+    private static class BlackholeSink extends OutputStream implements JsonWriter.Sink {
+        private final Blackhole bh;
+
+        BlackholeSink(Blackhole bh) {
+            this.bh = bh;
+        }
+
+        @Override
+        public OutputStream open() {
+            return this;
+        }
+
+        @Override
+        public void complete(byte[] bytes, int length) {
+            bh.consume(bytes);
+            bh.consume(length);
+        }
+
+        @Override
+        public void write(int b) {
+            bh.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bh.consume(b);
+            bh.consume(len);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package benchmark;
+
+import dto.buyer.OrderListItemDTO;
+import dto.buyer.OrderListResponseDTO;
+import dto.farmer.ProductListResponseDTO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 原 application 中基于字符串拼接的序列化实现（仅保留商品列表和订单列表用到的部分），
+ * 作为 JsonWriterBenchmark 的对照组
+ */
+class LegacyJsonSerializer {
+
+    String toJson(Map<String, Object> map) {
+        if (map == null) {
+            return "null";
+        }
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            json.append("\"").append(entry.getKey()).append("\":");
+            json.append(serializeValue(entry.getValue()));
+            json.append(",");
+        }
+        if (json.length() > 1) json.deleteCharAt(json.length() - 1);
+        json.append("}");
+        return json.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private String serializeValue(Object value) {
+        if (value == null) {
+            return "null";
+        } else if (value instanceof String) {
+            return "\"" + escapeJsonString(value.toString()) + "\"";
+        } else if (value instanceof Number) {
+            return value.toString();
+        } else if (value instanceof Boolean) {
+            return value.toString();
+        } else if (value instanceof List) {
+            return serializeList((List<?>) value);
+        } else if (value instanceof Map) {
+            return toJson((Map<String, Object>) value);
+        } else if (value instanceof ProductListResponseDTO) {
+            return serializeProductListResponseDTO((ProductListResponseDTO) value);
+        } else if (value instanceof OrderListResponseDTO) {
+            return serializeOrderListResponseDTO((OrderListResponseDTO) value);
+        } else if (value instanceof OrderListItemDTO) {
+            return serializeOrderListItemDTO((OrderListItemDTO) value);
+        } else {
+            return "\"" + escapeJsonString(value.toString()) + "\"";
+        }
+    }
+
+    private String serializeList(List<?> list) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < list.size(); i++) {
+            json.append(serializeValue(list.get(i)));
+            if (i < list.size() - 1) {
+                json.append(",");
+            }
+        }
+        json.append("]");
+        return json.toString();
+    }
+
+    private String serializeProductListResponseDTO(ProductListResponseDTO dto) {
+        StringBuilder json = new StringBuilder("{");
+        if (dto.getProduct_id() != null) {
+            json.append("\"product_id\":\"").append(escapeJsonString(dto.getProduct_id())).append("\",");
+        }
+        if (dto.getTitle() != null) {
+            json.append("\"title\":\"").append(escapeJsonString(dto.getTitle())).append("\",");
+        }
+        json.append("\"price\":").append(dto.getPrice()).append(",");
+        json.append("\"stock\":").append(dto.getStock()).append(",");
+        if (dto.getStatus() != null) {
+            json.append("\"status\":\"").append(escapeJsonString(dto.getStatus())).append("\",");
+        }
+        if (dto.getMain_image_url() != null) {
+            json.append("\"main_image_url\":\"").append(escapeJsonString(dto.getMain_image_url())).append("\",");
+        }
+        if (dto.getDetailed_description() != null) {
+            json.append("\"detailed_description\":\"").append(escapeJsonString(dto.getDetailed_description())).append("\",");
+        }
+        if (dto.getImages() != null) {
+            json.append("\"images\":").append(serializeList(dto.getImages())).append(",");
+        }
+        if (json.length() > 1) {
+            json.deleteCharAt(json.length() - 1);
+        }
+        json.append("}");
+        return json.toString();
+    }
+
+    private String serializeOrderListItemDTO(OrderListItemDTO dto) {
+        StringBuilder json = new StringBuilder("{");
+        if (dto.getOrderId() != null) {
+            json.append("\"order_id\":\"").append(escapeJsonString(dto.getOrderId())).append("\",");
+        }
+        if (dto.getProductId() != null) {
+            json.append("\"product_id\":\"").append(escapeJsonString(dto.getProductId())).append("\",");
+        }
+        if (dto.getTitle() != null) {
+            json.append("\"title\":\"").append(escapeJsonString(dto.getTitle())).append("\",");
+        }
+        if (dto.getQuantity() != null) {
+            json.append("\"quantity\":").append(dto.getQuantity()).append(",");
+        }
+        if (dto.getTotalAmount() != null) {
+            json.append("\"total_amount\":").append(dto.getTotalAmount()).append(",");
+        }
+        if (dto.getStatus() != null) {
+            json.append("\"status\":\"").append(escapeJsonString(dto.getStatus())).append("\",");
+        }
+        if (dto.getCreatedAt() != null) {
+            json.append("\"created_at\":\"").append(escapeJsonString(dto.getCreatedAt())).append("\",");
+        }
+        if (dto.getMainImageUrl() != null) {
+            json.append("\"main_image_url\":\"").append(escapeJsonString(dto.getMainImageUrl())).append("\",");
+        }
+        if (json.length() > 1) {
+            json.deleteCharAt(json.length() - 1);
+        }
+        json.append("}");
+        return json.toString();
+    }
+
+    private String serializeOrderListResponseDTO(OrderListResponseDTO dto) {
+        StringBuilder json = new StringBuilder("{");
+        if (dto.getList() != null) {
+            json.append("\"list\":").append(serializeList(dto.getList())).append(",");
+        }
+        if (json.length() > 1) {
+            json.deleteCharAt(json.length() - 1);
+        }
+        json.append("}");
+        return json.toString();
+    }
+
+    private String escapeJsonString(String str) {
+        if (str == null) return "";
+        return str.replace("\\", "\\\\")
+                .replace("\"", "\\\"")
+                .replace("\b", "\\b")
+                .replace("\f", "\\f")
+                .replace("\n", "\\n")
+                .replace("\r", "\\r")
+                .replace("\t", "\\t");
+    }
+}
@@ -0,0 +1,57 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import util.CsvPriceParser;
+import util.ExcelParser;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上传文件解析：CsvPriceParser.parse 与 ExcelParser.parse
+ *
+ * 文件内容在 Setup 中生成到内存，测量的只有解析本身：
+ * CSV 为爬虫导出格式（规格, 平均价, 发布日期），xlsx 与样例文件格式相同（字符串日期 + 数值价格）。
+ *
+ * 运行方式：mvn -Pbenchmark compile exec:exec -Djmh.args="PriceParserBenchmark -f 1 -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PriceParserBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int rows;
+
+    @Param({BenchmarkData.SYNTHETIC, BenchmarkData.SAMPLE})
+    public String input;
+
+    private byte[] csv;
+    private byte[] xlsx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        csv = BenchmarkData.csv(input, rows);
+        xlsx = BenchmarkData.xlsx(input, rows);
+    }
+
+    @Benchmark
+    public Map<String, List<ExcelParser.DataPoint>> csvParse() throws Exception {
+        return new CsvPriceParser().parse(new ByteArrayInputStream(csv));
+    }
+
+    @Benchmark
+    public List<ExcelParser.DataPoint> excelParse() throws Exception {
+        return new ExcelParser().parse(new ByteArrayInputStream(xlsx), "upload.xlsx");
+    }
+}
@@ -0,0 +1,61 @@
+package benchmark;
+
+import dto.farmer.PricePredictionResponseDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import service.farmer.PricePredictionService;
+import service.farmer.UploadedSeriesStore;
+import util.ExcelParser;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 完整的价格预测请求：PricePredictionService.predict（预处理、ARIMA 网格搜索回测、预测 30 天、组装结果）
+ *
+ * 单个规格，序列放在上传序列存储中，与接口先上传再预测的流程一致；
+ * 使用与线上相同的默认配置（预测线程池、超时时间）。
+ *
+ * 运行方式：mvn -Pbenchmark compile exec:exec -Djmh.args="PricePredictionBenchmark -f 1 -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PricePredictionBenchmark {
+
+    private static final int PREDICTION_DAYS = 30;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int length;
+
+    @Param({BenchmarkData.SYNTHETIC, BenchmarkData.SAMPLE})
+    public String input;
+
+    private PricePredictionService service;
+    private String fileId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<ExcelParser.DataPoint> points = BenchmarkData.dailyPoints(BenchmarkData.prices(input, length));
+        Map<String, List<ExcelParser.DataPoint>> series = new HashMap<>();
+        series.put("默认", points);
+        fileId = UUID.randomUUID().toString();
+        UploadedSeriesStore.getInstance().put(fileId, series);
+        service = new PricePredictionService();
+    }
+
+    @Benchmark
+    public PricePredictionResponseDTO predict() {
+        return service.predict(fileId, PREDICTION_DAYS, "timeseries");
+    }
+}
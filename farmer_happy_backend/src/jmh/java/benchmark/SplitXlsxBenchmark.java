@@ -0,0 +1,62 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import service.crawler.SplitXlsxWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拆分文件导出 xlsx：SplitXlsxWriter.convertSplitCsv，对比 XSSFWorkbook（内存中构建完整工作簿）与 SXSSF 流式写出
+ *
+ * 输入是一个品种的拆分 CSV（规格, 平均价, 发布日期），在 Setup 中写到临时目录；每次调用覆盖写同一个 xlsx 文件。
+ *
+ * 运行方式：mvn -Pbenchmark compile exec:exec -Djmh.args="SplitXlsxBenchmark -f 1 -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SplitXlsxBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    @Param({"xssf", "sxssf"})
+    public String writer;
+
+    private Path dir;
+    private Path csvFile;
+    private Path xlsxFile;
+    private SplitXlsxWriter xlsxWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("split-xlsx-bench");
+        csvFile = Files.write(dir.resolve("bench.csv"), BenchmarkData.csv(BenchmarkData.SYNTHETIC, rows));
+        xlsxFile = dir.resolve("bench.xlsx");
+        xlsxWriter = new SplitXlsxWriter("sxssf".equals(writer));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+        Files.deleteIfExists(xlsxFile);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public boolean convert() throws IOException {
+        return xlsxWriter.convertSplitCsv(csvFile, xlsxFile);
+    }
+}
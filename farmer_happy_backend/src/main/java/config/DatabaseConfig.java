@@ -98,8 +98,82 @@ public class DatabaseConfig {
         return properties.getProperty("db.driver", "com.mysql.cj.jdbc.Driver");
     }
     
+    /**
+     * 完整连接地址；开启服务端预编译，配合连接池的语句缓存避免每次请求重复解析SQL
+     */
     public String getFullUrl() {
-        return getUrl() + getDatabaseName();
+        String url = getUrl() + getDatabaseName();
+        if (isServerPrepStmtsEnabled() && !url.contains("useServerPrepStmts")) {
+            url += (url.contains("?") ? "&" : "?") + "useServerPrepStmts=true";
+        }
+        return url;
+    }
+    
+    public boolean isServerPrepStmtsEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("db.server.prep.stmts", "true"));
+    }
+    
+    /**
+     * 每个连接缓存的 PreparedStatement 数量（LRU 淘汰），0 表示关闭缓存
+     */
+    public int getStatementCacheSize() {
+        return Integer.parseInt(properties.getProperty("db.statement.cache.size", "64"));
+    }
+    
+    /**
+     * 是否按调用方法统计连接持有时长（用于指标接口）
+     */
+    public boolean isOperationMetricsEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("db.pool.operation.metrics", "true"));
+    }
+    
+    /**
+     * 用户身份缓存最多缓存的用户数，0 表示关闭缓存
+     */
+    public int getUserIdentityCacheMaxSize() {
+        return Integer.parseInt(properties.getProperty("db.user.cache.max.size", "10000"));
+    }
+    
+    /**
+     * 用户身份缓存条目的存活时间（秒）
+     */
+    public long getUserIdentityCacheTtlSeconds() {
+        return Long.parseLong(properties.getProperty("db.user.cache.ttl.seconds", "60"));
+    }
+    
+    /**
+     * 是否在内存中预占下单库存并批量回写（仅适用于单实例部署）
+     */
+    public boolean isInventoryReservationEnabled() {
+        return Boolean.parseBoolean(properties.getProperty("db.inventory.reservation.enabled", "false"));
+    }
+    
+    /**
+     * 每个商品的库存计数分段数
+     */
+    public int getInventoryStripes() {
+        return Integer.parseInt(properties.getProperty("db.inventory.stripes", "8"));
+    }
+    
+    /**
+     * 库存扣减回写到商品表的间隔（毫秒）
+     */
+    public long getInventoryFlushIntervalMillis() {
+        return Long.parseLong(properties.getProperty("db.inventory.flush.interval.ms", "200"));
+    }
+    
+    /**
+     * 单个回写事务最多包含的订单数
+     */
+    public int getInventoryFlushBatchSize() {
+        return Integer.parseInt(properties.getProperty("db.inventory.flush.batch.size", "500"));
+    }
+    
+    /**
+     * 浏览量、评论数写缓冲的写库间隔（毫秒），0 表示每次直接写库
+     */
+    public long getCounterFlushIntervalMillis() {
+        return Long.parseLong(properties.getProperty("db.counter.flush.interval.ms", "1000"));
     }
     
     public int getMaxConnections() {
@@ -114,6 +188,41 @@ public class DatabaseConfig {
         return Integer.parseInt(properties.getProperty("db.connection.timeout", "30000"));
     }
     
+    /**
+     * 空闲连接回收时间（毫秒），超过最小连接数的空闲连接会被关闭，0 表示不回收
+     */
+    public long getIdleTimeout() {
+        return Long.parseLong(properties.getProperty("db.pool.idle.timeout", "600000"));
+    }
+    
+    /**
+     * 连接最长存活时间（毫秒），应小于 MySQL 的 wait_timeout，0 表示不限制
+     */
+    public long getMaxLifetime() {
+        return Long.parseLong(properties.getProperty("db.pool.max.lifetime", "1800000"));
+    }
+    
+    /**
+     * 连接泄漏检测阈值（毫秒），借出超过该时间未归还会打印借出位置，0 表示关闭检测
+     */
+    public long getLeakDetectionThreshold() {
+        return Long.parseLong(properties.getProperty("db.pool.leak.detection.threshold", "60000"));
+    }
+    
+    /**
+     * 借出连接时有效性校验的超时时间（秒）
+     */
+    public int getValidationTimeout() {
+        return Integer.parseInt(properties.getProperty("db.pool.validation.timeout", "3"));
+    }
+    
+    /**
+     * 连接池后台维护任务的执行间隔（毫秒）
+     */
+    public long getHousekeepingInterval() {
+        return Long.parseLong(properties.getProperty("db.pool.housekeeping.interval", "30000"));
+    }
+    
     /**
      * 重新加载配置文件
      */
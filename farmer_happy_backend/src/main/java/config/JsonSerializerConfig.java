@@ -0,0 +1,648 @@
+// src/main/java/config/JsonSerializerConfig.java
+package config;
+
+import dto.auth.AuthResponseDTO;
+import dto.bank.LoanApprovalResponseDTO;
+import dto.bank.LoanDisbursementResponseDTO;
+import dto.buyer.*;
+import dto.community.*;
+import dto.crawler.PriceCrawlResponseDTO;
+import dto.expert.AppointmentCreateResponseDTO;
+import dto.expert.AppointmentDecisionResponseDTO;
+import dto.farmer.PricePredictionResponseDTO;
+import dto.farmer.ProductBatchActionResultDTO;
+import dto.farmer.ProductDetailResponseDTO;
+import dto.farmer.ProductListResponseDTO;
+import dto.farmer.ProductResponseDTO;
+import dto.farmer.ProductStatusUpdateResponseDTO;
+import dto.financing.*;
+import util.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * 响应 DTO 的 JSON 序列化器注册表
+ *
+ * 每个 DTO 一个写出方法，启动时通过 {@link #registerAll()} 注册到 {@link JsonWriter}。
+ * 字段名、顺序以及“值为 null 时省略字段”的规则与原先 application 中的拼接实现保持一致。
+ */
+public final class JsonSerializerConfig {
+
+    private static volatile boolean registered;
+
+    private JsonSerializerConfig() {
+    }
+
+    /**
+     * 注册所有响应 DTO 的序列化器，重复调用无副作用
+     */
+    public static synchronized void registerAll() {
+        if (registered) {
+            return;
+        }
+        // 认证
+        JsonWriter.register(AuthResponseDTO.class, JsonSerializerConfig::writeAuthResponse);
+
+        // 农户商品
+        JsonWriter.register(ProductResponseDTO.class, JsonSerializerConfig::writeProductResponse);
+        JsonWriter.register(ProductStatusUpdateResponseDTO.class, JsonSerializerConfig::writeProductStatusUpdateResponse);
+        JsonWriter.register(ProductDetailResponseDTO.class, JsonSerializerConfig::writeProductDetailResponse);
+        JsonWriter.register(ProductListResponseDTO.class, JsonSerializerConfig::writeProductListResponse);
+        JsonWriter.register(ProductBatchActionResultDTO.class, JsonSerializerConfig::writeProductBatchActionResult);
+        JsonWriter.register(ProductBatchActionResultDTO.BatchActionResultItem.class, JsonSerializerConfig::writeBatchActionResultItem);
+        JsonWriter.register(PricePredictionResponseDTO.class, JsonSerializerConfig::writePricePredictionResponse);
+        JsonWriter.register(PriceCrawlResponseDTO.class, JsonSerializerConfig::writePriceCrawlResponse);
+
+        // 社区
+        JsonWriter.register(PublishContentResponseDTO.class, JsonSerializerConfig::writePublishContentResponse);
+        JsonWriter.register(ContentListResponseDTO.class, JsonSerializerConfig::writeContentListResponse);
+        JsonWriter.register(ContentListItemDTO.class, JsonSerializerConfig::writeContentListItem);
+        JsonWriter.register(ContentDetailResponseDTO.class, JsonSerializerConfig::writeContentDetailResponse);
+        JsonWriter.register(PostCommentResponseDTO.class, JsonSerializerConfig::writePostCommentResponse);
+        JsonWriter.register(PostReplyResponseDTO.class, JsonSerializerConfig::writePostReplyResponse);
+        JsonWriter.register(CommentListResponseDTO.class, JsonSerializerConfig::writeCommentListResponse);
+        JsonWriter.register(CommentItemDTO.class, JsonSerializerConfig::writeCommentItem);
+        JsonWriter.register(CommentReplyItemDTO.class, JsonSerializerConfig::writeCommentReplyItem);
+
+        // 订单
+        JsonWriter.register(CreateOrderResponseDTO.class, JsonSerializerConfig::writeCreateOrderResponse);
+        JsonWriter.register(UpdateOrderResponseDTO.class, JsonSerializerConfig::writeUpdateOrderResponse);
+        JsonWriter.register(OrderDetailResponseDTO.class, JsonSerializerConfig::writeOrderDetailResponse);
+        JsonWriter.register(OrderListResponseDTO.class, JsonSerializerConfig::writeOrderListResponse);
+        JsonWriter.register(OrderListItemDTO.class, JsonSerializerConfig::writeOrderListItem);
+        JsonWriter.register(RefundResponseDTO.class, JsonSerializerConfig::writeRefundResponse);
+        JsonWriter.register(ConfirmReceiptResponseDTO.class, JsonSerializerConfig::writeConfirmReceiptResponse);
+
+        // 融资
+        JsonWriter.register(BankLoanProductResponseDTO.class, JsonSerializerConfig::writeBankLoanProductResponse);
+        JsonWriter.register(LoanProductsResponseDTO.class, JsonSerializerConfig::writeLoanProductsResponse);
+        JsonWriter.register(LoanProductDTO.class, JsonSerializerConfig::writeLoanProduct);
+        JsonWriter.register(CreditLimitDTO.class, JsonSerializerConfig::writeCreditLimit);
+        JsonWriter.register(CreditApplicationDTO.class, JsonSerializerConfig::writeCreditApplication);
+        JsonWriter.register(SingleLoanApplicationResponseDTO.class, JsonSerializerConfig::writeSingleLoanApplicationResponse);
+        JsonWriter.register(JointLoanApplicationResponseDTO.class, JsonSerializerConfig::writeJointLoanApplicationResponse);
+        JsonWriter.register(JointPartnerDTO.class, JsonSerializerConfig::writeJointPartner);
+        JsonWriter.register(PartnersResponseDTO.class, JsonSerializerConfig::writePartnersResponse);
+        JsonWriter.register(PartnerItemDTO.class, JsonSerializerConfig::writePartnerItem);
+        JsonWriter.register(SmartLoanRecommendationResponseDTO.class, JsonSerializerConfig::writeSmartLoanRecommendationResponse);
+        JsonWriter.register(LoanApprovalResponseDTO.class, JsonSerializerConfig::writeLoanApprovalResponse);
+        JsonWriter.register(LoanDisbursementResponseDTO.class, JsonSerializerConfig::writeLoanDisbursementResponse);
+        JsonWriter.register(RepaymentScheduleResponseDTO.class, JsonSerializerConfig::writeRepaymentScheduleResponse);
+        JsonWriter.register(RepaymentScheduleResponseDTO.DueInfo.class, JsonSerializerConfig::writeDueInfo);
+        JsonWriter.register(RepaymentScheduleResponseDTO.PaymentInfo.class, JsonSerializerConfig::writePaymentInfo);
+        JsonWriter.register(RepaymentScheduleResponseDTO.SummaryInfo.class, JsonSerializerConfig::writeSummaryInfo);
+        JsonWriter.register(RepaymentResponseDTO.class, JsonSerializerConfig::writeRepaymentResponse);
+
+        // 专家预约
+        JsonWriter.register(AppointmentCreateResponseDTO.class, JsonSerializerConfig::writeAppointmentCreateResponse);
+        JsonWriter.register(AppointmentDecisionResponseDTO.class, JsonSerializerConfig::writeAppointmentDecisionResponse);
+        registered = true;
+    }
+
+    // 值为 null 时写出 null 而不是省略字段
+    private static void stringOrNull(JsonWriter out, String name, Object value) throws IOException {
+        out.name(name).value(value != null ? value.toString() : null);
+    }
+
+    // ============= 认证 =============
+
+    private static void writeAuthResponse(JsonWriter out, AuthResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("uid", dto.getUid());
+        out.stringField("nickname", dto.getNickname());
+        out.stringField("phone", dto.getPhone());
+        out.stringField("userType", dto.getUserType());
+        out.stringField("token", dto.getToken());
+        out.endObject();
+    }
+
+    // ============= 农户商品 =============
+
+    private static void writeProductListResponse(JsonWriter out, ProductListResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("product_id", dto.getProduct_id());
+        out.stringField("title", dto.getTitle());
+        out.name("price").value(dto.getPrice());
+        out.name("stock").value(dto.getStock());
+        out.stringField("status", dto.getStatus());
+        out.stringField("main_image_url", dto.getMain_image_url());
+        out.stringField("detailed_description", dto.getDetailed_description());
+        out.valueField("images", dto.getImages());
+        out.endObject();
+    }
+
+    private static void writeProductResponse(JsonWriter out, ProductResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("product_id", dto.getProduct_id());
+        out.stringField("title", dto.getTitle());
+        out.stringField("detailed_description", dto.getDetailedDescription());
+        out.name("price").value(dto.getPrice());
+        out.name("stock").value(dto.getStock());
+        out.valueField("images", dto.getImages());
+        out.stringField("status", dto.getStatus());
+        out.stringField("created_at", dto.getCreated_at());
+        out.valueField("_links", dto.get_links());
+        out.endObject();
+    }
+
+    private static void writeProductStatusUpdateResponse(JsonWriter out, ProductStatusUpdateResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("product_id", dto.getProduct_id());
+        out.stringField("status", dto.getStatus());
+        out.endObject();
+    }
+
+    private static void writeProductDetailResponse(JsonWriter out, ProductDetailResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("product_id", dto.getProduct_id());
+        out.stringField("title", dto.getTitle());
+        out.stringField("detailed_description", dto.getDetailedDescription());
+        out.name("price").value(dto.getPrice());
+        out.name("stock").value(dto.getStock());
+        out.stringField("description", dto.getDescription());
+        out.valueField("images", dto.getImages());
+        out.stringField("origin", dto.getOrigin());
+        out.stringField("status", dto.getStatus());
+        out.stringField("created_at", dto.getCreated_at());
+        out.stringField("updated_at", dto.getUpdated_at());
+        out.endObject();
+    }
+
+    private static void writeProductBatchActionResult(JsonWriter out, ProductBatchActionResultDTO dto) throws IOException {
+        out.beginObject();
+        out.name("success_count").value(dto.getSuccess_count());
+        out.name("failure_count").value(dto.getFailure_count());
+        out.valueField("results", dto.getResults());
+        out.endObject();
+    }
+
+    private static void writeBatchActionResultItem(JsonWriter out, ProductBatchActionResultDTO.BatchActionResultItem dto) throws IOException {
+        out.beginObject();
+        out.stringField("product_id", dto.getProduct_id());
+        out.name("success").value(dto.isSuccess());
+        out.stringField("message", dto.getMessage());
+        out.valueField("_links", dto.get_links());
+        out.endObject();
+    }
+
+    private static void writePricePredictionResponse(JsonWriter out, PricePredictionResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.valueField("historical_data", dto.getHistoricalData());
+        out.valueField("predicted_data", dto.getPredictedData());
+        out.valueField("series_data", dto.getSeriesData());
+        out.valueField("model_metrics", dto.getModelMetrics());
+        out.stringField("trend", dto.getTrend());
+        // 始终包含calculation_details字段，为null时序列化为空对象
+        out.name("calculation_details");
+        if (dto.getCalculationDetails() != null) {
+            out.writeMap(dto.getCalculationDetails());
+        } else {
+            out.beginObject().endObject();
+        }
+        out.endObject();
+    }
+
+    private static void writePriceCrawlResponse(JsonWriter out, PriceCrawlResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("file_name", dto.getFile_name());
+        out.endObject();
+    }
+
+    // ============= 社区 =============
+
+    private static void writePublishContentResponse(JsonWriter out, PublishContentResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("content_id", dto.getContentId());
+        out.stringField("content_type", dto.getContentType());
+        out.stringField("created_at", dto.getCreatedAt());
+        out.endObject();
+    }
+
+    private static void writeContentListItem(JsonWriter out, ContentListItemDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("content_id", dto.getContentId());
+        out.stringField("title", dto.getTitle());
+        out.stringField("content", dto.getContent());
+        out.stringField("content_type", dto.getContentType());
+        out.valueField("images", dto.getImages());
+        out.stringField("author_name", dto.getAuthorName());
+        out.stringField("author_role", dto.getAuthorRole());
+        out.name("view_count").value(dto.getViewCount());
+        out.name("comment_count").value(dto.getCommentCount());
+        out.stringField("created_at", dto.getCreatedAt());
+        out.endObject();
+    }
+
+    private static void writeContentListResponse(JsonWriter out, ContentListResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.name("total").value(dto.getTotal());
+        out.valueField("list", dto.getList());
+        if (dto.isPaged()) {
+            stringOrNull(out, "next_cursor", dto.getNextCursor());
+            out.name("has_more").value(dto.isHasMore());
+        }
+        out.endObject();
+    }
+
+    private static void writeContentDetailResponse(JsonWriter out, ContentDetailResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("content_id", dto.getContentId());
+        out.stringField("title", dto.getTitle());
+        out.stringField("content", dto.getContent());
+        out.stringField("content_type", dto.getContentType());
+        out.valueField("images", dto.getImages());
+        out.stringField("created_at", dto.getCreatedAt());
+        out.stringField("author_user_id", dto.getAuthorUserId());
+        out.stringField("author_nickname", dto.getAuthorNickname());
+        out.stringField("author_role", dto.getAuthorRole());
+        out.name("view_count").value(dto.getViewCount());
+        out.name("comment_count").value(dto.getCommentCount());
+        out.endObject();
+    }
+
+    private static void writePostCommentResponse(JsonWriter out, PostCommentResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("comment_id", dto.getCommentId());
+        out.stringField("created_at", dto.getCreatedAt());
+        out.endObject();
+    }
+
+    private static void writePostReplyResponse(JsonWriter out, PostReplyResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("comment_id", dto.getCommentId());
+        out.stringField("parent_comment_id", dto.getParentCommentId());
+        out.stringField("created_at", dto.getCreatedAt());
+        out.endObject();
+    }
+
+    private static void writeCommentReplyItem(JsonWriter out, CommentReplyItemDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("comment_id", dto.getCommentId());
+        out.stringField("author_user_id", dto.getAuthorUserId());
+        out.stringField("author_nickname", dto.getAuthorNickname());
+        out.stringField("author_role", dto.getAuthorRole());
+        out.stringField("reply_to_user_id", dto.getReplyToUserId());
+        out.stringField("reply_to_nickname", dto.getReplyToNickname());
+        out.stringField("content", dto.getContent());
+        out.stringField("created_at", dto.getCreatedAt());
+        out.endObject();
+    }
+
+    private static void writeCommentItem(JsonWriter out, CommentItemDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("comment_id", dto.getCommentId());
+        out.stringField("author_user_id", dto.getAuthorUserId());
+        out.stringField("author_nickname", dto.getAuthorNickname());
+        out.stringField("author_role", dto.getAuthorRole());
+        out.stringField("content", dto.getContent());
+        out.stringField("created_at", dto.getCreatedAt());
+        out.valueField("replies", dto.getReplies());
+        out.endObject();
+    }
+
+    private static void writeCommentListResponse(JsonWriter out, CommentListResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.name("total_comments").value(dto.getTotalComments());
+        out.valueField("list", dto.getList());
+        if (dto.isPaged()) {
+            stringOrNull(out, "next_cursor", dto.getNextCursor());
+            out.name("has_more").value(dto.isHasMore());
+        }
+        out.endObject();
+    }
+
+    // ============= 订单 =============
+
+    private static void writeCreateOrderResponse(JsonWriter out, CreateOrderResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("order_id", dto.getOrderId());
+        out.stringField("product_id", dto.getProductId());
+        out.stringField("title", dto.getTitle());
+        out.numberField("price", dto.getPrice());
+        out.numberField("quantity", dto.getQuantity());
+        out.numberField("total_amount", dto.getTotalAmount());
+        out.stringField("buyer_name", dto.getBuyerName());
+        out.stringField("buyer_address", dto.getBuyerAddress());
+        out.stringField("buyer_phone", dto.getBuyerPhone());
+        out.stringField("status", dto.getStatus());
+        out.stringField("created_at", dto.getCreatedAt());
+        out.valueField("_links", dto.getLinks());
+        out.endObject();
+    }
+
+    private static void writeUpdateOrderResponse(JsonWriter out, UpdateOrderResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("order_id", dto.getOrderId());
+        out.stringField("buyer_name", dto.getBuyerName());
+        out.stringField("buyer_address", dto.getBuyerAddress());
+        out.stringField("buyer_phone", dto.getBuyerPhone());
+        out.stringField("remark", dto.getRemark());
+        out.stringField("status", dto.getStatus());
+        out.stringField("updated_at", dto.getUpdatedAt());
+        out.valueField("_links", dto.getLinks());
+        out.endObject();
+    }
+
+    private static void writeOrderDetailResponse(JsonWriter out, OrderDetailResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("order_id", dto.getOrderId());
+        out.stringField("product_id", dto.getProductId());
+        out.stringField("title", dto.getTitle());
+        out.stringField("specification", dto.getSpecification());
+        out.numberField("price", dto.getPrice());
+        out.numberField("quantity", dto.getQuantity());
+        out.numberField("total_amount", dto.getTotalAmount());
+        out.stringField("buyer_name", dto.getBuyerName());
+        out.stringField("buyer_address", dto.getBuyerAddress());
+        out.stringField("buyer_phone", dto.getBuyerPhone());
+        out.stringField("status", dto.getStatus());
+        out.stringField("remark", dto.getRemark());
+        out.stringField("created_at", dto.getCreatedAt());
+        stringOrNull(out, "shipped_at", dto.getShippedAt());
+        stringOrNull(out, "completed_at", dto.getCompletedAt());
+        stringOrNull(out, "cancelled_at", dto.getCancelledAt());
+        stringOrNull(out, "refunded_at", dto.getRefundedAt());
+        out.valueField("images", dto.getImages());
+        out.valueField("_links", dto.getLinks());
+        out.endObject();
+    }
+
+    private static void writeOrderListItem(JsonWriter out, OrderListItemDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("order_id", dto.getOrderId());
+        out.stringField("product_id", dto.getProductId());
+        out.stringField("title", dto.getTitle());
+        out.numberField("quantity", dto.getQuantity());
+        out.numberField("total_amount", dto.getTotalAmount());
+        out.stringField("status", dto.getStatus());
+        out.stringField("created_at", dto.getCreatedAt());
+        out.stringField("main_image_url", dto.getMainImageUrl());
+        out.endObject();
+    }
+
+    private static void writeOrderListResponse(JsonWriter out, OrderListResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.valueField("list", dto.getList());
+        if (dto.isPaged()) {
+            stringOrNull(out, "next_cursor", dto.getNextCursor());
+            out.name("has_more").value(dto.isHasMore());
+        }
+        out.endObject();
+    }
+
+    private static void writeRefundResponse(JsonWriter out, RefundResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("order_id", dto.getOrderId());
+        out.stringField("refund_type", dto.getRefundType());
+        out.numberField("refund_amount", dto.getRefundAmount());
+        out.stringField("refund_reason", dto.getRefundReason());
+        out.stringField("status", dto.getStatus());
+        out.stringField("applied_at", dto.getAppliedAt());
+        out.valueField("_links", dto.getLinks());
+        out.endObject();
+    }
+
+    private static void writeConfirmReceiptResponse(JsonWriter out, ConfirmReceiptResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("order_id", dto.getOrderId());
+        out.stringField("status", dto.getStatus());
+        out.stringField("completed_at", dto.getCompletedAt());
+        out.valueField("_links", dto.getLinks());
+        out.endObject();
+    }
+
+    // ============= 融资 =============
+
+    private static void writeBankLoanProductResponse(JsonWriter out, BankLoanProductResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("product_id", dto.getProduct_id());
+        out.stringField("product_code", dto.getProduct_code());
+        out.stringField("status", dto.getStatus());
+        out.stringField("created_at", dto.getCreated_at());
+        out.stringField("created_by", dto.getCreated_by());
+        out.endObject();
+    }
+
+    private static void writeLoanProductsResponse(JsonWriter out, LoanProductsResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.name("total").value(dto.getTotal());
+        out.valueField("available_products", dto.getAvailable_products());
+        out.endObject();
+    }
+
+    private static void writeCreditLimit(JsonWriter out, CreditLimitDTO dto) throws IOException {
+        out.beginObject();
+        out.numberField("total_limit", dto.getTotal_limit());
+        out.numberField("used_limit", dto.getUsed_limit());
+        out.numberField("available_limit", dto.getAvailable_limit());
+        out.stringField("currency", dto.getCurrency());
+        out.stringField("status", dto.getStatus());
+        stringOrNull(out, "last_updated", dto.getLast_updated());
+        out.endObject();
+    }
+
+    private static void writeCreditApplication(JsonWriter out, CreditApplicationDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("application_id", dto.getApplication_id());
+        out.stringField("status", dto.getStatus());
+        out.stringField("created_at", dto.getCreated_at());
+        out.numberField("apply_amount", dto.getApply_amount());
+        out.stringField("proof_type", dto.getProof_type());
+        out.valueField("proof_images", dto.getProof_images());
+        out.stringField("description", dto.getDescription());
+        out.endObject();
+    }
+
+    private static void writeLoanProduct(JsonWriter out, LoanProductDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("product_id", dto.getProduct_id());
+        out.stringField("product_name", dto.getProduct_name());
+        out.stringField("product_code", dto.getProduct_code());
+        out.numberField("min_credit_limit", dto.getMin_credit_limit());
+        out.numberField("max_amount", dto.getMax_amount());
+        out.numberField("interest_rate", dto.getInterest_rate());
+        out.numberField("term_months", dto.getTerm_months());
+        out.stringField("repayment_method", dto.getRepayment_method());
+        out.stringField("repayment_method_name", dto.getRepayment_method_name());
+        out.stringField("description", dto.getDescription());
+        out.stringField("status", dto.getStatus());
+        out.valueField("can_apply", dto.getCan_apply());
+        out.stringField("reason", dto.getReason());
+        out.numberField("max_apply_amount", dto.getMax_apply_amount());
+        out.endObject();
+    }
+
+    private static void writeSingleLoanApplicationResponse(JsonWriter out, SingleLoanApplicationResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("loan_application_id", dto.getLoan_application_id());
+        out.stringField("status", dto.getStatus());
+        out.stringField("product_name", dto.getProduct_name());
+        out.numberField("apply_amount", dto.getApply_amount());
+        out.numberField("estimated_monthly_payment", dto.getEstimated_monthly_payment());
+        out.stringField("created_at", dto.getCreated_at());
+        out.endObject();
+    }
+
+    private static void writeJointLoanApplicationResponse(JsonWriter out, JointLoanApplicationResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("loan_application_id", dto.getLoan_application_id());
+        out.stringField("status", dto.getStatus());
+        out.stringField("product_name", dto.getProduct_name());
+        out.numberField("apply_amount", dto.getApply_amount());
+        out.stringField("initiator_phone", dto.getInitiator_phone());
+        out.valueField("partners", dto.getPartners());
+        out.stringField("created_at", dto.getCreated_at());
+        out.stringField("next_step", dto.getNext_step());
+        out.endObject();
+    }
+
+    private static void writeJointPartner(JsonWriter out, JointPartnerDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("phone", dto.getPhone());
+        out.stringField("status", dto.getStatus());
+        out.stringField("invited_at", dto.getInvited_at());
+        out.endObject();
+    }
+
+    private static void writePartnersResponse(JsonWriter out, PartnersResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.name("total").value(dto.getTotal());
+        out.valueField("partners", dto.getPartners());
+        out.stringField("recommendation_reason", dto.getRecommendation_reason());
+        out.endObject();
+    }
+
+    private static void writePartnerItem(JsonWriter out, PartnerItemDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("phone", dto.getPhone());
+        out.stringField("nickname", dto.getNickname());
+        out.numberField("available_credit_limit", dto.getAvailable_credit_limit());
+        out.numberField("total_credit_limit", dto.getTotal_credit_limit());
+        out.endObject();
+    }
+
+    private static void writeSmartLoanRecommendationResponse(JsonWriter out, SmartLoanRecommendationResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("recommendation_type", dto.getRecommendation_type());
+        out.stringField("recommendation_reason", dto.getRecommendation_reason());
+        out.numberField("user_available_limit", dto.getUser_available_limit());
+        out.numberField("apply_amount", dto.getApply_amount());
+        out.name("can_apply_single").value(dto.isCan_apply_single());
+        out.name("can_apply_joint").value(dto.isCan_apply_joint());
+        out.valueField("recommended_partners", dto.getRecommended_partners());
+        out.endObject();
+    }
+
+    private static void writeLoanApprovalResponse(JsonWriter out, LoanApprovalResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("application_id", dto.getApplication_id());
+        out.stringField("status", dto.getStatus());
+        out.numberField("approved_amount", dto.getApproved_amount());
+        out.stringField("approved_by", dto.getApproved_by());
+        out.stringField("approved_at", dto.getApproved_at());
+        out.stringField("next_step", dto.getNext_step());
+        out.stringField("reject_reason", dto.getReject_reason());
+        out.stringField("rejected_by", dto.getRejected_by());
+        out.stringField("rejected_at", dto.getRejected_at());
+        out.endObject();
+    }
+
+    private static void writeLoanDisbursementResponse(JsonWriter out, LoanDisbursementResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("loan_id", dto.getLoan_id());
+        out.stringField("disbursement_id", dto.getDisbursement_id());
+        out.stringField("application_id", dto.getApplication_id());
+        out.numberField("disburse_amount", dto.getDisburse_amount());
+        out.stringField("disburse_date", dto.getDisburse_date());
+        out.stringField("loan_status", dto.getLoan_status());
+        out.numberField("total_repayment_amount", dto.getTotal_repayment_amount());
+        out.numberField("monthly_payment", dto.getMonthly_payment());
+        out.stringField("next_payment_date", dto.getNext_payment_date());
+        out.endObject();
+    }
+
+    private static void writeRepaymentScheduleResponse(JsonWriter out, RepaymentScheduleResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("loan_id", dto.getLoan_id());
+        out.stringField("loan_status", dto.getLoan_status());
+        out.numberField("loan_amount", dto.getLoan_amount());
+        out.numberField("interest_rate", dto.getInterest_rate());
+        out.name("term_months").value(dto.getTerm_months());
+        out.stringField("repayment_method", dto.getRepayment_method());
+        stringOrNull(out, "disburse_date", dto.getDisburse_date());
+        stringOrNull(out, "maturity_date", dto.getMaturity_date());
+        stringOrNull(out, "closed_date", dto.getClosed_date());
+        out.name("current_period").value(dto.getCurrent_period());
+        out.name("total_periods").value(dto.getTotal_periods());
+        out.numberField("remaining_principal", dto.getRemaining_principal());
+        out.name("current_due").writeValue(dto.getCurrent_due());
+        out.name("next_payment").writeValue(dto.getNext_payment());
+        out.valueField("summary", dto.getSummary());
+        out.endObject();
+    }
+
+    private static void writeDueInfo(JsonWriter out, RepaymentScheduleResponseDTO.DueInfo dueInfo) throws IOException {
+        out.beginObject();
+        out.stringField("due_date", dueInfo.getDue_date());
+        out.numberField("due_amount", dueInfo.getDue_amount());
+        out.numberField("principal_amount", dueInfo.getPrincipal_amount());
+        out.numberField("interest_amount", dueInfo.getInterest_amount());
+        out.name("days_overdue").value(dueInfo.getDays_overdue());
+        out.numberField("overdue_interest", dueInfo.getOverdue_interest());
+        out.endObject();
+    }
+
+    private static void writePaymentInfo(JsonWriter out, RepaymentScheduleResponseDTO.PaymentInfo paymentInfo) throws IOException {
+        out.beginObject();
+        out.stringField("payment_date", paymentInfo.getPayment_date());
+        out.numberField("payment_amount", paymentInfo.getPayment_amount());
+        out.numberField("principal_amount", paymentInfo.getPrincipal_amount());
+        out.numberField("interest_amount", paymentInfo.getInterest_amount());
+        out.endObject();
+    }
+
+    private static void writeSummaryInfo(JsonWriter out, RepaymentScheduleResponseDTO.SummaryInfo summaryInfo) throws IOException {
+        out.beginObject();
+        out.numberField("total_paid", summaryInfo.getTotal_paid());
+        out.numberField("principal_paid", summaryInfo.getPrincipal_paid());
+        out.numberField("interest_paid", summaryInfo.getInterest_paid());
+        out.numberField("remaining_total", summaryInfo.getRemaining_total());
+        out.numberField("remaining_principal", summaryInfo.getRemaining_principal());
+        out.numberField("remaining_interest", summaryInfo.getRemaining_interest());
+        out.endObject();
+    }
+
+    private static void writeRepaymentResponse(JsonWriter out, RepaymentResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("repayment_id", dto.getRepayment_id());
+        out.stringField("loan_id", dto.getLoan_id());
+        out.numberField("repayment_amount", dto.getRepayment_amount());
+        out.numberField("principal_amount", dto.getPrincipal_amount());
+        out.numberField("interest_amount", dto.getInterest_amount());
+        out.numberField("remaining_principal", dto.getRemaining_principal());
+        out.stringField("repayment_method", dto.getRepayment_method());
+        out.stringField("repayment_date", dto.getRepayment_date());
+        out.stringField("next_payment_date", dto.getNext_payment_date());
+        out.numberField("next_payment_amount", dto.getNext_payment_amount());
+        out.stringField("loan_status", dto.getLoan_status());
+        out.stringField("closed_date", dto.getClosed_date());
+        out.numberField("total_interest_saved", dto.getTotal_interest_saved());
+        out.endObject();
+    }
+
+    // ============= 专家预约 =============
+
+    private static void writeAppointmentCreateResponse(JsonWriter out, AppointmentCreateResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("group_id", dto.getGroup_id());
+        out.valueField("appointment_ids", dto.getAppointment_ids());
+        out.endObject();
+    }
+
+    private static void writeAppointmentDecisionResponse(JsonWriter out, AppointmentDecisionResponseDTO dto) throws IOException {
+        out.beginObject();
+        out.stringField("appointment_id", dto.getAppointment_id());
+        out.stringField("status", dto.getStatus());
+        out.endObject();
+    }
+}
@@ -0,0 +1,136 @@
+// src/main/java/config/MetricsConfig.java
+package config;
+
+import repository.DatabaseManager;
+import service.auth.SessionManager;
+import service.farmer.UploadedSeriesStore;
+import util.LatencyHistogram;
+import util.MetricsRegistry;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把各组件已有的统计接入指标注册表
+ * 路由表、请求执行器、连接池各自维护计数，这里只在采集时读取，不改变它们的热路径。
+ */
+public class MetricsConfig {
+    public static final String METRICS_PATH = "/api/v1/admin/metrics";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private MetricsConfig() {
+    }
+
+    /**
+     * 指标接口访问控制：配置了 server.metrics.token 时要求 Authorization: Bearer <token>，
+     * 未配置时只允许本机访问
+     */
+    public static boolean isAuthorized(InetAddress remote, String authorization, String token) {
+        if (token == null || token.isEmpty()) {
+            return remote != null && remote.isLoopbackAddress();
+        }
+        if (authorization == null
+                || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return false;
+        }
+        byte[] given = authorization.substring(BEARER_PREFIX.length()).trim().getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(given, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void registerAll(MetricsRegistry registry, RouterConfig routerConfig,
+            RequestExecutor requestExecutor, DatabaseManager dbManager) {
+        registerRoutes(registry, routerConfig.getRouteTable());
+        registerExecutor(registry, requestExecutor);
+        registerDatabase(registry, dbManager);
+        registerSessions(registry, SessionManager.getInstance());
+        registerSeriesStore(registry, UploadedSeriesStore.getInstance());
+    }
+
+    private static void registerSeriesStore(MetricsRegistry registry, UploadedSeriesStore store) {
+        registry.register(samples -> {
+            for (Map.Entry<String, Object> entry : store.getStats().entrySet()) {
+                if (entry.getValue() instanceof Number) {
+                    samples.gauge("price_series_store_" + entry.getKey(), "上传价格序列存储指标: " + entry.getKey(),
+                            (Number) entry.getValue());
+                }
+            }
+        });
+    }
+
+    private static void registerSessions(MetricsRegistry registry, SessionManager sessionManager) {
+        registry.register(samples -> {
+            for (Map.Entry<String, Object> entry : sessionManager.getStats().entrySet()) {
+                if (entry.getValue() instanceof Number) {
+                    samples.gauge("session_" + entry.getKey(), "会话令牌指标: " + entry.getKey(),
+                            (Number) entry.getValue());
+                }
+            }
+        });
+    }
+
+    private static void registerRoutes(MetricsRegistry registry, RouteTable routeTable) {
+        registry.register(samples -> {
+            for (RouteTable.Route route : routeTable.getRoutes()) {
+                samples.counter("http_route_requests_total", "按路由统计的请求数", route.getHits(),
+                        "method", route.getMethod(), "route", route.getPattern());
+            }
+            for (RouteTable.Route route : routeTable.getRoutes()) {
+                samples.histogram("http_route_duration_seconds", "按路由统计的处理耗时", route.getLatency(),
+                        "method", route.getMethod(), "route", route.getPattern());
+            }
+            samples.counter("http_route_unmatched_total", "未匹配到路由的请求数", routeTable.getUnmatchedCount());
+        });
+    }
+
+    private static void registerExecutor(MetricsRegistry registry, RequestExecutor requestExecutor) {
+        registry.register(samples -> {
+            for (Map.Entry<String, Object> entry : requestExecutor.getStats().entrySet()) {
+                if (entry.getValue() instanceof Number) {
+                    samples.gauge("http_executor_" + entry.getKey(), "请求执行器指标: " + entry.getKey(),
+                            (Number) entry.getValue(), "mode", requestExecutor.getMode());
+                }
+            }
+        });
+    }
+
+    private static void registerDatabase(MetricsRegistry registry, DatabaseManager dbManager) {
+        registry.register(samples -> {
+            for (Map.Entry<String, Object> entry : dbManager.getPoolStats().entrySet()) {
+                if (entry.getValue() instanceof Number) {
+                    samples.gauge("db_pool_" + entry.getKey(), "连接池指标: " + entry.getKey(),
+                            (Number) entry.getValue());
+                }
+            }
+            for (Map.Entry<String, Object> entry : dbManager.getUserIdentityCacheStats().entrySet()) {
+                if (entry.getValue() instanceof Number) {
+                    samples.gauge("user_identity_cache_" + entry.getKey(), "用户身份缓存指标: " + entry.getKey(),
+                            (Number) entry.getValue());
+                }
+            }
+            for (Map.Entry<String, Object> entry : dbManager.getStockReservationStats().entrySet()) {
+                if (entry.getValue() instanceof Number) {
+                    samples.gauge("stock_reservation_" + entry.getKey(), "库存预占指标: " + entry.getKey(),
+                            (Number) entry.getValue());
+                }
+            }
+            for (Map.Entry<String, Object> entry : dbManager.getContentCounterStats().entrySet()) {
+                if (entry.getValue() instanceof Number) {
+                    samples.gauge("content_counter_" + entry.getKey(), "内容计数写缓冲指标: " + entry.getKey(),
+                            (Number) entry.getValue());
+                }
+            }
+            List<String> operations = new ArrayList<>(dbManager.getOperationLatencies().keySet());
+            operations.sort(null);
+            for (String operation : operations) {
+                LatencyHistogram histogram = dbManager.getOperationLatencies().get(operation);
+                samples.histogram("db_operation_duration_seconds", "按调用方法统计的数据库连接持有时长",
+                        histogram, "operation", operation);
+            }
+        });
+    }
+}
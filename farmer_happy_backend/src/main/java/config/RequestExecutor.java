@@ -0,0 +1,245 @@
+package config;
+
+import util.Logger;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HttpServer 请求执行器
+ * 支持单线程、固定线程池、工作窃取线程池和虚拟线程四种模式，
+ * 并按 "工作线程数 + 队列上限" 限制在途请求数量。超出上限的请求不会进入线程池，
+ * 而是在分发线程上以 "降载" 状态执行，由请求处理器立即返回 503。
+ */
+public class RequestExecutor implements Executor {
+    private static final Logger log = Logger.getLogger(RequestExecutor.class);
+    public static final String MODE_SINGLE = "single";
+    public static final String MODE_FIXED = "fixed";
+    public static final String MODE_WORK_STEALING = "work-stealing";
+    public static final String MODE_VIRTUAL = "virtual";
+
+    // 标记当前线程上执行的请求是否处于降载状态
+    private static final ThreadLocal<Boolean> SHEDDING = new ThreadLocal<>();
+
+    private final String mode;
+    private final int threads;
+    private final int maxInFlight;
+    private final ExecutorService delegate;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+
+    public RequestExecutor(String mode, int threads, int queueCapacity) {
+        this.threads = Math.max(1, threads);
+        this.maxInFlight = this.threads + Math.max(0, queueCapacity);
+
+        String resolvedMode = mode != null ? mode.trim().toLowerCase() : MODE_FIXED;
+        ExecutorService executor;
+        switch (resolvedMode) {
+            case MODE_SINGLE:
+                executor = null;
+                break;
+            case MODE_WORK_STEALING:
+                executor = new ForkJoinPool(this.threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+                break;
+            case MODE_VIRTUAL:
+                executor = newVirtualThreadExecutor();
+                if (executor == null) {
+                    log.warn("当前JDK不支持虚拟线程，回退为固定线程池模式");
+                    resolvedMode = MODE_FIXED;
+                    executor = newFixedExecutor(this.threads, queueCapacity);
+                }
+                break;
+            case MODE_FIXED:
+                executor = newFixedExecutor(this.threads, queueCapacity);
+                break;
+            default:
+                log.warn("未知的请求执行模式: " + mode + "，使用固定线程池模式");
+                resolvedMode = MODE_FIXED;
+                executor = newFixedExecutor(this.threads, queueCapacity);
+                break;
+        }
+        this.mode = resolvedMode;
+        this.delegate = executor;
+    }
+
+    /**
+     * 根据服务配置创建执行器，工作线程数不超过数据库连接池上限
+     */
+    public static RequestExecutor create(ServerConfig config, int maxConnections) {
+        int threads = checkThreads(config.getExecutorMode(), config.getExecutorThreads(),
+                !config.isExecutorThreadsAuto(), maxConnections);
+        return new RequestExecutor(config.getExecutorMode(), threads, config.getExecutorQueueCapacity());
+    }
+
+    /**
+     * 校验工作线程数与连接池大小：每个请求线程最多同时占用一个连接，线程数多于连接数时请求只能排队等连接。
+     * 显式配置的线程数超过连接池上限时拒绝启动，自动计算的线程数收敛到连接池上限。
+     */
+    static int checkThreads(String mode, int threads, boolean configured, int maxConnections) {
+        if (MODE_SINGLE.equals(mode) || threads <= maxConnections) {
+            return threads;
+        }
+        if (configured) {
+            throw new IllegalStateException("server.executor.threads (" + threads + ") 大于 db.max.connections ("
+                    + maxConnections + ")，请调大连接池或调小请求线程数");
+        }
+        log.info("自动计算的请求线程数 " + threads + " 大于数据库连接池上限，调整为 " + maxConnections);
+        return maxConnections;
+    }
+
+    /**
+     * 当前线程上的请求是否因过载被降载（处理器应直接返回 503）
+     */
+    public static boolean isShedding() {
+        return Boolean.TRUE.equals(SHEDDING.get());
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (delegate == null) {
+            // single 模式：与 setExecutor(null) 相同，直接在分发线程上执行
+            accepted.incrementAndGet();
+            task.run();
+            completed.incrementAndGet();
+            return;
+        }
+
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            shed(task);
+            return;
+        }
+
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    inFlight.decrementAndGet();
+                    completed.incrementAndGet();
+                }
+            });
+            accepted.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            shed(task);
+        }
+    }
+
+    // 在调用线程上以降载状态执行，处理器只需写回 503，开销很小
+    private void shed(Runnable task) {
+        rejected.incrementAndGet();
+        SHEDDING.set(Boolean.TRUE);
+        try {
+            task.run();
+        } finally {
+            SHEDDING.remove();
+        }
+    }
+
+    /**
+     * 停止接收新请求，并在超时时间内等待在途请求完成
+     */
+    public void shutdown(long timeoutMillis) {
+        if (delegate == null) {
+            return;
+        }
+        delegate.shutdown();
+        try {
+            if (!delegate.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("等待在途请求超时，强制关闭请求线程池");
+                delegate.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            delegate.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    /**
+     * 执行器运行状态快照
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", mode);
+        stats.put("threads", threads);
+        stats.put("in_flight", inFlight.get());
+        stats.put("max_in_flight", maxInFlight);
+        stats.put("accepted", accepted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("completed", completed.get());
+        return stats;
+    }
+
+    private static ExecutorService newFixedExecutor(int threads, int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity)), new NamedThreadFactory("http-worker-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    // 通过反射创建虚拟线程执行器，以便在 JDK 11 目标下编译
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger(1);
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + counter.getAndIncrement());
+            thread.setDaemon(false);
+            return thread;
+        }
+    }
+}
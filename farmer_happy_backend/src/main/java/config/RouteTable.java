@@ -0,0 +1,351 @@
+// src/main/java/config/RouteTable.java
+package config;
+
+import service.auth.Session;
+import util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 启动时构建一次的路由表
+ *
+ * - 不含路径变量的路由放在哈希表里，按 "路径 -> 方法" 两次查表命中；
+ * - 含 {变量} 的路由按路径段组织成前缀树，匹配时优先走静态段，失败再回退到变量段，
+ *   方法不匹配时同样回退，与原先 if 链 "先写先匹配" 的结果保持一致。
+ *
+ * 所有路由都在构造阶段注册，之后只读，因此查找不需要加锁。
+ * 每条路由各自统计命中次数和处理耗时。
+ *
+ * 注册时可声明哪些参数是调用者本人的手机号：携带会话的请求里，这些参数缺省时由会话补齐，
+ * 显式给出时必须与会话一致。未声明的路由不改动请求参数，手机号可以指向其他用户。
+ */
+public class RouteTable {
+
+    /**
+     * 路由处理函数
+     */
+    public interface Handler {
+        Map<String, Object> handle(Request request);
+    }
+
+    /**
+     * 一次请求的入参，路径变量按注册时的名字获取
+     */
+    public static final class Request {
+        private final Route route;
+        private final String[] variables;
+        private final Map<String, Object> body;
+        private final Map<String, String> headers;
+        private final Map<String, String> queryParams;
+        private final Session session;
+
+        Request(Route route, String[] variables, Map<String, Object> body, Map<String, String> headers,
+                Map<String, String> queryParams, Session session) {
+            this.route = route;
+            this.variables = variables;
+            this.body = body;
+            this.headers = headers;
+            this.queryParams = queryParams;
+            this.session = session;
+        }
+
+        public String getPathVariable(String name) {
+            String[] names = route.variableNames;
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return variables[i];
+                }
+            }
+            return null;
+        }
+
+        public Map<String, Object> getBody() {
+            return body;
+        }
+
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        public Map<String, String> getQueryParams() {
+            return queryParams;
+        }
+
+        /**
+         * 请求携带的会话，未携带令牌时为 null
+         */
+        public Session getSession() {
+            return session;
+        }
+    }
+
+    /**
+     * 已注册的路由及其统计
+     */
+    public static final class Route {
+        private final String method;
+        private final String pattern;
+        private final Handler handler;
+        private final String[] variableNames;
+        private final String[] callerPhoneParams;
+        private final LongAdder hits = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        Route(String method, String pattern, Handler handler, String[] variableNames, String[] callerPhoneParams) {
+            this.method = method;
+            this.pattern = pattern;
+            this.handler = handler;
+            this.variableNames = variableNames;
+            this.callerPhoneParams = callerPhoneParams;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        /**
+         * 代表调用者本人的手机号参数，未声明时为空数组
+         */
+        public String[] getCallerPhoneParams() {
+            return callerPhoneParams.clone();
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+    }
+
+    /**
+     * 前缀树节点：静态子段按名字查表，变量子段最多一个
+     */
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private Node variableChild;
+        private final Map<String, Route> routes = new HashMap<>();
+    }
+
+    private static final String[] NO_VARIABLES = new String[0];
+    private static final String[] NO_CALLER_PHONE = new String[0];
+
+    private final Map<String, Map<String, Route>> exactRoutes = new HashMap<>();
+    private final Node root = new Node();
+    private final List<Route> allRoutes = new ArrayList<>();
+    private final LongAdder unmatched = new LongAdder();
+    private int maxVariables;
+
+    /**
+     * 注册路由，路径变量写成 {name}，整段匹配且不能为空
+     */
+    public void add(String method, String pattern, Handler handler) {
+        add(method, pattern, NO_CALLER_PHONE, handler);
+    }
+
+    /**
+     * 注册路由，并声明请求体/查询参数中代表调用者本人的手机号参数
+     */
+    public void add(String method, String pattern, String[] callerPhoneParams, Handler handler) {
+        String[] segments = split(pattern);
+        List<String> names = new ArrayList<>();
+        for (String segment : segments) {
+            if (isVariable(segment)) {
+                names.add(segment.substring(1, segment.length() - 1));
+            }
+        }
+
+        Route route = new Route(method, pattern, handler,
+                names.isEmpty() ? NO_VARIABLES : names.toArray(new String[0]), callerPhoneParams.clone());
+        Map<String, Route> byMethod;
+        if (names.isEmpty()) {
+            byMethod = exactRoutes.computeIfAbsent(pattern, k -> new HashMap<>());
+        } else {
+            Node node = root;
+            for (String segment : segments) {
+                if (isVariable(segment)) {
+                    if (node.variableChild == null) {
+                        node.variableChild = new Node();
+                    }
+                    node = node.variableChild;
+                } else {
+                    node = node.children.computeIfAbsent(segment, k -> new Node());
+                }
+            }
+            byMethod = node.routes;
+            maxVariables = Math.max(maxVariables, names.size());
+        }
+        if (byMethod.containsKey(method)) {
+            throw new IllegalStateException("重复注册路由: " + method + " " + pattern);
+        }
+        byMethod.put(method, route);
+        allRoutes.add(route);
+    }
+
+    /**
+     * 查找并执行路由，没有匹配的路由时返回 null
+     */
+    public Map<String, Object> dispatch(String path, String method, Map<String, Object> body,
+            Map<String, String> headers, Map<String, String> queryParams) {
+        return dispatch(path, method, body, headers, queryParams, null);
+    }
+
+    /**
+     * 同上，附带已解析的会话
+     */
+    public Map<String, Object> dispatch(String path, String method, Map<String, Object> body,
+            Map<String, String> headers, Map<String, String> queryParams, Session session) {
+        Route route = null;
+        String[] variables = NO_VARIABLES;
+
+        Map<String, Route> byMethod = exactRoutes.get(path);
+        if (byMethod != null) {
+            route = byMethod.get(method);
+        }
+        if (route == null && maxVariables > 0) {
+            String[] segments = split(path);
+            String[] captured = new String[maxVariables];
+            route = match(root, segments, 0, method, captured, 0);
+            if (route != null) {
+                variables = captured;
+            }
+        }
+        if (route == null) {
+            unmatched.increment();
+            return null;
+        }
+
+        route.hits.increment();
+        long start = System.nanoTime();
+        try {
+            if (session != null && !applySessionPhone(route, session, body, queryParams)) {
+                return phoneMismatch();
+            }
+            return route.handler.handle(new Request(route, variables, body, headers, queryParams, session));
+        } finally {
+            route.latency.recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 按注册顺序返回所有路由
+     */
+    public List<Route> getRoutes() {
+        return allRoutes;
+    }
+
+    /**
+     * 没有匹配到任何路由的请求数
+     */
+    public long getUnmatchedCount() {
+        return unmatched.sum();
+    }
+
+    /**
+     * 各路由的命中次数与耗时分布
+     */
+    public List<Map<String, Object>> getStats() {
+        List<Map<String, Object>> stats = new ArrayList<>(allRoutes.size());
+        for (Route route : allRoutes) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("method", route.method);
+            item.put("pattern", route.pattern);
+            item.put("hits", route.getHits());
+            item.put("latency", route.latency.getSummary());
+            stats.add(item);
+        }
+        return stats;
+    }
+
+    /**
+     * 用会话补齐路由声明的手机号参数；请求中显式给出的手机号必须与会话一致
+     *
+     * @return 手机号与会话不一致时返回 false
+     */
+    private static boolean applySessionPhone(Route route, Session session, Map<String, Object> body,
+            Map<String, String> queryParams) {
+        for (String name : route.callerPhoneParams) {
+            if (body != null) {
+                Object value = body.get(name);
+                if (value == null) {
+                    body.put(name, session.getPhone());
+                } else if (!session.getPhone().equals(value)) {
+                    return false;
+                }
+            }
+            if (queryParams != null) {
+                String value = queryParams.get(name);
+                if (value == null) {
+                    queryParams.put(name, session.getPhone());
+                } else if (!session.getPhone().equals(value)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, Object> phoneMismatch() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("code", 403);
+        response.put("message", "请求中的手机号与登录用户不一致");
+        return response;
+    }
+
+    private static Route match(Node node, String[] segments, int index, String method, String[] captured,
+            int depth) {
+        if (index == segments.length) {
+            return node.routes.get(method);
+        }
+        String segment = segments[index];
+        Node child = node.children.get(segment);
+        if (child != null) {
+            Route route = match(child, segments, index + 1, method, captured, depth);
+            if (route != null) {
+                return route;
+            }
+        }
+        if (node.variableChild != null && !segment.isEmpty()) {
+            Route route = match(node.variableChild, segments, index + 1, method, captured, depth + 1);
+            if (route != null) {
+                captured[depth] = segment;
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isVariable(String segment) {
+        return segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}';
+    }
+
+    // 按 '/' 切分，保留空段，这样 "a//b" 和结尾的 "/" 都不会误匹配变量
+    private static String[] split(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        int count = 1;
+        for (int i = start; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                count++;
+            }
+        }
+        String[] segments = new String[count];
+        int n = 0;
+        for (int i = start; i <= path.length(); i++) {
+            if (i == path.length() || path.charAt(i) == '/') {
+                segments[n++] = path.substring(start, i);
+                start = i + 1;
+            }
+        }
+        return segments;
+    }
+}
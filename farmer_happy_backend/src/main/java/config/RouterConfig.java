@@ -16,6 +16,9 @@ import dto.buyer.*;
 import dto.community.*;
 import dto.farmer.*;
 import dto.financing.*;
+import service.auth.Session;
+import service.auth.SessionManager;
+import util.Logger;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.math.BigDecimal;
@@ -28,10 +31,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class RouterConfig {
+    private static final Logger log = Logger.getLogger(RouterConfig.class);
+    // 代表调用者本人的手机号参数，携带令牌时由会话补齐或校验；银行、金融、专家等接口中的手机号可能是对方，不声明
+    private static final String[] CALLER_PHONE = { "phone" };
+    private static final String[] CALLER_BUYER_PHONE = { "buyer_phone" };
+    private static final String[] CALLER_FARMER_PHONE = { "farmer_phone" };
+    private static final String BEARER_PREFIX = "Bearer ";
     private AuthController authController;
     private ProductController productController;
     private ContentController contentController;
@@ -42,6 +49,7 @@ public class RouterConfig {
     private controller.ExpertAppointmentController expertAppointmentController;
     private PricePredictionController pricePredictionController;
     private PriceCrawlerController priceCrawlerController;
+    private final RouteTable routeTable = new RouteTable();
 
 
     public RouterConfig() {
@@ -55,455 +63,387 @@ public class RouterConfig {
         this.pricePredictionController = new PricePredictionController();
         this.priceCrawlerController = new PriceCrawlerController();
         this.expertAppointmentController = new controller.ExpertAppointmentController();
+        registerRoutes();
     }
 
     public Map<String, Object> handleRequest(String path, String method, Map<String, Object> requestBody,
             Map<String, String> headers, Map<String, String> queryParams) {
+        // 每个请求只解析一次令牌；未携带令牌时沿用请求体/查询参数中的手机号
+        Session session = null;
+        String token = bearerToken(headers);
+        if (token != null && !isLoginOrRegister(path)) {
+            session = SessionManager.getInstance().resolve(token);
+            if (session == null) {
+                return errorResponse(401, "会话已失效，请重新登录");
+            }
+        }
 
-        // ============= 农产品价格爬虫相关路由 =============
+        Session.bind(session);
+        try {
+            Map<String, Object> response = routeTable.dispatch(path, method, requestBody, headers, queryParams,
+                    session);
+            if (response != null) {
+                return response;
+            }
+        } finally {
+            Session.bind(null);
+        }
 
-        // 获取爬虫数据
-        if ("/api/v1/agriculture/price".equals(path) && "POST".equals(method)) {
-            return priceCrawlerController.crawlAgriculturalPrices(requestBody);
+        // 默认返回404
+        return notFound();
+    }
+
+    // 从 Authorization: Bearer <token> 请求头取令牌
+    private static String bearerToken(Map<String, String> headers) {
+        if (headers == null) {
+            return null;
+        }
+        String value = headers.get("Authorization");
+        if (value == null) {
+            value = headers.get("authorization");
         }
+        if (value == null || !value.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return null;
+        }
+        String token = value.substring(BEARER_PREFIX.length()).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    // 登录、注册接口忽略旧令牌，避免过期令牌导致无法重新登录
+    private static boolean isLoginOrRegister(String path) {
+        return "/api/v1/auth/login".equals(path) || "/api/v1/auth/register".equals(path);
+    }
+
+    /**
+     * 各路由的命中次数与耗时分布
+     */
+    public List<Map<String, Object>> getRouteStats() {
+        return routeTable.getStats();
+    }
+
+    public RouteTable getRouteTable() {
+        return routeTable;
+    }
+
+    private void registerRoutes() {
+        RouteTable routes = routeTable;
+
+        // ============= 农产品价格爬虫相关路由 =============
+
+        // 获取爬虫数据（提交异步爬取任务，返回 job_id）
+        routes.add("POST", "/api/v1/agriculture/price",
+                r -> priceCrawlerController.crawlAgriculturalPrices(r.getBody()));
+
+        // 查询爬取任务的进度和结果
+        routes.add("GET", "/api/v1/agriculture/price/jobs/{job_id}",
+                r -> priceCrawlerController.getCrawlJob(r.getPathVariable("job_id")));
 
         // 获取 split 文件列表（动态勾选品种）
-        if ("/api/v1/agriculture/price/split/list".equals(path) && "GET".equals(method)) {
-            return priceCrawlerController.listSplitFiles(queryParams);
-        }
+        routes.add("GET", "/api/v1/agriculture/price/split/list",
+                r -> priceCrawlerController.listSplitFiles(r.getQueryParams()));
 
         // 用户勾选品种/文件并选择位置后放置
-        if ("/api/v1/agriculture/price/split/place".equals(path) && "POST".equals(method)) {
-            return priceCrawlerController.placeSplitFiles(requestBody);
-        }
+        routes.add("POST", "/api/v1/agriculture/price/split/place",
+                r -> priceCrawlerController.placeSplitFiles(r.getBody()));
 
         // 将 split 下的 CSV 批量导出为 XLSX（不需要重新爬取）
-        if ("/api/v1/agriculture/price/split/export_xlsx".equals(path) && "POST".equals(method)) {
-            return priceCrawlerController.exportSplitXlsx(requestBody);
-        }
+        routes.add("POST", "/api/v1/agriculture/price/split/export_xlsx",
+                r -> priceCrawlerController.exportSplitXlsx(r.getBody()));
+
         // ============= AI 农业专家相关路由 =============
 
         // 与 AI 农业专家对话
-        if ("/api/v1/ai/expert-chat".equals(path) && "POST".equals(method)) {
-            String question = requestBody != null ? (String) requestBody.get("question") : null;
+        routes.add("POST", "/api/v1/ai/expert-chat", r -> {
+            String question = r.getBody() != null ? (String) r.getBody().get("question") : null;
             return aiController.chatWithAiExpert(question);
-        }
+        });
 
         // ============= 专家预约相关路由 =============
 
         // 获取专家列表
-        if ("/api/v1/expert/experts/list".equals(path) && "POST".equals(method)) {
-            return expertAppointmentController.listExperts();
-        }
+        routes.add("POST", "/api/v1/expert/experts/list", r -> expertAppointmentController.listExperts());
 
         // 农户发起预约
-        if ("/api/v1/expert/appointments/apply".equals(path) && "POST".equals(method)) {
-            dto.expert.AppointmentCreateRequestDTO req = parseAppointmentCreateRequest(requestBody);
-            return expertAppointmentController.apply(req);
-        }
+        routes.add("POST", "/api/v1/expert/appointments/apply",
+                r -> expertAppointmentController.apply(parseAppointmentCreateRequest(r.getBody())));
 
         // 专家查看预约请求
-        if ("/api/v1/expert/appointments/expert/list".equals(path) && "POST".equals(method)) {
-            String phone = (String) requestBody.get("phone");
-            return expertAppointmentController.getExpertAppointments(phone);
-        }
+        routes.add("POST", "/api/v1/expert/appointments/expert/list",
+                r -> expertAppointmentController.getExpertAppointments((String) r.getBody().get("phone")));
 
         // 农户查看预约结果
-        if ("/api/v1/expert/appointments/farmer/list".equals(path) && "POST".equals(method)) {
-            String phone = (String) requestBody.get("phone");
-            return expertAppointmentController.getFarmerAppointments(phone);
-        }
+        routes.add("POST", "/api/v1/expert/appointments/farmer/list",
+                r -> expertAppointmentController.getFarmerAppointments((String) r.getBody().get("phone")));
 
-        // 获取预约详情 - /api/v1/expert/appointments/query/{appointment_id}
-        Pattern apptDetailPattern = Pattern.compile("/api/v1/expert/appointments/query/([^/]+)");
-        Matcher apptDetailMatcher = apptDetailPattern.matcher(path);
-        if (apptDetailMatcher.matches() && "POST".equals(method)) {
-            String appointmentId = apptDetailMatcher.group(1);
-            return expertAppointmentController.getDetail(appointmentId);
-        }
+        // 获取预约详情
+        routes.add("POST", "/api/v1/expert/appointments/query/{appointment_id}",
+                r -> expertAppointmentController.getDetail(r.getPathVariable("appointment_id")));
 
-        // 专家处理预约 - /api/v1/expert/appointments/{appointment_id}/decision
-        Pattern apptDecisionPattern = Pattern.compile("/api/v1/expert/appointments/([^/]+)/decision");
-        Matcher apptDecisionMatcher = apptDecisionPattern.matcher(path);
-        if (apptDecisionMatcher.matches() && "POST".equals(method)) {
-            String appointmentId = apptDecisionMatcher.group(1);
-            dto.expert.AppointmentDecisionRequestDTO req = parseAppointmentDecisionRequest(requestBody);
-            return expertAppointmentController.decide(appointmentId, req);
-        }
+        // 专家处理预约
+        routes.add("POST", "/api/v1/expert/appointments/{appointment_id}/decision",
+                r -> expertAppointmentController.decide(r.getPathVariable("appointment_id"),
+                        parseAppointmentDecisionRequest(r.getBody())));
 
         // ============= 融资相关路由 =============
 
-        // 在处理请求的方法中添加
-        if ("/api/v1/financing/repayment".equals(path) && "POST".equals(method)) {
-            return financingController.makeRepayment(requestBody, headers);
-        }
-
+        // 还款
+        routes.add("POST", "/api/v1/financing/repayment",
+                r -> financingController.makeRepayment(r.getBody(), r.getHeaders()));
 
         // 获取还款列表
-        if ("/api/v1/financing/repayment/schedule".equals(path) && "POST".equals(method)) {
-            return financingController.getRepaymentSchedule(requestBody, headers);
-        }
+        routes.add("POST", "/api/v1/financing/repayment/schedule",
+                r -> financingController.getRepaymentSchedule(r.getBody(), r.getHeaders()));
+
         // 银行审批贷款申请
-        if ("/api/v1/bank/loans/approve".equals(path) && "POST".equals(method)) {
-            LoanApprovalRequestDTO request = parseLoanApprovalRequest(requestBody);
-            return financingController.approveLoan(request);
-        }
+        routes.add("POST", "/api/v1/bank/loans/approve",
+                r -> financingController.approveLoan(parseLoanApprovalRequest(r.getBody())));
 
         // 银行放款操作
-        if ("/api/v1/bank/loans/disburse".equals(path) && "POST".equals(method)) {
-            LoanDisbursementRequestDTO request = parseLoanDisbursementRequest(requestBody);
-            return financingController.disburseLoan(request);
-        }
+        routes.add("POST", "/api/v1/bank/loans/disburse",
+                r -> financingController.disburseLoan(parseLoanDisbursementRequest(r.getBody())));
 
         // 银行审批信贷额度申请
-        if ("/api/v1/bank/credit/approve".equals(path) && "POST".equals(method)) {
-            CreditApprovalRequestDTO request = parseCreditApprovalRequest(requestBody);
-            return financingController.approveCreditApplication(request);
-        }
+        routes.add("POST", "/api/v1/bank/credit/approve",
+                r -> financingController.approveCreditApplication(parseCreditApprovalRequest(r.getBody())));
 
         // 获取待审批的信贷额度申请列表
-        if ("/api/v1/bank/credit/pending".equals(path) && "POST".equals(method)) {
-            String phone = (String) requestBody.get("phone");
-            return financingController.getPendingCreditApplications(phone);
-        }
+        routes.add("POST", "/api/v1/bank/credit/pending",
+                r -> financingController.getPendingCreditApplications((String) r.getBody().get("phone")));
 
         // 获取待审批的贷款申请列表
-        if ("/api/v1/bank/loans/pending".equals(path) && "POST".equals(method)) {
-            String phone = (String) requestBody.get("phone");
-            return financingController.getPendingLoanApplications(phone);
-        }
+        routes.add("POST", "/api/v1/bank/loans/pending",
+                r -> financingController.getPendingLoanApplications((String) r.getBody().get("phone")));
 
         // 获取已审批待放款的贷款申请列表
-        if ("/api/v1/bank/loans/approved".equals(path) && "POST".equals(method)) {
-            String phone = (String) requestBody.get("phone");
-            return financingController.getApprovedLoanApplications(phone);
-        }
+        routes.add("POST", "/api/v1/bank/loans/approved",
+                r -> financingController.getApprovedLoanApplications((String) r.getBody().get("phone")));
 
         // 查询可用贷款额度
-        if ("/api/v1/financing/credit/limit".equals(path) && "POST".equals(method)) {
-            CreditLimitRequestDTO request = parseCreditLimitRequest(requestBody);
-            return financingController.getCreditLimit(request);
-        }
+        routes.add("POST", "/api/v1/financing/credit/limit",
+                r -> financingController.getCreditLimit(parseCreditLimitRequest(r.getBody())));
 
         // 申请贷款额度
-        if ("/api/v1/financing/credit/apply".equals(path) && "POST".equals(method)) {
-            CreditApplicationRequestDTO request = parseCreditApplicationRequest(requestBody);
-            return financingController.applyForCreditLimit(request);
-        }
+        routes.add("POST", "/api/v1/financing/credit/apply",
+                r -> financingController.applyForCreditLimit(parseCreditApplicationRequest(r.getBody())));
 
         // 获取农户申请记录
-        if ("/api/v1/financing/credit/applications".equals(path) && "POST".equals(method)) {
-            String phone = (String) requestBody.get("phone");
-            return financingController.getFarmerCreditApplications(phone);
-        }
+        routes.add("POST", "/api/v1/financing/credit/applications",
+                r -> financingController.getFarmerCreditApplications((String) r.getBody().get("phone")));
 
         // 获取农户已放款的贷款列表
-        if ("/api/v1/financing/loans/list".equals(path) && "POST".equals(method)) {
-            String phone = (String) requestBody.get("phone");
-            return financingController.getFarmerLoans(phone);
-        }
+        routes.add("POST", "/api/v1/financing/loans/list",
+                r -> financingController.getFarmerLoans((String) r.getBody().get("phone")));
 
         // 获取农户贷款申请记录
-        if ("/api/v1/financing/loans/applications".equals(path) && "POST".equals(method)) {
-            String phone = (String) requestBody.get("phone");
-            return financingController.getFarmerLoanApplications(phone);
-        }
+        routes.add("POST", "/api/v1/financing/loans/applications",
+                r -> financingController.getFarmerLoanApplications((String) r.getBody().get("phone")));
 
         // 查询可申请的贷款产品
-        if ("/api/v1/financing/loans/products".equals(path) && "POST".equals(method)) {
-            LoanProductsRequestDTO request = parseLoanProductsRequest(requestBody);
-            return financingController.getAvailableLoanProducts(request);
-        }
+        routes.add("POST", "/api/v1/financing/loans/products",
+                r -> financingController.getAvailableLoanProducts(parseLoanProductsRequest(r.getBody())));
 
         // 银行发布贷款产品
-        if ("/api/v1/bank/loans/products".equals(path) && "POST".equals(method)) {
-            BankLoanProductRequestDTO request = parseBankLoanProductRequest(requestBody);
-            return financingController.publishLoanProduct(request);
-        }
+        routes.add("POST", "/api/v1/bank/loans/products",
+                r -> financingController.publishLoanProduct(parseBankLoanProductRequest(r.getBody())));
 
         // 申请单人贷款
-        if ("/api/v1/financing/loans/single".equals(path) && "POST".equals(method)) {
-            SingleLoanApplicationRequestDTO request = parseSingleLoanApplicationRequest(requestBody);
-            return financingController.applyForSingleLoan(request);
-        }
+        routes.add("POST", "/api/v1/financing/loans/single",
+                r -> financingController.applyForSingleLoan(parseSingleLoanApplicationRequest(r.getBody())));
 
         // 申请联合贷款
-        if ("/api/v1/financing/loans/joint".equals(path) && "POST".equals(method)) {
-            JointLoanApplicationRequestDTO request = parseJointLoanApplicationRequest(requestBody);
-            return financingController.applyForJointLoan(request);
-        }
+        routes.add("POST", "/api/v1/financing/loans/joint",
+                r -> financingController.applyForJointLoan(parseJointLoanApplicationRequest(r.getBody())));
 
         // 浏览可联合农户
-        if ("/api/v1/financing/partners".equals(path) && "POST".equals(method)) {
-            PartnersRequestDTO request = parsePartnersRequest(requestBody);
-            return financingController.getJointPartners(request);
-        }
+        routes.add("POST", "/api/v1/financing/partners",
+                r -> financingController.getJointPartners(parsePartnersRequest(r.getBody())));
 
         // 智能贷款推荐
-        if ("/api/v1/financing/smart-recommendation".equals(path) && "POST".equals(method)) {
-            SmartLoanRecommendationRequestDTO request = parseSmartLoanRecommendationRequest(requestBody);
-            return financingController.getSmartLoanRecommendation(request);
-        }
+        routes.add("POST", "/api/v1/financing/smart-recommendation",
+                r -> financingController.getSmartLoanRecommendation(parseSmartLoanRecommendationRequest(r.getBody())));
 
         // 联合贷款伙伴确认
-        if ("/api/v1/financing/joint-loan-confirmation".equals(path) && "POST".equals(method)) {
-            JointLoanPartnerConfirmationRequestDTO request = parseJointLoanPartnerConfirmationRequest(requestBody);
-            return financingController.confirmJointLoanApplication(request);
-        }
+        routes.add("POST", "/api/v1/financing/joint-loan-confirmation",
+                r -> financingController.confirmJointLoanApplication(
+                        parseJointLoanPartnerConfirmationRequest(r.getBody())));
 
         // 获取待确认的联合贷款申请
-        if ("/api/v1/financing/pending-joint-loans".equals(path) && "POST".equals(method)) {
-            PendingJointLoanApplicationsRequestDTO request = parsePendingJointLoanApplicationsRequest(requestBody);
-            return financingController.getPendingJointLoanApplications(request);
-        }
+        routes.add("POST", "/api/v1/financing/pending-joint-loans",
+                r -> financingController.getPendingJointLoanApplications(
+                        parsePendingJointLoanApplicationsRequest(r.getBody())));
 
         // 发送联合贷款消息
-        if ("/api/v1/financing/joint-loan-messages/send".equals(path) && "POST".equals(method)) {
-            JointLoanMessageRequestDTO request = parseJointLoanMessageRequest(requestBody);
-            return financingController.sendJointLoanMessage(request);
-        }
+        routes.add("POST", "/api/v1/financing/joint-loan-messages/send",
+                r -> financingController.sendJointLoanMessage(parseJointLoanMessageRequest(r.getBody())));
 
         // 获取联合贷款消息列表
-        if ("/api/v1/financing/joint-loan-messages".equals(path) && "POST".equals(method)) {
-            GetJointLoanMessagesRequestDTO request = parseGetJointLoanMessagesRequest(requestBody);
-            return financingController.getJointLoanMessages(request);
-        }
+        routes.add("POST", "/api/v1/financing/joint-loan-messages",
+                r -> financingController.getJointLoanMessages(parseGetJointLoanMessagesRequest(r.getBody())));
 
         // ============= 买家订单相关路由 =============
 
-        // 创建订单 - /api/v1/buyer/orders
-        if ("/api/v1/buyer/orders".equals(path) && "POST".equals(method)) {
-            CreateOrderRequestDTO request = parseCreateOrderRequest(requestBody);
-            return orderController.createOrder(request);
-        }
+        // 创建订单
+        routes.add("POST", "/api/v1/buyer/orders", CALLER_BUYER_PHONE,
+                r -> orderController.createOrder(parseCreateOrderRequest(r.getBody())));
 
-        // 更新订单信息 - /api/v1/buyer/orders/{order_id}
-        Pattern updateOrderPattern = Pattern.compile("/api/v1/buyer/orders/([^/]+)");
-        Matcher updateOrderMatcher = updateOrderPattern.matcher(path);
-        if (updateOrderMatcher.matches() && "PUT".equals(method)) {
-            String orderId = updateOrderMatcher.group(1);
-            UpdateOrderRequestDTO request = parseUpdateOrderRequest(requestBody);
-            return orderController.updateOrder(orderId, request);
-        }
+        // 更新订单信息
+        routes.add("PUT", "/api/v1/buyer/orders/{order_id}", CALLER_BUYER_PHONE,
+                r -> orderController.updateOrder(r.getPathVariable("order_id"), parseUpdateOrderRequest(r.getBody())));
 
-        // 获取订单详情 - /api/v1/buyer/orders/query/{order_id}
-        Pattern getOrderDetailPattern = Pattern.compile("/api/v1/buyer/orders/query/([^/]+)");
-        Matcher getOrderDetailMatcher = getOrderDetailPattern.matcher(path);
-        if (getOrderDetailMatcher.matches() && "POST".equals(method)) {
-            String orderId = getOrderDetailMatcher.group(1);
-            QueryOrderRequestDTO request = parseQueryOrderRequest(requestBody);
-            return orderController.getOrderDetail(orderId, request);
-        }
+        // 获取订单详情
+        routes.add("POST", "/api/v1/buyer/orders/query/{order_id}", CALLER_BUYER_PHONE,
+                r -> orderController.getOrderDetail(r.getPathVariable("order_id"), parseQueryOrderRequest(r.getBody())));
 
-        // 获取订单列表 - /api/v1/buyer/orders/list_query
-        if ("/api/v1/buyer/orders/list_query".equals(path) && "POST".equals(method)) {
-            String buyerPhone = queryParams.get("buyer_phone");
-            String status = queryParams.get("status");
-            String title = queryParams.get("title");
-            return orderController.getOrderList(buyerPhone, status, title);
-        }
+        // 获取订单列表
+        routes.add("POST", "/api/v1/buyer/orders/list_query", CALLER_BUYER_PHONE, r -> {
+            Map<String, String> queryParams = r.getQueryParams();
+            return orderController.getOrderList(queryParams.get("buyer_phone"), queryParams.get("status"),
+                    queryParams.get("title"), queryParams.get("cursor"), queryParams.get("page_size"));
+        });
+
+        // 申请退货退款
+        routes.add("POST", "/api/v1/buyer/orders/{order_id}/refund", CALLER_BUYER_PHONE,
+                r -> orderController.applyRefund(r.getPathVariable("order_id"), parseRefundRequest(r.getBody())));
+
+        // 确认收货
+        routes.add("POST", "/api/v1/buyer/orders/{order_id}/confirm_receipt", CALLER_BUYER_PHONE,
+                r -> orderController.confirmReceipt(r.getPathVariable("order_id"),
+                        parseConfirmReceiptRequest(r.getBody())));
 
         // ============= 农户订单相关路由 =============
 
-        // 获取农户订单列表 - /api/v1/farmer/orders/list_query
-        if ("/api/v1/farmer/orders/list_query".equals(path) && "POST".equals(method)) {
-            String farmerPhone = queryParams.get("farmer_phone");
-            String status = queryParams.get("status");
-            String title = queryParams.get("title");
-            return orderController.getFarmerOrderList(farmerPhone, status, title);
-        }
+        // 获取农户订单列表
+        routes.add("POST", "/api/v1/farmer/orders/list_query", CALLER_FARMER_PHONE, r -> {
+            Map<String, String> queryParams = r.getQueryParams();
+            return orderController.getFarmerOrderList(queryParams.get("farmer_phone"), queryParams.get("status"),
+                    queryParams.get("title"), queryParams.get("cursor"), queryParams.get("page_size"));
+        });
 
-        // 获取农户订单详情 - /api/v1/farmer/orders/query/{order_id}
-        Pattern getFarmerOrderDetailPattern = Pattern.compile("/api/v1/farmer/orders/query/([^/]+)");
-        Matcher getFarmerOrderDetailMatcher = getFarmerOrderDetailPattern.matcher(path);
-        if (getFarmerOrderDetailMatcher.matches() && "POST".equals(method)) {
-            String orderId = getFarmerOrderDetailMatcher.group(1);
+        // 获取农户订单详情
+        routes.add("POST", "/api/v1/farmer/orders/query/{order_id}", CALLER_FARMER_PHONE, r -> {
             String farmerPhone = null;
-            if (requestBody != null) {
-                farmerPhone = (String) requestBody.get("farmer_phone");
+            if (r.getBody() != null) {
+                farmerPhone = (String) r.getBody().get("farmer_phone");
             }
             // 如果没有从请求体中获取到，尝试从查询参数获取
-            if (farmerPhone == null && queryParams != null) {
-                farmerPhone = queryParams.get("farmer_phone");
+            if (farmerPhone == null && r.getQueryParams() != null) {
+                farmerPhone = r.getQueryParams().get("farmer_phone");
             }
-            return orderController.getFarmerOrderDetail(orderId, farmerPhone);
-        }
-
-        // 申请退货退款 - /api/v1/buyer/orders/{order_id}/refund
-        Pattern refundOrderPattern = Pattern.compile("/api/v1/buyer/orders/([^/]+)/refund");
-        Matcher refundOrderMatcher = refundOrderPattern.matcher(path);
-        if (refundOrderMatcher.matches() && "POST".equals(method)) {
-            String orderId = refundOrderMatcher.group(1);
-            RefundRequestDTO request = parseRefundRequest(requestBody);
-            return orderController.applyRefund(orderId, request);
-        }
-
-        // 确认收货 - /api/v1/buyer/orders/{order_id}/confirm_receipt
-        Pattern confirmReceiptPattern = Pattern.compile("/api/v1/buyer/orders/([^/]+)/confirm_receipt");
-        Matcher confirmReceiptMatcher = confirmReceiptPattern.matcher(path);
-        if (confirmReceiptMatcher.matches() && "POST".equals(method)) {
-            String orderId = confirmReceiptMatcher.group(1);
-            ConfirmReceiptRequestDTO request = parseConfirmReceiptRequest(requestBody);
-            return orderController.confirmReceipt(orderId, request);
-        }
+            return orderController.getFarmerOrderDetail(r.getPathVariable("order_id"), farmerPhone);
+        });
 
         // ============= 社区相关路由 =============
 
         // 处理发布内容请求
-        if ("/api/v1/content/publish".equals(path) && "POST".equals(method)) {
-            return contentController.publishContent(parsePublishContentRequest(requestBody));
-        }
+        routes.add("POST", "/api/v1/content/publish", CALLER_PHONE,
+                r -> contentController.publishContent(parsePublishContentRequest(r.getBody())));
 
         // 处理获取内容列表请求
-        if ("/api/v1/content/list".equals(path) && "GET".equals(method)) {
+        routes.add("GET", "/api/v1/content/list", r -> {
             // 从查询参数中获取筛选条件
+            Map<String, String> queryParams = r.getQueryParams();
             String contentType = queryParams != null ? queryParams.get("content_type") : null;
             String keyword = queryParams != null ? queryParams.get("keyword") : null;
             String sort = queryParams != null ? queryParams.get("sort") : null;
-            return contentController.getContentList(contentType, keyword, sort);
-        }
-
-        // 处理获取内容详情请求 - /api/v1/content/{content_id}
-        Pattern contentDetailPattern = Pattern.compile("/api/v1/content/([^/]+)");
-        Matcher contentDetailMatcher = contentDetailPattern.matcher(path);
-        if (contentDetailMatcher.matches() && "GET".equals(method)) {
-            String contentId = contentDetailMatcher.group(1);
+            String cursor = queryParams != null ? queryParams.get("cursor") : null;
+            String pageSize = queryParams != null ? queryParams.get("page_size") : null;
+            return contentController.getContentList(contentType, keyword, sort, cursor, pageSize);
+        });
+
+        // 处理获取内容详情请求
+        routes.add("GET", "/api/v1/content/{content_id}", r -> {
+            String contentId = r.getPathVariable("content_id");
             // 确保不是 /api/v1/content/list 或 /api/v1/content/publish
-            if (!contentId.equals("list") && !contentId.equals("publish")) {
-                return contentController.getContentDetail(contentId);
+            if (contentId.equals("list") || contentId.equals("publish")) {
+                return notFound();
             }
-        }
+            return contentController.getContentDetail(contentId);
+        });
 
-        // 处理发表评论请求 - /api/v1/content/{content_id}/comments
-        Pattern postCommentPattern = Pattern.compile("/api/v1/content/([^/]+)/comments");
-        Matcher postCommentMatcher = postCommentPattern.matcher(path);
-        if (postCommentMatcher.matches() && "POST".equals(method)) {
-            String contentId = postCommentMatcher.group(1);
-            return commentController.postComment(contentId, parsePostCommentRequest(requestBody));
-        }
+        // 处理发表评论请求
+        routes.add("POST", "/api/v1/content/{content_id}/comments", CALLER_PHONE,
+                r -> commentController.postComment(r.getPathVariable("content_id"),
+                        parsePostCommentRequest(r.getBody())));
 
-        // 处理获取评论列表请求 - /api/v1/content/{content_id}/comments
-        if (postCommentPattern.matcher(path).matches() && "GET".equals(method)) {
-            Matcher matcher = postCommentPattern.matcher(path);
-            if (matcher.matches()) {
-                String contentId = matcher.group(1);
-                return commentController.getCommentList(contentId);
-            }
-        }
+        // 处理获取评论列表请求
+        routes.add("GET", "/api/v1/content/{content_id}/comments",
+                r -> commentController.getCommentList(r.getPathVariable("content_id"),
+                        r.getQueryParams().get("cursor"), r.getQueryParams().get("page_size")));
 
-        // 处理回复评论请求 - /api/v1/comment/{comment_id}/replies
-        Pattern postReplyPattern = Pattern.compile("/api/v1/comment/([^/]+)/replies");
-        Matcher postReplyMatcher = postReplyPattern.matcher(path);
-        if (postReplyMatcher.matches() && "POST".equals(method)) {
-            String commentId = postReplyMatcher.group(1);
-            return commentController.postReply(commentId, parsePostReplyRequest(requestBody));
-        }
+        // 处理回复评论请求
+        routes.add("POST", "/api/v1/comment/{comment_id}/replies", CALLER_PHONE,
+                r -> commentController.postReply(r.getPathVariable("comment_id"), parsePostReplyRequest(r.getBody())));
 
         // ============= 商品相关路由 =============
 
+        // 处理创建商品请求
+        routes.add("POST", "/api/v1/farmer/products", CALLER_PHONE,
+                r -> productController.createProduct(parseProductRequest(r.getBody())));
+
         // 处理商品上架请求
-        Pattern onShelfPattern = Pattern.compile("/api/v1/farmer/products/([^/]+)/on-shelf");
-        Matcher onShelfMatcher = onShelfPattern.matcher(path);
-
-        if (onShelfMatcher.matches() && "POST".equals(method)) {
-            String productId = onShelfMatcher.group(1);
-            // 移除可能存在的花括号
-            if (productId.startsWith("{") && productId.endsWith("}")) {
-                productId = productId.substring(1, productId.length() - 1);
-            }
-            return productController.onShelfProduct(productId, parseProductStatusUpdateRequest(requestBody));
-        }
+        routes.add("POST", "/api/v1/farmer/products/{product_id}/on-shelf", CALLER_PHONE,
+                r -> productController.onShelfProduct(productId(r), parseProductStatusUpdateRequest(r.getBody())));
 
         // 处理商品下架请求
-        Pattern offShelfPattern = Pattern.compile("/api/v1/farmer/products/([^/]+)/off-shelf");
-        Matcher offShelfMatcher = offShelfPattern.matcher(path);
-
-        if (offShelfMatcher.matches() && "POST".equals(method)) {
-            String productId = offShelfMatcher.group(1);
-            // 移除可能存在的花括号
-            if (productId.startsWith("{") && productId.endsWith("}")) {
-                productId = productId.substring(1, productId.length() - 1);
-            }
-            return productController.offShelfProduct(productId, parseProductStatusUpdateRequest(requestBody));
-        }
+        routes.add("POST", "/api/v1/farmer/products/{product_id}/off-shelf", CALLER_PHONE,
+                r -> productController.offShelfProduct(productId(r), parseProductStatusUpdateRequest(r.getBody())));
 
         // 处理商品删除请求
-        Pattern deleteProductPattern = Pattern.compile("/api/v1/farmer/products/([^/]+)");
-        Matcher deleteProductMatcher = deleteProductPattern.matcher(path);
-
-        if (deleteProductMatcher.matches() && "DELETE".equals(method)) {
-            String productId = deleteProductMatcher.group(1);
-            // 移除可能存在的花括号
-            if (productId.startsWith("{") && productId.endsWith("}")) {
-                productId = productId.substring(1, productId.length() - 1);
-            }
-            return productController.deleteProduct(productId, parseProductStatusUpdateRequest(requestBody));
-        }
+        routes.add("DELETE", "/api/v1/farmer/products/{product_id}", CALLER_PHONE,
+                r -> productController.deleteProduct(productId(r), parseProductStatusUpdateRequest(r.getBody())));
 
-        // 处理获取单个商品详情请求 (修改路径为 /api/v1/farmer/products/query/{productId})
-        Pattern getProductDetailPattern = Pattern.compile("/api/v1/farmer/products/query/([^/]+)");
-        Matcher getProductDetailMatcher = getProductDetailPattern.matcher(path);
-
-        if (getProductDetailMatcher.matches() && "POST".equals(method)) {
-            String productId = getProductDetailMatcher.group(1);
-            // 移除可能存在的花括号
-            if (productId.startsWith("{") && productId.endsWith("}")) {
-                productId = productId.substring(1, productId.length() - 1);
-            }
-            return productController.getProductDetail(productId, parseProductStatusUpdateRequest(requestBody));
-        }
+        // 处理获取单个商品详情请求
+        routes.add("POST", "/api/v1/farmer/products/query/{product_id}", CALLER_PHONE,
+                r -> productController.getProductDetail(productId(r), parseProductStatusUpdateRequest(r.getBody())));
 
         // 处理更新商品请求
-        Pattern updateProductPattern = Pattern.compile("/api/v1/farmer/products/([^/]+)");
-        Matcher updateProductMatcher = updateProductPattern.matcher(path);
-
-        if (updateProductMatcher.matches() && "PUT".equals(method)) {
-            String productId = updateProductMatcher.group(1);
-            // 移除可能存在的花括号
-            if (productId.startsWith("{") && productId.endsWith("}")) {
-                productId = productId.substring(1, productId.length() - 1);
-            }
-            return productController.updateProduct(productId, parseProductUpdateRequest(requestBody));
-        }
+        routes.add("PUT", "/api/v1/farmer/products/{product_id}", CALLER_PHONE,
+                r -> productController.updateProduct(productId(r), parseProductUpdateRequest(r.getBody())));
 
         // 处理获取商品列表请求
-        if ("/api/v1/farmer/products/list_query".equals(path) && "POST".equals(method)) {
-            return productController.getProductList(requestBody);
-        }
+        routes.add("POST", "/api/v1/farmer/products/list_query", CALLER_PHONE,
+                r -> productController.getProductList(r.getBody()));
 
         // 处理获取所有在售商品请求（用于广告）
-        if ("/api/v1/farmer/products/on-shelf/all".equals(path) && "GET".equals(method)) {
-            return productController.getAllOnShelfProducts();
-        }
+        routes.add("GET", "/api/v1/farmer/products/on-shelf/all",
+                r -> productController.getAllOnShelfProducts(r.getQueryParams().get("cursor"),
+                        r.getQueryParams().get("page_size")));
 
         // 处理批量操作商品请求
-        if ("/api/v1/farmer/products/batch-actions".equals(path) && "POST".equals(method)) {
-            return productController.batchActionProducts(parseProductBatchActionRequest(requestBody));
-        }
+        routes.add("POST", "/api/v1/farmer/products/batch-actions", CALLER_PHONE,
+                r -> productController.batchActionProducts(parseProductBatchActionRequest(r.getBody())));
 
-        // 获取用户余额 - /api/v1/auth/balance
-        if ("/api/v1/auth/balance".equals(path) && "GET".equals(method)) {
-            String phone = queryParams != null ? queryParams.get("phone") : null;
-            String userType = queryParams != null ? queryParams.get("user_type") : null;
-            if (phone == null && requestBody != null) {
-                phone = (String) requestBody.get("phone");
-            }
-            if (userType == null && requestBody != null) {
-                userType = (String) requestBody.get("user_type");
-            }
-            return authController.getBalance(phone, userType);
-        }
+        // ============= 用户相关路由 =============
+
+        // 注册
+        routes.add("POST", "/api/v1/auth/register", r -> handleRegister(r.getBody()));
+
+        // 退出登录，注销请求头中的令牌
+        routes.add("POST", "/api/v1/auth/logout", r -> authController.logout(bearerToken(r.getHeaders())));
+
+        // 登录
+        routes.add("POST", "/api/v1/auth/login", r -> {
+            log.debug("RouterConfig.handleRequest - 调用 handleLogin");
+            return handleLogin(r.getBody());
+        });
+
+        // 获取用户余额
+        routes.add("GET", "/api/v1/auth/balance", CALLER_PHONE, r -> {
+            String[] identity = phoneAndUserType(r);
+            return authController.getBalance(identity[0], identity[1]);
+        });
 
-        // 更新用户信息 - /api/v1/auth/profile
-        if ("/api/v1/auth/profile".equals(path) && "PUT".equals(method)) {
+        // 更新用户信息
+        routes.add("PUT", "/api/v1/auth/profile", CALLER_PHONE, r -> {
             UpdateProfileRequestDTO request = new UpdateProfileRequestDTO();
-            request.setPhone((String) requestBody.get("phone"));
-            request.setNickname((String) requestBody.get("nickname"));
+            request.setPhone((String) r.getBody().get("phone"));
+            request.setNickname((String) r.getBody().get("nickname"));
             return authController.updateProfile(request);
-        }
+        });
 
-        // 充值 - /api/v1/auth/recharge
-        if ("/api/v1/auth/recharge".equals(path) && "POST".equals(method)) {
+        // 充值
+        routes.add("POST", "/api/v1/auth/recharge", CALLER_PHONE, r -> {
+            Map<String, Object> requestBody = r.getBody();
             RechargeRequestDTO request = new RechargeRequestDTO();
             request.setPhone((String) requestBody.get("phone"));
             request.setUserType((String) requestBody.get("user_type"));
@@ -518,74 +458,73 @@ public class RouterConfig {
                 }
             }
             return authController.recharge(request);
-        }
+        });
 
-        // 获取用户详细信息 - /api/v1/auth/profile/detail
-        if ("/api/v1/auth/profile/detail".equals(path) && "GET".equals(method)) {
-            String phone = queryParams != null ? queryParams.get("phone") : null;
-            String userType = queryParams != null ? queryParams.get("user_type") : null;
-            if (phone == null && requestBody != null) {
-                phone = (String) requestBody.get("phone");
-            }
-            if (userType == null && requestBody != null) {
-                userType = (String) requestBody.get("user_type");
-            }
-            return authController.getUserProfile(phone, userType);
-        }
+        // 获取用户详细信息
+        routes.add("GET", "/api/v1/auth/profile/detail", CALLER_PHONE, r -> {
+            String[] identity = phoneAndUserType(r);
+            return authController.getUserProfile(identity[0], identity[1]);
+        });
 
-        // 更新买家收货地址 - /api/v1/auth/shipping-address
-        if ("/api/v1/auth/shipping-address".equals(path) && "PUT".equals(method)) {
+        // 更新买家收货地址
+        routes.add("PUT", "/api/v1/auth/shipping-address", CALLER_PHONE, r -> {
             UpdateShippingAddressRequestDTO request = new UpdateShippingAddressRequestDTO();
-            request.setPhone((String) requestBody.get("phone"));
-            request.setShippingAddress((String) requestBody.get("shipping_address"));
+            request.setPhone((String) r.getBody().get("phone"));
+            request.setShippingAddress((String) r.getBody().get("shipping_address"));
             return authController.updateShippingAddress(request);
-        }
+        });
 
-        if ("/api/v1/storage/upload".equals(path) && "POST".equals(method)) {
-            return handleImageUpload(requestBody);
-        }
+        // 上传图片
+        routes.add("POST", "/api/v1/storage/upload", r -> handleImageUpload(r.getBody()));
 
         // ============= 价格预测相关路由 =============
 
         // 上传Excel文件
-        if ("/api/v1/farmer/price-prediction/upload".equals(path) && "POST".equals(method)) {
-            return handleExcelUpload(requestBody);
-        }
+        routes.add("POST", "/api/v1/farmer/price-prediction/upload", r -> handleExcelUpload(r.getBody()));
 
         // 预测价格
-        if ("/api/v1/farmer/price-prediction/predict".equals(path) && "POST".equals(method)) {
-            PricePredictionRequestDTO request = parsePricePredictionRequest(requestBody);
-            return pricePredictionController.predictPrice(request);
-        }
+        routes.add("POST", "/api/v1/farmer/price-prediction/predict",
+                r -> pricePredictionController.predictPrice(parsePricePredictionRequest(r.getBody())));
+    }
 
-        switch (path) {
-            case "/api/v1/auth/register":
-                if ("POST".equals(method)) {
-                    return handleRegister(requestBody);
-                }
-                break;
-            case "/api/v1/auth/login":
-                System.out.println("RouterConfig.handleRequest - 匹配到登录路径");
-                if ("POST".equals(method)) {
-                    System.out.println("RouterConfig.handleRequest - 调用 handleLogin");
-                    return handleLogin(requestBody);
-                }
-                break;
-            case "/api/v1/farmer/products":
-                if ("POST".equals(method)) {
-                    // 不再使用会话，直接处理请求
-                    return productController.createProduct(parseProductRequest(requestBody));
-                }
-                break;
-        }
+    private static Map<String, Object> errorResponse(int code, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("code", code);
+        response.put("message", message);
+        return response;
+    }
 
-        // 默认返回404
+    private static Map<String, Object> notFound() {
         Map<String, Object> response = new HashMap<>();
         response.put("code", 404);
         response.put("message", "接口不存在");
         return response;
     }
 
+    // 商品接口的 productId 可能带有花括号，需要移除
+    private static String productId(RouteTable.Request request) {
+        String productId = request.getPathVariable("product_id");
+        if (productId.startsWith("{") && productId.endsWith("}")) {
+            productId = productId.substring(1, productId.length() - 1);
+        }
+        return productId;
+    }
+
+    // 优先从查询参数获取 phone 和 user_type，缺失时再从请求体获取
+    private static String[] phoneAndUserType(RouteTable.Request request) {
+        Map<String, String> queryParams = request.getQueryParams();
+        Map<String, Object> requestBody = request.getBody();
+        String phone = queryParams != null ? queryParams.get("phone") : null;
+        String userType = queryParams != null ? queryParams.get("user_type") : null;
+        if (phone == null && requestBody != null) {
+            phone = (String) requestBody.get("phone");
+        }
+        if (userType == null && requestBody != null) {
+            userType = (String) requestBody.get("user_type");
+        }
+        return new String[] { phone, userType };
+    }
+
     // 重载方法以保持向后兼容
     public Map<String, Object> handleRequest(String path, String method, Map<String, Object> requestBody) {
         return handleRequest(path, method, requestBody, new HashMap<>(), new HashMap<>());
@@ -674,17 +613,17 @@ public class RouterConfig {
     }
 
     private Map<String, Object> handleRegister(Map<String, Object> requestBody) {
-        System.out.println("RouterConfig.handleRegister - 开始处理注册请求");
+        log.debug("RouterConfig.handleRegister - 开始处理注册请求");
         String userType = (String) requestBody.get("user_type");
 
         if (userType == null) {
             userType = (String) requestBody.get("userType");
         }
-        System.out.println("RouterConfig.handleRegister - 用户类型: " + userType);
+        log.debug("RouterConfig.handleRegister - 用户类型: " + userType);
 
         switch (userType) {
             case "farmer":
-                System.out.println("RouterConfig.handleRegister - 处理农户注册");
+                log.debug("RouterConfig.handleRegister - 处理农户注册");
                 FarmerRegisterRequestDTO farmerRequest = new FarmerRegisterRequestDTO();
                 farmerRequest.setPassword((String) requestBody.get("password"));
                 farmerRequest.setNickname((String) requestBody.get("nickname"));
@@ -695,9 +634,9 @@ public class RouterConfig {
                 if (requestBody.get("farm_size") instanceof Number) {
                     farmerRequest.setFarmSize(((Number) requestBody.get("farm_size")).doubleValue());
                 }
-                System.out.println("RouterConfig.handleRegister - 调用 authController.register");
+                log.debug("RouterConfig.handleRegister - 调用 authController.register");
                 Map<String, Object> result = authController.register(farmerRequest);
-                System.out.println("RouterConfig.handleRegister - authController.register 返回: " + result);
+                log.debug("RouterConfig.handleRegister - authController.register 返回: " + result.get("code"));
                 return result;
 
             case "buyer":
@@ -742,8 +681,8 @@ public class RouterConfig {
     }
 
     private Map<String, Object> handleLogin(Map<String, Object> requestBody) {
-        System.out.println("RouterConfig.handleLogin - 开始处理登录请求");
-        System.out.println("请求体: " + requestBody);
+        // 登录请求体含明文密码，不输出请求体
+        log.debug("RouterConfig.handleLogin - 开始处理登录请求");
 
         LoginRequestDTO loginRequest = new LoginRequestDTO();
         loginRequest.setPhone((String) requestBody.get("phone"));
@@ -755,13 +694,13 @@ public class RouterConfig {
         }
         loginRequest.setUserType(userType);
 
-        System.out.println("RouterConfig.handleLogin - LoginRequestDTO 创建完成");
-        System.out.println("LoginRequestDTO - phone: " + loginRequest.getPhone() +
-                ", password: " + loginRequest.getPassword() +
+        log.debug("RouterConfig.handleLogin - LoginRequestDTO 创建完成");
+        log.debug("LoginRequestDTO - phone: " + loginRequest.getPhone() +
                 ", userType: " + loginRequest.getUserType());
 
         Map<String, Object> loginResult = authController.login(loginRequest);
-        System.out.println("RouterConfig.handleLogin - authController.login 返回: " + loginResult);
+        // 响应中含会话令牌，只记录状态码
+        log.debug("RouterConfig.handleLogin - authController.login 返回: " + loginResult.get("code"));
 
         return loginResult;
     }
@@ -1320,10 +1259,11 @@ public class RouterConfig {
             
             byte[] fileBytes = Base64.getDecoder().decode(base64Data);
             
-            // 验证文件大小（限制10MB）
-            if (fileBytes.length > 10 * 1024 * 1024) {
+            // 验证文件大小
+            long maxFileSize = ServerConfig.getInstance().getUploadMaxFileSize();
+            if (maxFileSize > 0 && fileBytes.length > maxFileSize) {
                 response.put("code", 400);
-                response.put("message", "文件大小不能超过10MB");
+                response.put("message", "文件大小不能超过" + (maxFileSize / (1024 * 1024)) + "MB");
                 return response;
             }
             
@@ -1336,7 +1276,7 @@ public class RouterConfig {
             response.put("message", e.getMessage());
             return response;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("handleExcelUpload 执行异常", e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
             return response;
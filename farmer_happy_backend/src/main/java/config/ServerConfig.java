@@ -0,0 +1,368 @@
+package config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * HTTP服务配置管理类
+ * 负责从配置文件加载端口、请求线程池等服务端参数
+ */
+public class ServerConfig {
+    private static final String LOCAL_CONFIG_FILE = "/server-local.properties";
+    private static final String DEFAULT_CONFIG_FILE = "/server.properties";
+
+    private static ServerConfig instance;
+    private Properties properties;
+
+    private ServerConfig() {
+        loadProperties();
+    }
+
+    public static synchronized ServerConfig getInstance() {
+        if (instance == null) {
+            instance = new ServerConfig();
+        }
+        return instance;
+    }
+
+    private void loadProperties() {
+        properties = new Properties();
+
+        // 优先加载本地配置文件，不存在时加载默认配置文件
+        String[] candidates = {LOCAL_CONFIG_FILE, DEFAULT_CONFIG_FILE};
+        for (String file : candidates) {
+            InputStream stream = getClass().getResourceAsStream(file);
+            if (stream == null) {
+                continue;
+            }
+            try {
+                properties.load(stream);
+                System.out.println("已加载服务配置文件: " + file);
+                return;
+            } catch (IOException e) {
+                System.err.println("加载服务配置文件失败: " + file + ", " + e.getMessage());
+            } finally {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    System.err.println("关闭服务配置文件流失败: " + e.getMessage());
+                }
+            }
+        }
+        System.err.println("未找到服务配置文件，使用默认值");
+    }
+
+    /**
+     * 读取任意配置项，供各子系统按需扩展
+     */
+    public String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = properties.getProperty(key, defaultValue);
+        }
+        return value != null ? value.trim() : null;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("配置项 " + key + " 不是有效整数: " + value + "，使用默认值 " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            System.err.println("配置项 " + key + " 不是有效整数: " + value + "，使用默认值 " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value);
+    }
+
+    public int getPort() {
+        return getInt("server.port", 8080);
+    }
+
+    /**
+     * TCP 连接等待队列长度，0 表示使用系统默认值
+     */
+    public int getBacklog() {
+        return getInt("server.backlog", 0);
+    }
+
+    /**
+     * 请求执行模式：single / fixed / work-stealing / virtual
+     */
+    public String getExecutorMode() {
+        return getString("server.executor.mode", "fixed");
+    }
+
+    /**
+     * 工作线程数，0 表示按CPU核数自动计算
+     */
+    public int getExecutorThreads() {
+        int threads = getInt("server.executor.threads", 0);
+        if (threads <= 0) {
+            threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        }
+        return threads;
+    }
+
+    /**
+     * 工作线程数是否按CPU核数自动计算（未配置或配置为 0）
+     */
+    public boolean isExecutorThreadsAuto() {
+        return getInt("server.executor.threads", 0) <= 0;
+    }
+
+    /**
+     * 等待执行的请求队列上限，超出后直接返回503
+     */
+    public int getExecutorQueueCapacity() {
+        return getInt("server.executor.queue.capacity", 200);
+    }
+
+    /**
+     * 停机时等待在途请求完成的最长时间（毫秒）
+     */
+    public long getShutdownTimeoutMillis() {
+        return getLong("server.shutdown.timeout", 10000L);
+    }
+
+    /**
+     * JSON 响应缓冲区大小（字节），超过该大小的响应改为分块传输
+     */
+    public int getJsonBufferSize() {
+        return getInt("server.json.buffer.size", 16384);
+    }
+
+    /**
+     * 请求体最大字节数（0 表示不限制），超过时返回413
+     */
+    public long getMaxRequestBodySize() {
+        return getLong("server.request.max.body.size", 16L * 1024 * 1024);
+    }
+
+    /**
+     * 日志级别：DEBUG / INFO / WARN / ERROR / OFF
+     */
+    public String getLogLevel() {
+        return getString("server.log.level", "INFO");
+    }
+
+    /**
+     * 异步日志环形缓冲区容量（条），写满时丢弃新日志而不阻塞请求线程
+     */
+    public int getLogBufferSize() {
+        return getInt("server.log.buffer.size", 8192);
+    }
+
+    /**
+     * 单条日志最大字符数，超出部分截断
+     */
+    public int getLogMaxMessageLength() {
+        return getInt("server.log.max.message.length", 4096);
+    }
+
+    /**
+     * 请求体/响应体日志最大字符数
+     */
+    public int getLogBodyMaxLength() {
+        return getInt("server.log.body.max.length", 1024);
+    }
+
+    /**
+     * 请求体/响应体日志采样间隔：每 N 次输出一次，0 表示不输出
+     */
+    public int getLogBodySampleEvery() {
+        return getInt("server.log.body.sample.every", 100);
+    }
+
+    /**
+     * 是否开放 /api/v1/admin/metrics 指标接口
+     */
+    public boolean isMetricsEnabled() {
+        return getBoolean("server.metrics.enabled", false);
+    }
+
+    /**
+     * 指标接口访问令牌，为空时只允许本机访问
+     */
+    public String getMetricsToken() {
+        return getString("server.metrics.token", "").trim();
+    }
+
+    /**
+     * 会话令牌签名密钥，为空时每次启动随机生成
+     */
+    public String getSessionSecret() {
+        return getString("server.session.secret", "");
+    }
+
+    /**
+     * 会话空闲超时（秒），每次请求都会顺延
+     */
+    public long getSessionIdleTimeoutSeconds() {
+        return getLong("server.session.idle.timeout.seconds", 1800);
+    }
+
+    /**
+     * 会话自创建起的最长有效期（秒）
+     */
+    public long getSessionMaxLifetimeSeconds() {
+        return getLong("server.session.max.lifetime.seconds", 86400);
+    }
+
+    /**
+     * 会话存储分片数（向下取整到 2 的幂）
+     */
+    public int getSessionShards() {
+        return getInt("server.session.shards", 16);
+    }
+
+    /**
+     * 价格文件上传大小上限（字节，0 表示不限制），解析时超出即停止读取
+     */
+    public long getUploadMaxFileSize() {
+        return getLong("server.upload.max.file.size", 10L * 1024 * 1024);
+    }
+
+    /**
+     * 上传的价格序列最多保留的文件数（内存和磁盘合计）
+     */
+    public int getSeriesStoreMaxEntries() {
+        return getInt("server.series.store.max.entries", 500);
+    }
+
+    /**
+     * 上传的价格序列在内存中最多占用的估算大小（MB），超出部分溢出到磁盘
+     */
+    public long getSeriesStoreMaxResidentMb() {
+        return getLong("server.series.store.max.resident.mb", 64);
+    }
+
+    /**
+     * 上传的价格序列多久未访问后删除（分钟，0 表示不过期）
+     */
+    public long getSeriesStoreTtlMinutes() {
+        return getLong("server.series.store.ttl.minutes", 120);
+    }
+
+    /**
+     * 价格序列溢出文件目录，为空时使用系统临时目录下的 farmer-happy-series
+     */
+    public String getSeriesStoreDir() {
+        return getString("server.series.store.dir", "");
+    }
+
+    /**
+     * 价格预测按规格并行的线程数，0 表示使用 CPU 核数
+     */
+    public int getPredictionParallelism() {
+        int parallelism = getInt("server.prediction.parallelism", 0);
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        return parallelism;
+    }
+
+    /**
+     * 单次价格预测（所有规格合计）的最长耗时（毫秒，0 表示不限制）
+     */
+    public long getPredictionTimeoutMillis() {
+        return getLong("server.prediction.timeout.ms", 60000);
+    }
+
+    /**
+     * 启动爬虫工作进程的 Python 命令
+     */
+    public String getCrawlerPythonCommand() {
+        return getString("server.crawler.python", "python");
+    }
+
+    /**
+     * 常驻的爬虫工作进程数
+     */
+    public int getCrawlerWorkers() {
+        return Math.max(1, getInt("server.crawler.workers", 2));
+    }
+
+    /**
+     * 等待执行的爬取任务数上限，超出时拒绝新任务
+     */
+    public int getCrawlerQueueCapacity() {
+        return Math.max(1, getInt("server.crawler.queue.capacity", 16));
+    }
+
+    /**
+     * 单个爬取任务的最长耗时（毫秒，0 表示不限制），超时后结束对应的工作进程
+     */
+    public long getCrawlerJobTimeoutMillis() {
+        return getLong("server.crawler.job.timeout.ms", 300000);
+    }
+
+    /**
+     * 异步爬取任务记录目录，为空时使用项目根目录下的 result/jobs
+     */
+    public String getCrawlJobsDir() {
+        return getString("server.crawler.jobs.dir", "");
+    }
+
+    /**
+     * 最多保留的异步爬取任务记录数
+     */
+    public int getCrawlJobsHistory() {
+        return Math.max(1, getInt("server.crawler.jobs.history", 200));
+    }
+
+    /**
+     * 爬取结果按品种拆分时同时保持打开的输出文件数上限，超出时关闭最久未写入的品种文件
+     */
+    public int getSplitMaxOpenFiles() {
+        return Math.max(1, getInt("server.crawler.split.max.open.files", 32));
+    }
+
+    /**
+     * 拆分结果是否用 SXSSF 流式写 xlsx（false 时在内存中构建完整工作簿）
+     */
+    public boolean isSplitXlsxStreaming() {
+        return getBoolean("server.crawler.split.xlsx.streaming", true);
+    }
+
+    /**
+     * 各品种并行导出 xlsx 的线程数，0 表示使用 CPU 核数
+     */
+    public int getSplitXlsxParallelism() {
+        int threads = getInt("server.crawler.split.xlsx.parallelism", 0);
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        return threads;
+    }
+
+    /**
+     * 重新加载配置文件
+     */
+    public void reload() {
+        loadProperties();
+    }
+}
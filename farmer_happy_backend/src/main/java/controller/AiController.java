@@ -1,6 +1,8 @@
 // src/main/java/controller/AiController.java
 package controller;
 
+import util.Logger;
+
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
@@ -11,6 +13,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class AiController {
+    private static final Logger log = Logger.getLogger(AiController.class);
 
     // 注意：真实环境中不建议把密钥写死在代码里，这里按题目要求直接使用
     private static final String API_KEY = "sk-QfccpUybEFZ3iGB9rzzukWekBgb0fkaS8Skcy4tyuM8TY5Yf";
@@ -59,7 +62,7 @@ public class AiController {
             bodyBuilder.append("}");
 
             String requestBody = bodyBuilder.toString();
-            System.out.println("AI 请求体: " + requestBody);
+            log.body("AI 请求体", requestBody);
 
             try (OutputStream os = conn.getOutputStream()) {
                 byte[] input = requestBody.getBytes(StandardCharsets.UTF_8);
@@ -82,7 +85,7 @@ public class AiController {
             reader.close();
 
             String apiResp = sb.toString();
-            System.out.println("AI 原始响应: " + apiResp);
+            log.body("AI 原始响应", apiResp);
 
             if (statusCode >= 200 && statusCode < 300) {
                 String answer = extractFirstMessageContent(apiResp);
@@ -130,7 +133,7 @@ public class AiController {
                 response.put("http_status", statusCode);
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("chatWithAiExpert 执行异常", e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
         }
@@ -199,7 +202,7 @@ public class AiController {
             }
             return result;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("extractFirstMessageContent 执行异常", e);
             return json;
         }
     }
@@ -271,7 +274,7 @@ public class AiController {
             String result = sb.toString().trim();
             return result.isEmpty() ? null : result;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("extractErrorMessage 执行异常", e);
             return null;
         }
     }
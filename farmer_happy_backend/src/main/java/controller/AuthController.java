@@ -4,6 +4,8 @@ package controller;
 import dto.auth.*;
 import service.auth.AuthService;
 import service.auth.AuthServiceImpl;
+import service.auth.SessionManager;
+import util.Logger;
 
 import java.sql.SQLException;
 import java.util.*;
@@ -11,6 +13,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class AuthController {
+    private static final Logger log = Logger.getLogger(AuthController.class);
     private AuthService authService;
 
     public AuthController() {
@@ -22,19 +25,19 @@ public class AuthController {
     }
 
     public Map<String, Object> register(RegisterRequestDTO request) {
-        System.out.println("AuthController.register - 开始处理注册请求");
+        log.debug("AuthController.register - 开始处理注册请求");
         Map<String, Object> response = new HashMap<>();
 
         try {
-            System.out.println("AuthController.register - 调用 authService.register");
+            log.debug("AuthController.register - 调用 authService.register");
             AuthResponseDTO authResponse = authService.register(request);
-            System.out.println("AuthController.register - authService.register 返回成功");
+            log.debug("AuthController.register - authService.register 返回成功");
             response.put("code", 200);
             response.put("message", "注册成功");
             response.put("data", authResponse);
-            System.out.println("AuthController.register - 响应构建完成");
+            log.debug("AuthController.register - 响应构建完成");
         } catch (IllegalArgumentException e) {
-            System.out.println("AuthController.register - 捕获 IllegalArgumentException: " + e.getMessage());
+            log.debug("AuthController.register - 捕获 IllegalArgumentException: " + e.getMessage());
             response.put("code", 400);
             response.put("message", "参数验证失败");
 
@@ -59,30 +62,29 @@ public class AuthController {
                 response.put("message", "服务器内部错误");
             }
         } catch (Exception e) {
-            System.out.println("AuthController.register - 捕获异常: " + e.getMessage());
-            e.printStackTrace();
+            log.error("AuthController.register - 捕获异常: " + e.getMessage(), e);
             response.put("code", 500);
             response.put("message", "服务器内部错误");
         }
 
-        System.out.println("AuthController.register - 返回响应，code=" + response.get("code"));
+        log.debug("AuthController.register - 返回响应，code=" + response.get("code"));
         return response;
     }
 
     public Map<String, Object> login(LoginRequestDTO request) {
-        System.out.println("AuthController.login - 开始处理登录请求");
+        log.debug("AuthController.login - 开始处理登录请求");
         Map<String, Object> response = new HashMap<>();
 
         try {
-            System.out.println("AuthController.login - 调用 authService.login");
+            log.debug("AuthController.login - 调用 authService.login");
             AuthResponseDTO authResponse = authService.login(request);
-            System.out.println("AuthController.login - authService.login 返回成功");
+            log.debug("AuthController.login - authService.login 返回成功");
             response.put("code", 200);
             response.put("message", "成功");
             response.put("data", authResponse);
-            System.out.println("AuthController.login - 响应构建完成");
+            log.debug("AuthController.login - 响应构建完成");
         } catch (IllegalArgumentException e) {
-            System.out.println("AuthController.login - 捕获 IllegalArgumentException: " + e.getMessage());
+            log.debug("AuthController.login - 捕获 IllegalArgumentException: " + e.getMessage());
             response.put("code", 400);
             response.put("message", "参数验证失败");
 
@@ -93,22 +95,33 @@ public class AuthController {
             errors.add(error);
             response.put("errors", errors);
         } catch (SecurityException e) {
-            System.out.println("AuthController.login - 捕获 SecurityException: " + e.getMessage());
+            log.debug("AuthController.login - 捕获 SecurityException: " + e.getMessage());
             response.put("code", 401);
             response.put("message", "用户名或密码错误");
         } catch (Exception e) {
-            System.out.println("AuthController.login - 捕获异常: " + e.getMessage());
-            e.printStackTrace();
+            log.error("AuthController.login - 捕获异常: " + e.getMessage(), e);
             response.put("code", 500);
             response.put("message", "服务器内部错误");
         }
 
-        System.out.println("AuthController.login - 返回响应，code=" + response.get("code"));
+        log.debug("AuthController.login - 返回响应，code=" + response.get("code"));
+        return response;
+    }
+
+    public Map<String, Object> logout(String token) {
+        Map<String, Object> response = new HashMap<>();
+        if (token == null || !SessionManager.getInstance().revoke(token)) {
+            response.put("code", 401);
+            response.put("message", "会话已失效，请重新登录");
+            return response;
+        }
+        response.put("code", 200);
+        response.put("message", "已退出登录");
         return response;
     }
 
     public Map<String, Object> getBalance(String phone, String userType) {
-        System.out.println("AuthController.getBalance - 开始处理获取余额请求");
+        log.debug("AuthController.getBalance - 开始处理获取余额请求");
         Map<String, Object> response = new HashMap<>();
 
         try {
@@ -134,10 +147,9 @@ public class AuthController {
             Map<String, Object> data = new HashMap<>();
             data.put("balance", balance);
             response.put("data", data);
-            System.out.println("AuthController.getBalance - 返回余额: " + balance);
+            log.debug("AuthController.getBalance - 返回余额: " + balance);
         } catch (Exception e) {
-            System.out.println("AuthController.getBalance - 捕获异常: " + e.getMessage());
-            e.printStackTrace();
+            log.error("AuthController.getBalance - 捕获异常: " + e.getMessage(), e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
         }
@@ -146,7 +158,7 @@ public class AuthController {
     }
 
     public Map<String, Object> updateProfile(UpdateProfileRequestDTO request) {
-        System.out.println("AuthController.updateProfile - 开始处理更新用户信息请求");
+        log.debug("AuthController.updateProfile - 开始处理更新用户信息请求");
         Map<String, Object> response = new HashMap<>();
 
         try {
@@ -166,12 +178,11 @@ public class AuthController {
             response.put("code", 200);
             response.put("message", "更新成功");
         } catch (IllegalArgumentException e) {
-            System.out.println("AuthController.updateProfile - 捕获 IllegalArgumentException: " + e.getMessage());
+            log.debug("AuthController.updateProfile - 捕获 IllegalArgumentException: " + e.getMessage());
             response.put("code", 400);
             response.put("message", e.getMessage());
         } catch (Exception e) {
-            System.out.println("AuthController.updateProfile - 捕获异常: " + e.getMessage());
-            e.printStackTrace();
+            log.error("AuthController.updateProfile - 捕获异常: " + e.getMessage(), e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
         }
@@ -180,7 +191,7 @@ public class AuthController {
     }
 
     public Map<String, Object> recharge(RechargeRequestDTO request) {
-        System.out.println("AuthController.recharge - 开始处理充值请求");
+        log.debug("AuthController.recharge - 开始处理充值请求");
         Map<String, Object> response = new HashMap<>();
 
         try {
@@ -213,12 +224,11 @@ public class AuthController {
             data.put("balance", newBalance);
             response.put("data", data);
         } catch (IllegalArgumentException e) {
-            System.out.println("AuthController.recharge - 捕获 IllegalArgumentException: " + e.getMessage());
+            log.debug("AuthController.recharge - 捕获 IllegalArgumentException: " + e.getMessage());
             response.put("code", 400);
             response.put("message", e.getMessage());
         } catch (Exception e) {
-            System.out.println("AuthController.recharge - 捕获异常: " + e.getMessage());
-            e.printStackTrace();
+            log.error("AuthController.recharge - 捕获异常: " + e.getMessage(), e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
         }
@@ -227,7 +237,7 @@ public class AuthController {
     }
 
     public Map<String, Object> getUserProfile(String phone, String userType) {
-        System.out.println("AuthController.getUserProfile - 开始处理获取用户详细信息请求");
+        log.debug("AuthController.getUserProfile - 开始处理获取用户详细信息请求");
         Map<String, Object> response = new HashMap<>();
 
         try {
@@ -248,12 +258,11 @@ public class AuthController {
             response.put("message", "成功");
             response.put("data", profile);
         } catch (IllegalArgumentException e) {
-            System.out.println("AuthController.getUserProfile - 捕获 IllegalArgumentException: " + e.getMessage());
+            log.debug("AuthController.getUserProfile - 捕获 IllegalArgumentException: " + e.getMessage());
             response.put("code", 400);
             response.put("message", e.getMessage());
         } catch (Exception e) {
-            System.out.println("AuthController.getUserProfile - 捕获异常: " + e.getMessage());
-            e.printStackTrace();
+            log.error("AuthController.getUserProfile - 捕获异常: " + e.getMessage(), e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
         }
@@ -262,7 +271,7 @@ public class AuthController {
     }
 
     public Map<String, Object> updateShippingAddress(UpdateShippingAddressRequestDTO request) {
-        System.out.println("AuthController.updateShippingAddress - 开始处理更新收货地址请求");
+        log.debug("AuthController.updateShippingAddress - 开始处理更新收货地址请求");
         Map<String, Object> response = new HashMap<>();
 
         try {
@@ -276,12 +285,11 @@ public class AuthController {
             response.put("code", 200);
             response.put("message", "更新成功");
         } catch (IllegalArgumentException e) {
-            System.out.println("AuthController.updateShippingAddress - 捕获 IllegalArgumentException: " + e.getMessage());
+            log.debug("AuthController.updateShippingAddress - 捕获 IllegalArgumentException: " + e.getMessage());
             response.put("code", 400);
             response.put("message", e.getMessage());
         } catch (Exception e) {
-            System.out.println("AuthController.updateShippingAddress - 捕获异常: " + e.getMessage());
-            e.printStackTrace();
+            log.error("AuthController.updateShippingAddress - 捕获异常: " + e.getMessage(), e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
         }
@@ -290,44 +298,44 @@ public class AuthController {
     }
 
     private String extractFieldName(String errorMessage) {
-        System.out.println("AuthController.extractFieldName - 处理错误消息: [" + errorMessage + "]");
+        log.warn("AuthController.extractFieldName - 处理错误消息: [" + errorMessage + "]");
         
         // 匹配 "field:message" 或 "field: message" 格式的错误消息
         Pattern pattern = Pattern.compile("^([\\w_]+):.*");
         Matcher matcher = pattern.matcher(errorMessage);
         if (matcher.find()) {
             String field = matcher.group(1);
-            System.out.println("AuthController.extractFieldName - 通过正则匹配到字段: " + field);
+            log.debug("AuthController.extractFieldName - 通过正则匹配到字段: " + field);
             return field;
         }
         
         // 特殊处理已知错误消息
         if (errorMessage.contains("该手机号已注册此用户类型")) {
-            System.out.println("AuthController.extractFieldName - 匹配到：该手机号已注册此用户类型");
+            log.debug("AuthController.extractFieldName - 匹配到：该手机号已注册此用户类型");
             return "phone";
         }
         if (errorMessage.contains("密码错误")) {
-            System.out.println("AuthController.extractFieldName - 匹配到：密码错误");
+            log.warn("AuthController.extractFieldName - 匹配到：密码错误");
             return "password";
         }
         if (errorMessage.contains("用户类型不能为空")) {
-            System.out.println("AuthController.extractFieldName - 匹配到：用户类型不能为空");
+            log.debug("AuthController.extractFieldName - 匹配到：用户类型不能为空");
             return "user_type";
         }
         if (errorMessage.contains("手机号不能为空")) {
-            System.out.println("AuthController.extractFieldName - 匹配到：手机号不能为空");
+            log.debug("AuthController.extractFieldName - 匹配到：手机号不能为空");
             return "phone";
         }
         if (errorMessage.contains("密码不能为空")) {
-            System.out.println("AuthController.extractFieldName - 匹配到：密码不能为空");
+            log.debug("AuthController.extractFieldName - 匹配到：密码不能为空");
             return "password";
         }
         if (errorMessage.contains("农场名称不能为空")) {
-            System.out.println("AuthController.extractFieldName - 匹配到：农场名称不能为空");
+            log.debug("AuthController.extractFieldName - 匹配到：农场名称不能为空");
             return "farm_name";
         }
         
-        System.out.println("AuthController.extractFieldName - 未匹配到任何已知错误，返回 unknown");
+        log.warn("AuthController.extractFieldName - 未匹配到任何已知错误，返回 unknown");
         return "unknown";
     }
 
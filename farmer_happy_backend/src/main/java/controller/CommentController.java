@@ -9,11 +9,14 @@ import service.community.ContentServiceImpl;
 import service.auth.AuthService;
 import service.auth.AuthServiceImpl;
 import repository.DatabaseManager;
+import util.Logger;
+import util.PageCursor;
 
 import java.sql.SQLException;
 import java.util.*;
 
 public class CommentController {
+    private static final Logger log = Logger.getLogger(CommentController.class);
     private CommentService commentService;
 
     public CommentController() {
@@ -32,7 +35,7 @@ public class CommentController {
      * POST /api/v1/content/{content_id}/comments
      */
     public Map<String, Object> postComment(String contentId, PostCommentRequestDTO request) {
-        System.out.println("CommentController.postComment - 开始处理评论请求");
+        log.debug("CommentController.postComment - 开始处理评论请求");
         Map<String, Object> response = new HashMap<>();
 
         try {
@@ -40,9 +43,9 @@ public class CommentController {
             response.put("code", 201);
             response.put("message", "评论成功");
             response.put("data", result);
-            System.out.println("CommentController.postComment - 评论发布成功");
+            log.debug("CommentController.postComment - 评论发布成功");
         } catch (IllegalArgumentException e) {
-            System.out.println("CommentController.postComment - 参数验证失败: " + e.getMessage());
+            log.warn("CommentController.postComment - 参数验证失败: " + e.getMessage());
             if (e.getMessage().contains("帖子不存在")) {
                 response.put("code", 404);
                 response.put("message", e.getMessage());
@@ -58,19 +61,19 @@ public class CommentController {
                 response.put("errors", errors);
             }
         } catch (SecurityException e) {
-            System.out.println("CommentController.postComment - 用户认证失败: " + e.getMessage());
+            log.warn("CommentController.postComment - 用户认证失败: " + e.getMessage());
             response.put("code", 401);
             response.put("message", e.getMessage());
         } catch (SQLException e) {
-            System.out.println("CommentController.postComment - 数据库错误: " + e.getMessage());
+            log.warn("CommentController.postComment - 数据库错误: " + e.getMessage());
             response.put("code", 500);
             response.put("message", "服务器内部错误");
-            e.printStackTrace();
+            log.error("postComment 执行异常", e);
         } catch (Exception e) {
-            System.out.println("CommentController.postComment - 未知错误: " + e.getMessage());
+            log.warn("CommentController.postComment - 未知错误: " + e.getMessage());
             response.put("code", 500);
             response.put("message", "服务器内部错误");
-            e.printStackTrace();
+            log.error("postComment 执行异常", e);
         }
 
         return response;
@@ -81,7 +84,7 @@ public class CommentController {
      * POST /api/v1/comment/{comment_id}/replies
      */
     public Map<String, Object> postReply(String commentId, PostReplyRequestDTO request) {
-        System.out.println("CommentController.postReply - 开始处理回复请求");
+        log.debug("CommentController.postReply - 开始处理回复请求");
         Map<String, Object> response = new HashMap<>();
 
         try {
@@ -89,9 +92,9 @@ public class CommentController {
             response.put("code", 201);
             response.put("message", "回复评论成功");
             response.put("data", result);
-            System.out.println("CommentController.postReply - 回复发布成功");
+            log.debug("CommentController.postReply - 回复发布成功");
         } catch (IllegalArgumentException e) {
-            System.out.println("CommentController.postReply - 参数验证失败: " + e.getMessage());
+            log.warn("CommentController.postReply - 参数验证失败: " + e.getMessage());
             if (e.getMessage().contains("评论不存在")) {
                 response.put("code", 404);
                 response.put("message", "回复失败，目标评论不存在或已被删除");
@@ -107,30 +110,38 @@ public class CommentController {
                 response.put("errors", errors);
             }
         } catch (SecurityException e) {
-            System.out.println("CommentController.postReply - 用户认证失败: " + e.getMessage());
+            log.warn("CommentController.postReply - 用户认证失败: " + e.getMessage());
             response.put("code", 401);
             response.put("message", e.getMessage());
         } catch (SQLException e) {
-            System.out.println("CommentController.postReply - 数据库错误: " + e.getMessage());
+            log.warn("CommentController.postReply - 数据库错误: " + e.getMessage());
             response.put("code", 500);
             response.put("message", "服务器内部错误");
-            e.printStackTrace();
+            log.error("postReply 执行异常", e);
         } catch (Exception e) {
-            System.out.println("CommentController.postReply - 未知错误: " + e.getMessage());
+            log.warn("CommentController.postReply - 未知错误: " + e.getMessage());
             response.put("code", 500);
             response.put("message", "服务器内部错误");
-            e.printStackTrace();
+            log.error("postReply 执行异常", e);
         }
 
         return response;
     }
 
     /**
-     * 获取评论列表
+     * 获取全部评论（不分页）
      * GET /api/v1/content/{content_id}/comments
      */
     public Map<String, Object> getCommentList(String contentId) {
-        System.out.println("CommentController.getCommentList - 开始获取评论列表");
+        return getCommentList(contentId, null, null);
+    }
+
+    /**
+     * 按一级评论分页获取评论列表
+     * GET /api/v1/content/{content_id}/comments?cursor=...&page_size=...
+     */
+    public Map<String, Object> getCommentList(String contentId, String cursor, String pageSize) {
+        log.debug("CommentController.getCommentList - 开始获取评论列表");
         Map<String, Object> response = new HashMap<>();
 
         try {
@@ -147,21 +158,25 @@ public class CommentController {
                 return response;
             }
 
-            CommentListResponseDTO result = commentService.getCommentList(contentId);
+            CommentListResponseDTO result = commentService.getCommentList(contentId, cursor,
+                    PageCursor.pageSize(cursor, pageSize));
             response.put("code", 200);
             response.put("message", "获取评论列表成功");
             response.put("data", result);
-            System.out.println("CommentController.getCommentList - 获取评论列表成功");
+            log.debug("CommentController.getCommentList - 获取评论列表成功");
+        } catch (IllegalArgumentException e) {
+            response.put("code", 400);
+            response.put("message", e.getMessage());
         } catch (SQLException e) {
-            System.out.println("CommentController.getCommentList - 数据库错误: " + e.getMessage());
+            log.warn("CommentController.getCommentList - 数据库错误: " + e.getMessage());
             response.put("code", 500);
             response.put("message", "服务器内部错误");
-            e.printStackTrace();
+            log.error("getCommentList 执行异常", e);
         } catch (Exception e) {
-            System.out.println("CommentController.getCommentList - 未知错误: " + e.getMessage());
+            log.warn("CommentController.getCommentList - 未知错误: " + e.getMessage());
             response.put("code", 500);
             response.put("message", "服务器内部错误");
-            e.printStackTrace();
+            log.error("getCommentList 执行异常", e);
         }
 
         return response;
@@ -7,11 +7,14 @@ import service.community.ContentServiceImpl;
 import service.auth.AuthService;
 import service.auth.AuthServiceImpl;
 import repository.DatabaseManager;
+import util.Logger;
+import util.PageCursor;
 
 import java.sql.SQLException;
 import java.util.*;
 
 public class ContentController {
+    private static final Logger log = Logger.getLogger(ContentController.class);
     private ContentService contentService;
 
     public ContentController() {
@@ -29,7 +32,7 @@ public class ContentController {
      * POST /api/v1/content/publish
      */
     public Map<String, Object> publishContent(PublishContentRequestDTO request) {
-        System.out.println("ContentController.publishContent - 开始处理发布内容请求");
+        log.debug("ContentController.publishContent - 开始处理发布内容请求");
         Map<String, Object> response = new HashMap<>();
 
         try {
@@ -37,9 +40,9 @@ public class ContentController {
             response.put("code", 201);
             response.put("message", "内容发布成功");
             response.put("data", result);
-            System.out.println("ContentController.publishContent - 内容发布成功");
+            log.debug("ContentController.publishContent - 内容发布成功");
         } catch (IllegalArgumentException e) {
-            System.out.println("ContentController.publishContent - 参数验证失败: " + e.getMessage());
+            log.warn("ContentController.publishContent - 参数验证失败: " + e.getMessage());
             response.put("code", 400);
             response.put("message", "参数验证失败");
             
@@ -50,7 +53,7 @@ public class ContentController {
             errors.add(error);
             response.put("errors", errors);
         } catch (SecurityException e) {
-            System.out.println("ContentController.publishContent - 安全异常: " + e.getMessage());
+            log.warn("ContentController.publishContent - 安全异常: " + e.getMessage());
             if (e.getMessage().contains("用户认证失败")) {
                 response.put("code", 401);
                 response.put("message", e.getMessage());
@@ -62,26 +65,35 @@ public class ContentController {
                 response.put("message", e.getMessage());
             }
         } catch (SQLException e) {
-            System.out.println("ContentController.publishContent - 数据库错误: " + e.getMessage());
+            log.warn("ContentController.publishContent - 数据库错误: " + e.getMessage());
             response.put("code", 500);
             response.put("message", "服务器内部错误");
-            e.printStackTrace();
+            log.error("publishContent 执行异常", e);
         } catch (Exception e) {
-            System.out.println("ContentController.publishContent - 未知错误: " + e.getMessage());
+            log.warn("ContentController.publishContent - 未知错误: " + e.getMessage());
             response.put("code", 500);
             response.put("message", "服务器内部错误");
-            e.printStackTrace();
+            log.error("publishContent 执行异常", e);
         }
 
         return response;
     }
 
     /**
-     * 获取内容列表
+     * 获取全部内容（不分页）
      * GET /api/v1/content/list
      */
     public Map<String, Object> getContentList(String contentType, String keyword, String sort) {
-        System.out.println("ContentController.getContentList - 开始获取内容列表");
+        return getContentList(contentType, keyword, sort, null, null);
+    }
+
+    /**
+     * 分页获取内容列表
+     * GET /api/v1/content/list?cursor=...&page_size=...
+     */
+    public Map<String, Object> getContentList(String contentType, String keyword, String sort, String cursor,
+            String pageSize) {
+        log.debug("ContentController.getContentList - 开始获取内容列表");
         Map<String, Object> response = new HashMap<>();
 
         try {
@@ -101,21 +113,25 @@ public class ContentController {
                 }
             }
 
-            ContentListResponseDTO result = contentService.getContentList(contentType, keyword, sort);
+            ContentListResponseDTO result = contentService.getContentList(contentType, keyword, sort, cursor,
+                    PageCursor.pageSize(cursor, pageSize));
             response.put("code", 200);
             response.put("message", "获取成功");
             response.put("data", result);
-            System.out.println("ContentController.getContentList - 获取内容列表成功");
+            log.debug("ContentController.getContentList - 获取内容列表成功");
+        } catch (IllegalArgumentException e) {
+            response.put("code", 400);
+            response.put("message", e.getMessage());
         } catch (SQLException e) {
-            System.out.println("ContentController.getContentList - 数据库错误: " + e.getMessage());
+            log.warn("ContentController.getContentList - 数据库错误: " + e.getMessage());
             response.put("code", 500);
             response.put("message", "服务器内部错误");
-            e.printStackTrace();
+            log.error("getContentList 执行异常", e);
         } catch (Exception e) {
-            System.out.println("ContentController.getContentList - 未知错误: " + e.getMessage());
+            log.warn("ContentController.getContentList - 未知错误: " + e.getMessage());
             response.put("code", 500);
             response.put("message", "服务器内部错误");
-            e.printStackTrace();
+            log.error("getContentList 执行异常", e);
         }
 
         return response;
@@ -126,7 +142,7 @@ public class ContentController {
      * GET /api/v1/content/{content_id}
      */
     public Map<String, Object> getContentDetail(String contentId) {
-        System.out.println("ContentController.getContentDetail - 开始获取内容详情: " + contentId);
+        log.debug("ContentController.getContentDetail - 开始获取内容详情: " + contentId);
         Map<String, Object> response = new HashMap<>();
 
         try {
@@ -147,21 +163,21 @@ public class ContentController {
             response.put("code", 200);
             response.put("message", "获取成功");
             response.put("data", result);
-            System.out.println("ContentController.getContentDetail - 获取内容详情成功");
+            log.debug("ContentController.getContentDetail - 获取内容详情成功");
         } catch (IllegalArgumentException e) {
-            System.out.println("ContentController.getContentDetail - 内容不存在: " + e.getMessage());
+            log.debug("ContentController.getContentDetail - 内容不存在: " + e.getMessage());
             response.put("code", 404);
             response.put("message", "内容不存在或已被删除");
         } catch (SQLException e) {
-            System.out.println("ContentController.getContentDetail - 数据库错误: " + e.getMessage());
+            log.warn("ContentController.getContentDetail - 数据库错误: " + e.getMessage());
             response.put("code", 500);
             response.put("message", "服务器内部错误");
-            e.printStackTrace();
+            log.error("getContentDetail 执行异常", e);
         } catch (Exception e) {
-            System.out.println("ContentController.getContentDetail - 未知错误: " + e.getMessage());
+            log.warn("ContentController.getContentDetail - 未知错误: " + e.getMessage());
             response.put("code", 500);
             response.put("message", "服务器内部错误");
-            e.printStackTrace();
+            log.error("getContentDetail 执行异常", e);
         }
 
         return response;
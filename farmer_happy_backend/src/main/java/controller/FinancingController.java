@@ -11,6 +11,7 @@ import dto.bank.PendingCreditApplicationsResponseDTO;
 import dto.bank.PendingLoanApplicationsResponseDTO;
 import service.financing.FinancingService;
 import dto.financing.*;
+import util.Logger;
 
 import java.math.BigDecimal;
 import java.sql.SQLException;
@@ -20,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 
 public class FinancingController {
+    private static final Logger log = Logger.getLogger(FinancingController.class);
     private FinancingService financingService;
 
     public FinancingController() {
@@ -308,23 +310,23 @@ public class FinancingController {
     public Map<String, Object> getPendingCreditApplications(String phone) {
         try {
             // 添加调试信息
-            System.out.println("=== DEBUG: 获取待审批信贷额度申请列表 ===");
-            System.out.println("银行操作员手机号: " + phone);
+            log.debug("=== DEBUG: 获取待审批信贷额度申请列表 ===");
+            log.debug("银行操作员手机号: " + phone);
             
             PendingCreditApplicationsResponseDTO response = financingService.getPendingCreditApplications(phone);
             
-            System.out.println("查询到的申请数量: " + (response != null ? response.getTotal() : 0));
+            log.debug("查询到的申请数量: " + (response != null ? response.getTotal() : 0));
             if (response != null && response.getApplications() != null) {
                 for (Map<String, Object> app : response.getApplications()) {
-                    System.out.println("申请ID: " + app.get("application_id") + ", 申请人: " + app.get("farmer_name"));
+                    log.debug("申请ID: " + app.get("application_id") + ", 申请人: " + app.get("farmer_name"));
                 }
             }
             
             // 添加详细的DTO内容调试
-            System.out.println("=== DTO详细内容 ===");
-            System.out.println("response对象: " + response);
-            System.out.println("response.toString(): " + (response != null ? response.toString() : "null"));
-            System.out.println("response.getApplications(): " + (response != null ? response.getApplications() : "null"));
+            log.debug("=== DTO详细内容 ===");
+            log.debug("response对象: " + response);
+            log.debug("response.toString(): " + (response != null ? response.toString() : "null"));
+            log.debug("response.getApplications(): " + (response != null ? response.getApplications() : "null"));
             
             // 直接构建Map结构避免DTO序列化问题
             Map<String, Object> dataMap = new HashMap<>();
@@ -336,11 +338,11 @@ public class FinancingController {
             result.put("message", "获取成功");
             result.put("data", dataMap);
             
-            System.out.println("=== 返回结果调试 ===");
-            System.out.println("result map: " + result);
-            System.out.println("data内容: " + dataMap);
-            System.out.println("applications数量: " + (response != null ? response.getApplications().size() : 0));
-            System.out.println("=== DEBUG END ===");
+            log.debug("=== 返回结果调试 ===");
+            log.debug("result map: " + result);
+            log.debug("data内容: " + dataMap);
+            log.debug("applications数量: " + (response != null ? response.getApplications().size() : 0));
+            log.debug("=== DEBUG END ===");
             
             return result;
         } catch (IllegalArgumentException e) {
@@ -373,12 +375,12 @@ public class FinancingController {
     public Map<String, Object> getPendingLoanApplications(String phone) {
         try {
             // 添加调试信息
-            System.out.println("=== DEBUG: 获取待审批贷款申请列表 ===");
-            System.out.println("银行操作员手机号: " + phone);
+            log.debug("=== DEBUG: 获取待审批贷款申请列表 ===");
+            log.debug("银行操作员手机号: " + phone);
             
             PendingLoanApplicationsResponseDTO response = financingService.getPendingLoanApplications(phone);
             
-            System.out.println("查询到的贷款申请数量: " + (response != null ? response.getTotal() : 0));
+            log.debug("查询到的贷款申请数量: " + (response != null ? response.getTotal() : 0));
             
             // 直接构建Map结构避免DTO序列化问题
             Map<String, Object> dataMap = new HashMap<>();
@@ -390,7 +392,7 @@ public class FinancingController {
             result.put("message", "获取成功");
             result.put("data", dataMap);
             
-            System.out.println("=== DEBUG END ===");
+            log.debug("=== DEBUG END ===");
             return result;
         } catch (IllegalArgumentException e) {
             Map<String, Object> result = new HashMap<>();
@@ -422,12 +424,12 @@ public class FinancingController {
     public Map<String, Object> getApprovedLoanApplications(String phone) {
         try {
             // 添加调试信息
-            System.out.println("=== DEBUG: 获取已审批待放款贷款申请列表 ===");
-            System.out.println("银行操作员手机号: " + phone);
+            log.debug("=== DEBUG: 获取已审批待放款贷款申请列表 ===");
+            log.debug("银行操作员手机号: " + phone);
             
             PendingLoanApplicationsResponseDTO response = financingService.getApprovedLoanApplications(phone);
             
-            System.out.println("查询到的已审批贷款申请数量: " + (response != null ? response.getTotal() : 0));
+            log.debug("查询到的已审批贷款申请数量: " + (response != null ? response.getTotal() : 0));
             
             // 直接构建Map结构避免DTO序列化问题
             Map<String, Object> dataMap = new HashMap<>();
@@ -439,7 +441,7 @@ public class FinancingController {
             result.put("message", "获取成功");
             result.put("data", dataMap);
             
-            System.out.println("=== DEBUG END ===");
+            log.debug("=== DEBUG END ===");
             return result;
         } catch (IllegalArgumentException e) {
             Map<String, Object> result = new HashMap<>();
@@ -547,16 +549,16 @@ public class FinancingController {
     public Map<String, Object> applyForCreditLimit(CreditApplicationRequestDTO request) {
         try {
             // 添加调试信息
-            System.out.println("=== DEBUG: 农户申请额度 ===");
-            System.out.println("申请人手机号: " + request.getPhone());
-            System.out.println("申请金额: " + request.getApply_amount());
-            System.out.println("证明类型: " + request.getProof_type());
+            log.debug("=== DEBUG: 农户申请额度 ===");
+            log.debug("申请人手机号: " + request.getPhone());
+            log.debug("申请金额: " + request.getApply_amount());
+            log.debug("证明类型: " + request.getProof_type());
             
             CreditApplicationDTO response = financingService.applyForCreditLimit(request);
             
-            System.out.println("申请ID: " + (response != null ? response.getApplication_id() : "null"));
-            System.out.println("申请状态: " + (response != null ? response.getStatus() : "null"));
-            System.out.println("=== DEBUG END ===");
+            log.debug("申请ID: " + (response != null ? response.getApplication_id() : "null"));
+            log.debug("申请状态: " + (response != null ? response.getStatus() : "null"));
+            log.debug("=== DEBUG END ===");
             
             Map<String, Object> result = new HashMap<>();
             result.put("code", 200);
@@ -587,13 +589,13 @@ public class FinancingController {
     public Map<String, Object> getFarmerCreditApplications(String phone) {
         try {
             // 添加调试信息
-            System.out.println("=== DEBUG: 查询农户申请记录 ===");
-            System.out.println("农户手机号: " + phone);
+            log.debug("=== DEBUG: 查询农户申请记录 ===");
+            log.debug("农户手机号: " + phone);
             
             Map<String, Object> response = financingService.getFarmerCreditApplications(phone);
             
-            System.out.println("查询到的申请数量: " + response.get("total"));
-            System.out.println("=== DEBUG END ===");
+            log.debug("查询到的申请数量: " + response.get("total"));
+            log.debug("=== DEBUG END ===");
             
             Map<String, Object> result = new HashMap<>();
             result.put("code", 200);
@@ -616,13 +618,13 @@ public class FinancingController {
     public Map<String, Object> getFarmerLoans(String phone) {
         try {
             // 添加调试信息
-            System.out.println("=== DEBUG: 查询农户贷款记录 ===");
-            System.out.println("农户手机号: " + phone);
+            log.debug("=== DEBUG: 查询农户贷款记录 ===");
+            log.debug("农户手机号: " + phone);
             
             Map<String, Object> response = financingService.getFarmerLoans(phone);
             
-            System.out.println("查询到的贷款数量: " + response.get("total"));
-            System.out.println("=== DEBUG END ===");
+            log.debug("查询到的贷款数量: " + response.get("total"));
+            log.debug("=== DEBUG END ===");
             
             Map<String, Object> result = new HashMap<>();
             result.put("code", 200);
@@ -645,13 +647,13 @@ public class FinancingController {
     public Map<String, Object> getFarmerLoanApplications(String phone) {
         try {
             // 添加调试信息
-            System.out.println("=== DEBUG: 查询农户贷款申请记录 ===");
-            System.out.println("农户手机号: " + phone);
+            log.debug("=== DEBUG: 查询农户贷款申请记录 ===");
+            log.debug("农户手机号: " + phone);
             
             Map<String, Object> response = financingService.getFarmerLoanApplications(phone);
             
-            System.out.println("查询到的贷款申请数量: " + response.get("total"));
-            System.out.println("=== DEBUG END ===");
+            log.debug("查询到的贷款申请数量: " + response.get("total"));
+            log.debug("=== DEBUG END ===");
             
             Map<String, Object> result = new HashMap<>();
             result.put("code", 200);
@@ -849,12 +851,12 @@ public class FinancingController {
      */
     public Map<String, Object> getPendingJointLoanApplications(PendingJointLoanApplicationsRequestDTO request) {
         try {
-            System.out.println("=== DEBUG: 获取待确认联合贷款申请 ===");
-            System.out.println("请求手机号: " + (request != null ? request.getPhone() : "null"));
+            log.debug("=== DEBUG: 获取待确认联合贷款申请 ===");
+            log.debug("请求手机号: " + (request != null ? request.getPhone() : "null"));
             
             PendingJointLoanApplicationsResponseDTO response = financingService.getPendingJointLoanApplications(request);
             
-            System.out.println("查询结果: total=" + (response != null ? response.getTotal() : 0) + 
+            log.debug("查询结果: total=" + (response != null ? response.getTotal() : 0) + 
                              ", applications数量=" + (response != null && response.getApplications() != null ? response.getApplications().size() : 0));
             
             // 直接构建Map结构避免DTO序列化问题
@@ -867,8 +869,8 @@ public class FinancingController {
             result.put("message", "获取成功");
             result.put("data", dataMap);
             
-            System.out.println("返回结果: dataMap=" + dataMap);
-            System.out.println("=== DEBUG END ===");
+            log.debug("返回结果: dataMap=" + dataMap);
+            log.debug("=== DEBUG END ===");
             return result;
         } catch (IllegalArgumentException e) {
             Map<String, Object> result = new HashMap<>();
@@ -4,6 +4,7 @@ import dto.buyer.*;
 import exception.ValidationException;
 import service.buyer.OrderService;
 import service.buyer.OrderServiceImpl;
+import util.PageCursor;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -147,14 +148,23 @@ public class OrderController {
     }
 
     /**
-     * 获取订单列表
+     * 获取全部订单（不分页）
      */
     public Map<String, Object> getOrderList(String buyerPhone, String status, String title) {
+        return getOrderList(buyerPhone, status, title, null, null);
+    }
+
+    /**
+     * 分页获取订单列表
+     */
+    public Map<String, Object> getOrderList(String buyerPhone, String status, String title, String cursor,
+            String pageSize) {
         Map<String, Object> response = new HashMap<>();
 
         try {
-            // 调用服务层获取订单列表
-            OrderListResponseDTO result = orderService.getOrderList(buyerPhone, status, title);
+            // 调用服务层获取一页订单
+            OrderListResponseDTO result = orderService.getOrderList(buyerPhone, status, title, cursor,
+                    PageCursor.pageSize(cursor, pageSize));
 
             response.put("code", 200);
             response.put("message", "成功");
@@ -165,7 +175,8 @@ public class OrderController {
             if (message.contains("不存在") || message.contains("未启用")) {
                 response.put("code", 404);
                 response.put("message", message);
-            } else if (message.contains("无效的订单状态") || message.contains("手机号格式")) {
+            } else if (message.contains("无效的订单状态") || message.contains("手机号格式")
+                    || message.contains("分页游标") || message.contains("page_size")) {
                 response.put("code", 400);
                 response.put("message", message);
             } else {
@@ -253,15 +264,23 @@ public class OrderController {
     }
 
     /**
-     * 获取农户订单列表
+     * 获取农户全部订单（不分页）
      */
     public Map<String, Object> getFarmerOrderList(String farmerPhone, String status, String title) {
+        return getFarmerOrderList(farmerPhone, status, title, null, null);
+    }
+
+    /**
+     * 分页获取农户订单列表
+     */
+    public Map<String, Object> getFarmerOrderList(String farmerPhone, String status, String title, String cursor,
+            String pageSize) {
         Map<String, Object> response = new HashMap<>();
 
         try {
-            // 调用服务层获取订单列表
+            // 调用服务层获取一页订单
             OrderListResponseDTO result = ((OrderServiceImpl) orderService).getFarmerOrderList(farmerPhone, status,
-                    title);
+                    title, cursor, PageCursor.pageSize(cursor, pageSize));
 
             response.put("code", 200);
             response.put("message", "成功");
@@ -272,7 +291,8 @@ public class OrderController {
             if (message.contains("不存在") || message.contains("未启用")) {
                 response.put("code", 404);
                 response.put("message", message);
-            } else if (message.contains("无效的订单状态") || message.contains("手机号格式")) {
+            } else if (message.contains("无效的订单状态") || message.contains("手机号格式")
+                    || message.contains("分页游标") || message.contains("page_size")) {
                 response.put("code", 400);
                 response.put("message", message);
             } else {
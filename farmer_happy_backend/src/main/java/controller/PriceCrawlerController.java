@@ -4,12 +4,15 @@ package controller;
 import service.crawler.PriceCrawlerService;
 import service.crawler.PriceCrawlerServiceImpl;
 import service.crawler.CsvSplitterService;
+import util.Logger;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 public class PriceCrawlerController {
+    private static final Logger log = Logger.getLogger(PriceCrawlerController.class);
     private PriceCrawlerService priceCrawlerService;
     private final CsvSplitterService csvSplitterService;
 
@@ -62,22 +65,52 @@ public class PriceCrawlerController {
                 return response;
             }
 
-            // 调用爬虫服务
-            Map<String, Object> result = priceCrawlerService.crawlAgriculturalPrices(startTime, endTime, productName);
+            // 提交异步爬取任务，通过 GET /api/v1/agriculture/price/jobs/{job_id} 查询进度和结果
+            Map<String, Object> result = priceCrawlerService.submitCrawlJob(startTime, endTime, productName);
+            result.put("status_url", "/api/v1/agriculture/price/jobs/" + result.get("job_id"));
 
             response.put("code", 200);
-            response.put("message", "数据获取成功");
+            response.put("message", "爬取任务已提交");
             response.put("data", result);
 
+        } catch (RejectedExecutionException e) {
+            // 爬取任务队列已满
+            response.put("code", 503);
+            response.put("message", e.getMessage());
         } catch (Exception e) {
             response.put("code", 500);
             response.put("message", "数据获取失败，请稍后重试");
-            e.printStackTrace();
+            log.error("crawlAgriculturalPrices 执行异常", e);
         }
 
         return response;
     }
 
+    /**
+     * 查询异步爬取任务：status 为 queued / crawling / splitting / succeeded / failed，
+     * 进度为 rows_fetched（已爬取行数）、varieties_found / varieties_split（已读到 / 已导出的品种数），
+     * 成功后 file_name 和 split_files 与原同步接口的返回相同，失败时 error 为原因
+     */
+    public Map<String, Object> getCrawlJob(String jobId) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Map<String, Object> job = priceCrawlerService.getCrawlJob(jobId);
+            if (job == null) {
+                response.put("code", 404);
+                response.put("message", "爬取任务不存在");
+                return response;
+            }
+            response.put("code", 200);
+            response.put("message", "获取爬取任务成功");
+            response.put("data", job);
+        } catch (Exception e) {
+            response.put("code", 500);
+            response.put("message", "获取爬取任务失败");
+            log.error("getCrawlJob 执行异常", e);
+        }
+        return response;
+    }
+
     /**
      * 获取 result/split 下的可选品种/文件列表（供前端动态勾选）
      */
@@ -95,7 +128,7 @@ public class PriceCrawlerController {
         } catch (Exception e) {
             response.put("code", 500);
             response.put("message", "获取split列表失败");
-            e.printStackTrace();
+            log.error("listSplitFiles 执行异常", e);
         }
         return response;
     }
@@ -161,7 +194,7 @@ public class PriceCrawlerController {
         } catch (Exception e) {
             response.put("code", 500);
             response.put("message", "放置失败");
-            e.printStackTrace();
+            log.error("placeSplitFiles 执行异常", e);
         }
         return response;
     }
@@ -181,7 +214,7 @@ public class PriceCrawlerController {
         } catch (Exception e) {
             response.put("code", 500);
             response.put("message", "导出xlsx失败");
-            e.printStackTrace();
+            log.error("exportSplitXlsx 执行异常", e);
         }
         return response;
     }
@@ -4,6 +4,7 @@ package controller;
 import dto.farmer.PricePredictionRequestDTO;
 import dto.farmer.PricePredictionResponseDTO;
 import service.farmer.PricePredictionService;
+import util.Logger;
 
 import java.io.InputStream;
 import java.util.HashMap;
@@ -13,6 +14,7 @@ import java.util.Map;
  * 价格预测控制器
  */
 public class PricePredictionController {
+    private static final Logger log = Logger.getLogger(PricePredictionController.class);
     
     private final PricePredictionService pricePredictionService;
     
@@ -48,7 +50,7 @@ public class PricePredictionController {
             response.put("code", 400);
             response.put("message", e.getMessage());
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("uploadExcel 执行异常", e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
         }
@@ -85,10 +87,10 @@ public class PricePredictionController {
             
             // 调试：检查calculationDetails是否设置
             if (result.getCalculationDetails() != null) {
-                System.out.println("CalculationDetails已设置，包含 " + result.getCalculationDetails().size() + " 个键");
-                System.out.println("键列表: " + result.getCalculationDetails().keySet());
+                log.debug("CalculationDetails已设置，包含 " + result.getCalculationDetails().size() + " 个键");
+                log.debug("键列表: " + result.getCalculationDetails().keySet());
             } else {
-                System.out.println("警告: CalculationDetails为null!");
+                log.warn("警告: CalculationDetails为null!");
             }
             
             response.put("code", 200);
@@ -99,7 +101,7 @@ public class PricePredictionController {
             response.put("code", 400);
             response.put("message", e.getMessage());
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("predictPrice 执行异常", e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
         }
@@ -6,11 +6,15 @@ import service.farmer.ProductService;
 import service.farmer.ProductServiceImpl;
 import service.auth.AuthService;
 import service.auth.AuthServiceImpl;
+import util.Logger;
+import util.Page;
+import util.PageCursor;
 
 import java.sql.SQLException;
 import java.util.*;
 
 public class ProductController {
+    private static final Logger log = Logger.getLogger(ProductController.class);
     private ProductService productService;
     private AuthService authService;
 
@@ -94,7 +98,7 @@ public class ProductController {
 
             return response;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("createProduct 执行异常", e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
             return response;
@@ -143,7 +147,7 @@ public class ProductController {
             response.put("message", e.getMessage());
             return response;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("onShelfProduct 执行异常", e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
             return response;
@@ -192,7 +196,7 @@ public class ProductController {
             response.put("message", e.getMessage());
             return response;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("offShelfProduct 执行异常", e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
             return response;
@@ -238,7 +242,7 @@ public class ProductController {
             response.put("message", e.getMessage());
             return response;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("deleteProduct 执行异常", e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
             return response;
@@ -284,7 +288,7 @@ public class ProductController {
             response.put("message", e.getMessage());
             return response;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("getProductDetail 执行异常", e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
             return response;
@@ -340,7 +344,7 @@ public class ProductController {
 
             return response;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("getProductList 执行异常", e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
             return response;
@@ -427,7 +431,7 @@ public class ProductController {
             }
             return response;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("updateProduct 执行异常", e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
             return response;
@@ -594,7 +598,7 @@ public class ProductController {
 
             return response;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("batchActionProducts 执行异常", e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
             return response;
@@ -629,24 +633,33 @@ public class ProductController {
         return errors;
     }
 
-    // 获取所有在售商品（用于广告）
-    public Map<String, Object> getAllOnShelfProducts() {
+    // 分页获取在售商品（用于广告）
+    public Map<String, Object> getAllOnShelfProducts(String cursor, String pageSize) {
         Map<String, Object> response = new HashMap<>();
 
         try {
-            // 获取所有在售商品
-            List<ProductListResponseDTO> productList = productService.getAllOnShelfProducts();
+            // 获取一页在售商品
+            Page<ProductListResponseDTO> page = productService.getAllOnShelfProducts(cursor,
+                    PageCursor.pageSize(cursor, pageSize));
 
             response.put("code", 200);
             response.put("message", "成功");
 
             Map<String, Object> data = new HashMap<>();
-            data.put("list", productList);
+            data.put("list", page.getItems());
+            if (page.isPaged()) {
+                data.put("next_cursor", page.getNextCursor());
+                data.put("has_more", page.hasMore());
+            }
             response.put("data", data);
 
+            return response;
+        } catch (IllegalArgumentException e) {
+            response.put("code", 400);
+            response.put("message", e.getMessage());
             return response;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("getAllOnShelfProducts 执行异常", e);
             response.put("code", 500);
             response.put("message", "服务器内部错误: " + e.getMessage());
             return response;
@@ -9,6 +9,8 @@ public class AuthResponseDTO {
     private String phone;
     private String userType;
     private BigDecimal money;
+    // 登录成功后签发的会话令牌，注册接口不返回
+    private String token;
 
     // Getters and Setters
     public String getUid() {
@@ -50,4 +52,12 @@ public class AuthResponseDTO {
     public void setMoney(BigDecimal money) {
         this.money = money;
     }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
 }
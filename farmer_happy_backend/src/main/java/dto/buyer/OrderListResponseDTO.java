@@ -7,6 +7,10 @@ import java.util.List;
  */
 public class OrderListResponseDTO {
     private List<OrderListItemDTO> list;
+    // 下一页游标，没有下一页时为 null
+    private String nextCursor;
+    // 是否按页查询；不分页时不输出 next_cursor / has_more
+    private boolean paged;
 
     public OrderListResponseDTO() {
     }
@@ -23,5 +27,24 @@ public class OrderListResponseDTO {
     public void setList(List<OrderListItemDTO> list) {
         this.list = list;
     }
-}
 
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+
+    public boolean isPaged() {
+        return paged;
+    }
+
+    public void setPaged(boolean paged) {
+        this.paged = paged;
+    }
+}
@@ -6,6 +6,10 @@ import java.util.List;
 public class ContentListResponseDTO {
     private int total;
     private List<ContentListItemDTO> list;
+    // 下一页游标，没有下一页时为 null
+    private String nextCursor;
+    // 是否按页查询；不分页时不输出 next_cursor / has_more
+    private boolean paged;
 
     public ContentListResponseDTO() {
     }
@@ -31,5 +35,24 @@ public class ContentListResponseDTO {
     public void setList(List<ContentListItemDTO> list) {
         this.list = list;
     }
-}
 
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+
+    public boolean isPaged() {
+        return paged;
+    }
+
+    public void setPaged(boolean paged) {
+        this.paged = paged;
+    }
+}
@@ -0,0 +1,22 @@
+package exception;
+
+import java.io.IOException;
+
+/**
+ * 请求体超过允许的最大长度
+ * 由请求解析阶段抛出，处理器据此返回413
+ */
+public class RequestBodyTooLargeException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final long maxBytes;
+
+    public RequestBodyTooLargeException(long maxBytes) {
+        super("请求体超过最大长度限制: " + maxBytes + " 字节");
+        this.maxBytes = maxBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
@@ -0,0 +1,509 @@
+package repository;
+
+import config.DatabaseConfig;
+import util.LatencyHistogram;
+import util.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JDBC 连接池
+ * 按 DatabaseConfig 中的最小/最大连接数和获取超时管理物理连接，
+ * 借出时校验连接有效性，归还时重置事务状态并关闭遗留的 Statement，
+ * 后台线程负责空闲连接回收、补足最小连接数以及连接泄漏检测。
+ * 每个物理连接各自维护一个 PreparedStatement 缓存（见 StatementCache）。
+ * 开启操作统计后，按借出连接的调用方法（如 DatabaseManager.findOrderById）记录连接持有时长。
+ */
+public class ConnectionPool {
+    private static final Logger log = Logger.getLogger(ConnectionPool.class);
+
+    // 距离上次归还不足该时间的连接不再做 isValid 往返校验
+    private static final long VALIDATION_SKIP_MILLIS = 500L;
+    // 等待空闲连接时的单次等待上限，便于及时感知连接被丢弃后的补位机会
+    private static final long WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private static final Class<?>[] PROXY_INTERFACES = {Connection.class};
+    private static final StackWalker OPERATION_WALKER = StackWalker.getInstance();
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minConnections;
+    private final int maxConnections;
+    private final long connectionTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final long leakDetectionThresholdMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final StatementCache.Stats statementCacheStats = new StatementCache.Stats();
+    private final Map<String, LatencyHistogram> operationLatency = new ConcurrentHashMap<>();
+    private volatile boolean operationMetricsEnabled;
+
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<Lease> borrowed = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<ArrayDeque<Lease>> threadLeases = ThreadLocal.withInitial(ArrayDeque::new);
+    private final ScheduledExecutorService housekeeper;
+
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger waitingThreads = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong closedCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private volatile boolean shutdown;
+
+    public ConnectionPool(DatabaseConfig config) throws SQLException {
+        this(config.getDriver(), config.getFullUrl(), config.getUsername(), config.getPassword(),
+                config.getMinConnections(), config.getMaxConnections(), config.getConnectionTimeout(),
+                config.getIdleTimeout(), config.getMaxLifetime(), config.getLeakDetectionThreshold(),
+                config.getValidationTimeout(), config.getHousekeepingInterval(), config.getStatementCacheSize());
+        this.operationMetricsEnabled = config.isOperationMetricsEnabled();
+    }
+
+    public ConnectionPool(String driver, String url, String username, String password,
+                          int minConnections, int maxConnections, long connectionTimeoutMillis,
+                          long idleTimeoutMillis, long maxLifetimeMillis, long leakDetectionThresholdMillis,
+                          int validationTimeoutSeconds, long housekeepingIntervalMillis,
+                          int statementCacheSize) throws SQLException {
+        try {
+            Class.forName(driver);
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("JDBC Driver not found: " + driver, e);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxConnections = Math.max(1, maxConnections);
+        this.minConnections = Math.max(0, Math.min(minConnections, this.maxConnections));
+        this.connectionTimeoutMillis = Math.max(0, connectionTimeoutMillis);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+        this.validationTimeoutSeconds = Math.max(1, validationTimeoutSeconds);
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, Math.max(1000L, housekeepingIntervalMillis),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 从连接池借出连接，调用方关闭连接即归还
+     */
+    public Connection borrow() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("连接池已关闭");
+        }
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(connectionTimeoutMillis);
+        while (true) {
+            PooledConnection pc = idle.pollFirst();
+            if (pc == null) {
+                pc = tryCreate();
+            }
+            if (pc == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    timeoutCount.incrementAndGet();
+                    throw new SQLTimeoutException("获取数据库连接超时（" + connectionTimeoutMillis + "ms），"
+                            + "活跃连接: " + borrowed.size() + "/" + maxConnections);
+                }
+                waitingThreads.incrementAndGet();
+                try {
+                    pc = idle.pollFirst(Math.min(remaining, WAIT_SLICE_NANOS), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("等待数据库连接时被中断", e);
+                } finally {
+                    waitingThreads.decrementAndGet();
+                }
+                if (pc == null) {
+                    continue;
+                }
+            }
+            if (!isUsable(pc)) {
+                discard(pc);
+                continue;
+            }
+            return lease(pc, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 归还当前线程最近一次借出且尚未归还的连接
+     */
+    public void releaseMostRecent() {
+        ArrayDeque<Lease> leases = threadLeases.get();
+        Lease lease;
+        while ((lease = leases.pollLast()) != null) {
+            if (!lease.closed) {
+                lease.close();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 关闭连接池及所有空闲连接；仍被借出的连接在归还时关闭
+     */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            discard(pc);
+        }
+    }
+
+    public int getActiveConnections() {
+        return borrowed.size();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    public int getWaitingThreads() {
+        return waitingThreads.get();
+    }
+
+    /**
+     * 开启或关闭按调用方法统计连接持有时长
+     */
+    public void setOperationMetricsEnabled(boolean enabled) {
+        this.operationMetricsEnabled = enabled;
+    }
+
+    /**
+     * 各调用方法的连接持有时长分布，键为 "类名.方法名"
+     */
+    public Map<String, LatencyHistogram> getOperationLatencies() {
+        return operationLatency;
+    }
+
+    /**
+     * 连接池运行指标快照
+     */
+    public Map<String, Object> getStats() {
+        long borrows = borrowCount.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("active", borrowed.size());
+        stats.put("idle", idle.size());
+        stats.put("total", totalConnections.get());
+        stats.put("min", minConnections);
+        stats.put("max", maxConnections);
+        stats.put("waiting", waitingThreads.get());
+        stats.put("borrow_count", borrows);
+        stats.put("timeout_count", timeoutCount.get());
+        stats.put("created_count", createdCount.get());
+        stats.put("closed_count", closedCount.get());
+        stats.put("leak_count", leakCount.get());
+        stats.put("avg_wait_ms", borrows == 0 ? 0.0 : totalWaitNanos.get() / (double) borrows / 1_000_000.0);
+        stats.put("max_wait_ms", maxWaitNanos.get() / 1_000_000.0);
+        long hits = statementCacheStats.hits.get();
+        long misses = statementCacheStats.misses.get();
+        stats.put("statement_cache_size", statementCacheSize);
+        stats.put("statement_cache_hits", hits);
+        stats.put("statement_cache_misses", misses);
+        stats.put("statement_cache_evictions", statementCacheStats.evictions.get());
+        stats.put("statement_cache_hit_rate", hits + misses == 0 ? 0.0 : hits / (double) (hits + misses));
+        return stats;
+    }
+
+    private Connection lease(PooledConnection pc, long waitNanos) {
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+
+        Lease lease = new Lease(pc);
+        borrowed.add(lease);
+        threadLeases.get().addLast(lease);
+        return lease.proxy;
+    }
+
+    private void release(Lease lease) {
+        borrowed.remove(lease);
+        threadLeases.get().removeLastOccurrence(lease);
+
+        PooledConnection pc = lease.pooled;
+        long heldNanos = System.nanoTime() - lease.borrowedAt;
+        long heldMillis = heldNanos / 1_000_000L;
+        if (lease.operation != null) {
+            operationLatency.computeIfAbsent(lease.operation, k -> new LatencyHistogram()).recordNanos(heldNanos);
+        }
+        if (lease.leakReported) {
+            log.warn("疑似泄漏的数据库连接已归还，持有时长: " + heldMillis + "ms");
+        }
+
+        boolean reusable = lease.closeOpenStatements();
+        try {
+            if (!pc.connection.getAutoCommit()) {
+                pc.connection.rollback();
+                pc.connection.setAutoCommit(true);
+            }
+            pc.connection.clearWarnings();
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        if (!reusable || shutdown || isExpired(pc)) {
+            discard(pc);
+            return;
+        }
+        pc.lastReturnedAt = System.currentTimeMillis();
+        idle.offerFirst(pc);
+    }
+
+    private PooledConnection tryCreate() throws SQLException {
+        while (true) {
+            int total = totalConnections.get();
+            if (total >= maxConnections) {
+                return null;
+            }
+            if (totalConnections.compareAndSet(total, total + 1)) {
+                break;
+            }
+        }
+        try {
+            Connection connection = DriverManager.getConnection(url, username, password);
+            createdCount.incrementAndGet();
+            StatementCache cache = statementCacheSize > 0
+                    ? new StatementCache(connection, statementCacheSize, statementCacheStats) : null;
+            return new PooledConnection(connection, cache);
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        if (isExpired(pc)) {
+            return false;
+        }
+        if (System.currentTimeMillis() - pc.lastReturnedAt < VALIDATION_SKIP_MILLIS) {
+            return true;
+        }
+        try {
+            return pc.connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean isExpired(PooledConnection pc) {
+        return maxLifetimeMillis > 0 && System.currentTimeMillis() - pc.createdAt > maxLifetimeMillis;
+    }
+
+    private void discard(PooledConnection pc) {
+        totalConnections.decrementAndGet();
+        closedCount.incrementAndGet();
+        if (pc.statementCache != null) {
+            pc.statementCache.closeAll();
+        }
+        try {
+            pc.connection.close();
+        } catch (SQLException e) {
+            log.error("关闭数据库连接失败: " + e.getMessage());
+        }
+    }
+
+    // 回收超时空闲连接、补足最小连接数、检测连接泄漏
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+            for (PooledConnection pc : new ArrayList<>(idle)) {
+                boolean idleTooLong = idleTimeoutMillis > 0 && now - pc.lastReturnedAt > idleTimeoutMillis
+                        && totalConnections.get() > minConnections;
+                if ((idleTooLong || isExpired(pc)) && idle.remove(pc)) {
+                    discard(pc);
+                }
+            }
+
+            while (!shutdown && totalConnections.get() < minConnections) {
+                PooledConnection pc = tryCreate();
+                if (pc == null) {
+                    break;
+                }
+                idle.offerLast(pc);
+            }
+
+            if (leakDetectionThresholdMillis > 0) {
+                long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(leakDetectionThresholdMillis);
+                long nowNanos = System.nanoTime();
+                for (Lease lease : borrowed) {
+                    if (!lease.leakReported && nowNanos - lease.borrowedAt > thresholdNanos) {
+                        lease.leakReported = true;
+                        leakCount.incrementAndGet();
+                        log.warn("检测到疑似泄漏的数据库连接，借出线程: " + lease.borrowThread
+                                + "，已持有超过 " + leakDetectionThresholdMillis + "ms，借出位置:", lease.borrowSite);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("连接池维护任务执行失败: " + e.getMessage());
+        }
+    }
+
+    // 借出连接的调用方：跳过连接池自身和 DatabaseManager.getConnection 的栈帧
+    private static String resolveOperation() {
+        return OPERATION_WALKER.walk(frames -> frames
+                .filter(frame -> !isPoolFrame(frame.getClassName(), frame.getMethodName()))
+                .findFirst()
+                .map(frame -> {
+                    String className = frame.getClassName();
+                    return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+                })
+                .orElse("unknown"));
+    }
+
+    private static boolean isPoolFrame(String className, String methodName) {
+        return className.equals(ConnectionPool.class.getName())
+                || className.startsWith(ConnectionPool.class.getName() + "$")
+                || (className.equals(DatabaseManager.class.getName()) && methodName.equals("getConnection"));
+    }
+
+    /**
+     * 物理连接及其生命周期信息
+     */
+    private static class PooledConnection {
+        final Connection connection;
+        final StatementCache statementCache;
+        final long createdAt;
+        volatile long lastReturnedAt;
+
+        PooledConnection(Connection connection, StatementCache statementCache) {
+            this.connection = connection;
+            this.statementCache = statementCache;
+            this.createdAt = System.currentTimeMillis();
+            this.lastReturnedAt = createdAt;
+        }
+    }
+
+    /**
+     * 一次借出：对外暴露的 Connection 代理，close() 时归还连接池而不是关闭物理连接
+     */
+    private class Lease implements InvocationHandler {
+        final PooledConnection pooled;
+        final Connection proxy;
+        final long borrowedAt = System.nanoTime();
+        final String borrowThread = Thread.currentThread().getName();
+        final Throwable borrowSite;
+        final String operation;
+        final List<Statement> statements = new ArrayList<>();
+        volatile boolean closed;
+        volatile boolean leakReported;
+
+        Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+            this.borrowSite = leakDetectionThresholdMillis > 0 ? new Throwable("连接借出位置") : null;
+            this.operation = operationMetricsEnabled ? resolveOperation() : null;
+            this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), PROXY_INTERFACES, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    close();
+                    return null;
+                case "isClosed":
+                    return closed || pooled.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.connection + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("连接已归还连接池，不能继续使用");
+            }
+            Object result;
+            if ("prepareStatement".equals(name) && pooled.statementCache != null && isCacheable(method)) {
+                int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : -1;
+                result = pooled.statementCache.prepare((String) args[0], autoGeneratedKeys, this.proxy);
+            } else {
+                try {
+                    result = method.invoke(pooled.connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            if (result instanceof Statement) {
+                synchronized (statements) {
+                    statements.add((Statement) result);
+                }
+            }
+            return result;
+        }
+
+        // 只缓存 prepareStatement(String) 和 prepareStatement(String, int autoGeneratedKeys)
+        private boolean isCacheable(Method method) {
+            Class<?>[] types = method.getParameterTypes();
+            return types.length == 1 || (types.length == 2 && types[1] == int.class);
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            release(this);
+        }
+
+        // 关闭调用方遗留未关闭的 Statement，返回物理连接是否仍可复用
+        boolean closeOpenStatements() {
+            boolean ok = true;
+            synchronized (statements) {
+                for (Statement statement : statements) {
+                    try {
+                        if (!statement.isClosed()) {
+                            statement.close();
+                        }
+                    } catch (SQLException e) {
+                        ok = false;
+                    }
+                }
+                statements.clear();
+            }
+            return ok;
+        }
+    }
+}
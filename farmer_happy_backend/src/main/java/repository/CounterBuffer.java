@@ -0,0 +1,241 @@
+package repository;
+
+import util.Logger;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 计数器写缓冲：浏览量、评论数等只做 +N 的计数先累加在内存里，定期汇总后一次性写库
+ *
+ * 每个键对应一组 LongAdder（每列一个），请求线程只做内存累加，不借连接、不锁数据行；
+ * 后台线程按固定间隔读取各键增量的快照交给 {@link Sink} 批量写入，写入提交后才从计数器中减掉快照，
+ * 写入失败时计数器保持不变，下次重试。读取时用 {@link #pending} 把尚未写库的增量补到查询结果上，
+ * 写库过程中也不会少算。
+ *
+ * 连续一段时间（idleMillis）没有增量的键会从缓冲中移除；移除瞬间仍可能有线程拿着旧计数器正要累加，
+ * 所以移除的计数器再保留一个周期，下次写库成功后才丢弃。
+ * {@link #shutdown()} 之后 {@link #add} 不再缓冲，返回 false，由调用方直接写库。
+ */
+final class CounterBuffer {
+    private static final Logger log = Logger.getLogger(CounterBuffer.class);
+
+    /**
+     * 把一批增量写入数据库，键 -> 各列增量（为 0 的列不需要更新）
+     */
+    interface Sink {
+        void apply(Map<String, long[]> deltas) throws SQLException;
+    }
+
+    private final int columns;
+    private final Sink sink;
+    private final long flushIntervalMillis;
+    private final String threadName;
+    private final long idleMillis;
+    private final ConcurrentHashMap<String, Cell> counters = new ConcurrentHashMap<>();
+    // 上一轮移除、等待最后一次取出的计数器
+    private volatile Map<String, Cell> retired = new ConcurrentHashMap<>();
+    private final Object flushMonitor = new Object();
+    private volatile ScheduledExecutorService flusher;
+    private volatile boolean stopped;
+
+    private final LongAdder increments = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedKeys = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+
+    private static final class Cell {
+        final LongAdder[] adders;
+        // 最近一次取出非零增量的时间，只由写库线程访问
+        long lastActiveAt;
+
+        Cell(int columns) {
+            adders = new LongAdder[columns];
+            for (int c = 0; c < columns; c++) {
+                adders[c] = new LongAdder();
+            }
+            lastActiveAt = System.currentTimeMillis();
+        }
+    }
+
+    CounterBuffer(int columns, Sink sink, long flushIntervalMillis, long idleMillis, String threadName) {
+        this.columns = columns;
+        this.sink = sink;
+        this.flushIntervalMillis = Math.max(10, flushIntervalMillis);
+        this.idleMillis = Math.max(0, idleMillis);
+        this.threadName = threadName;
+    }
+
+    // 一个计数器本轮读到的增量，写库成功后从该计数器中减掉
+    private static final class Snapshot {
+        final Cell cell;
+        final long[] values;
+
+        Snapshot(Cell cell, long[] values) {
+            this.cell = cell;
+            this.values = values;
+        }
+    }
+
+    /**
+     * 累加计数，首次调用时启动后台写库线程
+     *
+     * @return 已停止时返回 false，增量未被缓冲，调用方需要直接写库
+     */
+    boolean add(String key, int column, long delta) {
+        if (stopped) {
+            return false;
+        }
+        cellOf(key).adders[column].add(delta);
+        increments.increment();
+        if (stopped) {
+            // 与 shutdown 并发：停止时的最后一次写库可能已经错过这次累加，再写一次
+            flushQuietly();
+        } else if (flusher == null) {
+            startFlusher();
+        }
+        return true;
+    }
+
+    /**
+     * 尚未写库的增量
+     */
+    long pending(String key, int column) {
+        Cell cell = counters.get(key);
+        Cell old = retired.get(key);
+        return (cell != null ? cell.adders[column].sum() : 0) + (old != null ? old.adders[column].sum() : 0);
+    }
+
+    /**
+     * 立即把缓冲中的增量写库
+     */
+    void flush() throws SQLException {
+        synchronized (flushMonitor) {
+            Map<String, long[]> deltas = new HashMap<>();
+            List<Snapshot> taken = new ArrayList<>();
+            Map<String, Cell> leaving = retired;
+            Map<String, Cell> retiring = new ConcurrentHashMap<>();
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, Cell> entry : counters.entrySet()) {
+                Cell cell = entry.getValue();
+                if (snapshotInto(deltas, taken, entry.getKey(), cell)) {
+                    cell.lastActiveAt = now;
+                } else if (now - cell.lastActiveAt >= idleMillis && !leaving.containsKey(entry.getKey())
+                        && counters.remove(entry.getKey(), cell)) {
+                    retiring.put(entry.getKey(), cell);
+                }
+            }
+            for (Map.Entry<String, Cell> entry : leaving.entrySet()) {
+                snapshotInto(deltas, taken, entry.getKey(), entry.getValue());
+            }
+            if (deltas.isEmpty()) {
+                retired = retiring;
+                return;
+            }
+            // 写库成功前，上一轮移除的计数器仍可被 pending 读到；写库失败时下一轮继续取出
+            Map<String, Cell> unflushed = new ConcurrentHashMap<>(leaving);
+            unflushed.putAll(retiring);
+            retired = unflushed;
+            try {
+                sink.apply(deltas);
+            } catch (SQLException e) {
+                flushFailures.increment();
+                throw e;
+            }
+            for (Snapshot snapshot : taken) {
+                for (int c = 0; c < columns; c++) {
+                    if (snapshot.values[c] != 0) {
+                        snapshot.cell.adders[c].add(-snapshot.values[c]);
+                    }
+                }
+            }
+            retired = retiring;
+            flushes.increment();
+            flushedKeys.add(deltas.size());
+        }
+    }
+
+    /**
+     * 停止后台线程并写入剩余增量，服务停止时在关闭连接池之前调用
+     */
+    void shutdown() {
+        stopped = true;
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = flusher;
+            flusher = null;
+        }
+        if (current != null) {
+            current.shutdownNow();
+        }
+        flushQuietly();
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("keys", counters.size());
+        stats.put("increments", increments.sum());
+        stats.put("flushes", flushes.sum());
+        stats.put("flushed_keys", flushedKeys.sum());
+        stats.put("flush_failures", flushFailures.sum());
+        return stats;
+    }
+
+    // 读取一个计数器的增量快照并累加到该键上，有增量时返回 true
+    private boolean snapshotInto(Map<String, long[]> deltas, List<Snapshot> taken, String key, Cell cell) {
+        long[] values = null;
+        for (int c = 0; c < columns; c++) {
+            long value = cell.adders[c].sum();
+            if (value != 0) {
+                if (values == null) {
+                    values = new long[columns];
+                }
+                values[c] = value;
+            }
+        }
+        if (values == null) {
+            return false;
+        }
+        taken.add(new Snapshot(cell, values));
+        long[] merged = deltas.computeIfAbsent(key, k -> new long[columns]);
+        for (int c = 0; c < columns; c++) {
+            merged[c] += values[c];
+        }
+        return true;
+    }
+
+    private synchronized void startFlusher() {
+        if (flusher != null || stopped) {
+            return;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        flusher = executor;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException e) {
+            log.error("计数写库失败，稍后重试: " + e.getMessage(), e);
+        }
+    }
+
+    private Cell cellOf(String key) {
+        Cell cell = counters.get(key);
+        return cell != null ? cell : counters.computeIfAbsent(key, k -> new Cell(columns));
+    }
+}
@@ -3,24 +3,68 @@ package repository;
 import config.DatabaseConfig;
 import entity.Comment;
 import entity.Content;
+import util.Logger;
+import util.Page;
+import util.PageCursor;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class DatabaseManager {
+    private static final Logger log = Logger.getLogger(DatabaseManager.class);
+    // 分页游标中的排序方式标识
+    public static final String COMMENT_CURSOR_SORT = "comments";
+    public static final String ORDER_CURSOR_SORT = "orders";
+    public static final String ON_SHELF_CURSOR_SORT = "on_shelf";
+    // 内容计数缓冲中的列
+    private static final int CONTENT_VIEWS = 0;
+    private static final int CONTENT_COMMENTS = 1;
+    // 计数缓冲中连续这么久没有增量的内容才移除
+    private static final long COUNTER_IDLE_MILLIS = 5 * 60 * 1000L;
     private static DatabaseManager instance;
-    private Connection connection;
+    private volatile ConnectionPool connectionPool;
     private DatabaseConfig config;
+    private final UserIdentityCache userIdentityCache;
+    private volatile StockReservations stockReservations;
+    private final CounterBuffer contentCounters;
 
     // 私有构造函数（单例模式）
     private DatabaseManager() {
         this.config = DatabaseConfig.getInstance();
+        this.userIdentityCache = new UserIdentityCache(config.getUserIdentityCacheMaxSize(),
+                config.getUserIdentityCacheTtlSeconds() * 1000L, new UserIdentityCache.Loader() {
+                    @Override
+                    public UserIdentity loadByPhone(String phone) throws SQLException {
+                        Connection conn = getConnection();
+                        try {
+                            return UserIdentity.queryByPhone(conn, phone);
+                        } finally {
+                            conn.close();
+                        }
+                    }
+
+                    @Override
+                    public UserIdentity loadByUid(String uid) throws SQLException {
+                        Connection conn = getConnection();
+                        try {
+                            return UserIdentity.queryByUid(conn, uid);
+                        } finally {
+                            conn.close();
+                        }
+                    }
+                });
+        long counterFlushInterval = config.getCounterFlushIntervalMillis();
+        this.contentCounters = counterFlushInterval > 0
+                ? new CounterBuffer(2, this::applyContentCounterDeltas, counterFlushInterval, COUNTER_IDLE_MILLIS,
+                        "content-counter-flusher")
+                : null;
     }
 
     // 获取单例实例
@@ -31,18 +75,146 @@ public class DatabaseManager {
         return instance;
     }
 
-    // 获取数据库连接
+    // 从连接池借出数据库连接，使用完毕后调用 conn.close() 或 closeConnection() 归还
     public Connection getConnection() throws SQLException {
-        try {
-            Class.forName(config.getDriver());
-            connection = DriverManager.getConnection(
-                config.getFullUrl(), 
-                config.getUsername(), 
-                config.getPassword()
-            );
-            return connection;
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("MySQL JDBC Driver not found", e);
+        return getConnectionPool().borrow();
+    }
+
+    // 连接池在首次使用时创建，确保 initializeDatabase 已经建好数据库
+    private ConnectionPool getConnectionPool() throws SQLException {
+        ConnectionPool pool = connectionPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = connectionPool;
+                if (pool == null) {
+                    pool = new ConnectionPool(config);
+                    connectionPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * 连接池运行指标（活跃、空闲、等待时间等）
+     */
+    public Map<String, Object> getPoolStats() {
+        ConnectionPool pool = connectionPool;
+        return pool != null ? pool.getStats() : new HashMap<>();
+    }
+
+    /**
+     * 各调用方法的连接持有时长分布（键为 "类名.方法名"），连接池未创建时为空
+     */
+    public Map<String, util.LatencyHistogram> getOperationLatencies() {
+        ConnectionPool pool = connectionPool;
+        return pool != null ? pool.getOperationLatencies() : new HashMap<>();
+    }
+
+    /**
+     * 按手机号获取用户身份（用户信息 + 角色 + 扩展身份ID），经过进程内缓存，用户不存在时返回 null
+     */
+    public UserIdentity getUserIdentity(String phone) throws SQLException {
+        return userIdentityCache.getByPhone(phone);
+    }
+
+    /**
+     * 按 uid 获取用户身份，经过进程内缓存，用户不存在时返回 null
+     */
+    public UserIdentity getUserIdentityByUid(String uid) throws SQLException {
+        return userIdentityCache.getByUid(uid);
+    }
+
+    /**
+     * 只查缓存的用户身份，未缓存时返回 null（不借连接）
+     */
+    public UserIdentity peekUserIdentityByUid(String uid) {
+        return userIdentityCache.peekByUid(uid);
+    }
+
+    /**
+     * 用户信息或扩展身份发生写入后调用，使该手机号的缓存失效
+     */
+    public void invalidateUserIdentity(String phone) {
+        userIdentityCache.invalidatePhone(phone);
+    }
+
+    /**
+     * 同 {@link #invalidateUserIdentity(String)}，按 uid 失效
+     */
+    public void invalidateUserIdentityByUid(String uid) {
+        userIdentityCache.invalidateUid(uid);
+    }
+
+    /**
+     * 用户身份缓存的命中、淘汰等统计
+     */
+    public Map<String, Object> getUserIdentityCacheStats() {
+        return userIdentityCache.getStats();
+    }
+
+    /**
+     * 下单库存预占模块，未开启（db.inventory.reservation.enabled=false）时返回 null；
+     * 首次获取时补扣上次未回写的订单并启动回写线程
+     */
+    public StockReservations getStockReservations() throws SQLException {
+        if (!config.isInventoryReservationEnabled()) {
+            return null;
+        }
+        StockReservations reservations = stockReservations;
+        if (reservations == null) {
+            synchronized (this) {
+                reservations = stockReservations;
+                if (reservations == null) {
+                    reservations = new StockReservations(this::getConnection, config.getInventoryStripes(),
+                            config.getInventoryFlushIntervalMillis(), config.getInventoryFlushBatchSize());
+                    reservations.start();
+                    stockReservations = reservations;
+                }
+            }
+        }
+        return reservations;
+    }
+
+    /**
+     * 商品库存、状态在库存预占模块之外被修改后调用，丢弃该商品的内存库存计数
+     */
+    public void invalidateStockReservation(long productId) {
+        StockReservations reservations = stockReservations;
+        if (reservations != null) {
+            reservations.invalidate(productId);
+        }
+    }
+
+    /**
+     * 库存预占与回写统计，模块未启动时为空
+     */
+    public Map<String, Object> getStockReservationStats() {
+        StockReservations reservations = stockReservations;
+        return reservations != null ? reservations.getStats() : new HashMap<>();
+    }
+
+    /**
+     * 浏览量、评论数写缓冲的统计，未开启时为空
+     */
+    public Map<String, Object> getContentCounterStats() {
+        return contentCounters != null ? contentCounters.getStats() : new HashMap<>();
+    }
+
+    /**
+     * 回写未落库的库存扣减和内容计数并关闭连接池，服务停止时调用
+     */
+    public void shutdown() {
+        StockReservations reservations = stockReservations;
+        if (reservations != null) {
+            reservations.shutdown();
+        }
+        if (contentCounters != null) {
+            contentCounters.shutdown();
+        }
+        ConnectionPool pool = connectionPool;
+        if (pool != null) {
+            pool.shutdown();
         }
     }
 
@@ -93,14 +265,14 @@ public class DatabaseManager {
                     // money 列不存在，添加它
                     String addMoneyColumnSql = "ALTER TABLE users ADD COLUMN money DECIMAL(10,2) DEFAULT 1000 COMMENT '账户余额（元）' AFTER is_active";
                     dbStatement.executeUpdate(addMoneyColumnSql);
-                    System.out.println("表结构更新成功：为users表添加money字段");
+                    log.info("表结构更新成功：为users表添加money字段");
                 } else {
-                    System.out.println("表结构检查：users表的money字段已存在，无需更新");
+                    log.debug("表结构检查：users表的money字段已存在，无需更新");
                 }
                 rsCheckMoney.close();
             } catch (SQLException e) {
                 // 如果更新失败，记录错误但不中断程序
-                System.err.println("表结构更新失败（添加money字段）：" + e.getMessage());
+                log.error("表结构更新失败（添加money字段）：" + e.getMessage());
             }
 
             // 创建买家扩展表
@@ -277,7 +449,7 @@ public class DatabaseManager {
                     // specification 列存在，需要改名
                     String alterTableSql = "ALTER TABLE products CHANGE COLUMN specification detailed_description VARCHAR(200) NOT NULL COMMENT '商品详细介绍'";
                     dbStatement.executeUpdate(alterTableSql);
-                    System.out.println("表结构更新成功：specification -> detailed_description");
+                    log.info("表结构更新成功：specification -> detailed_description");
                 } else {
                     // specification 列不存在，检查 detailed_description 是否存在
                     String checkNewColumnSql = "SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.COLUMNS " +
@@ -289,16 +461,16 @@ public class DatabaseManager {
                         // detailed_description 列也不存在，添加它
                         String addColumnSql = "ALTER TABLE products ADD COLUMN detailed_description VARCHAR(200) NOT NULL COMMENT '商品详细介绍' AFTER title";
                         dbStatement.executeUpdate(addColumnSql);
-                        System.out.println("表结构更新成功：添加 detailed_description 列");
+                        log.info("表结构更新成功：添加 detailed_description 列");
                     } else {
-                        System.out.println("表结构检查：detailed_description 列已存在，无需更新");
+                        log.debug("表结构检查：detailed_description 列已存在，无需更新");
                     }
                     rsCheckNew.close();
                 }
                 rsCheck.close();
             } catch (SQLException e) {
                 // 如果更新失败，记录错误但不中断程序
-                System.err.println("表结构更新失败：" + e.getMessage());
+                log.error("表结构更新失败：" + e.getMessage());
             }
             // 创建社区内容表
             String createContentsTable = "CREATE TABLE IF NOT EXISTS contents (" +
@@ -371,6 +543,7 @@ public class DatabaseManager {
                     "    remark VARCHAR(500) COMMENT '订单备注'," +
                     "    status ENUM('shipped', 'completed', 'cancelled', 'refunded') " +
                     "        DEFAULT 'shipped' COMMENT '订单状态'," +
+                    "    stock_applied BOOLEAN NOT NULL DEFAULT TRUE COMMENT '库存扣减是否已回写到商品表'," +
                     "    refund_reason VARCHAR(200) COMMENT '退款原因'," +
                     "    refund_type ENUM('only_refund', 'return_and_refund') COMMENT '退款类型'," +
                     "    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间'," +
@@ -386,12 +559,32 @@ public class DatabaseManager {
                     "    INDEX idx_created_at (created_at)," +
                     "    INDEX idx_buyer_status (buyer_uid, status)," +
                     "    INDEX idx_farmer_status (farmer_uid, status)," +
+                    "    INDEX idx_stock_applied (stock_applied)," +
                     "    FOREIGN KEY (buyer_uid) REFERENCES users(uid) ON DELETE CASCADE," +
                     "    FOREIGN KEY (farmer_uid) REFERENCES users(uid) ON DELETE CASCADE," +
                     "    FOREIGN KEY (product_id) REFERENCES products(product_id) ON DELETE CASCADE" +
                     ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='订单表';";
             dbStatement.executeUpdate(createOrdersTable);
 
+            // 检查并添加stock_applied字段（如果不存在）
+            try {
+                String checkStockAppliedSql = "SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.COLUMNS " +
+                        "WHERE TABLE_SCHEMA = '" + config.getDatabaseName() + "' AND TABLE_NAME = 'orders' AND COLUMN_NAME = 'stock_applied'";
+                ResultSet rsCheckStockApplied = dbStatement.executeQuery(checkStockAppliedSql);
+
+                if (!rsCheckStockApplied.next()) {
+                    String addStockAppliedSql = "ALTER TABLE orders ADD COLUMN stock_applied BOOLEAN NOT NULL DEFAULT TRUE " +
+                            "COMMENT '库存扣减是否已回写到商品表' AFTER status, ADD INDEX idx_stock_applied (stock_applied)";
+                    dbStatement.executeUpdate(addStockAppliedSql);
+                    log.info("表结构更新成功：为orders表添加stock_applied字段");
+                } else {
+                    log.debug("表结构检查：orders表的stock_applied字段已存在，无需更新");
+                }
+                rsCheckStockApplied.close();
+            } catch (SQLException e) {
+                log.error("表结构更新失败（添加stock_applied字段）：" + e.getMessage());
+            }
+
             // 创建信用额度表
             String createCreditLimitsTable = "CREATE TABLE IF NOT EXISTS credit_limits (" +
                     "    id BIGINT AUTO_INCREMENT PRIMARY KEY," +
@@ -599,22 +792,26 @@ public class DatabaseManager {
             // 初始化测试数据
             initializeTestLoanData();
 
-            System.out.println("数据库初始化完成");
+            // 补扣上次运行未回写的库存；预占已关闭时也要补扣，开启期间遗留的订单才不会漏扣
+            if (config.isInventoryReservationEnabled()) {
+                getStockReservations();
+            } else {
+                new StockReservations(this::getConnection, config.getInventoryStripes(),
+                        config.getInventoryFlushIntervalMillis(), config.getInventoryFlushBatchSize()).reconcile();
+            }
+
+            log.info("数据库初始化完成");
 
         } catch (SQLException e) {
-            System.err.println("Error initializing database: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error initializing database: " + e.getMessage(), e);
         }
     }
 
-    // 关闭连接
+    // 归还当前线程最近一次通过 getConnection() 借出的连接
     public void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-            }
-        } catch (SQLException e) {
-            System.err.println("Error closing connection: " + e.getMessage());
+        ConnectionPool pool = connectionPool;
+        if (pool != null) {
+            pool.releaseMostRecent();
         }
     }
 
@@ -736,9 +933,9 @@ public class DatabaseManager {
             Timestamp approvedAt, BigDecimal approvedAmount) throws SQLException {
         Connection conn = getConnection();
         try {
-            System.out.println("=== DEBUG: 更新贷款申请状态 ===");
-            System.out.println("loan_application_id: " + applicationId);
-            System.out.println("新状态: " + status);
+            log.debug("=== DEBUG: 更新贷款申请状态 ===");
+            log.debug("loan_application_id: " + applicationId);
+            log.debug("新状态: " + status);
             
             String sql = "UPDATE loan_applications SET status = ?, approved_by = ?, approved_at = ?, approved_amount = ? WHERE loan_application_id = ?";
             PreparedStatement stmt = conn.prepareStatement(sql);
@@ -760,11 +957,11 @@ public class DatabaseManager {
             }
             stmt.setString(5, applicationId);
             int rowsAffected = stmt.executeUpdate();
-            System.out.println("更新影响行数: " + rowsAffected);
+            log.debug("更新影响行数: " + rowsAffected);
             
             // 验证更新是否成功
             if (rowsAffected == 0) {
-                System.out.println("警告: 没有找到匹配的申请记录，loan_application_id=" + applicationId);
+                log.warn("警告: 没有找到匹配的申请记录，loan_application_id=" + applicationId);
             } else {
                 // 查询更新后的状态确认
                 String verifySql = "SELECT status FROM loan_applications WHERE loan_application_id = ?";
@@ -772,13 +969,13 @@ public class DatabaseManager {
                 verifyStmt.setString(1, applicationId);
                 java.sql.ResultSet verifyRs = verifyStmt.executeQuery();
                 if (verifyRs.next()) {
-                    System.out.println("验证: 更新后的状态为 " + verifyRs.getString("status"));
+                    log.debug("验证: 更新后的状态为 " + verifyRs.getString("status"));
                 }
                 verifyRs.close();
                 verifyStmt.close();
             }
             
-            System.out.println("=== DEBUG END ===");
+            log.debug("=== DEBUG END ===");
             stmt.close();
         } finally {
             closeConnection();
@@ -943,6 +1140,7 @@ public class DatabaseManager {
             stmt.close();
         } finally {
             closeConnection();
+            invalidateUserIdentityByUid(uid);
         }
     }
 
@@ -960,6 +1158,7 @@ public class DatabaseManager {
             stmt.close();
         } finally {
             closeConnection();
+            invalidateUserIdentity(phone);
         }
     }
 
@@ -1005,9 +1204,9 @@ public class DatabaseManager {
             throws SQLException {
         Connection conn = getConnection();
         try {
-            System.out.println("=== DEBUG: 保存联合贷款伙伴记录 ===");
-            System.out.println("loanApplicationId (数据库ID): " + loanApplicationId);
-            System.out.println("伙伴数量: " + partners.size());
+            log.debug("=== DEBUG: 保存联合贷款伙伴记录 ===");
+            log.debug("loanApplicationId (数据库ID): " + loanApplicationId);
+            log.debug("伙伴数量: " + partners.size());
             
             String sql = "INSERT INTO joint_loan_applications (loan_application_id, partner_farmer_id, partner_share_ratio, partner_share_amount, status) VALUES (?, ?, ?, ?, ?)";
             PreparedStatement stmt = conn.prepareStatement(sql);
@@ -1017,7 +1216,7 @@ public class DatabaseManager {
                 BigDecimal shareRatio = (BigDecimal) partner.get("partner_share_ratio");
                 BigDecimal shareAmount = (BigDecimal) partner.get("partner_share_amount");
                 
-                System.out.println("保存伙伴: partner_farmer_id=" + partnerFarmerId + 
+                log.debug("保存伙伴: partner_farmer_id=" + partnerFarmerId + 
                                  ", share_ratio=" + shareRatio + 
                                  ", share_amount=" + shareAmount + 
                                  ", status=pending_invitation");
@@ -1028,10 +1227,10 @@ public class DatabaseManager {
                 stmt.setBigDecimal(4, shareAmount);
                 stmt.setString(5, "pending_invitation");
                 int rowsAffected = stmt.executeUpdate();
-                System.out.println("插入影响行数: " + rowsAffected);
+                log.debug("插入影响行数: " + rowsAffected);
             }
 
-            System.out.println("=== DEBUG END ===");
+            log.debug("=== DEBUG END ===");
             stmt.close();
         } finally {
             closeConnection();
@@ -1102,21 +1301,17 @@ public class DatabaseManager {
                 content.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
                 content.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
 
-                // 查询图片
-                String imgSql = "SELECT image_url FROM content_images WHERE content_id = ? ORDER BY sort_order";
-                PreparedStatement imgStmt = conn.prepareStatement(imgSql);
-                imgStmt.setString(1, contentId);
-                ResultSet imgRs = imgStmt.executeQuery();
-                List<String> images = new ArrayList<>();
-                while (imgRs.next()) {
-                    images.add(imgRs.getString("image_url"));
-                }
-                content.setImages(images);
-                imgRs.close();
-                imgStmt.close();
             }
             rs.close();
             stmt.close();
+
+            if (content != null) {
+                mergePendingCounts(content);
+                // 查询图片
+                List<String> images = ImageBatchLoader.loadContentImages(conn, Collections.singletonList(contentId))
+                        .get(contentId);
+                content.setImages(images != null ? images : new ArrayList<>());
+            }
         } finally {
             closeConnection();
         }
@@ -1124,9 +1319,17 @@ public class DatabaseManager {
     }
 
     /**
-     * 查找内容列表（带过滤和排序）
+     * 分页查找内容列表（带过滤和排序）
+     *
+     * 按 (排序字段, content_id) 倒序做键集分页，分别走 idx_created_at / idx_view_count / idx_comment_count，
+     * 游标由调用方按排序方式解析，为 null 表示第一页。
+     *
+     * @param sort  排序方式：newest（默认）、hottest、commented
+     * @param limit 每页条数，{@link PageCursor#UNPAGED} 表示不分页
      */
-    public List<Content> findContents(String contentType, String keyword, String sort) throws SQLException {
+    public Page<Content> findContents(String contentType, String keyword, String sort, PageCursor cursor, int limit)
+            throws SQLException {
+        String sortColumn = contentSortColumn(sort);
         Connection conn = getConnection();
         List<Content> contents = new ArrayList<>();
         try {
@@ -1147,22 +1350,21 @@ public class DatabaseManager {
                 params.add(searchPattern);
             }
 
-            // 添加排序
-            if (sort != null && !sort.trim().isEmpty()) {
-                switch (sort) {
-                    case "hottest":
-                        sql.append(" ORDER BY view_count DESC");
-                        break;
-                    case "commented":
-                        sql.append(" ORDER BY comment_count DESC");
-                        break;
-                    case "newest":
-                    default:
-                        sql.append(" ORDER BY created_at DESC");
-                        break;
-                }
-            } else {
-                sql.append(" ORDER BY created_at DESC");
+            // 从上一页最后一行之后继续
+            if (cursor != null) {
+                Object key = "created_at".equals(sortColumn) ? new Timestamp(cursor.getKey()) : (Object) cursor.getKey();
+                sql.append(" AND (").append(sortColumn).append(" < ? OR (").append(sortColumn)
+                        .append(" = ? AND content_id < ?))");
+                params.add(key);
+                params.add(key);
+                params.add(cursor.getId());
+            }
+
+            // 添加排序，多取一行用于判断是否还有下一页
+            sql.append(" ORDER BY ").append(sortColumn).append(" DESC, content_id DESC");
+            if (limit > PageCursor.UNPAGED) {
+                sql.append(" LIMIT ?");
+                params.add(limit + 1);
             }
 
             PreparedStatement stmt = conn.prepareStatement(sql.toString());
@@ -1184,34 +1386,76 @@ public class DatabaseManager {
                 content.setCommentCount(rs.getInt("comment_count"));
                 content.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
                 content.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
-
-                // 查询图片
-                String imgSql = "SELECT image_url FROM content_images WHERE content_id = ? ORDER BY sort_order";
-                PreparedStatement imgStmt = conn.prepareStatement(imgSql);
-                imgStmt.setString(1, content.getContentId());
-                ResultSet imgRs = imgStmt.executeQuery();
-                List<String> images = new ArrayList<>();
-                while (imgRs.next()) {
-                    images.add(imgRs.getString("image_url"));
-                }
-                content.setImages(images);
-                imgRs.close();
-                imgStmt.close();
-
                 contents.add(content);
             }
             rs.close();
             stmt.close();
+
+            Page<Content> page = Page.of(contents, limit, last -> contentCursor(sort, last));
+
+            // 本页内容的图片一次查询取回
+            List<String> contentIds = new ArrayList<>(page.getItems().size());
+            for (Content content : page.getItems()) {
+                contentIds.add(content.getContentId());
+            }
+            Map<String, List<String>> imagesByContent = ImageBatchLoader.loadContentImages(conn, contentIds);
+            for (Content content : page.getItems()) {
+                List<String> images = imagesByContent.get(content.getContentId());
+                content.setImages(images != null ? images : new ArrayList<>());
+                // 游标已按表内计数生成，这里只影响展示
+                mergePendingCounts(content);
+            }
+            return page;
         } finally {
             closeConnection();
         }
-        return contents;
     }
 
     /**
-     * 增加浏览量
+     * 内容列表的排序方式标识，未指定或无法识别时按最新排序
+     */
+    public static String contentSortName(String sort) {
+        if ("hottest".equals(sort) || "commented".equals(sort)) {
+            return sort;
+        }
+        return "newest";
+    }
+
+    private static String contentSortColumn(String sort) {
+        switch (contentSortName(sort)) {
+            case "hottest":
+                return "view_count";
+            case "commented":
+                return "comment_count";
+            default:
+                return "created_at";
+        }
+    }
+
+    private static PageCursor contentCursor(String sort, Content last) {
+        String sortName = contentSortName(sort);
+        long key;
+        switch (sortName) {
+            case "hottest":
+                key = last.getViewCount();
+                break;
+            case "commented":
+                key = last.getCommentCount();
+                break;
+            default:
+                key = Timestamp.valueOf(last.getCreatedAt()).getTime();
+                break;
+        }
+        return PageCursor.of(sortName, key, last.getContentId());
+    }
+
+    /**
+     * 增加浏览量，开启写缓冲时只在内存中累加，由后台线程批量写库；写缓冲已停止时直接写库
      */
     public void incrementViewCount(String contentId) throws SQLException {
+        if (contentCounters != null && contentCounters.add(contentId, CONTENT_VIEWS, 1)) {
+            return;
+        }
         Connection conn = getConnection();
         try {
             String sql = "UPDATE contents SET view_count = view_count + 1 WHERE content_id = ?";
@@ -1225,9 +1469,12 @@ public class DatabaseManager {
     }
 
     /**
-     * 增加评论数
+     * 增加评论数，与浏览量共用写缓冲
      */
     public void incrementCommentCount(String contentId) throws SQLException {
+        if (contentCounters != null && contentCounters.add(contentId, CONTENT_COMMENTS, 1)) {
+            return;
+        }
         Connection conn = getConnection();
         try {
             String sql = "UPDATE contents SET comment_count = comment_count + 1 WHERE content_id = ?";
@@ -1240,6 +1487,62 @@ public class DatabaseManager {
         }
     }
 
+    // 把写缓冲中尚未写库的浏览量、评论数补到查询结果上
+    private void mergePendingCounts(Content content) {
+        if (contentCounters != null) {
+            String contentId = content.getContentId();
+            content.setViewCount(content.getViewCount() + (int) contentCounters.pending(contentId, CONTENT_VIEWS));
+            content.setCommentCount(content.getCommentCount()
+                    + (int) contentCounters.pending(contentId, CONTENT_COMMENTS));
+        }
+    }
+
+    /**
+     * 一次批量 UPDATE 写入各内容的浏览量、评论数增量
+     * 整批在一个事务内提交：失败时全部回滚，CounterBuffer 重试整批时不会重复累加已写入的部分
+     */
+    private void applyContentCounterDeltas(Map<String, long[]> deltas) throws SQLException {
+        Connection conn = getConnection();
+        try {
+            // 关闭自动提交以使用事务
+            conn.setAutoCommit(false);
+
+            PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE contents SET view_count = view_count + ?, comment_count = comment_count + ? " +
+                    "WHERE content_id = ?");
+            try {
+                for (Map.Entry<String, long[]> entry : deltas.entrySet()) {
+                    stmt.setLong(1, entry.getValue()[CONTENT_VIEWS]);
+                    stmt.setLong(2, entry.getValue()[CONTENT_COMMENTS]);
+                    stmt.setString(3, entry.getKey());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            } finally {
+                stmt.close();
+            }
+
+            // 提交事务
+            conn.commit();
+        } catch (SQLException e) {
+            // 回滚事务
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                log.error("applyContentCounterDeltas 执行异常", ex);
+            }
+            throw e;
+        } finally {
+            try {
+                // 恢复自动提交
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                log.error("applyContentCounterDeltas 执行异常", e);
+            }
+            conn.close();
+        }
+    }
+
     /**
      * 保存评论到数据库
      */
@@ -1300,97 +1603,174 @@ public class DatabaseManager {
     }
 
     /**
-     * 根据内容ID查找所有评论
+     * 分页查找帖子的一级评论，按 (created_at, comment_id) 正序做键集分页
+     * 二级回复用 {@link #findRepliesByParentIds} 按本页一级评论批量取回。
+     *
+     * @param limit 每页条数，{@link PageCursor#UNPAGED} 表示不分页
      */
-    public List<Comment> findCommentsByContentId(String contentId) throws SQLException {
+    public Page<Comment> findTopLevelComments(String contentId, PageCursor cursor, int limit) throws SQLException {
         Connection conn = getConnection();
         List<Comment> comments = new ArrayList<>();
         try {
-            String sql = "SELECT * FROM comments WHERE content_id = ? ORDER BY created_at ASC";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, contentId);
-            ResultSet rs = stmt.executeQuery();
+            StringBuilder sql = new StringBuilder(
+                    "SELECT * FROM comments WHERE content_id = ? AND parent_comment_id IS NULL");
+            if (cursor != null) {
+                sql.append(" AND (created_at > ? OR (created_at = ? AND comment_id > ?))");
+            }
+            sql.append(" ORDER BY created_at ASC, comment_id ASC");
+            if (limit > PageCursor.UNPAGED) {
+                sql.append(" LIMIT ?");
+            }
 
+            PreparedStatement stmt = conn.prepareStatement(sql.toString());
+            int index = 1;
+            stmt.setString(index++, contentId);
+            if (cursor != null) {
+                Timestamp key = new Timestamp(cursor.getKey());
+                stmt.setTimestamp(index++, key);
+                stmt.setTimestamp(index++, key);
+                stmt.setString(index++, cursor.getId());
+            }
+            if (limit > PageCursor.UNPAGED) {
+                stmt.setInt(index, limit + 1);
+            }
+            ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
-                Comment comment = new Comment();
-                comment.setCommentId(rs.getString("comment_id"));
-                comment.setContentId(rs.getString("content_id"));
-                comment.setParentCommentId(rs.getString("parent_comment_id"));
-                comment.setAuthorUserId(rs.getString("author_user_id"));
-                comment.setAuthorNickname(rs.getString("author_nickname"));
-                comment.setAuthorRole(rs.getString("author_role"));
-                comment.setReplyToUserId(rs.getString("reply_to_user_id"));
-                comment.setReplyToNickname(rs.getString("reply_to_nickname"));
-                comment.setContent(rs.getString("content"));
-                comment.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-                comments.add(comment);
+                comments.add(mapComment(rs));
             }
             rs.close();
             stmt.close();
         } finally {
             closeConnection();
         }
-        return comments;
+        return Page.of(comments, limit, last -> PageCursor.of(COMMENT_CURSOR_SORT,
+                Timestamp.valueOf(last.getCreatedAt()).getTime(), last.getCommentId()));
     }
 
     /**
-     * 获取用户角色（支持多重身份）
+     * 批量查找一组一级评论下的全部回复，按创建时间正序
      */
-    public List<String> getUserRole(String uid) throws SQLException {
+    public List<Comment> findRepliesByParentIds(List<String> parentCommentIds) throws SQLException {
+        List<Comment> replies = new ArrayList<>();
+        List<List<String>> batches = InClause.batches(parentCommentIds);
+        if (batches.isEmpty()) {
+            return replies;
+        }
         Connection conn = getConnection();
-        List<String> roles = new ArrayList<>();
         try {
-            // 检查是否是农户
-            String farmerSql = "SELECT 1 FROM user_farmers WHERE uid = ? AND enable = TRUE";
-            PreparedStatement farmerStmt = conn.prepareStatement(farmerSql);
-            farmerStmt.setString(1, uid);
-            ResultSet farmerRs = farmerStmt.executeQuery();
-            if (farmerRs.next()) {
-                roles.add("farmer");
+            for (List<String> batch : batches) {
+                PreparedStatement stmt = conn.prepareStatement(InClause.sql(
+                        "SELECT * FROM comments WHERE parent_comment_id IN (%s) ORDER BY created_at ASC, comment_id ASC",
+                        batch.size()));
+                InClause.bind(stmt, 1, batch);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    replies.add(mapComment(rs));
+                }
+                rs.close();
+                stmt.close();
             }
-            farmerRs.close();
-            farmerStmt.close();
+        } finally {
+            closeConnection();
+        }
+        return replies;
+    }
 
-            // 检查是否是专家
-            String expertSql = "SELECT 1 FROM user_experts WHERE uid = ? AND enable = TRUE";
-            PreparedStatement expertStmt = conn.prepareStatement(expertSql);
-            expertStmt.setString(1, uid);
-            ResultSet expertRs = expertStmt.executeQuery();
-            if (expertRs.next()) {
-                roles.add("expert");
-            }
-            expertRs.close();
-            expertStmt.close();
-
-            // 检查是否是买家
-            String buyerSql = "SELECT 1 FROM user_buyers WHERE uid = ? AND enable = TRUE";
-            PreparedStatement buyerStmt = conn.prepareStatement(buyerSql);
-            buyerStmt.setString(1, uid);
-            ResultSet buyerRs = buyerStmt.executeQuery();
-            if (buyerRs.next()) {
-                roles.add("buyer");
-            }
-            buyerRs.close();
-            buyerStmt.close();
-
-            // 检查是否是银行用户
-            String bankSql = "SELECT 1 FROM user_banks WHERE uid = ? AND enable = TRUE";
-            PreparedStatement bankStmt = conn.prepareStatement(bankSql);
-            bankStmt.setString(1, uid);
-            ResultSet bankRs = bankStmt.executeQuery();
-            if (bankRs.next()) {
-                roles.add("bank");
-            }
-            bankRs.close();
-            bankStmt.close();
+    /**
+     * 统计帖子的评论总数（含回复）
+     */
+    public int countCommentsByContentId(String contentId) throws SQLException {
+        Connection conn = getConnection();
+        try {
+            PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM comments WHERE content_id = ?");
+            stmt.setString(1, contentId);
+            ResultSet rs = stmt.executeQuery();
+            int count = rs.next() ? rs.getInt(1) : 0;
+            rs.close();
+            stmt.close();
+            return count;
         } finally {
             closeConnection();
         }
-        return roles;
+    }
+
+    private static Comment mapComment(ResultSet rs) throws SQLException {
+        Comment comment = new Comment();
+        comment.setCommentId(rs.getString("comment_id"));
+        comment.setContentId(rs.getString("content_id"));
+        comment.setParentCommentId(rs.getString("parent_comment_id"));
+        comment.setAuthorUserId(rs.getString("author_user_id"));
+        comment.setAuthorNickname(rs.getString("author_nickname"));
+        comment.setAuthorRole(rs.getString("author_role"));
+        comment.setReplyToUserId(rs.getString("reply_to_user_id"));
+        comment.setReplyToNickname(rs.getString("reply_to_nickname"));
+        comment.setContent(rs.getString("content"));
+        comment.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        return comment;
+    }
+
+    /**
+     * 获取用户角色（支持多重身份）
+     */
+    public List<String> getUserRole(String uid) throws SQLException {
+        UserIdentity identity = getUserIdentityByUid(uid);
+        return identity != null ? new ArrayList<>(identity.getRoles()) : new ArrayList<>();
     }
 
     // ============= 订单相关方法 =============
 
+    /**
+     * 在单个连接、单个事务内下单（条件扣减库存与余额），见 {@link OrderPlacement}；
+     * 开启库存预占时先在内存中预占库存，事务内只扣减余额、写入订单
+     */
+    public OrderPlacement.Result placeOrder(entity.Order order) throws SQLException {
+        StockReservations reservations = getStockReservations();
+        if (reservations == null) {
+            Connection conn = getConnection();
+            try {
+                OrderPlacement.Result result = OrderPlacement.place(conn, order);
+                if (result.getStatus() == OrderPlacement.Status.PLACED) {
+                    invalidateUserIdentityByUid(order.getBuyerUid());
+                }
+                return result;
+            } finally {
+                conn.close();
+            }
+        }
+
+        StockReservations.Reservation reservation = reservations.reserve(order.getProductId(), order.getQuantity());
+        switch (reservation.getStatus()) {
+            case RESERVED:
+                break;
+            case PRODUCT_NOT_FOUND:
+                return OrderPlacement.rejected(OrderPlacement.Status.PRODUCT_NOT_FOUND, 0);
+            case OFF_SHELF:
+                return OrderPlacement.rejected(OrderPlacement.Status.OFF_SHELF, 0);
+            default:
+                return OrderPlacement.rejected(OrderPlacement.Status.INSUFFICIENT_STOCK,
+                        (int) reservation.getAvailableStock());
+        }
+        Connection conn = null;
+        boolean placed = false;
+        try {
+            conn = getConnection();
+            OrderPlacement.Result result = OrderPlacement.placeReserved(conn, order);
+            if (result.getStatus() == OrderPlacement.Status.PLACED) {
+                placed = true;
+                reservations.confirm(reservation, order.getOrderId());
+                invalidateUserIdentityByUid(order.getBuyerUid());
+            }
+            return result;
+        } finally {
+            if (!placed) {
+                reservations.cancel(reservation);
+            }
+            if (conn != null) {
+                conn.close();
+            }
+        }
+    }
+
     /**
      * 创建订单
      */
@@ -1461,21 +1841,16 @@ public class DatabaseManager {
                 order.setCancelledAt(rs.getTimestamp("cancelled_at"));
                 order.setRefundedAt(rs.getTimestamp("refunded_at"));
 
-                // 查询商品图片
-                String imgSql = "SELECT image_url FROM product_images WHERE product_id = ? ORDER BY sort_order LIMIT 3";
-                PreparedStatement imgStmt = conn.prepareStatement(imgSql);
-                imgStmt.setLong(1, order.getProductId());
-                ResultSet imgRs = imgStmt.executeQuery();
-                List<String> images = new ArrayList<>();
-                while (imgRs.next()) {
-                    images.add(imgRs.getString("image_url"));
-                }
-                order.setImages(images);
-                imgRs.close();
-                imgStmt.close();
             }
             rs.close();
             stmt.close();
+
+            if (order != null) {
+                // 查询商品图片（最多 3 张）
+                List<String> images = ImageBatchLoader.loadProductImages(conn,
+                        Collections.singletonList(order.getProductId()), 3).get(order.getProductId());
+                order.setImages(images != null ? images : new ArrayList<>());
+            }
         } finally {
             closeConnection();
         }
@@ -1580,7 +1955,7 @@ public class DatabaseManager {
             stmt.setString(3, orderId);
 
             int rowsAffected = stmt.executeUpdate();
-            System.out.println("updateOrderRefund - 更新行数: " + rowsAffected + ", orderId: " + orderId
+            log.debug("updateOrderRefund - 更新行数: " + rowsAffected + ", orderId: " + orderId
                     + ", refundReason: " + refundReason + ", refundType: " + refundType);
 
             stmt.close();
@@ -1592,7 +1967,7 @@ public class DatabaseManager {
             try {
                 conn.rollback();
             } catch (SQLException ex) {
-                ex.printStackTrace();
+                log.error("updateOrderRefund 执行异常", ex);
             }
             throw e;
         } finally {
@@ -1600,22 +1975,34 @@ public class DatabaseManager {
                 // 恢复自动提交
                 conn.setAutoCommit(true);
             } catch (SQLException e) {
-                e.printStackTrace();
+                log.error("updateOrderRefund 执行异常", e);
             }
             closeConnection();
         }
     }
 
     /**
-     * 获取买家订单列表
+     * 分页获取买家订单列表
+     */
+    public Page<entity.Order> findOrdersByBuyer(String buyerUid, String status, String title, PageCursor cursor,
+            int limit) throws SQLException {
+        return findOrderPage("buyer_uid", buyerUid, status, title, cursor, limit);
+    }
+
+    /**
+     * 买家、农户订单列表共用：按 (created_at, order_id) 倒序做键集分页
+     *
+     * @param uidColumn buyer_uid 或 farmer_uid
+     * @param limit     每页条数，{@link PageCursor#UNPAGED} 表示不分页
      */
-    public List<entity.Order> findOrdersByBuyer(String buyerUid, String status, String title) throws SQLException {
+    private Page<entity.Order> findOrderPage(String uidColumn, String uid, String status, String title,
+            PageCursor cursor, int limit) throws SQLException {
         Connection conn = getConnection();
         List<entity.Order> orders = new ArrayList<>();
         try {
-            StringBuilder sql = new StringBuilder("SELECT * FROM orders WHERE buyer_uid = ?");
+            StringBuilder sql = new StringBuilder("SELECT * FROM orders WHERE ").append(uidColumn).append(" = ?");
             List<Object> params = new ArrayList<>();
-            params.add(buyerUid);
+            params.add(uid);
 
             if (status != null && !status.trim().isEmpty()) {
                 sql.append(" AND status = ?");
@@ -1625,8 +2012,19 @@ public class DatabaseManager {
                 sql.append(" AND product_title LIKE ?");
                 params.add("%" + title + "%");
             }
+            if (cursor != null) {
+                Timestamp key = new Timestamp(cursor.getKey());
+                sql.append(" AND (created_at < ? OR (created_at = ? AND order_id < ?))");
+                params.add(key);
+                params.add(key);
+                params.add(cursor.getId());
+            }
 
-            sql.append(" ORDER BY created_at DESC");
+            sql.append(" ORDER BY created_at DESC, order_id DESC");
+            if (limit > PageCursor.UNPAGED) {
+                sql.append(" LIMIT ?");
+                params.add(limit + 1);
+            }
 
             PreparedStatement stmt = conn.prepareStatement(sql.toString());
             for (int i = 0; i < params.size(); i++) {
@@ -1651,52 +2049,26 @@ public class DatabaseManager {
                 order.setRemark(rs.getString("remark"));
                 order.setStatus(rs.getString("status"));
                 order.setCreatedAt(rs.getTimestamp("created_at"));
-
-                // 查询商品主图
-                String imgSql = "SELECT image_url FROM product_images WHERE product_id = ? AND is_main = TRUE LIMIT 1";
-                PreparedStatement imgStmt = conn.prepareStatement(imgSql);
-                imgStmt.setLong(1, order.getProductId());
-                ResultSet imgRs = imgStmt.executeQuery();
-                List<String> images = new ArrayList<>();
-                if (imgRs.next()) {
-                    images.add(imgRs.getString("image_url"));
-                }
-                order.setImages(images);
-                imgRs.close();
-                imgStmt.close();
-
                 orders.add(order);
             }
             rs.close();
             stmt.close();
+
+            Page<entity.Order> page = Page.of(orders, limit,
+                    last -> PageCursor.of(ORDER_CURSOR_SORT, last.getCreatedAt().getTime(), last.getOrderId()));
+            fillOrderMainImages(conn, page.getItems());
+            return page;
         } finally {
             closeConnection();
         }
-        return orders;
     }
 
     /**
      * 根据买家手机号获取买家UID
      */
     public String getBuyerUidByPhone(String phone) throws SQLException {
-        Connection conn = getConnection();
-        String uid = null;
-        try {
-            String sql = "SELECT u.uid FROM users u " +
-                    "JOIN user_buyers ub ON u.uid = ub.uid " +
-                    "WHERE u.phone = ? AND ub.enable = TRUE";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, phone);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                uid = rs.getString("uid");
-            }
-            rs.close();
-            stmt.close();
-        } finally {
-            closeConnection();
-        }
-        return uid;
+        UserIdentity identity = getUserIdentity(phone);
+        return identity != null && identity.hasRole("buyer") ? identity.getUid() : null;
     }
 
     /**
@@ -1785,6 +2157,7 @@ public class DatabaseManager {
             stmt.close();
         } finally {
             closeConnection();
+            invalidateUserIdentityByUid(buyerUid);
         }
     }
 
@@ -1802,6 +2175,7 @@ public class DatabaseManager {
             stmt.close();
         } finally {
             closeConnection();
+            invalidateUserIdentityByUid(farmerUid);
         }
     }
 
@@ -1819,6 +2193,7 @@ public class DatabaseManager {
             stmt.close();
         } finally {
             closeConnection();
+            invalidateStockReservation(productId);
         }
     }
 
@@ -1868,21 +2243,16 @@ public class DatabaseManager {
                 product.setEnable(rs.getBoolean("enable"));
                 product.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
 
-                // 查询商品图片
-                String imgSql = "SELECT image_url FROM product_images WHERE product_id = ? ORDER BY sort_order";
-                PreparedStatement imgStmt = conn.prepareStatement(imgSql);
-                imgStmt.setLong(1, productId);
-                ResultSet imgRs = imgStmt.executeQuery();
-                List<String> images = new ArrayList<>();
-                while (imgRs.next()) {
-                    images.add(imgRs.getString("image_url"));
-                }
-                product.setImages(images);
-                imgRs.close();
-                imgStmt.close();
             }
             rs.close();
             stmt.close();
+
+            if (product != null) {
+                // 查询商品图片
+                List<String> images = ImageBatchLoader.loadProductImages(conn,
+                        Collections.singletonList(productId), 0).get(productId);
+                product.setImages(images != null ? images : new ArrayList<>());
+            }
         } finally {
             closeConnection();
         }
@@ -1915,24 +2285,8 @@ public class DatabaseManager {
      * 根据农户手机号获取农户UID
      */
     public String getFarmerUidByPhone(String phone) throws SQLException {
-        Connection conn = getConnection();
-        String uid = null;
-        try {
-            String sql = "SELECT u.uid FROM users u " +
-                    "JOIN user_farmers uf ON u.uid = uf.uid " +
-                    "WHERE u.phone = ? AND uf.enable = TRUE";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, phone);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                uid = rs.getString("uid");
-            }
-            rs.close();
-            stmt.close();
-        } finally {
-            closeConnection();
-        }
-        return uid;
+        UserIdentity identity = getUserIdentity(phone);
+        return identity != null && identity.hasRole("farmer") ? identity.getUid() : null;
     }
 
     /**
@@ -2200,72 +2554,30 @@ public class DatabaseManager {
     }
 
     /**
-     * 获取农户订单列表
+     * 分页获取农户订单列表
      */
-    public List<entity.Order> findOrdersByFarmer(String farmerUid, String status, String title) throws SQLException {
-        Connection conn = getConnection();
-        List<entity.Order> orders = new ArrayList<>();
-        try {
-            StringBuilder sql = new StringBuilder("SELECT * FROM orders WHERE farmer_uid = ?");
-            List<Object> params = new ArrayList<>();
-            params.add(farmerUid);
-
-            if (status != null && !status.trim().isEmpty()) {
-                sql.append(" AND status = ?");
-                params.add(status);
-            }
-            if (title != null && !title.trim().isEmpty()) {
-                sql.append(" AND product_title LIKE ?");
-                params.add("%" + title + "%");
-            }
-
-            sql.append(" ORDER BY created_at DESC");
-
-            PreparedStatement stmt = conn.prepareStatement(sql.toString());
-            for (int i = 0; i < params.size(); i++) {
-                stmt.setObject(i + 1, params.get(i));
-            }
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                entity.Order order = new entity.Order();
-                order.setOrderId(rs.getString("order_id"));
-                order.setBuyerUid(rs.getString("buyer_uid"));
-                order.setFarmerUid(rs.getString("farmer_uid"));
-                order.setProductId(rs.getLong("product_id"));
-                order.setProductTitle(rs.getString("product_title"));
-                order.setProductSpecification(rs.getString("product_specification"));
-                order.setProductPrice(rs.getBigDecimal("product_price"));
-                order.setQuantity(rs.getInt("quantity"));
-                order.setTotalAmount(rs.getBigDecimal("total_amount"));
-                order.setBuyerName(rs.getString("buyer_name"));
-                order.setBuyerAddress(rs.getString("buyer_address"));
-                order.setBuyerPhone(rs.getString("buyer_phone"));
-                order.setRemark(rs.getString("remark"));
-                order.setStatus(rs.getString("status"));
-                order.setCreatedAt(rs.getTimestamp("created_at"));
-
-                // 查询商品主图
-                String imgSql = "SELECT image_url FROM product_images WHERE product_id = ? AND is_main = TRUE LIMIT 1";
-                PreparedStatement imgStmt = conn.prepareStatement(imgSql);
-                imgStmt.setLong(1, order.getProductId());
-                ResultSet imgRs = imgStmt.executeQuery();
-                List<String> images = new ArrayList<>();
-                if (imgRs.next()) {
-                    images.add(imgRs.getString("image_url"));
-                }
-                order.setImages(images);
-                imgRs.close();
-                imgStmt.close();
+    public Page<entity.Order> findOrdersByFarmer(String farmerUid, String status, String title, PageCursor cursor,
+            int limit) throws SQLException {
+        return findOrderPage("farmer_uid", farmerUid, status, title, cursor, limit);
+    }
 
-                orders.add(order);
+    /**
+     * 为一页订单批量填充商品主图，整页只查询一次
+     */
+    private void fillOrderMainImages(Connection conn, List<entity.Order> orders) throws SQLException {
+        List<Long> productIds = new ArrayList<>(orders.size());
+        for (entity.Order order : orders) {
+            productIds.add(order.getProductId());
+        }
+        Map<Long, String> mainImages = ImageBatchLoader.loadMainProductImages(conn, productIds);
+        for (entity.Order order : orders) {
+            List<String> images = new ArrayList<>();
+            String mainImage = mainImages.get(order.getProductId());
+            if (mainImage != null) {
+                images.add(mainImage);
             }
-            rs.close();
-            stmt.close();
-        } finally {
-            closeConnection();
+            order.setImages(images);
         }
-        return orders;
     }
 
     // 在 DatabaseManager 类中添加以下方法
@@ -2274,30 +2586,33 @@ public class DatabaseManager {
      * 根据手机号查找用户
      */
     public entity.User findUserByPhone(String phone) throws SQLException {
+        UserIdentity identity = getUserIdentity(phone);
+        return identity != null ? identity.getUser() : null;
+    }
+
+    /**
+     * 直接从数据库读取用户余额（不经过缓存），用户不存在时返回 null
+     */
+    public BigDecimal getUserMoney(String uid) throws SQLException {
         Connection conn = getConnection();
-        entity.User user = null;
+        BigDecimal money = null;
         try {
-            String sql = "SELECT * FROM users WHERE phone = ?";
+            String sql = "SELECT money FROM users WHERE uid = ?";
             PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, phone);
+            stmt.setString(1, uid);
             ResultSet rs = stmt.executeQuery();
-
             if (rs.next()) {
-                user = new entity.User();
-                user.setUid(rs.getString("uid"));
-                user.setPhone(rs.getString("phone"));
-                user.setPassword(rs.getString("password"));
-                user.setNickname(rs.getString("nickname"));
-                user.setMoney(rs.getBigDecimal("money"));
-                user.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-                user.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
+                money = rs.getBigDecimal("money");
+                if (money == null) {
+                    money = BigDecimal.ZERO;
+                }
             }
             rs.close();
             stmt.close();
         } finally {
             closeConnection();
         }
-        return user;
+        return money;
     }
 
     public List<Map<String, Object>> getQualifiedPartners(BigDecimal minCreditLimit, List<String> excludePhones,
@@ -2413,8 +2728,8 @@ public class DatabaseManager {
         List<Map<String, Object>> applications = new ArrayList<>();
         try {
             // 添加调试日志
-            System.out.println("=== DEBUG: 查询待确认联合贷款申请 ===");
-            System.out.println("查询的farmerId: " + farmerId);
+            log.debug("=== DEBUG: 查询待确认联合贷款申请 ===");
+            log.debug("查询的farmerId: " + farmerId);
             
             // 先查询所有该伙伴参与的联合贷款申请（用于调试）
             String debugSql = "SELECT jla.loan_application_id, jla.partner_farmer_id, jla.status as partner_status, " +
@@ -2425,16 +2740,16 @@ public class DatabaseManager {
             PreparedStatement debugStmt = conn.prepareStatement(debugSql);
             debugStmt.setLong(1, farmerId);
             ResultSet debugRs = debugStmt.executeQuery();
-            System.out.println("=== 调试：该伙伴参与的所有联合贷款申请 ===");
+            log.debug("=== 调试：该伙伴参与的所有联合贷款申请 ===");
             while (debugRs.next()) {
-                System.out.println("loan_application_id(DB): " + debugRs.getLong("loan_application_id") + 
+                log.debug("loan_application_id(DB): " + debugRs.getLong("loan_application_id") + 
                                  ", loan_application_id(业务ID): " + debugRs.getString("la_loan_id") +
                                  ", 申请状态: " + debugRs.getString("la_status") +
                                  ", 伙伴状态: " + debugRs.getString("partner_status"));
             }
             debugRs.close();
             debugStmt.close();
-            System.out.println("=== 调试结束 ===");
+            log.debug("=== 调试结束 ===");
             
             // 查询待确认的联合贷款申请
             // 条件：申请状态为 pending_partners 且伙伴状态为 pending_invitation（还未接受）
@@ -2452,8 +2767,8 @@ public class DatabaseManager {
                     "AND jla.status = 'pending_invitation' " +
                     "ORDER BY la.created_at DESC";
             
-            System.out.println("执行的SQL: " + sql);
-            System.out.println("查询参数: farmerId = " + farmerId);
+            log.debug("执行的SQL: " + sql);
+            log.debug("查询参数: farmerId = " + farmerId);
                     
             PreparedStatement stmt = conn.prepareStatement(sql);
             stmt.setLong(1, farmerId);
@@ -2478,12 +2793,12 @@ public class DatabaseManager {
                 application.put("created_at", rs.getTimestamp("created_at"));
                 applications.add(application);
                 
-                System.out.println("找到申请 #" + count + ": loan_application_id=" + rs.getString("loan_application_id") + 
+                log.debug("找到申请 #" + count + ": loan_application_id=" + rs.getString("loan_application_id") + 
                                  ", status=" + rs.getString("status") + ", partner_status=" + rs.getString("partner_status"));
             }
             
-            System.out.println("查询结果: 共找到 " + count + " 条待确认申请");
-            System.out.println("=== DEBUG END ===");
+            log.debug("查询结果: 共找到 " + count + " 条待确认申请");
+            log.debug("=== DEBUG END ===");
             
             rs.close();
             stmt.close();
@@ -2818,6 +3133,7 @@ public class DatabaseManager {
             stmt.close();
         } finally {
             closeConnection();
+            invalidateUserIdentity(phone);
         }
     }
 
@@ -3416,11 +3732,11 @@ public class DatabaseManager {
             stmt.executeUpdate();
             stmt.close();
             
-            System.out.println("测试贷款数据初始化完成：" + loanId);
+            log.info("测试贷款数据初始化完成：" + loanId);
             
         } catch (Exception e) {
-            e.printStackTrace();
-            System.out.println("初始化测试贷款数据失败：" + e.getMessage());
+            log.error("initializeTestLoanData 执行异常", e);
+            log.warn("初始化测试贷款数据失败：" + e.getMessage());
         } finally {
             closeConnection();
         }
@@ -3543,11 +3859,11 @@ public class DatabaseManager {
                     "apply_amount, description, status, created_at, updated_at) " +
                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
             
-            System.out.println("=== DEBUG: 保存信贷申请到数据库 ===");
-            System.out.println("申请ID: " + application.getApplicationId());
-            System.out.println("农户ID: " + application.getFarmerId());
-            System.out.println("申请金额: " + application.getApplyAmount());
-            System.out.println("状态: " + application.getStatus());
+            log.debug("=== DEBUG: 保存信贷申请到数据库 ===");
+            log.debug("申请ID: " + application.getApplicationId());
+            log.debug("农户ID: " + application.getFarmerId());
+            log.debug("申请金额: " + application.getApplyAmount());
+            log.debug("状态: " + application.getStatus());
             
             PreparedStatement stmt = conn.prepareStatement(sql);
             stmt.setString(1, application.getApplicationId());
@@ -3561,8 +3877,8 @@ public class DatabaseManager {
             stmt.setTimestamp(9, application.getUpdatedAt());
             
             int affectedRows = stmt.executeUpdate();
-            System.out.println("插入成功，影响行数: " + affectedRows);
-            System.out.println("=== DEBUG END ===");
+            log.debug("插入成功，影响行数: " + affectedRows);
+            log.debug("=== DEBUG END ===");
             
             stmt.close();
         } finally {
@@ -3713,8 +4029,8 @@ public class DatabaseManager {
                         "WHERE ca.status = 'pending' " +
                         "ORDER BY ca.created_at DESC";
             
-            System.out.println("=== DEBUG: 执行查询待审批申请SQL ===");
-            System.out.println("SQL: " + sql);
+            log.debug("=== DEBUG: 执行查询待审批申请SQL ===");
+            log.debug("SQL: " + sql);
             
             PreparedStatement stmt = conn.prepareStatement(sql);
             ResultSet rs = stmt.executeQuery();
@@ -3734,13 +4050,13 @@ public class DatabaseManager {
                 application.put("farmer_phone", rs.getString("farmer_phone"));
                 applications.add(application);
                 
-                System.out.println("查询到申请 #" + count + ": " + rs.getString("application_id") + 
+                log.debug("查询到申请 #" + count + ": " + rs.getString("application_id") + 
                                  " - " + rs.getString("farmer_name"));
-                System.out.println("  证明图片: " + rs.getString("proof_images"));
+                log.debug("  证明图片: " + rs.getString("proof_images"));
             }
             
-            System.out.println("总共查询到 " + count + " 条待审批申请");
-            System.out.println("=== DEBUG END ===");
+            log.debug("总共查询到 " + count + " 条待审批申请");
+            log.debug("=== DEBUG END ===");
             rs.close();
             stmt.close();
         } finally {
@@ -0,0 +1,119 @@
+package repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按 ID 批量加载商品图片、内容图片
+ *
+ * 列表接口先查出一页主记录，再把这一页的 ID 用一条 IN (...) 查询一次取回全部图片，
+ * 在内存中按 ID 归组，替代逐行查询图片的 N+1 写法。
+ * IN 列表的拼接、补齐和分批见 {@link InClause}。
+ */
+public final class ImageBatchLoader {
+    private static final String PRODUCT_IMAGES_SQL =
+            "SELECT product_id, image_url FROM product_images WHERE product_id IN (%s) " +
+            "ORDER BY product_id, sort_order, image_id";
+    private static final String MAIN_PRODUCT_IMAGES_SQL =
+            "SELECT product_id, image_url FROM product_images WHERE product_id IN (%s) AND is_main = TRUE " +
+            "ORDER BY product_id, sort_order, image_id";
+    private static final String CONTENT_IMAGES_SQL =
+            "SELECT content_id, image_url FROM content_images WHERE content_id IN (%s) " +
+            "ORDER BY content_id, sort_order, image_id";
+
+    private ImageBatchLoader() {
+    }
+
+    /**
+     * 批量加载商品图片，按 sort_order 排序
+     *
+     * @param limitPerProduct 每个商品最多返回的图片数，小于等于 0 表示不限制
+     * @return 商品ID -> 图片URL列表；没有图片的商品不在结果中
+     */
+    public static Map<Long, List<String>> loadProductImages(Connection conn, Collection<Long> productIds,
+            int limitPerProduct) throws SQLException {
+        Map<Long, List<String>> result = new HashMap<>();
+        for (List<Long> batch : InClause.batches(productIds)) {
+            PreparedStatement stmt = null;
+            try {
+                stmt = conn.prepareStatement(InClause.sql(PRODUCT_IMAGES_SQL, batch.size()));
+                InClause.bind(stmt, 1, batch);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    List<String> images = result.computeIfAbsent(rs.getLong("product_id"), k -> new ArrayList<>());
+                    if (limitPerProduct <= 0 || images.size() < limitPerProduct) {
+                        images.add(rs.getString("image_url"));
+                    }
+                }
+                rs.close();
+            } finally {
+                if (stmt != null) {
+                    stmt.close();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量加载商品主图（is_main = TRUE），同一商品有多张主图时取 sort_order 最小的一张
+     *
+     * @return 商品ID -> 主图URL；没有主图的商品不在结果中
+     */
+    public static Map<Long, String> loadMainProductImages(Connection conn, Collection<Long> productIds)
+            throws SQLException {
+        Map<Long, String> result = new HashMap<>();
+        for (List<Long> batch : InClause.batches(productIds)) {
+            PreparedStatement stmt = null;
+            try {
+                stmt = conn.prepareStatement(InClause.sql(MAIN_PRODUCT_IMAGES_SQL, batch.size()));
+                InClause.bind(stmt, 1, batch);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    result.putIfAbsent(rs.getLong("product_id"), rs.getString("image_url"));
+                }
+                rs.close();
+            } finally {
+                if (stmt != null) {
+                    stmt.close();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 批量加载社区内容图片，按 sort_order 排序
+     *
+     * @return 内容ID -> 图片URL列表；没有图片的内容不在结果中
+     */
+    public static Map<String, List<String>> loadContentImages(Connection conn, Collection<String> contentIds)
+            throws SQLException {
+        Map<String, List<String>> result = new HashMap<>();
+        for (List<String> batch : InClause.batches(contentIds)) {
+            PreparedStatement stmt = null;
+            try {
+                stmt = conn.prepareStatement(InClause.sql(CONTENT_IMAGES_SQL, batch.size()));
+                InClause.bind(stmt, 1, batch);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    result.computeIfAbsent(rs.getString("content_id"), k -> new ArrayList<>())
+                            .add(rs.getString("image_url"));
+                }
+                rs.close();
+            } finally {
+                if (stmt != null) {
+                    stmt.close();
+                }
+            }
+        }
+        return result;
+    }
+}
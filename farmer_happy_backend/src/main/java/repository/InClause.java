@@ -0,0 +1,81 @@
+package repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * IN (...) 批量查询的辅助方法
+ *
+ * 占位符个数向上取整到 2 的幂（用最后一个值补齐），不同批大小只会产生少量不同的 SQL 文本，
+ * 能命中连接上的语句缓存；超过 {@link #MAX_BATCH_SIZE} 个值时分批查询。
+ */
+final class InClause {
+    static final int MAX_BATCH_SIZE = 256;
+
+    private InClause() {
+    }
+
+    /**
+     * 去重并按 {@link #MAX_BATCH_SIZE} 切分，忽略 null
+     */
+    static <T> List<List<T>> batches(Collection<T> values) {
+        List<List<T>> batches = new ArrayList<>();
+        if (values == null || values.isEmpty()) {
+            return batches;
+        }
+        List<T> current = new ArrayList<>();
+        for (T value : new LinkedHashSet<>(values)) {
+            if (value == null) {
+                continue;
+            }
+            current.add(value);
+            if (current.size() == MAX_BATCH_SIZE) {
+                batches.add(current);
+                current = new ArrayList<>();
+            }
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    /**
+     * 占位符个数：不小于 size 的最小 2 的幂
+     */
+    static int placeholderCount(int size) {
+        return size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    /**
+     * 把模板中的 %s 替换为与该批大小对应的占位符列表
+     */
+    static String sql(String template, int size) {
+        int slots = placeholderCount(size);
+        StringBuilder placeholders = new StringBuilder(slots * 2);
+        for (int i = 0; i < slots; i++) {
+            if (i > 0) {
+                placeholders.append(',');
+            }
+            placeholders.append('?');
+        }
+        return String.format(template, placeholders);
+    }
+
+    /**
+     * 从 firstIndex 开始绑定一批值，不足的占位符用最后一个值补齐
+     *
+     * @return 下一个可用的参数序号
+     */
+    static int bind(PreparedStatement stmt, int firstIndex, List<?> batch) throws SQLException {
+        int slots = placeholderCount(batch.size());
+        for (int i = 0; i < slots; i++) {
+            stmt.setObject(firstIndex + i, batch.get(Math.min(i, batch.size() - 1)));
+        }
+        return firstIndex + slots;
+    }
+}
@@ -0,0 +1,264 @@
+package repository;
+
+import entity.Order;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 在一个事务内完成下单：读取商品、条件扣减库存、条件扣减余额、写入订单
+ *
+ * 库存和余额都用带条件的 UPDATE 扣减（stock >= ? / money >= ?），检查与扣减在同一条语句里完成，
+ * 并发下单不会超卖，也不会把余额扣成负数；任一步失败整体回滚。
+ * 同一事务内总是先锁商品行、再锁买家行，多个下单事务之间不会形成死锁。
+ *
+ * 库存已由 {@link StockReservations} 预占时使用 {@link #placeReserved}：事务内不再扣减商品库存，
+ * 订单以 stock_applied = FALSE 写入，由预占模块稍后批量回写。
+ */
+public final class OrderPlacement {
+    private static final String SELECT_PRODUCT_SQL =
+            "SELECT p.title, p.detailed_description, p.price, p.stock, p.status, uf.uid AS farmer_uid " +
+            "FROM products p LEFT JOIN user_farmers uf ON uf.farmer_id = p.farmer_id WHERE p.product_id = ?";
+    private static final String DEDUCT_STOCK_SQL =
+            "UPDATE products SET stock = stock - ?, sales_count = sales_count + ? " +
+            "WHERE product_id = ? AND status = 'on_shelf' AND stock >= ?";
+    private static final String SELECT_STOCK_SQL = "SELECT stock FROM products WHERE product_id = ?";
+    private static final String DEBIT_BALANCE_SQL = "UPDATE users SET money = money - ? WHERE uid = ? AND money >= ?";
+    private static final String SELECT_BALANCE_SQL = "SELECT money FROM users WHERE uid = ?";
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO orders (order_id, buyer_uid, farmer_uid, product_id, " +
+            "product_title, product_specification, product_price, quantity, total_amount, " +
+            "buyer_name, buyer_address, buyer_phone, remark, status, stock_applied, shipped_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
+
+    /**
+     * 下单结果，失败时订单未写入、库存和余额均未变化
+     */
+    public enum Status {
+        PLACED,
+        PRODUCT_NOT_FOUND,
+        OFF_SHELF,
+        FARMER_NOT_FOUND,
+        INSUFFICIENT_STOCK,
+        INSUFFICIENT_BALANCE
+    }
+
+    public static final class Result {
+        private final Status status;
+        private final Order order;
+        private final BigDecimal totalAmount;
+        private final int availableStock;
+        private final BigDecimal balance;
+
+        private Result(Status status, Order order, BigDecimal totalAmount, int availableStock, BigDecimal balance) {
+            this.status = status;
+            this.order = order;
+            this.totalAmount = totalAmount;
+            this.availableStock = availableStock;
+            this.balance = balance;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * 已写入的订单（含商品快照与金额），仅 PLACED 时非 null
+         */
+        public Order getOrder() {
+            return order;
+        }
+
+        /**
+         * 库存不足时的当前可用库存
+         */
+        public int getAvailableStock() {
+            return availableStock;
+        }
+
+        /**
+         * 余额不足时的当前余额
+         */
+        public BigDecimal getBalance() {
+            return balance;
+        }
+
+        /**
+         * 按当前单价计算出的订单金额，商品不存在或已下架时为 null
+         */
+        public BigDecimal getTotalAmount() {
+            return totalAmount;
+        }
+    }
+
+    private OrderPlacement() {
+    }
+
+    /**
+     * 下单
+     *
+     * @param order 已填好订单号、买家、数量、收货信息和状态的订单；
+     *              商品快照、农户 UID、单价和金额由本方法在事务内填充
+     */
+    public static Result place(Connection conn, Order order) throws SQLException {
+        return placeInTransaction(conn, order, false);
+    }
+
+    /**
+     * 库存已预占时下单：只校验商品状态、扣减余额并写入订单，不扣减商品库存
+     */
+    public static Result placeReserved(Connection conn, Order order) throws SQLException {
+        return placeInTransaction(conn, order, true);
+    }
+
+    /**
+     * 库存预占失败时的下单结果
+     */
+    static Result rejected(Status status, int availableStock) {
+        return new Result(status, null, null, availableStock, null);
+    }
+
+    private static Result placeInTransaction(Connection conn, Order order, boolean stockReserved)
+            throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        boolean committed = false;
+        try {
+            Result result = execute(conn, order, stockReserved);
+            if (result.status == Status.PLACED) {
+                conn.commit();
+                committed = true;
+            }
+            return result;
+        } finally {
+            if (!committed) {
+                conn.rollback();
+            }
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static Result execute(Connection conn, Order order, boolean stockReserved) throws SQLException {
+        long productId = order.getProductId();
+        int quantity = order.getQuantity();
+
+        // 1. 商品快照与农户 UID（一次查询）
+        PreparedStatement stmt = conn.prepareStatement(SELECT_PRODUCT_SQL);
+        try {
+            stmt.setLong(1, productId);
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
+                rs.close();
+                return failure(Status.PRODUCT_NOT_FOUND, null);
+            }
+            if (!"on_shelf".equals(rs.getString("status"))) {
+                rs.close();
+                return failure(Status.OFF_SHELF, null);
+            }
+            int stock = rs.getInt("stock");
+            BigDecimal price = new BigDecimal(rs.getDouble("price"));
+            order.setProductTitle(rs.getString("title"));
+            order.setProductSpecification(rs.getString("detailed_description"));
+            order.setProductPrice(price);
+            order.setTotalAmount(price.multiply(new BigDecimal(quantity)));
+            order.setFarmerUid(rs.getString("farmer_uid"));
+            rs.close();
+            if (!stockReserved && stock < quantity) {
+                return new Result(Status.INSUFFICIENT_STOCK, null, order.getTotalAmount(), stock, null);
+            }
+        } finally {
+            stmt.close();
+        }
+        if (order.getFarmerUid() == null) {
+            return failure(Status.FARMER_NOT_FOUND, order.getTotalAmount());
+        }
+
+        // 2. 条件扣减库存并累加销量，并发下单时由行锁保证不超卖（已预占时跳过）
+        if (!stockReserved) {
+            stmt = conn.prepareStatement(DEDUCT_STOCK_SQL);
+            try {
+                stmt.setInt(1, quantity);
+                stmt.setInt(2, quantity);
+                stmt.setLong(3, productId);
+                stmt.setInt(4, quantity);
+                if (stmt.executeUpdate() == 0) {
+                    return new Result(Status.INSUFFICIENT_STOCK, null, order.getTotalAmount(),
+                            readStock(conn, productId), null);
+                }
+            } finally {
+                stmt.close();
+            }
+        }
+
+        // 3. 条件扣减买家余额
+        stmt = conn.prepareStatement(DEBIT_BALANCE_SQL);
+        try {
+            stmt.setBigDecimal(1, order.getTotalAmount());
+            stmt.setString(2, order.getBuyerUid());
+            stmt.setBigDecimal(3, order.getTotalAmount());
+            if (stmt.executeUpdate() == 0) {
+                return new Result(Status.INSUFFICIENT_BALANCE, null, order.getTotalAmount(), 0,
+                        readBalance(conn, order.getBuyerUid()));
+            }
+        } finally {
+            stmt.close();
+        }
+
+        // 4. 写入订单（直接为 shipped 状态，同时记录发货时间）
+        stmt = conn.prepareStatement(INSERT_ORDER_SQL);
+        try {
+            stmt.setString(1, order.getOrderId());
+            stmt.setString(2, order.getBuyerUid());
+            stmt.setString(3, order.getFarmerUid());
+            stmt.setLong(4, productId);
+            stmt.setString(5, order.getProductTitle());
+            stmt.setString(6, order.getProductSpecification());
+            stmt.setBigDecimal(7, order.getProductPrice());
+            stmt.setInt(8, quantity);
+            stmt.setBigDecimal(9, order.getTotalAmount());
+            stmt.setString(10, order.getBuyerName());
+            stmt.setString(11, order.getBuyerAddress());
+            stmt.setString(12, order.getBuyerPhone());
+            stmt.setString(13, order.getRemark());
+            stmt.setString(14, order.getStatus());
+            stmt.setBoolean(15, !stockReserved);
+            stmt.executeUpdate();
+        } finally {
+            stmt.close();
+        }
+        return new Result(Status.PLACED, order, order.getTotalAmount(), 0, null);
+    }
+
+    private static Result failure(Status status, BigDecimal totalAmount) {
+        return new Result(status, null, totalAmount, 0, null);
+    }
+
+    private static int readStock(Connection conn, long productId) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(SELECT_STOCK_SQL);
+        try {
+            stmt.setLong(1, productId);
+            ResultSet rs = stmt.executeQuery();
+            int value = rs.next() ? rs.getInt(1) : 0;
+            rs.close();
+            return value;
+        } finally {
+            stmt.close();
+        }
+    }
+
+    private static BigDecimal readBalance(Connection conn, String uid) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(SELECT_BALANCE_SQL);
+        try {
+            stmt.setString(1, uid);
+            ResultSet rs = stmt.executeQuery();
+            BigDecimal balance = rs.next() ? rs.getBigDecimal(1) : null;
+            rs.close();
+            return balance != null ? balance : BigDecimal.ZERO;
+        } finally {
+            stmt.close();
+        }
+    }
+}
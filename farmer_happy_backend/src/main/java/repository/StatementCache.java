@@ -0,0 +1,227 @@
+package repository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个物理连接上的 PreparedStatement 缓存
+ * 以 SQL 文本为键、按 LRU 淘汰；调用方关闭语句时只清理参数并放回缓存，
+ * 同一条 SQL 在同一连接上再次 prepare 时直接复用，省去 MySQL 端的重复解析。
+ * 连接同一时间只会被一个借出方使用，因此这里不需要同步。
+ */
+class StatementCache {
+    private static final Class<?>[] PROXY_INTERFACES = {PreparedStatement.class};
+
+    /**
+     * 连接池级别的缓存计数器，由所有连接共享
+     */
+    static final class Stats {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+    }
+
+    private final Connection connection;
+    private final int maxSize;
+    private final Stats stats;
+    private final LinkedHashMap<String, CachedStatement> entries;
+
+    StatementCache(Connection connection, int maxSize, Stats stats) {
+        this.connection = connection;
+        this.maxSize = maxSize;
+        this.stats = stats;
+        this.entries = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= StatementCache.this.maxSize) {
+                    return false;
+                }
+                evict(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * 获取预编译语句；autoGeneratedKeys 为 -1 表示调用的是 prepareStatement(String)
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys, Connection owner) throws SQLException {
+        String key = autoGeneratedKeys < 0 ? sql : autoGeneratedKeys + "|" + sql;
+        CachedStatement entry = entries.get(key);
+        if (entry != null && !entry.inUse && isOpen(entry.statement)) {
+            stats.hits.incrementAndGet();
+            entry.inUse = true;
+            return checkout(entry, entry.statement, owner);
+        }
+
+        stats.misses.incrementAndGet();
+        PreparedStatement statement = autoGeneratedKeys < 0
+                ? connection.prepareStatement(sql)
+                : connection.prepareStatement(sql, autoGeneratedKeys);
+        if (entry != null && entry.inUse) {
+            // 同一条 SQL 已被外层代码占用（如嵌套循环），本次使用不入缓存的语句
+            return checkout(null, statement, owner);
+        }
+        if (entry != null) {
+            entries.remove(key);
+            closeQuietly(entry.statement);
+        }
+        CachedStatement created = new CachedStatement(statement);
+        created.inUse = true;
+        entries.put(key, created);
+        return checkout(created, statement, owner);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * 关闭所有缓存的语句（物理连接被丢弃时调用）
+     */
+    void closeAll() {
+        Iterator<CachedStatement> it = entries.values().iterator();
+        while (it.hasNext()) {
+            closeQuietly(it.next().statement);
+            it.remove();
+        }
+    }
+
+    private void evict(CachedStatement entry) {
+        stats.evictions.incrementAndGet();
+        if (entry.inUse) {
+            entry.evicted = true;
+        } else {
+            closeQuietly(entry.statement);
+        }
+    }
+
+    private PreparedStatement checkout(CachedStatement entry, PreparedStatement statement, Connection owner) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                PROXY_INTERFACES, new Checkout(entry, statement, owner));
+    }
+
+    private static boolean isOpen(Statement statement) {
+        try {
+            return !statement.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // 忽略关闭失败，物理连接关闭时会一并释放
+        }
+    }
+
+    private static class CachedStatement {
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    /**
+     * 一次语句借用：close() 时重置语句并放回缓存
+     */
+    private class Checkout implements InvocationHandler {
+        private final CachedStatement entry;
+        private final PreparedStatement statement;
+        private final Connection owner;
+        private final List<ResultSet> resultSets = new ArrayList<>(1);
+        private boolean batched;
+        private boolean closed;
+
+        Checkout(CachedStatement entry, PreparedStatement statement, Connection owner) {
+            this.entry = entry;
+            this.statement = statement;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    close();
+                    return null;
+                case "isClosed":
+                    return closed || statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + statement + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("语句已关闭");
+            }
+            if ("addBatch".equals(name)) {
+                batched = true;
+            }
+            Object result;
+            try {
+                result = method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof ResultSet) {
+                resultSets.add((ResultSet) result);
+            }
+            return result;
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (entry == null) {
+                closeQuietly(statement);
+                return;
+            }
+            boolean reusable = true;
+            try {
+                for (ResultSet rs : resultSets) {
+                    rs.close();
+                }
+                statement.clearParameters();
+                if (batched) {
+                    statement.clearBatch();
+                }
+            } catch (SQLException e) {
+                reusable = false;
+            }
+            resultSets.clear();
+            entry.inUse = false;
+            if (!reusable || entry.evicted) {
+                entries.values().remove(entry);
+                closeQuietly(statement);
+            }
+        }
+    }
+}
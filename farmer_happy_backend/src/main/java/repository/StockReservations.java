@@ -0,0 +1,509 @@
+package repository;
+
+import util.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 下单库存预占：内存中的分段库存计数 + 批量异步回写
+ *
+ * 每个商品在首次下单时从 products 表载入库存，之后下单直接在 {@link StripedStock} 上扣减，
+ * 订单以 stock_applied = FALSE 写入，后台线程定期把已下单的数量按商品汇总，
+ * 在一个事务里批量扣减 products.stock / sales_count 并把这些订单标记为已回写。
+ * 热门商品的并发下单因此不再排队等待 products 表同一行的行锁。
+ *
+ * 载入库存时减去本进程内尚未回写的数量（已预占未下单 + 已下单未回写），
+ * 所以计数被丢弃后重新载入仍然准确；商品信息、状态被修改或退款补回库存后调用
+ * {@link #invalidate(long)} 即可。启动时 {@link #start()} 先把 stock_applied = FALSE 的订单补扣一遍，
+ * 进程崩溃前未回写的订单不会丢失扣减；关闭预占后服务启动时同样要单独调用 {@link #reconcile()}，
+ * 否则开启期间遗留的订单永远不会扣减库存。
+ *
+ * 预占与归还持有商品所在分段的读锁，失效与载入持有写锁，预占过程中计数不会被替换。
+ * 回写时表内库存不足（农户在订单回写前调低了库存）的商品库存记为 0，不写入负数。
+ *
+ * 计数只在本进程内有效，多实例部署时必须关闭（db.inventory.reservation.enabled=false）。
+ */
+public final class StockReservations {
+    private static final Logger log = Logger.getLogger(StockReservations.class);
+    private static final String SELECT_STOCK_SQL = "SELECT stock, status FROM products WHERE product_id = ?";
+    private static final String SELECT_UNAPPLIED_SQL =
+            "SELECT order_id, product_id, quantity FROM orders WHERE stock_applied = FALSE";
+    private static final String MARK_APPLIED_SQL =
+            "UPDATE orders SET stock_applied = TRUE WHERE order_id = ? AND stock_applied = FALSE";
+    private static final String DEDUCT_STOCK_SQL = "UPDATE products SET stock = stock - ?, "
+            + "sales_count = sales_count + ? WHERE product_id = ? AND stock >= ?";
+    private static final String CLAMP_STOCK_SQL =
+            "UPDATE products SET stock = 0, sales_count = sales_count + ? WHERE product_id = ?";
+    private static final int LOCK_STRIPES = 64;
+
+    /**
+     * 借出数据库连接，使用完毕后由本类关闭
+     */
+    public interface ConnectionSource {
+        Connection getConnection() throws SQLException;
+    }
+
+    public enum Status {
+        RESERVED,
+        PRODUCT_NOT_FOUND,
+        OFF_SHELF,
+        INSUFFICIENT_STOCK
+    }
+
+    /**
+     * 一次预占，成功后必须调用 {@link #confirm} 或 {@link #cancel} 之一
+     */
+    public static final class Reservation {
+        private final Status status;
+        private final long productId;
+        private final int quantity;
+        private final long availableStock;
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        private Reservation(Status status, long productId, int quantity, long availableStock) {
+            this.status = status;
+            this.productId = productId;
+            this.quantity = quantity;
+            this.availableStock = availableStock;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * 库存不足时的当前可用库存
+         */
+        public long getAvailableStock() {
+            return availableStock;
+        }
+    }
+
+    private static final class Entry {
+        final StripedStock stock;
+        final boolean onShelf;
+
+        Entry(StripedStock stock, boolean onShelf) {
+            this.stock = stock;
+            this.onShelf = onShelf;
+        }
+    }
+
+    // 已下单、等待回写的订单
+    private static final class Pending {
+        final String orderId;
+        final long productId;
+        final int quantity;
+
+        Pending(String orderId, long productId, int quantity) {
+            this.orderId = orderId;
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+    }
+
+    private final ConnectionSource source;
+    private final int stripes;
+    private final long flushIntervalMillis;
+    private final int batchSize;
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    // 每个商品尚未回写到 products 表的数量（已预占未下单 + 已下单未回写）
+    private final ConcurrentHashMap<Long, LongAdder> unapplied = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Pending> pending = new ConcurrentLinkedQueue<>();
+    private final ReentrantReadWriteLock[] locks = new ReentrantReadWriteLock[LOCK_STRIPES];
+    // 载入库存取读锁，回写提交取写锁：载入时读到的表内库存与未回写数量总是一致的
+    private final ReentrantReadWriteLock applyLock = new ReentrantReadWriteLock();
+    private final Object flushMonitor = new Object();
+    private ScheduledExecutorService flusher;
+
+    private final LongAdder reserved = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder pendingOrders = new LongAdder();
+    private final LongAdder flushedOrders = new LongAdder();
+    private final LongAdder flushBatches = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final LongAdder reconciledOrders = new LongAdder();
+    private final LongAdder clampedProducts = new LongAdder();
+
+    public StockReservations(ConnectionSource source, int stripes, long flushIntervalMillis, int batchSize) {
+        this.source = source;
+        this.stripes = Math.max(1, stripes);
+        this.flushIntervalMillis = Math.max(10, flushIntervalMillis);
+        this.batchSize = Math.max(1, batchSize);
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * 补扣上次运行遗留的未回写订单，并启动后台回写线程
+     */
+    public synchronized void start() throws SQLException {
+        if (flusher != null) {
+            return;
+        }
+        reconcile();
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stock-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止后台线程并回写剩余订单，服务停止时在关闭连接池之前调用
+     */
+    public synchronized void shutdown() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flusher = null;
+        }
+        flushQuietly();
+    }
+
+    /**
+     * 预占库存，不访问数据库（商品首次下单时除外）
+     */
+    public Reservation reserve(long productId, int quantity) throws SQLException {
+        ReentrantReadWriteLock lock = lockOf(productId);
+        while (true) {
+            lock.readLock().lock();
+            try {
+                Entry entry = entries.get(productId);
+                if (entry != null) {
+                    return reserve(entry, productId, quantity);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            // 载入后重新取读锁；期间计数又被失效时再载入一次
+            if (load(productId) == null) {
+                return new Reservation(Status.PRODUCT_NOT_FOUND, productId, quantity, 0);
+            }
+        }
+    }
+
+    // 调用方持有分段读锁，entry 在此期间不会被失效或替换
+    private Reservation reserve(Entry entry, long productId, int quantity) {
+        if (!entry.onShelf) {
+            return new Reservation(Status.OFF_SHELF, productId, quantity, 0);
+        }
+        LongAdder outstanding = unappliedOf(productId);
+        outstanding.add(quantity);
+        if (entry.stock.tryReserve(quantity)) {
+            reserved.increment();
+            return new Reservation(Status.RESERVED, productId, quantity, 0);
+        }
+        outstanding.add(-quantity);
+        rejected.increment();
+        return new Reservation(Status.INSUFFICIENT_STOCK, productId, quantity, entry.stock.available());
+    }
+
+    /**
+     * 订单已提交（stock_applied = FALSE），登记等待回写
+     */
+    public void confirm(Reservation reservation, String orderId) {
+        if (reservation.status != Status.RESERVED || !reservation.settled.compareAndSet(false, true)) {
+            return;
+        }
+        pending.add(new Pending(orderId, reservation.productId, reservation.quantity));
+        pendingOrders.increment();
+    }
+
+    /**
+     * 订单未能提交，归还预占的库存
+     */
+    public void cancel(Reservation reservation) {
+        if (reservation.status != Status.RESERVED || !reservation.settled.compareAndSet(false, true)) {
+            return;
+        }
+        ReentrantReadWriteLock lock = lockOf(reservation.productId);
+        lock.readLock().lock();
+        try {
+            unappliedOf(reservation.productId).add(-reservation.quantity);
+            // 计数若已被重新载入，新计数载入时已经扣掉了这部分，同样要归还
+            Entry entry = entries.get(reservation.productId);
+            if (entry != null) {
+                entry.stock.add(reservation.quantity);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 丢弃商品的库存计数，下次下单时按表内库存重新载入
+     */
+    public void invalidate(long productId) {
+        ReentrantReadWriteLock lock = lockOf(productId);
+        lock.writeLock().lock();
+        try {
+            entries.remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 立即回写所有已下单的订单
+     */
+    public void flush() throws SQLException {
+        synchronized (flushMonitor) {
+            while (true) {
+                List<Pending> batch = new ArrayList<>();
+                Pending next;
+                while (batch.size() < batchSize && (next = pending.poll()) != null) {
+                    batch.add(next);
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                try {
+                    apply(batch, true);
+                } catch (SQLException e) {
+                    flushFailures.increment();
+                    pending.addAll(batch);
+                    throw e;
+                }
+                pendingOrders.add(-batch.size());
+                flushedOrders.add(batch.size());
+                flushBatches.increment();
+            }
+        }
+    }
+
+    /**
+     * 当前可用库存，商品未载入时返回 -1
+     */
+    public long available(long productId) {
+        Entry entry = entries.get(productId);
+        return entry != null ? entry.stock.available() : -1;
+    }
+
+    /**
+     * 预占与回写统计，供指标接口输出
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("products", entries.size());
+        stats.put("reserved", reserved.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("pending_orders", pendingOrders.sum());
+        stats.put("flushed_orders", flushedOrders.sum());
+        stats.put("flush_batches", flushBatches.sum());
+        stats.put("flush_failures", flushFailures.sum());
+        stats.put("reconciled_orders", reconciledOrders.sum());
+        stats.put("clamped_products", clampedProducts.sum());
+        return stats;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException e) {
+            log.error("库存回写失败，稍后重试: " + e.getMessage(), e);
+        }
+    }
+
+    private Entry load(long productId) throws SQLException {
+        ReentrantReadWriteLock lock = lockOf(productId);
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(productId);
+            if (entry != null) {
+                return entry;
+            }
+            applyLock.readLock().lock();
+            try {
+                Connection conn = source.getConnection();
+                try {
+                    PreparedStatement stmt = conn.prepareStatement(SELECT_STOCK_SQL);
+                    try {
+                        stmt.setLong(1, productId);
+                        ResultSet rs = stmt.executeQuery();
+                        if (!rs.next()) {
+                            rs.close();
+                            return null;
+                        }
+                        long stock = rs.getLong("stock") - unappliedOf(productId).sum();
+                        entry = new Entry(new StripedStock(stripes, stock), "on_shelf".equals(rs.getString("status")));
+                        rs.close();
+                    } finally {
+                        stmt.close();
+                    }
+                } finally {
+                    conn.close();
+                }
+                entries.put(productId, entry);
+                return entry;
+            } finally {
+                applyLock.readLock().unlock();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 补扣 stock_applied = FALSE 的订单，必须在本进程产生任何预占之前调用；返回补扣的订单数
+     */
+    public int reconcile() throws SQLException {
+        List<Pending> leftovers = new ArrayList<>();
+        Connection conn = source.getConnection();
+        try {
+            Statement stmt = conn.createStatement();
+            try {
+                ResultSet rs = stmt.executeQuery(SELECT_UNAPPLIED_SQL);
+                while (rs.next()) {
+                    leftovers.add(new Pending(rs.getString("order_id"), rs.getLong("product_id"),
+                            rs.getInt("quantity")));
+                }
+                rs.close();
+            } finally {
+                stmt.close();
+            }
+        } finally {
+            conn.close();
+        }
+        int reconciled = 0;
+        for (int from = 0; from < leftovers.size(); from += batchSize) {
+            List<Pending> batch = leftovers.subList(from, Math.min(leftovers.size(), from + batchSize));
+            reconciled += apply(batch, false);
+        }
+        reconciledOrders.add(reconciled);
+        if (!leftovers.isEmpty()) {
+            log.info("已补扣 " + reconciled + " 笔未回写库存的订单");
+        }
+        return reconciled;
+    }
+
+    /**
+     * 在一个事务内把这批订单标记为已回写，并按商品汇总扣减库存、累加销量；返回实际回写的订单数。
+     * 已被标记过（或已随商品删除）的订单不会重复扣减。
+     */
+    private int apply(List<Pending> batch, boolean releaseUnapplied) throws SQLException {
+        Connection conn = source.getConnection();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        boolean committed = false;
+        try {
+            int[] marked;
+            PreparedStatement stmt = conn.prepareStatement(MARK_APPLIED_SQL);
+            try {
+                for (Pending p : batch) {
+                    stmt.setString(1, p.orderId);
+                    stmt.addBatch();
+                }
+                marked = stmt.executeBatch();
+            } finally {
+                stmt.close();
+            }
+
+            // 按商品ID排序加锁，批次之间不会互相死锁
+            Map<Long, Integer> quantities = new TreeMap<>();
+            int applied = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                if (marked[i] != 0) {
+                    quantities.merge(batch.get(i).productId, batch.get(i).quantity, Integer::sum);
+                    applied++;
+                }
+            }
+            if (!quantities.isEmpty()) {
+                List<Map.Entry<Long, Integer>> deductions = new ArrayList<>(quantities.entrySet());
+                int[] deducted;
+                stmt = conn.prepareStatement(DEDUCT_STOCK_SQL);
+                try {
+                    for (Map.Entry<Long, Integer> e : deductions) {
+                        stmt.setInt(1, e.getValue());
+                        stmt.setInt(2, e.getValue());
+                        stmt.setLong(3, e.getKey());
+                        stmt.setInt(4, e.getValue());
+                        stmt.addBatch();
+                    }
+                    deducted = stmt.executeBatch();
+                } finally {
+                    stmt.close();
+                }
+                clampShortages(conn, deductions, deducted);
+            }
+
+            applyLock.writeLock().lock();
+            try {
+                conn.commit();
+                committed = true;
+                if (releaseUnapplied) {
+                    for (Pending p : batch) {
+                        unappliedOf(p.productId).add(-p.quantity);
+                    }
+                }
+            } finally {
+                applyLock.writeLock().unlock();
+            }
+            return applied;
+        } finally {
+            if (!committed) {
+                conn.rollback();
+            }
+            conn.setAutoCommit(autoCommit);
+            conn.close();
+        }
+    }
+
+    /**
+     * 库存不足以扣减的商品（回写前库存被调低）库存记为 0，销量照常累加；商品已删除时不做任何更新
+     */
+    private void clampShortages(Connection conn, List<Map.Entry<Long, Integer>> deductions, int[] deducted)
+            throws SQLException {
+        PreparedStatement stmt = null;
+        try {
+            for (int i = 0; i < deductions.size(); i++) {
+                if (deducted[i] != 0) {
+                    continue;
+                }
+                Map.Entry<Long, Integer> e = deductions.get(i);
+                if (stmt == null) {
+                    stmt = conn.prepareStatement(CLAMP_STOCK_SQL);
+                }
+                stmt.setInt(1, e.getValue());
+                stmt.setLong(2, e.getKey());
+                if (stmt.executeUpdate() > 0) {
+                    clampedProducts.increment();
+                    log.warn("商品 " + e.getKey() + " 库存不足以回写 " + e.getValue() + " 件已下单数量，库存记为 0");
+                }
+            }
+        } finally {
+            if (stmt != null) {
+                stmt.close();
+            }
+        }
+    }
+
+    private LongAdder unappliedOf(long productId) {
+        LongAdder adder = unapplied.get(productId);
+        return adder != null ? adder : unapplied.computeIfAbsent(productId, id -> new LongAdder());
+    }
+
+    private ReentrantReadWriteLock lockOf(long productId) {
+        return locks[(int) ((productId ^ (productId >>> 32)) & (LOCK_STRIPES - 1))];
+    }
+}
@@ -0,0 +1,107 @@
+package repository;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 单个商品的分段库存计数器
+ *
+ * 库存平均分散到若干段，每段是一个独立的原子计数，下单线程从随机一段开始用 CAS 扣减，
+ * 多个线程抢购同一商品时分别落在不同段上，不会都竞争同一个计数（也不再竞争数据库同一行）。
+ * 单段余量不够时进入慢路径：加锁把各段余量收拢后重新均分，只有各段之和不足才判定库存不足。
+ * 各段之间用空槽隔开，避免相邻段落在同一缓存行上。
+ */
+final class StripedStock {
+    // 每段占 8 个 long（64 字节）
+    private static final int PAD = 8;
+
+    private final int stripes;
+    private final AtomicLongArray cells;
+
+    StripedStock(int stripes, long initial) {
+        this.stripes = Math.max(1, stripes);
+        this.cells = new AtomicLongArray(this.stripes * PAD);
+        spread(Math.max(0, initial), 0);
+    }
+
+    /**
+     * 扣减库存，成功返回 true；失败时不扣减任何一段
+     */
+    boolean tryReserve(int quantity) {
+        if (quantity <= 0) {
+            return true;
+        }
+        int home = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            int index = ((home + i) % stripes) * PAD;
+            long value = cells.get(index);
+            while (value >= quantity) {
+                if (cells.compareAndSet(index, value, value - quantity)) {
+                    return true;
+                }
+                value = cells.get(index);
+            }
+        }
+        return reserveSlow(quantity, home);
+    }
+
+    /**
+     * 归还库存（下单失败、退款）
+     */
+    void add(int quantity) {
+        if (quantity == 0) {
+            return;
+        }
+        int index = ThreadLocalRandom.current().nextInt(stripes) * PAD;
+        if (quantity > 0) {
+            cells.addAndGet(index, quantity);
+            return;
+        }
+        // 负数调整走慢路径，保证任何一段都不会被扣成负数
+        synchronized (this) {
+            long total = drain();
+            spread(Math.max(0, total + quantity), index / PAD);
+        }
+    }
+
+    /**
+     * 当前可用库存（各段之和，并发扣减时只是近似值）
+     */
+    long available() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.get(i * PAD);
+        }
+        return total;
+    }
+
+    private synchronized boolean reserveSlow(int quantity, int home) {
+        long total = drain();
+        if (total < quantity) {
+            spread(total, home);
+            return false;
+        }
+        spread(total - quantity, home);
+        return true;
+    }
+
+    // 调用方持有锁：取走各段余量
+    private long drain() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.getAndSet(i * PAD, 0);
+        }
+        return total;
+    }
+
+    // 把余量均分回各段，除不尽的部分放在 home 段
+    private void spread(long total, int home) {
+        long share = total / stripes;
+        for (int i = 0; i < stripes; i++) {
+            long value = share + (i == home ? total % stripes : 0);
+            if (value != 0) {
+                cells.addAndGet(i * PAD, value);
+            }
+        }
+    }
+}
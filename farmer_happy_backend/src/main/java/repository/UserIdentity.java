@@ -0,0 +1,187 @@
+package repository;
+
+import entity.User;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 用户身份快照：users 基本信息 + 各扩展身份表的 ID 与启用状态
+ *
+ * 一条 users LEFT JOIN user_farmers/user_experts/user_buyers/user_banks 查询一次取回，
+ * 由 {@link UserIdentityCache} 缓存，替代“查用户 + 逐表查角色”的多次往返。
+ * 扩展 ID 不区分是否启用（与按 uid 直接查扩展表的旧写法一致），角色列表只包含已启用的身份。
+ */
+public final class UserIdentity {
+    private static final String SELECT_SQL =
+            "SELECT u.uid, u.phone, u.password, u.nickname, u.money, u.created_at, u.updated_at, " +
+            "uf.farmer_id, uf.enable AS farmer_enable, ue.expert_id, ue.enable AS expert_enable, " +
+            "ub.buyer_id, ub.enable AS buyer_enable, uk.bank_id, uk.enable AS bank_enable " +
+            "FROM users u " +
+            "LEFT JOIN user_farmers uf ON uf.uid = u.uid " +
+            "LEFT JOIN user_experts ue ON ue.uid = u.uid " +
+            "LEFT JOIN user_buyers ub ON ub.uid = u.uid " +
+            "LEFT JOIN user_banks uk ON uk.uid = u.uid ";
+
+    private final User user;
+    private final Long farmerId;
+    private final Long expertId;
+    private final Long buyerId;
+    private final Long bankId;
+    private final List<String> roles;
+
+    public UserIdentity(User user, Long farmerId, Long expertId, Long buyerId, Long bankId, List<String> roles) {
+        this.user = copy(user);
+        this.farmerId = farmerId;
+        this.expertId = expertId;
+        this.buyerId = buyerId;
+        this.bankId = bankId;
+        this.roles = Collections.unmodifiableList(new ArrayList<>(roles));
+    }
+
+    /**
+     * 按手机号查询，用户不存在时返回 null
+     */
+    static UserIdentity queryByPhone(Connection conn, String phone) throws SQLException {
+        return query(conn, SELECT_SQL + "WHERE u.phone = ?", phone);
+    }
+
+    /**
+     * 按 uid 查询，用户不存在时返回 null
+     */
+    static UserIdentity queryByUid(Connection conn, String uid) throws SQLException {
+        return query(conn, SELECT_SQL + "WHERE u.uid = ?", uid);
+    }
+
+    private static UserIdentity query(Connection conn, String sql, String key) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        try {
+            stmt.setString(1, key);
+            ResultSet rs = stmt.executeQuery();
+            UserIdentity identity = null;
+            if (rs.next()) {
+                identity = map(rs);
+            }
+            rs.close();
+            return identity;
+        } finally {
+            stmt.close();
+        }
+    }
+
+    private static UserIdentity map(ResultSet rs) throws SQLException {
+        User user = new User();
+        user.setUid(rs.getString("uid"));
+        user.setPhone(rs.getString("phone"));
+        user.setPassword(rs.getString("password"));
+        user.setNickname(rs.getString("nickname"));
+        BigDecimal money = rs.getBigDecimal("money");
+        user.setMoney(money != null ? money : BigDecimal.ZERO);
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        user.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        user.setUpdatedAt(updatedAt != null ? updatedAt.toLocalDateTime() : null);
+
+        // 角色顺序与原 getUserRole 保持一致：farmer、expert、buyer、bank
+        List<String> roles = new ArrayList<>();
+        Long farmerId = extensionId(rs, "farmer_id", "farmer_enable", "farmer", roles);
+        Long expertId = extensionId(rs, "expert_id", "expert_enable", "expert", roles);
+        Long buyerId = extensionId(rs, "buyer_id", "buyer_enable", "buyer", roles);
+        Long bankId = extensionId(rs, "bank_id", "bank_enable", "bank", roles);
+        return new UserIdentity(user, farmerId, expertId, buyerId, bankId, roles);
+    }
+
+    private static Long extensionId(ResultSet rs, String idColumn, String enableColumn, String role,
+            List<String> roles) throws SQLException {
+        long id = rs.getLong(idColumn);
+        if (rs.wasNull()) {
+            return null;
+        }
+        if (rs.getBoolean(enableColumn)) {
+            roles.add(role);
+        }
+        return id;
+    }
+
+    private static User copy(User source) {
+        User user = new User();
+        user.setUid(source.getUid());
+        user.setPhone(source.getPhone());
+        user.setPassword(source.getPassword());
+        user.setNickname(source.getNickname());
+        user.setMoney(source.getMoney());
+        user.setCreatedAt(source.getCreatedAt());
+        user.setUpdatedAt(source.getUpdatedAt());
+        return user;
+    }
+
+    /**
+     * 返回用户信息的副本，调用方修改不会影响缓存
+     */
+    public User getUser() {
+        return copy(user);
+    }
+
+    public String getUid() {
+        return user.getUid();
+    }
+
+    public String getPhone() {
+        return user.getPhone();
+    }
+
+    /**
+     * 已启用的角色，顺序为 farmer、expert、buyer、bank
+     */
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+
+    /**
+     * 是否注册过该类型的身份（不论是否启用）
+     */
+    public boolean hasUserType(String userType) {
+        if (userType == null) {
+            return false;
+        }
+        switch (userType) {
+            case "farmer":
+                return farmerId != null;
+            case "expert":
+                return expertId != null;
+            case "buyer":
+                return buyerId != null;
+            case "bank":
+                return bankId != null;
+            default:
+                return false;
+        }
+    }
+
+    public Long getFarmerId() {
+        return farmerId;
+    }
+
+    public Long getExpertId() {
+        return expertId;
+    }
+
+    public Long getBuyerId() {
+        return buyerId;
+    }
+
+    public Long getBankId() {
+        return bankId;
+    }
+}
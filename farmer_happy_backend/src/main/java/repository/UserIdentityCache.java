@@ -0,0 +1,216 @@
+package repository;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 用户身份的进程内读穿缓存
+ *
+ * 以手机号为主键、按 LRU 淘汰并限制条目数，每个条目在 TTL 到期后重新加载；
+ * 另外维护 uid -> 手机号的索引，按 uid 查询角色时同样命中。
+ * 用户信息、昵称、余额、扩展身份发生写入时由 DatabaseManager / AuthServiceImpl 主动失效，
+ * 其他进程的写入最多在 TTL 内不可见。
+ *
+ * 加载在锁外进行；加载期间如有任何失效，加载结果只返回给本次调用、不写入缓存，
+ * 避免把失效前读到的旧数据重新放回去。用户不存在（null）不缓存。
+ */
+public final class UserIdentityCache {
+
+    /**
+     * 缓存未命中时的数据来源
+     */
+    public interface Loader {
+        UserIdentity loadByPhone(String phone) throws SQLException;
+
+        UserIdentity loadByUid(String uid) throws SQLException;
+    }
+
+    private static final class CachedIdentity {
+        final UserIdentity identity;
+        final long expiresAt;
+
+        CachedIdentity(UserIdentity identity, long expiresAt) {
+            this.identity = identity;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Loader loader;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, CachedIdentity> byPhone;
+    private final Map<String, String> phoneByUid = new HashMap<>();
+    // 每次失效加一，加载前后对比以丢弃过期的加载结果
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param maxSize   最多缓存的用户数，小于等于 0 表示关闭缓存（每次都直接加载）
+     * @param ttlMillis 条目存活时间（毫秒）
+     */
+    public UserIdentityCache(int maxSize, long ttlMillis, Loader loader) {
+        this(maxSize, ttlMillis, loader, System::currentTimeMillis);
+    }
+
+    UserIdentityCache(int maxSize, long ttlMillis, Loader loader, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.loader = loader;
+        this.clock = clock;
+        this.byPhone = new LinkedHashMap<String, CachedIdentity>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedIdentity> eldest) {
+                if (size() <= UserIdentityCache.this.maxSize) {
+                    return false;
+                }
+                phoneByUid.remove(eldest.getValue().identity.getUid());
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * 按手机号获取用户身份，用户不存在时返回 null
+     */
+    public UserIdentity getByPhone(String phone) throws SQLException {
+        if (phone == null) {
+            return null;
+        }
+        long loadGeneration;
+        synchronized (this) {
+            UserIdentity cached = lookup(phone);
+            if (cached != null) {
+                return cached;
+            }
+            loadGeneration = generation;
+        }
+        return store(loader.loadByPhone(phone), loadGeneration);
+    }
+
+    /**
+     * 按 uid 获取用户身份，用户不存在时返回 null
+     */
+    public UserIdentity getByUid(String uid) throws SQLException {
+        if (uid == null) {
+            return null;
+        }
+        long loadGeneration;
+        synchronized (this) {
+            String phone = phoneByUid.get(uid);
+            UserIdentity cached = phone != null ? lookup(phone) : null;
+            if (cached != null) {
+                return cached;
+            }
+            if (phone == null) {
+                misses.incrementAndGet();
+            }
+            loadGeneration = generation;
+        }
+        return store(loader.loadByUid(uid), loadGeneration);
+    }
+
+    /**
+     * 只查缓存、不触发加载，未缓存或已过期时返回 null
+     * 供已持有事务连接的调用方使用，未命中时由调用方在自己的连接上查询
+     */
+    public synchronized UserIdentity peekByUid(String uid) {
+        String phone = uid != null ? phoneByUid.get(uid) : null;
+        if (phone == null) {
+            return null;
+        }
+        CachedIdentity entry = byPhone.get(phone);
+        if (entry == null || entry.expiresAt <= clock.getAsLong()) {
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.identity;
+    }
+
+    public synchronized void invalidatePhone(String phone) {
+        generation++;
+        invalidations.incrementAndGet();
+        CachedIdentity removed = phone != null ? byPhone.remove(phone) : null;
+        if (removed != null) {
+            phoneByUid.remove(removed.identity.getUid());
+        }
+    }
+
+    public synchronized void invalidateUid(String uid) {
+        generation++;
+        invalidations.incrementAndGet();
+        String phone = uid != null ? phoneByUid.remove(uid) : null;
+        if (phone != null) {
+            byPhone.remove(phone);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations.incrementAndGet();
+        byPhone.clear();
+        phoneByUid.clear();
+    }
+
+    public synchronized int size() {
+        return byPhone.size();
+    }
+
+    /**
+     * 缓存统计，键名与连接池统计风格一致，供指标接口输出
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hit_ratio", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("size", size());
+        stats.put("max_size", maxSize);
+        return stats;
+    }
+
+    // 调用方持有锁；命中返回缓存值，未命中或过期时记一次 miss 并返回 null
+    private UserIdentity lookup(String phone) {
+        CachedIdentity entry = byPhone.get(phone);
+        if (entry != null && entry.expiresAt > clock.getAsLong()) {
+            hits.incrementAndGet();
+            return entry.identity;
+        }
+        if (entry != null) {
+            byPhone.remove(phone);
+            phoneByUid.remove(entry.identity.getUid());
+            expirations.incrementAndGet();
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    private synchronized UserIdentity store(UserIdentity identity, long loadGeneration) {
+        if (identity == null || maxSize <= 0 || loadGeneration != generation) {
+            return identity;
+        }
+        CachedIdentity previous = byPhone.put(identity.getPhone(),
+                new CachedIdentity(identity, clock.getAsLong() + ttlMillis));
+        if (previous != null && !previous.identity.getUid().equals(identity.getUid())) {
+            phoneByUid.remove(previous.identity.getUid());
+        }
+        phoneByUid.put(identity.getUid(), identity.getPhone());
+        return identity;
+    }
+}
@@ -5,6 +5,8 @@ import dto.auth.*;
 import dto.farmer.FarmerRegisterRequestDTO;
 import entity.User;
 import repository.DatabaseManager;
+import repository.UserIdentity;
+import util.Logger;
 
 import java.sql.*;
 import java.util.List;
@@ -13,6 +15,7 @@ import java.util.Map;
 import java.util.HashMap;
 
 public class AuthServiceImpl implements AuthService {
+    private static final Logger log = Logger.getLogger(AuthServiceImpl.class);
     private DatabaseManager databaseManager;
 
     public AuthServiceImpl() {
@@ -21,7 +24,7 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     public AuthResponseDTO register(RegisterRequestDTO registerRequest) throws SQLException, IllegalArgumentException {
-        System.out.println("进入注册服务，请求参数: " + registerRequest.getPhone() + ", " + registerRequest.getPassword());
+        log.debug("进入注册服务，请求参数: " + registerRequest.getPhone());
         List<String> errors = new ArrayList<>();
         if (!validateRegisterRequest(registerRequest, errors)) {
             throw new IllegalArgumentException(String.join("; ", errors));
@@ -45,10 +48,10 @@ public class AuthServiceImpl implements AuthService {
 
                 // 保存用户到数据库
                 saveUserWithConnection(conn, user);
-                System.out.println("用户保存成功");
+                log.debug("用户保存成功");
 
                 // 根据用户类型保存扩展信息
-                System.out.println("开始保存扩展信息，用户类型: " + registerRequest.getUserType());
+                log.debug("开始保存扩展信息，用户类型: " + registerRequest.getUserType());
                 saveUserExtensionByType(conn, user.getUid(), registerRequest);
             } else {
                 // 用户已存在，验证密码
@@ -66,15 +69,17 @@ public class AuthServiceImpl implements AuthService {
             }
 
             conn.commit();
+            // 新用户或新增的身份需要在后续请求中可见
+            databaseManager.invalidateUserIdentity(registerRequest.getPhone());
 
             // 生成认证响应
-            System.out.println("开始生成认证响应");
+            log.debug("开始生成认证响应");
             AuthResponseDTO response = new AuthResponseDTO();
             response.setUid(user.getUid());
             response.setNickname(user.getNickname());
             response.setPhone(user.getPhone());
             response.setUserType(registerRequest.getUserType());
-            System.out.println("认证响应生成完成");
+            log.debug("认证响应生成完成");
 
             return response;
         } catch (Exception e) {
@@ -92,21 +97,21 @@ public class AuthServiceImpl implements AuthService {
 
     private void saveUserExtensionByType(Connection conn, String uid, RegisterRequestDTO registerRequest) throws SQLException {
         if (registerRequest instanceof FarmerRegisterRequestDTO) {
-            System.out.println("保存农户扩展信息...");
+            log.debug("保存农户扩展信息...");
             saveFarmerExtensionWithConnection(conn, uid, (FarmerRegisterRequestDTO) registerRequest);
-            System.out.println("农户扩展信息保存完成");
+            log.debug("农户扩展信息保存完成");
         } else if (registerRequest instanceof BuyerRegisterRequestDTO) {
-            System.out.println("保存买家扩展信息...");
+            log.debug("保存买家扩展信息...");
             saveBuyerExtensionWithConnection(conn, uid, (BuyerRegisterRequestDTO) registerRequest);
-            System.out.println("买家扩展信息保存完成");
+            log.debug("买家扩展信息保存完成");
         } else if (registerRequest instanceof ExpertRegisterRequestDTO) {
-            System.out.println("保存专家扩展信息...");
+            log.debug("保存专家扩展信息...");
             saveExpertExtensionWithConnection(conn, uid, (ExpertRegisterRequestDTO) registerRequest);
-            System.out.println("专家扩展信息保存完成");
+            log.debug("专家扩展信息保存完成");
         } else if (registerRequest instanceof BankRegisterRequestDTO) {
-            System.out.println("保存银行扩展信息...");
+            log.debug("保存银行扩展信息...");
             saveBankExtensionWithConnection(conn, uid, (BankRegisterRequestDTO) registerRequest);
-            System.out.println("银行扩展信息保存完成");
+            log.debug("银行扩展信息保存完成");
         }
     }
 
@@ -125,12 +130,13 @@ public class AuthServiceImpl implements AuthService {
             throw new IllegalArgumentException("用户类型不能为空");
         }
 
+        User user;
         Connection conn = null;
         try {
             conn = databaseManager.getConnection();
 
             // 查找用户
-            User user = findUserByPhoneWithConnection(conn, loginRequest.getPhone());
+            user = findUserByPhoneWithConnection(conn, loginRequest.getPhone());
             if (user == null) {
                 throw new SecurityException("用户名或密码错误");
             }
@@ -144,45 +150,51 @@ public class AuthServiceImpl implements AuthService {
             if (!checkUserTypeExistsWithConnection(conn, user.getUid(), loginRequest.getUserType())) {
                 throw new SecurityException("该用户类型未注册");
             }
-
-            // 获取用户余额
-            java.math.BigDecimal balance = null;
-            String userType = loginRequest.getUserType();
-            if ("buyer".equals(userType)) {
-                balance = databaseManager.getBuyerBalance(loginRequest.getPhone());
-            } else if ("farmer".equals(userType)) {
-                balance = databaseManager.getFarmerBalance(loginRequest.getPhone());
-            } else if ("bank".equals(userType)) {
-                balance = databaseManager.getBankBalance(loginRequest.getPhone());
-            }
-            // 如果余额为null，设置为0
-            if (balance == null) {
-                balance = java.math.BigDecimal.ZERO;
-            }
-
-            // 生成认证响应
-            AuthResponseDTO response = new AuthResponseDTO();
-            response.setUid(user.getUid());
-            response.setNickname(user.getNickname());
-            response.setPhone(user.getPhone());
-            response.setUserType(loginRequest.getUserType());
-            response.setMoney(balance);
-
-            return response;
         } finally {
+            // 先归还连接：下面的余额查询和身份缓存各自借连接，同一线程不同时占用两个连接
             if (conn != null) {
                 conn.close();
             }
         }
+
+        // 获取用户余额
+        java.math.BigDecimal balance = null;
+        String userType = loginRequest.getUserType();
+        if ("buyer".equals(userType)) {
+            balance = databaseManager.getBuyerBalance(loginRequest.getPhone());
+        } else if ("farmer".equals(userType)) {
+            balance = databaseManager.getFarmerBalance(loginRequest.getPhone());
+        } else if ("bank".equals(userType)) {
+            balance = databaseManager.getBankBalance(loginRequest.getPhone());
+        }
+        // 如果余额为null，设置为0
+        if (balance == null) {
+            balance = java.math.BigDecimal.ZERO;
+        }
+
+        // 生成认证响应
+        AuthResponseDTO response = new AuthResponseDTO();
+        response.setUid(user.getUid());
+        response.setNickname(user.getNickname());
+        response.setPhone(user.getPhone());
+        response.setUserType(loginRequest.getUserType());
+        response.setMoney(balance);
+
+        // 签发会话令牌，后续请求携带令牌即可，不必再按手机号查询身份
+        UserIdentity identity = databaseManager.getUserIdentity(user.getPhone());
+        if (identity != null) {
+            response.setToken(SessionManager.getInstance().issue(identity, userType));
+        }
+
+        return response;
     }
 
     @Override
     public boolean validateRegisterRequest(RegisterRequestDTO registerRequest, List<String> errors) {
-        System.out.println("开始验证注册请求参数");
-        System.out.println("密码: " + registerRequest.getPassword());
-        System.out.println("手机号: " + registerRequest.getPhone());
-        System.out.println("用户类型: " + registerRequest.getUserType());
-        System.out.println("昵称: " + registerRequest.getNickname());
+        log.debug("开始验证注册请求参数");
+        log.debug("手机号: " + registerRequest.getPhone());
+        log.debug("用户类型: " + registerRequest.getUserType());
+        log.debug("昵称: " + registerRequest.getNickname());
 
         boolean isValid = true;
 
@@ -285,26 +297,24 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     public User findUserByPhone(String phone) throws SQLException {
+        // 经过用户身份缓存，登录、注册仍在各自的连接上直接查询
         try {
-            Connection conn = databaseManager.getConnection();
-            User user = findUserByPhoneWithConnection(conn, phone);
-            conn.close();
-            return user;
+            UserIdentity identity = databaseManager.getUserIdentity(phone);
+            return identity != null ? identity.getUser() : null;
         } catch (SQLException e) {
-            System.err.println("查询用户失败: " + e.getMessage());
-            e.printStackTrace();
+            log.error("查询用户失败: " + e.getMessage(), e);
             throw new SQLException("查询用户失败: " + e.getMessage());
         }
     }
 
     private User findUserByPhoneWithConnection(Connection conn, String phone) throws SQLException {
-        System.out.println("开始查询用户: " + phone);
+        log.debug("开始查询用户: " + phone);
         try {
-            System.out.println("数据库连接成功");
+            log.debug("数据库连接成功");
             PreparedStatement stmt = conn.prepareStatement("SELECT * FROM users WHERE phone = ?");
             stmt.setString(1, phone);
             ResultSet rs = stmt.executeQuery();
-            System.out.println("执行查询完成");
+            log.debug("执行查询完成");
 
             User user = null;
             if (rs.next()) {
@@ -319,19 +329,18 @@ public class AuthServiceImpl implements AuthService {
                 user.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
                 user.setUpdatedAt(rs.getTimestamp("updated_at") != null ?
                         rs.getTimestamp("updated_at").toLocalDateTime() : null);
-                System.out.println("找到用户: " + user.getPhone());
+                log.debug("找到用户: " + user.getPhone());
             } else {
-                System.out.println("未找到用户: " + phone);
+                log.debug("未找到用户: " + phone);
             }
 
             rs.close();
             stmt.close();
-            System.out.println("数据库资源已关闭");
+            log.debug("数据库资源已关闭");
 
             return user;
         } catch (SQLException e) {
-            System.err.println("查询用户失败: " + e.getMessage());
-            e.printStackTrace();
+            log.error("查询用户失败: " + e.getMessage(), e);
             throw new SQLException("查询用户失败: " + e.getMessage());
         }
     }
@@ -350,9 +359,9 @@ public class AuthServiceImpl implements AuthService {
     }
 
     private void saveUserWithConnection(Connection conn, User user) throws SQLException {
-        System.out.println("开始保存用户: " + user.getPhone());
+        log.debug("开始保存用户: " + user.getPhone());
         try {
-            System.out.println("数据库连接成功");
+            log.debug("数据库连接成功");
             PreparedStatement stmt = conn.prepareStatement(
                     "INSERT INTO users (uid, password, nickname, phone, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)"
             );
@@ -363,30 +372,21 @@ public class AuthServiceImpl implements AuthService {
             stmt.setTimestamp(5, Timestamp.valueOf(user.getCreatedAt()));
             stmt.setTimestamp(6, Timestamp.valueOf(user.getUpdatedAt()));
 
-            System.out.println("执行插入操作");
+            log.debug("执行插入操作");
             int result = stmt.executeUpdate();
-            System.out.println("插入结果: " + result);
+            log.debug("插入结果: " + result);
             stmt.close();
-            System.out.println("数据库资源已关闭");
+            log.debug("数据库资源已关闭");
         } catch (SQLException e) {
-            System.err.println("保存用户失败: " + e.getMessage());
-            e.printStackTrace();
+            log.error("保存用户失败: " + e.getMessage(), e);
             throw new SQLException("保存用户失败: " + e.getMessage());
         }
     }
 
     @Override
     public boolean checkUserTypeExists(String uid, String userType) throws SQLException {
-        Connection conn = null;
-        try {
-            conn = databaseManager.getConnection();
-            boolean exists = checkUserTypeExistsWithConnection(conn, uid, userType);
-            return exists;
-        } finally {
-            if (conn != null) {
-                conn.close();
-            }
-        }
+        UserIdentity identity = databaseManager.getUserIdentityByUid(uid);
+        return identity != null && identity.hasUserType(userType);
     }
 
     private boolean checkUserTypeExistsWithConnection(Connection conn, String uid, String userType) throws SQLException {
@@ -438,14 +438,14 @@ public class AuthServiceImpl implements AuthService {
     }
 
     private void saveFarmerExtensionWithConnection(Connection conn, String uid, FarmerRegisterRequestDTO farmerRequest) throws SQLException {
-        System.out.println("saveFarmerExtension - 开始");
-        System.out.println("UID: " + uid);
-        System.out.println("农场名称: " + farmerRequest.getFarmName());
-        System.out.println("农场地址: " + farmerRequest.getFarmAddress());
-        System.out.println("农场规模: " + farmerRequest.getFarmSize());
+        log.debug("saveFarmerExtension - 开始");
+        log.debug("UID: " + uid);
+        log.debug("农场名称: " + farmerRequest.getFarmName());
+        log.debug("农场地址: " + farmerRequest.getFarmAddress());
+        log.debug("农场规模: " + farmerRequest.getFarmSize());
 
         try {
-            System.out.println("saveFarmerExtension - 数据库连接成功");
+            log.debug("saveFarmerExtension - 数据库连接成功");
 
             PreparedStatement stmt = conn.prepareStatement(
                     "INSERT INTO user_farmers (uid, farm_name, farm_address, farm_size) VALUES (?, ?, ?, ?)"
@@ -459,15 +459,14 @@ public class AuthServiceImpl implements AuthService {
                 stmt.setNull(4, Types.DOUBLE);
             }
 
-            System.out.println("saveFarmerExtension - 执行插入操作");
+            log.debug("saveFarmerExtension - 执行插入操作");
             int result = stmt.executeUpdate();
-            System.out.println("saveFarmerExtension - 插入结果: " + result);
+            log.debug("saveFarmerExtension - 插入结果: " + result);
 
             stmt.close();
-            System.out.println("saveFarmerExtension - 数据库资源已关闭");
+            log.debug("saveFarmerExtension - 数据库资源已关闭");
         } catch (SQLException e) {
-            System.err.println("保存农户扩展信息失败: " + e.getMessage());
-            e.printStackTrace();
+            log.error("保存农户扩展信息失败: " + e.getMessage(), e);
             throw new SQLException("保存农户扩展信息失败: " + e.getMessage());
         }
     }
@@ -497,8 +496,7 @@ public class AuthServiceImpl implements AuthService {
             stmt.executeUpdate();
             stmt.close();
         } catch (SQLException e) {
-            System.err.println("保存买家扩展信息失败: " + e.getMessage());
-            e.printStackTrace();
+            log.error("保存买家扩展信息失败: " + e.getMessage(), e);
             throw new SQLException("保存买家扩展信息失败: " + e.getMessage());
         }
     }
@@ -539,8 +537,7 @@ public class AuthServiceImpl implements AuthService {
             stmt.executeUpdate();
             stmt.close();
         } catch (SQLException e) {
-            System.err.println("保存专家扩展信息失败: " + e.getMessage());
-            e.printStackTrace();
+            log.error("保存专家扩展信息失败: " + e.getMessage(), e);
             throw new SQLException("保存专家扩展信息失败: " + e.getMessage());
         }
     }
@@ -573,8 +570,7 @@ public class AuthServiceImpl implements AuthService {
             stmt.executeUpdate();
             stmt.close();
         } catch (SQLException e) {
-            System.err.println("保存银行扩展信息失败: " + e.getMessage());
-            e.printStackTrace();
+            log.error("保存银行扩展信息失败: " + e.getMessage(), e);
             throw new SQLException("保存银行扩展信息失败: " + e.getMessage());
         }
     }
@@ -653,25 +649,26 @@ public class AuthServiceImpl implements AuthService {
             databaseManager.updateFarmerBalance(user.getUid(), request.getAmount());
         } else if ("bank".equals(request.getUserType())) {
             // 检查银行角色
+            boolean isBank = false;
             Connection conn = databaseManager.getConnection();
             try {
                 String sql = "SELECT COUNT(*) as count FROM user_banks WHERE uid = ? AND enable = TRUE";
                 PreparedStatement stmt = conn.prepareStatement(sql);
                 stmt.setString(1, user.getUid());
                 ResultSet rs = stmt.executeQuery();
-                boolean isBank = false;
                 if (rs.next() && rs.getInt("count") > 0) {
                     isBank = true;
                 }
                 rs.close();
                 stmt.close();
-                if (!isBank) {
-                    throw new IllegalArgumentException("该用户不是银行");
-                }
-                databaseManager.updateUserBalance(user.getUid(), request.getAmount());
             } finally {
                 databaseManager.closeConnection();
             }
+            if (!isBank) {
+                throw new IllegalArgumentException("该用户不是银行");
+            }
+            // 归还连接后再更新余额，updateUserBalance 会另借连接
+            databaseManager.updateUserBalance(user.getUid(), request.getAmount());
         } else {
             throw new IllegalArgumentException("不支持的用户类型");
         }
@@ -721,7 +718,9 @@ public class AuthServiceImpl implements AuthService {
         profile.setPhone(user.getPhone());
         profile.setNickname(user.getNickname());
         profile.setUserType(userType);
-        profile.setMoney(user.getMoney());
+        // 余额不取缓存中的值，直接读库
+        java.math.BigDecimal money = databaseManager.getUserMoney(user.getUid());
+        profile.setMoney(money != null ? money : java.math.BigDecimal.ZERO);
 
         // 根据用户类型获取扩展信息
         if ("buyer".equals(userType)) {
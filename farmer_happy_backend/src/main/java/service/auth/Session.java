@@ -0,0 +1,122 @@
+// service/auth/Session.java
+package service.auth;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 登录会话：令牌对应的用户身份
+ *
+ * 登录时从用户身份一次性取出 uid、已启用角色和农户/买家扩展ID，之后同一令牌的请求直接使用，
+ * 服务层不再按手机号重复查询用户和角色。
+ * RouterConfig 在请求开始时解析令牌并通过 {@link #current()} 绑定到当前线程，请求结束时解除。
+ */
+public final class Session {
+    private static final ThreadLocal<Session> CURRENT = new ThreadLocal<>();
+
+    private final String sessionId;
+    private final String uid;
+    private final String phone;
+    private final String userType;
+    private final List<String> roles;
+    private final Long farmerId;
+    private final Long buyerId;
+    private final long createdAt;
+    private volatile long lastAccessAt;
+
+    Session(String sessionId, String uid, String phone, String userType, List<String> roles, Long farmerId,
+            Long buyerId, long createdAt) {
+        this.sessionId = sessionId;
+        this.uid = uid;
+        this.phone = phone;
+        this.userType = userType;
+        this.roles = Collections.unmodifiableList(roles);
+        this.farmerId = farmerId;
+        this.buyerId = buyerId;
+        this.createdAt = createdAt;
+        this.lastAccessAt = createdAt;
+    }
+
+    /**
+     * 当前请求的会话，请求未携带令牌时为 null
+     */
+    public static Session current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 当前请求的会话属于该手机号时返回会话，否则返回 null
+     * 服务层用它判断能否跳过按手机号的身份查询
+     */
+    public static Session currentFor(String phone) {
+        Session session = CURRENT.get();
+        return session != null && phone != null && phone.equals(session.phone) ? session : null;
+    }
+
+    /**
+     * 绑定当前线程的会话，传入 null 表示解除
+     */
+    public static void bind(Session session) {
+        if (session == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(session);
+        }
+    }
+
+    String getSessionId() {
+        return sessionId;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    long getLastAccessAt() {
+        return lastAccessAt;
+    }
+
+    void touch(long now) {
+        lastAccessAt = now;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    /**
+     * 登录时选择的用户类型
+     */
+    public String getUserType() {
+        return userType;
+    }
+
+    /**
+     * 登录时已启用的角色
+     */
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+
+    /**
+     * 农户ID，用户没有启用农户身份时为 null
+     */
+    public Long getFarmerId() {
+        return farmerId;
+    }
+
+    /**
+     * 买家ID，用户没有启用买家身份时为 null
+     */
+    public Long getBuyerId() {
+        return buyerId;
+    }
+}
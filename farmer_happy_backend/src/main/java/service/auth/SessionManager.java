@@ -0,0 +1,250 @@
+// service/auth/SessionManager.java
+package service.auth;
+
+import config.ServerConfig;
+import repository.UserIdentity;
+import util.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 会话令牌的签发、校验与存储
+ *
+ * 令牌格式为 base64url(载荷) + "." + base64url(HMAC-SHA256(载荷))，
+ * 载荷为 "会话ID|uid|用户类型|农户ID|买家ID"；签名不对的令牌不查存储直接拒绝。
+ * 会话按会话ID散列到多个分片，每个分片单独加锁，签发时顺带清理该分片中过期的会话。
+ * 过期采用滑动窗口：空闲超过 idle timeout 或自创建起超过 max lifetime 即失效。
+ *
+ * 会话只保存在本进程内，服务重启后需要重新登录；未配置 server.session.secret 时
+ * 每次启动随机生成签名密钥。
+ */
+public final class SessionManager {
+    private static final Logger log = Logger.getLogger(SessionManager.class);
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final long SWEEP_INTERVAL_MILLIS = 60_000;
+
+    private static SessionManager instance;
+
+    private static final class Shard {
+        final Map<String, Session> sessions = new HashMap<>();
+        long nextSweepAt;
+    }
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final Shard[] shards;
+    private final LongSupplier clock;
+    private final SecureRandom random = new SecureRandom();
+
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong resolved = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    SessionManager(byte[] secret, long idleTimeoutMillis, long maxLifetimeMillis, int shardCount,
+            LongSupplier clock) {
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.clock = clock;
+        int count = Integer.highestOneBit(Math.max(1, shardCount));
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    public static synchronized SessionManager getInstance() {
+        if (instance == null) {
+            ServerConfig config = ServerConfig.getInstance();
+            String secret = config.getSessionSecret();
+            byte[] secretBytes;
+            if (secret == null || secret.trim().isEmpty()) {
+                secretBytes = new byte[32];
+                new SecureRandom().nextBytes(secretBytes);
+                log.info("未配置 server.session.secret，使用随机签名密钥，重启后已签发的令牌全部失效");
+            } else {
+                secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+            }
+            instance = new SessionManager(secretBytes, config.getSessionIdleTimeoutSeconds() * 1000L,
+                    config.getSessionMaxLifetimeSeconds() * 1000L, config.getSessionShards(),
+                    System::currentTimeMillis);
+        }
+        return instance;
+    }
+
+    /**
+     * 为已通过密码校验的用户签发令牌
+     */
+    public String issue(UserIdentity identity, String userType) {
+        byte[] idBytes = new byte[16];
+        random.nextBytes(idBytes);
+        String sessionId = ENCODER.encodeToString(idBytes);
+        Long farmerId = identity.hasRole("farmer") ? identity.getFarmerId() : null;
+        Long buyerId = identity.hasRole("buyer") ? identity.getBuyerId() : null;
+        long now = clock.getAsLong();
+        Session session = new Session(sessionId, identity.getUid(), identity.getPhone(), userType,
+                new ArrayList<>(identity.getRoles()), farmerId, buyerId, now);
+
+        Shard shard = shardOf(sessionId);
+        synchronized (shard) {
+            if (now >= shard.nextSweepAt) {
+                sweep(shard, now);
+                shard.nextSweepAt = now + SWEEP_INTERVAL_MILLIS;
+            }
+            shard.sessions.put(sessionId, session);
+        }
+        issued.incrementAndGet();
+
+        String payload = sessionId + "|" + identity.getUid() + "|" + userType + "|"
+                + (farmerId != null ? farmerId : "") + "|" + (buyerId != null ? buyerId : "");
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+    }
+
+    /**
+     * 校验令牌并刷新空闲时间；签名错误、已注销或已过期时返回 null
+     */
+    public Session resolve(String token) {
+        String[] payload = verify(token);
+        if (payload == null) {
+            rejected.incrementAndGet();
+            return null;
+        }
+        long now = clock.getAsLong();
+        Shard shard = shardOf(payload[0]);
+        synchronized (shard) {
+            Session session = shard.sessions.get(payload[0]);
+            if (session == null || !session.getUid().equals(payload[1])) {
+                rejected.incrementAndGet();
+                return null;
+            }
+            if (isExpired(session, now)) {
+                shard.sessions.remove(payload[0]);
+                expired.incrementAndGet();
+                return null;
+            }
+            session.touch(now);
+            resolved.incrementAndGet();
+            return session;
+        }
+    }
+
+    /**
+     * 注销令牌，令牌无效或已注销时返回 false
+     */
+    public boolean revoke(String token) {
+        String[] payload = verify(token);
+        if (payload == null) {
+            return false;
+        }
+        Shard shard = shardOf(payload[0]);
+        synchronized (shard) {
+            Session session = shard.sessions.get(payload[0]);
+            if (session == null || !session.getUid().equals(payload[1])) {
+                return false;
+            }
+            shard.sessions.remove(payload[0]);
+            return true;
+        }
+    }
+
+    public int activeSessions() {
+        int total = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                total += shard.sessions.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 会话统计，供指标接口输出
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("active", activeSessions());
+        stats.put("issued", issued.get());
+        stats.put("resolved", resolved.get());
+        stats.put("rejected", rejected.get());
+        stats.put("expired", expired.get());
+        return stats;
+    }
+
+    // 校验签名并拆出载荷，失败返回 null
+    private String[] verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+        byte[] payloadBytes;
+        byte[] signature;
+        try {
+            payloadBytes = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(sign(payloadBytes), signature)) {
+            return null;
+        }
+        String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|", -1);
+        return fields.length == 5 ? fields : null;
+    }
+
+    private boolean isExpired(Session session, long now) {
+        return now - session.getLastAccessAt() >= idleTimeoutMillis
+                || now - session.getCreatedAt() >= maxLifetimeMillis;
+    }
+
+    // 调用方持有分片锁
+    private void sweep(Shard shard, long now) {
+        Iterator<Session> it = shard.sessions.values().iterator();
+        while (it.hasNext()) {
+            if (isExpired(it.next(), now)) {
+                it.remove();
+                expired.incrementAndGet();
+            }
+        }
+    }
+
+    private Shard shardOf(String sessionId) {
+        int h = sessionId.hashCode();
+        return shards[(h ^ (h >>> 16)) & (shards.length - 1)];
+    }
+
+    private byte[] sign(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化令牌签名失败", e);
+        }
+    }
+}
@@ -42,11 +42,22 @@ public interface OrderService {
      * @param buyerPhone 买家手机号
      * @param status     订单状态（可选）
      * @param title      商品标题（可选）
-     * @return 订单列表
+     * @return 全部订单（不分页）
      * @throws Exception 如果查询失败
      */
     OrderListResponseDTO getOrderList(String buyerPhone, String status, String title) throws Exception;
 
+    /**
+     * 分页获取买家订单列表
+     * 
+     * @param cursor   上一页返回的 next_cursor，为空表示第一页
+     * @param pageSize 每页条数
+     * @return 一页订单及下一页游标
+     * @throws Exception 如果查询失败
+     */
+    OrderListResponseDTO getOrderList(String buyerPhone, String status, String title, String cursor, int pageSize)
+            throws Exception;
+
     /**
      * 申请退货退款
      * 
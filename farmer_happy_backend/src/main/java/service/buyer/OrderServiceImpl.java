@@ -2,11 +2,16 @@ package service.buyer;
 
 import dto.buyer.*;
 import entity.Order;
-import entity.Product;
 import exception.ValidationException;
 import repository.DatabaseManager;
+import repository.OrderPlacement;
+import service.auth.Session;
+import util.Logger;
+import util.Page;
+import util.PageCursor;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -19,6 +24,7 @@ import java.util.UUID;
  * 订单服务实现类
  */
 public class OrderServiceImpl implements OrderService {
+    private static final Logger log = Logger.getLogger(OrderServiceImpl.class);
 
     private final DatabaseManager dbManager;
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
@@ -37,87 +43,58 @@ public class OrderServiceImpl implements OrderService {
         validateCreateOrderRequest(request);
 
         // 2. 验证买家是否存在
-        String buyerUid = dbManager.getBuyerUidByPhone(request.getBuyerPhone());
+        String buyerUid = buyerUid(request.getBuyerPhone());
         if (buyerUid == null) {
             throw new RuntimeException("买家账户不存在或未启用");
         }
 
-        // 3. 验证商品是否存在
-        Long productId = Long.parseLong(request.getProductId());
-        Product product = dbManager.getProductById(productId);
-        if (product == null) {
-            throw new RuntimeException("商品不存在");
-        }
-
-        // 4. 验证商品状态
-        if (!"on_shelf".equals(product.getStatus())) {
-            throw new RuntimeException("商品已下架，无法购买");
-        }
-
-        // 5. 验证库存
-        if (product.getStock() == 0) {
-            throw new RuntimeException("商品已售罄，当前库存：0");
-        }
-        if (product.getStock() < request.getQuantity()) {
-            throw new RuntimeException("库存不足，当前可用库存：" + product.getStock() + "，请求数量：" + request.getQuantity());
-        }
-
-        // 6. 验证购买数量限制
+        // 3. 验证购买数量限制
         if (request.getQuantity() > 100) {
             throw new RuntimeException("单次购买数量不能超过100件");
         }
 
-        // 7. 计算订单总金额
-        BigDecimal productPrice = new BigDecimal(product.getPrice());
-        BigDecimal totalAmount = productPrice.multiply(new BigDecimal(request.getQuantity()));
-
-        // 8. 验证买家余额
-        BigDecimal buyerBalance = dbManager.getBuyerBalance(request.getBuyerPhone());
-        if (buyerBalance == null || buyerBalance.compareTo(totalAmount) < 0) {
-            throw new RuntimeException("余额不足，订单金额：" + String.format("%.2f", totalAmount) + "元，当前余额：" +
-                    String.format("%.2f", buyerBalance != null ? buyerBalance : BigDecimal.ZERO) + "元");
-        }
-
-        // 获取农户UID
-        String farmerUid = dbManager.getFarmerUidByFarmerId(product.getFarmerId());
-        if (farmerUid == null) {
-            throw new RuntimeException("农户信息异常");
-        }
-
-        // 9. 创建订单
+        // 4. 在一个事务内校验商品、条件扣减库存和余额、写入订单
+        Long productId = Long.parseLong(request.getProductId());
         Order order = new Order();
         order.setOrderId("order-" + UUID.randomUUID().toString());
         order.setBuyerUid(buyerUid);
-        order.setFarmerUid(farmerUid);
         order.setProductId(productId);
-        order.setProductTitle(product.getTitle());
-        order.setProductSpecification(product.getDetailedDescription());
-        order.setProductPrice(productPrice);
         order.setQuantity(request.getQuantity());
-        order.setTotalAmount(totalAmount);
         order.setBuyerName(request.getBuyerName());
         order.setBuyerAddress(request.getBuyerAddress());
         order.setBuyerPhone(request.getBuyerPhone());
         order.setRemark(request.getRemark());
         order.setStatus("shipped");
 
-        // 10. 保存订单到数据库
-        dbManager.createOrder(order);
-
-        // 11. 扣减库存
-        dbManager.updateProductStock(productId, -request.getQuantity());
-
-        // 12. 扣减买家余额
-        dbManager.updateBuyerBalance(buyerUid, totalAmount.negate());
-
-        // 13. 增加销量
-        dbManager.updateProductSalesCount(productId, request.getQuantity());
+        OrderPlacement.Result result = dbManager.placeOrder(order);
+        switch (result.getStatus()) {
+            case PLACED:
+                break;
+            case PRODUCT_NOT_FOUND:
+                throw new RuntimeException("商品不存在");
+            case OFF_SHELF:
+                throw new RuntimeException("商品已下架，无法购买");
+            case INSUFFICIENT_STOCK:
+                if (result.getAvailableStock() == 0) {
+                    throw new RuntimeException("商品已售罄，当前库存：0");
+                }
+                throw new RuntimeException("库存不足，当前可用库存：" + result.getAvailableStock() + "，请求数量：" +
+                        request.getQuantity());
+            case INSUFFICIENT_BALANCE:
+                throw new RuntimeException("余额不足，订单金额：" + String.format("%.2f", result.getTotalAmount()) +
+                        "元，当前余额：" + String.format("%.2f", result.getBalance()) + "元");
+            case FARMER_NOT_FOUND:
+            default:
+                throw new RuntimeException("农户信息异常");
+        }
+        BigDecimal productPrice = order.getProductPrice();
+        BigDecimal totalAmount = order.getTotalAmount();
 
-        // 14. 构建响应
+        // 5. 构建响应
         CreateOrderResponseDTO response = new CreateOrderResponseDTO();
         response.setOrderId(order.getOrderId());
         response.setProductId(request.getProductId());
-        response.setTitle(product.getTitle());
+        response.setTitle(order.getProductTitle());
         response.setPrice(productPrice);
         response.setQuantity(request.getQuantity());
         response.setTotalAmount(totalAmount);
@@ -145,7 +122,7 @@ public class OrderServiceImpl implements OrderService {
         }
 
         // 2. 验证买家是否存在
-        String buyerUid = dbManager.getBuyerUidByPhone(request.getBuyerPhone());
+        String buyerUid = buyerUid(request.getBuyerPhone());
         if (buyerUid == null) {
             throw new RuntimeException("买家账户不存在或未启用");
         }
@@ -197,7 +174,7 @@ public class OrderServiceImpl implements OrderService {
         }
 
         // 2. 验证买家是否存在
-        String buyerUid = dbManager.getBuyerUidByPhone(request.getBuyerPhone());
+        String buyerUid = buyerUid(request.getBuyerPhone());
         if (buyerUid == null) {
             throw new RuntimeException("买家账户不存在或未启用");
         }
@@ -251,6 +228,12 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public OrderListResponseDTO getOrderList(String buyerPhone, String status, String title) throws Exception {
+        return getOrderList(buyerPhone, status, title, null, PageCursor.UNPAGED);
+    }
+
+    @Override
+    public OrderListResponseDTO getOrderList(String buyerPhone, String status, String title, String cursor,
+            int pageSize) throws Exception {
         // 1. 参数验证
         if (buyerPhone == null || !buyerPhone.matches("\\d{11}")) {
             throw new RuntimeException("手机号格式不正确，必须是11位数字");
@@ -271,14 +254,17 @@ public class OrderServiceImpl implements OrderService {
             }
         }
 
+        PageCursor pageCursor = PageCursor.decode(cursor, DatabaseManager.ORDER_CURSOR_SORT);
+
         // 3. 验证买家是否存在
-        String buyerUid = dbManager.getBuyerUidByPhone(buyerPhone);
+        String buyerUid = buyerUid(buyerPhone);
         if (buyerUid == null) {
             throw new RuntimeException("买家账户不存在或未启用");
         }
 
-        // 4. 查询订单列表
-        List<Order> orders = dbManager.findOrdersByBuyer(buyerUid, status, title);
+        // 4. 查询一页订单
+        Page<Order> page = dbManager.findOrdersByBuyer(buyerUid, status, title, pageCursor, pageSize);
+        List<Order> orders = page.getItems();
 
         // 5. 构建响应
         List<OrderListItemDTO> list = new ArrayList<>();
@@ -300,7 +286,10 @@ public class OrderServiceImpl implements OrderService {
             list.add(item);
         }
 
-        return new OrderListResponseDTO(list);
+        OrderListResponseDTO response = new OrderListResponseDTO(list);
+        response.setNextCursor(page.getNextCursor());
+        response.setPaged(page.isPaged());
+        return response;
     }
 
     /**
@@ -309,10 +298,21 @@ public class OrderServiceImpl implements OrderService {
      * @param farmerPhone 农户手机号
      * @param status      订单状态（可选）
      * @param title       商品标题（可选）
-     * @return 订单列表
+     * @return 全部订单（不分页）
      * @throws Exception 如果查询失败
      */
     public OrderListResponseDTO getFarmerOrderList(String farmerPhone, String status, String title) throws Exception {
+        return getFarmerOrderList(farmerPhone, status, title, null, PageCursor.UNPAGED);
+    }
+
+    /**
+     * 分页获取农户订单列表
+     *
+     * @param cursor   上一页返回的 next_cursor，为空表示第一页
+     * @param pageSize 每页条数
+     */
+    public OrderListResponseDTO getFarmerOrderList(String farmerPhone, String status, String title, String cursor,
+            int pageSize) throws Exception {
         // 1. 参数验证
         if (farmerPhone == null || !farmerPhone.matches("\\d{11}")) {
             throw new RuntimeException("手机号格式不正确，必须是11位数字");
@@ -333,14 +333,17 @@ public class OrderServiceImpl implements OrderService {
             }
         }
 
+        PageCursor pageCursor = PageCursor.decode(cursor, DatabaseManager.ORDER_CURSOR_SORT);
+
         // 3. 验证农户是否存在
-        String farmerUid = dbManager.getFarmerUidByPhone(farmerPhone);
+        String farmerUid = farmerUid(farmerPhone);
         if (farmerUid == null) {
             throw new RuntimeException("农户账户不存在或未启用");
         }
 
-        // 4. 查询订单列表
-        List<Order> orders = dbManager.findOrdersByFarmer(farmerUid, status, title);
+        // 4. 查询一页订单
+        Page<Order> page = dbManager.findOrdersByFarmer(farmerUid, status, title, pageCursor, pageSize);
+        List<Order> orders = page.getItems();
 
         // 5. 构建响应
         List<OrderListItemDTO> list = new ArrayList<>();
@@ -362,7 +365,10 @@ public class OrderServiceImpl implements OrderService {
             list.add(item);
         }
 
-        return new OrderListResponseDTO(list);
+        OrderListResponseDTO response = new OrderListResponseDTO(list);
+        response.setNextCursor(page.getNextCursor());
+        response.setPaged(page.isPaged());
+        return response;
     }
 
     /**
@@ -380,7 +386,7 @@ public class OrderServiceImpl implements OrderService {
         }
 
         // 2. 验证农户是否存在
-        String farmerUid = dbManager.getFarmerUidByPhone(farmerPhone);
+        String farmerUid = farmerUid(farmerPhone);
         if (farmerUid == null) {
             throw new RuntimeException("农户账户不存在或未启用");
         }
@@ -429,7 +435,7 @@ public class OrderServiceImpl implements OrderService {
         validateRefundRequest(request);
 
         // 2. 验证买家是否存在
-        String buyerUid = dbManager.getBuyerUidByPhone(request.getBuyerPhone());
+        String buyerUid = buyerUid(request.getBuyerPhone());
         if (buyerUid == null) {
             throw new RuntimeException("买家账户不存在或未启用");
         }
@@ -460,7 +466,7 @@ public class OrderServiceImpl implements OrderService {
         }
 
         // 7. 处理退款
-        System.out.println("applyRefund - 准备更新订单: orderId=" + orderId +
+        log.debug("applyRefund - 准备更新订单: orderId=" + orderId +
                 ", refundReason=" + request.getRefundReason() +
                 ", refundType=" + request.getRefundType());
 
@@ -478,7 +484,7 @@ public class OrderServiceImpl implements OrderService {
         // 7.4 减少销量
         dbManager.updateProductSalesCount(order.getProductId(), -order.getQuantity());
 
-        System.out.println("applyRefund - 订单更新完成，已退款给买家");
+        log.debug("applyRefund - 订单更新完成，已退款给买家");
 
         // 8. 构建响应
         RefundResponseDTO response = new RefundResponseDTO();
@@ -504,7 +510,7 @@ public class OrderServiceImpl implements OrderService {
         }
 
         // 2. 验证买家是否存在
-        String buyerUid = dbManager.getBuyerUidByPhone(request.getBuyerPhone());
+        String buyerUid = buyerUid(request.getBuyerPhone());
         if (buyerUid == null) {
             throw new RuntimeException("买家账户不存在或未启用");
         }
@@ -699,4 +705,21 @@ public class OrderServiceImpl implements OrderService {
             throw new IllegalArgumentException("参数验证失败");
         }
     }
+
+    // 请求携带令牌且手机号属于当前会话时直接取会话中的身份，否则按手机号查询
+    private String buyerUid(String buyerPhone) throws SQLException {
+        Session session = Session.currentFor(buyerPhone);
+        if (session != null) {
+            return session.hasRole("buyer") ? session.getUid() : null;
+        }
+        return dbManager.getBuyerUidByPhone(buyerPhone);
+    }
+
+    private String farmerUid(String farmerPhone) throws SQLException {
+        Session session = Session.currentFor(farmerPhone);
+        if (session != null) {
+            return session.hasRole("farmer") ? session.getUid() : null;
+        }
+        return dbManager.getFarmerUidByPhone(farmerPhone);
+    }
 }
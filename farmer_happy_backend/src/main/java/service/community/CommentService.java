@@ -17,9 +17,16 @@ public interface CommentService {
     PostReplyResponseDTO postReply(String commentId, PostReplyRequestDTO request) throws SQLException, IllegalArgumentException;
     
     /**
-     * 获取评论列表（包含楼中楼结构）
+     * 获取全部评论（包含楼中楼结构，不分页）
      */
     CommentListResponseDTO getCommentList(String contentId) throws SQLException;
+
+    /**
+     * 按一级评论分页获取评论列表，每条一级评论带上它的全部回复
+     * @param cursor 上一页返回的 next_cursor，为空表示第一页
+     * @param pageSize 每页一级评论条数
+     */
+    CommentListResponseDTO getCommentList(String contentId, String cursor, int pageSize) throws SQLException;
     
     /**
      * 保存评论
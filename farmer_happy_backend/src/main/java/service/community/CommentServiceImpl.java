@@ -7,6 +7,8 @@ import entity.Content;
 import entity.User;
 import repository.DatabaseManager;
 import service.auth.AuthService;
+import util.Page;
+import util.PageCursor;
 
 import java.sql.SQLException;
 import java.time.format.DateTimeFormatter;
@@ -141,23 +143,25 @@ public class CommentServiceImpl implements CommentService {
 
     @Override
     public CommentListResponseDTO getCommentList(String contentId) throws SQLException {
-        // 1. 获取该帖子的所有评论
-        List<Comment> allComments = databaseManager.findCommentsByContentId(contentId);
-        
-        // 2. 分离一级评论和二级回复
-        List<Comment> topLevelComments = new ArrayList<>();
+        return getCommentList(contentId, null, PageCursor.UNPAGED);
+    }
+
+    @Override
+    public CommentListResponseDTO getCommentList(String contentId, String cursor, int pageSize) throws SQLException {
+        // 1. 获取本页一级评论
+        PageCursor pageCursor = PageCursor.decode(cursor, DatabaseManager.COMMENT_CURSOR_SORT);
+        Page<Comment> page = databaseManager.findTopLevelComments(contentId, pageCursor, pageSize);
+        List<Comment> topLevelComments = page.getItems();
+
+        // 2. 批量取回本页一级评论下的二级回复，并按一级评论归组
         Map<String, List<Comment>> repliesMap = new HashMap<>();
-        
-        for (Comment comment : allComments) {
-            if (comment.isTopLevelComment()) {
-                topLevelComments.add(comment);
-                // 初始化该一级评论的回复列表
-                repliesMap.put(comment.getCommentId(), new ArrayList<>());
-            } else {
-                // 将二级回复添加到对应的一级评论下
-                String parentId = comment.getParentCommentId();
-                repliesMap.computeIfAbsent(parentId, k -> new ArrayList<>()).add(comment);
-            }
+        List<String> topLevelIds = new ArrayList<>(topLevelComments.size());
+        for (Comment comment : topLevelComments) {
+            topLevelIds.add(comment.getCommentId());
+            repliesMap.put(comment.getCommentId(), new ArrayList<>());
+        }
+        for (Comment reply : databaseManager.findRepliesByParentIds(topLevelIds)) {
+            repliesMap.computeIfAbsent(reply.getParentCommentId(), k -> new ArrayList<>()).add(reply);
         }
         
         // 3. 构建响应DTO
@@ -195,7 +199,11 @@ public class CommentServiceImpl implements CommentService {
             commentItems.add(itemDTO);
         }
         
-        return new CommentListResponseDTO(allComments.size(), commentItems);
+        CommentListResponseDTO response = new CommentListResponseDTO(
+                databaseManager.countCommentsByContentId(contentId), commentItems);
+        response.setNextCursor(page.getNextCursor());
+        response.setPaged(page.isPaged());
+        return response;
     }
 
     @Override
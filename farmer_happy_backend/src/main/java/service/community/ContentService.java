@@ -12,12 +12,20 @@ public interface ContentService {
     PublishContentResponseDTO publishContent(PublishContentRequestDTO request) throws SQLException, IllegalArgumentException;
     
     /**
-     * 获取内容列表
+     * 获取全部内容（不分页）
      * @param contentType 内容类型（可选）
      * @param keyword 搜索关键词（可选）
      * @param sort 排序方式（newest, hottest, commented）
      */
     ContentListResponseDTO getContentList(String contentType, String keyword, String sort) throws SQLException;
+
+    /**
+     * 分页获取内容列表
+     * @param cursor 上一页返回的 next_cursor，为空表示第一页
+     * @param pageSize 每页条数
+     */
+    ContentListResponseDTO getContentList(String contentType, String keyword, String sort, String cursor, int pageSize)
+            throws SQLException;
     
     /**
      * 获取内容详情（同时增加浏览量）
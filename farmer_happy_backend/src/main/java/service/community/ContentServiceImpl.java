@@ -6,6 +6,8 @@ import entity.Content;
 import entity.User;
 import repository.DatabaseManager;
 import service.auth.AuthService;
+import util.Page;
+import util.PageCursor;
 
 import java.sql.SQLException;
 import java.time.format.DateTimeFormatter;
@@ -88,8 +90,16 @@ public class ContentServiceImpl implements ContentService {
 
     @Override
     public ContentListResponseDTO getContentList(String contentType, String keyword, String sort) throws SQLException {
-        // 获取内容列表
-        List<Content> contents = databaseManager.findContents(contentType, keyword, sort);
+        return getContentList(contentType, keyword, sort, null, PageCursor.UNPAGED);
+    }
+
+    @Override
+    public ContentListResponseDTO getContentList(String contentType, String keyword, String sort, String cursor,
+            int pageSize) throws SQLException {
+        // 获取一页内容
+        PageCursor pageCursor = PageCursor.decode(cursor, DatabaseManager.contentSortName(sort));
+        Page<Content> page = databaseManager.findContents(contentType, keyword, sort, pageCursor, pageSize);
+        List<Content> contents = page.getItems();
         
         // 转换为DTO
         List<ContentListItemDTO> items = new ArrayList<>();
@@ -118,7 +128,10 @@ public class ContentServiceImpl implements ContentService {
             items.add(item);
         }
         
-        return new ContentListResponseDTO(items.size(), items);
+        ContentListResponseDTO response = new ContentListResponseDTO(items.size(), items);
+        response.setNextCursor(page.getNextCursor());
+        response.setPaged(page.isPaged());
+        return response;
     }
 
     @Override
@@ -0,0 +1,203 @@
+// service/crawler/CrawlJob.java
+package service.crawler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 异步爬取任务的状态记录
+ *
+ * 状态依次为 queued -> crawling -> splitting -> succeeded，任一步出错时为 failed。
+ * 进度字段在执行线程上更新、在查询线程上读取；状态变化时由 CrawlJobStore 写入磁盘。
+ * result 目录只保存最近一次爬取的结果，之后的爬取清理目录时，已成功任务的文件列表标记为过期并清空。
+ */
+public final class CrawlJob {
+    public static final String QUEUED = "queued";
+    public static final String CRAWLING = "crawling";
+    public static final String SPLITTING = "splitting";
+    public static final String SUCCEEDED = "succeeded";
+    public static final String FAILED = "failed";
+
+    private final String id;
+    private final String startTime;
+    private final String endTime;
+    private final String productName;
+    private final long createdAt;
+
+    private volatile String status = QUEUED;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile int rowsFetched;
+    private volatile int varietiesFound;
+    private volatile int varietiesSplit;
+    private volatile String fileName;
+    private volatile List<Map<String, Object>> splitFiles = Collections.emptyList();
+    private volatile String error;
+    private volatile boolean resultsExpired;
+
+    // 爬取阶段对应的工作进程任务，用于读取实时的行数
+    private volatile CrawlerWorkerPool.Job crawl;
+
+    CrawlJob(String id, String startTime, String endTime, String productName, long createdAt) {
+        this.id = id;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.productName = productName;
+        this.createdAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getStartTime() {
+        return startTime;
+    }
+
+    public String getEndTime() {
+        return endTime;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public boolean isFinished() {
+        return SUCCEEDED.equals(status) || FAILED.equals(status);
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public boolean isResultsExpired() {
+        return resultsExpired;
+    }
+
+    public int getRowsFetched() {
+        CrawlerWorkerPool.Job running = crawl;
+        return running != null ? running.getRowsFetched() : rowsFetched;
+    }
+
+    void markCrawling(CrawlerWorkerPool.Job crawl, long now) {
+        this.crawl = crawl;
+        this.startedAt = now;
+        this.status = CRAWLING;
+    }
+
+    void markSplitting() {
+        CrawlerWorkerPool.Job running = crawl;
+        if (running != null) {
+            rowsFetched = running.getRowsFetched();
+            crawl = null;
+        }
+        status = SPLITTING;
+    }
+
+    void updateSplit(int varieties, int exported) {
+        varietiesFound = varieties;
+        varietiesSplit = exported;
+    }
+
+    void markSucceeded(String fileName, List<Map<String, Object>> splitFiles, long now) {
+        this.fileName = fileName;
+        this.splitFiles = splitFiles != null ? splitFiles : Collections.emptyList();
+        this.finishedAt = now;
+        this.status = SUCCEEDED;
+    }
+
+    /**
+     * 结果文件已被之后的爬取清理，清空文件列表
+     */
+    void expireResults() {
+        fileName = null;
+        splitFiles = Collections.emptyList();
+        resultsExpired = true;
+    }
+
+    void markFailed(String error, long now) {
+        CrawlerWorkerPool.Job running = crawl;
+        if (running != null) {
+            rowsFetched = running.getRowsFetched();
+            crawl = null;
+        }
+        this.error = error;
+        this.finishedAt = now;
+        this.status = FAILED;
+    }
+
+    /**
+     * 接口返回及持久化使用的字段
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("job_id", id);
+        map.put("status", status);
+        map.put("product_name", productName);
+        map.put("start_time", startTime);
+        map.put("end_time", endTime);
+        map.put("created_at", createdAt);
+        map.put("started_at", startedAt);
+        map.put("finished_at", finishedAt);
+        map.put("rows_fetched", getRowsFetched());
+        map.put("varieties_found", varietiesFound);
+        map.put("varieties_split", varietiesSplit);
+        map.put("file_name", fileName);
+        map.put("split_dir", resultsExpired ? null : "result/split");
+        map.put("split_files", splitFiles);
+        map.put("results_expired", resultsExpired);
+        map.put("error", error);
+        return map;
+    }
+
+    /**
+     * 从 toMap 的结果恢复（split_files 中的每一项为 Map）
+     */
+    static CrawlJob fromMap(Map<String, Object> map) {
+        CrawlJob job = new CrawlJob(string(map.get("job_id")), string(map.get("start_time")),
+                string(map.get("end_time")), string(map.get("product_name")), number(map.get("created_at")));
+        String status = string(map.get("status"));
+        job.status = status != null ? status : FAILED;
+        job.startedAt = number(map.get("started_at"));
+        job.finishedAt = number(map.get("finished_at"));
+        job.rowsFetched = (int) number(map.get("rows_fetched"));
+        job.varietiesFound = (int) number(map.get("varieties_found"));
+        job.varietiesSplit = (int) number(map.get("varieties_split"));
+        job.fileName = string(map.get("file_name"));
+        job.error = string(map.get("error"));
+        job.resultsExpired = Boolean.TRUE.equals(map.get("results_expired"));
+
+        List<Map<String, Object>> files = new ArrayList<>();
+        Object raw = map.get("split_files");
+        if (raw instanceof List) {
+            for (Object item : (List<?>) raw) {
+                if (item instanceof Map) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> file = (Map<String, Object>) item;
+                    files.add(file);
+                }
+            }
+        }
+        job.splitFiles = files;
+        return job;
+    }
+
+    private static String string(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static long number(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+}
@@ -0,0 +1,245 @@
+// service/crawler/CrawlJobStore.java
+package service.crawler;
+
+import config.ServerConfig;
+import util.JsonReader;
+import util.JsonWriter;
+import util.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * 异步爬取任务的历史记录（job_id -> CrawlJob）
+ *
+ * 每个任务保存为目录中的一个 JSON 文件（{job_id}.json），状态变化时整体重写（先写临时文件再原子替换）。
+ * 服务启动时读回全部记录，上次停机时未完成的任务标记为失败；超过 maxJobs 时删除最早创建的已完成任务。
+ * 目录不可写时只保存在内存中。
+ */
+public final class CrawlJobStore {
+    private static final Logger log = Logger.getLogger(CrawlJobStore.class);
+    private static final String FILE_SUFFIX = ".json";
+    private static final Pattern JOB_ID = Pattern.compile("[0-9a-f]{32}");
+
+    private static CrawlJobStore instance;
+
+    private final Path directory;
+    private final int maxJobs;
+    private final LongSupplier clock;
+    // 按创建时间排列，最早的在最前
+    private final LinkedHashMap<String, CrawlJob> jobs = new LinkedHashMap<>();
+
+    CrawlJobStore(Path directory, int maxJobs, LongSupplier clock) {
+        this.directory = prepareDirectory(directory);
+        this.maxJobs = Math.max(1, maxJobs);
+        this.clock = clock;
+        recover();
+    }
+
+    public static synchronized CrawlJobStore getInstance() {
+        if (instance == null) {
+            ServerConfig config = ServerConfig.getInstance();
+            String dir = config.getCrawlJobsDir();
+            Path directory = dir == null || dir.trim().isEmpty()
+                    ? Paths.get(System.getProperty("user.dir"), "result", "jobs")
+                    : Paths.get(dir.trim());
+            instance = new CrawlJobStore(directory, config.getCrawlJobsHistory(), System::currentTimeMillis);
+        }
+        return instance;
+    }
+
+    long now() {
+        return clock.getAsLong();
+    }
+
+    /**
+     * 登记新任务并写入磁盘，超出条数上限时删除最早的已完成任务
+     */
+    public void add(CrawlJob job) {
+        List<CrawlJob> evicted = new ArrayList<>();
+        synchronized (this) {
+            jobs.put(job.getId(), job);
+            Iterator<CrawlJob> it = jobs.values().iterator();
+            while (jobs.size() > maxJobs && it.hasNext()) {
+                CrawlJob oldest = it.next();
+                if (oldest.isFinished()) {
+                    it.remove();
+                    evicted.add(oldest);
+                }
+            }
+        }
+        for (CrawlJob old : evicted) {
+            delete(old.getId());
+        }
+        save(job);
+    }
+
+    /**
+     * 删除任务记录（提交失败时撤销 add）
+     */
+    public void remove(CrawlJob job) {
+        synchronized (this) {
+            jobs.remove(job.getId(), job);
+        }
+        delete(job.getId());
+    }
+
+    /**
+     * result 目录被清理后调用：结果文件不是 keepFileName 的已成功任务标记为过期并写入磁盘
+     */
+    public void expireResults(String keepFileName) {
+        List<CrawlJob> expired = new ArrayList<>();
+        synchronized (this) {
+            for (CrawlJob job : jobs.values()) {
+                if (CrawlJob.SUCCEEDED.equals(job.getStatus()) && !job.isResultsExpired()
+                        && !Objects.equals(job.getFileName(), keepFileName)) {
+                    job.expireResults();
+                    expired.add(job);
+                }
+            }
+        }
+        for (CrawlJob job : expired) {
+            save(job);
+        }
+    }
+
+    public synchronized CrawlJob get(String jobId) {
+        return jobId != null ? jobs.get(jobId) : null;
+    }
+
+    public synchronized int size() {
+        return jobs.size();
+    }
+
+    /**
+     * 把任务的当前状态写入磁盘，写入失败只记录日志
+     */
+    public void save(CrawlJob job) {
+        if (directory == null) {
+            return;
+        }
+        Path file = directory.resolve(job.getId() + FILE_SUFFIX);
+        Path tmp = directory.resolve(job.getId() + FILE_SUFFIX + ".tmp");
+        try {
+            // 提交线程和执行线程可能同时保存同一任务，按任务加锁避免临时文件交错
+            synchronized (job) {
+                Files.write(tmp, JsonWriter.toBytes(job.toMap()));
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            log.error("保存爬取任务失败: " + job.getId() + ", 错误: " + e.getMessage());
+        }
+    }
+
+    private void delete(String jobId) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(directory.resolve(jobId + FILE_SUFFIX));
+        } catch (IOException e) {
+            log.error("删除爬取任务记录失败: " + jobId + ", 错误: " + e.getMessage());
+        }
+    }
+
+    private static Path prepareDirectory(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            return directory;
+        } catch (IOException e) {
+            log.error("爬取任务目录不可用，任务记录只保存在内存中: " + directory + ", 错误: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 启动时读回历史任务；停机时尚未完成的任务已无法继续，标记为失败
+     */
+    private void recover() {
+        if (directory == null) {
+            return;
+        }
+        List<CrawlJob> recovered = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                String jobId = name.substring(0, name.length() - FILE_SUFFIX.length());
+                if (!JOB_ID.matcher(jobId).matches()) {
+                    continue;
+                }
+                try {
+                    recovered.add(read(file));
+                } catch (IOException | RuntimeException e) {
+                    log.error("读取爬取任务记录失败，已删除: " + file + ", 错误: " + e.getMessage());
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.error("扫描爬取任务目录失败: " + directory + ", 错误: " + e.getMessage());
+            return;
+        }
+
+        recovered.sort(Comparator.comparingLong(CrawlJob::getCreatedAt));
+        List<CrawlJob> interrupted = new ArrayList<>();
+        for (CrawlJob job : recovered) {
+            if (!job.isFinished()) {
+                job.markFailed("服务重启，任务已中断", now());
+                interrupted.add(job);
+            }
+        }
+        // 超出上限的部分按最早创建的顺序删除
+        int excess = recovered.size() - maxJobs;
+        for (CrawlJob job : recovered) {
+            if (excess > 0) {
+                delete(job.getId());
+                excess--;
+            } else {
+                jobs.put(job.getId(), job);
+            }
+        }
+        for (CrawlJob job : interrupted) {
+            if (jobs.containsKey(job.getId())) {
+                save(job);
+            }
+        }
+        if (!jobs.isEmpty()) {
+            log.info("已恢复爬取任务记录 " + jobs.size() + " 条，其中中断 " + interrupted.size() + " 条");
+        }
+    }
+
+    private static CrawlJob read(Path file) throws IOException {
+        Map<String, Object> map;
+        try (InputStream in = Files.newInputStream(file)) {
+            map = JsonReader.parseObject(in, 0, Files.size(file));
+        }
+        // JsonReader 把嵌套对象保留为原始文本，split_files 中的每一项再单独解析
+        Object raw = map.get("split_files");
+        if (raw instanceof List) {
+            List<Object> files = new ArrayList<>();
+            for (Object item : (List<?>) raw) {
+                if (item instanceof String) {
+                    byte[] bytes = ((String) item).getBytes(StandardCharsets.UTF_8);
+                    files.add(JsonReader.parseObject(new ByteArrayInputStream(bytes), 0, bytes.length));
+                }
+            }
+            map.put("split_files", files);
+        }
+        return CrawlJob.fromMap(map);
+    }
+}
@@ -0,0 +1,491 @@
+// service/crawler/CrawlerWorkerPool.java
+package service.crawler;
+
+import config.ServerConfig;
+import util.JsonReader;
+import util.JsonWriter;
+import util.Logger;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * 常驻的 Python 爬虫工作进程池
+ *
+ * 每个工作线程对应一个 `python xinfadi_crawler.py --worker` 进程（首次有任务时启动，异常退出或超时后重启），
+ * 通过 stdin/stdout 按行收发 JSON：每行一个任务，进程回复进度、结果或错误（协议见脚本中的 main_worker）。
+ * - 任务先进入有界队列，队列满时 submit 抛出 RejectedExecutionException；
+ * - 相同（品种, 开始时间, 结束时间）的任务在完成前只执行一次，重复提交返回同一个 Job；
+ * - 每个进程的 stdout 和 stderr 各由一个线程持续读取，不会因管道写满而阻塞；
+ * - 单个任务超过 jobTimeoutMillis 未完成时结束该进程，任务以 TimeoutException 失败。
+ *
+ * 每个任务的 CSV 写入 stagingRoot 下以任务 id 命名的独立目录，由调用方取走后删除。
+ */
+public final class CrawlerWorkerPool {
+    private static final Logger log = Logger.getLogger(CrawlerWorkerPool.class);
+    // 进程异常退出时附带在错误信息中的 stderr 行数
+    private static final int STDERR_TAIL_LINES = 20;
+
+    private static CrawlerWorkerPool instance;
+
+    private final List<String> command;
+    private final Path workDir;
+    private final Path stagingRoot;
+    private final long jobTimeoutMillis;
+    private final BlockingQueue<Job> queue;
+    // 排队或执行中的任务，用于合并相同任务
+    private final Map<Key, Job> inflight = new ConcurrentHashMap<>();
+    private final List<Worker> workers = new ArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * @param command          启动工作进程的命令（如 python xinfadi_crawler.py --worker）
+     * @param workDir          工作进程的工作目录
+     * @param stagingRoot      各任务输出目录的上级目录，启动时清空
+     * @param workers          工作进程数
+     * @param queueCapacity    排队任务数上限（不含执行中的任务）
+     * @param jobTimeoutMillis 单个任务从开始执行起的最长耗时，0 表示不限制
+     */
+    public CrawlerWorkerPool(List<String> command, Path workDir, Path stagingRoot,
+                             int workers, int queueCapacity, long jobTimeoutMillis) {
+        this.command = new ArrayList<>(command);
+        this.workDir = workDir;
+        this.stagingRoot = stagingRoot;
+        this.jobTimeoutMillis = jobTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+
+        // 上次运行遗留的任务目录已无人认领
+        deleteRecursively(stagingRoot);
+
+        for (int i = 1; i <= Math.max(1, workers); i++) {
+            Worker worker = new Worker(i);
+            this.workers.add(worker);
+            Thread thread = new Thread(worker, "crawler-worker-" + i);
+            thread.setDaemon(true);
+            worker.thread = thread;
+            thread.start();
+        }
+    }
+
+    public static synchronized CrawlerWorkerPool getInstance() {
+        if (instance == null) {
+            ServerConfig config = ServerConfig.getInstance();
+            String projectRoot = System.getProperty("user.dir");
+            String script = Paths.get(projectRoot, "python", "xinfadi_crawler.py").toString();
+            instance = new CrawlerWorkerPool(
+                    Arrays.asList(config.getCrawlerPythonCommand(), script, "--worker"),
+                    Paths.get(projectRoot),
+                    Paths.get(projectRoot, "result", ".crawl"),
+                    config.getCrawlerWorkers(),
+                    config.getCrawlerQueueCapacity(),
+                    config.getCrawlerJobTimeoutMillis());
+        }
+        return instance;
+    }
+
+    /**
+     * 提交爬取任务；相同参数的任务未完成时返回已有的任务
+     *
+     * @throws RejectedExecutionException 队列已满或进程池已关闭
+     */
+    public Job submit(String startTime, String endTime, String productName) {
+        Key key = new Key(startTime, endTime, productName);
+        while (true) {
+            if (closed) {
+                throw new RejectedExecutionException("爬虫进程池已关闭");
+            }
+            Job existing = inflight.get(key);
+            if (existing != null) {
+                return existing;
+            }
+
+            Job job = new Job(UUID.randomUUID().toString().replace("-", ""), key, stagingRoot);
+            if (inflight.putIfAbsent(key, job) != null) {
+                continue;
+            }
+            job.result.whenComplete((file, error) -> inflight.remove(key, job));
+            if (!queue.offer(job)) {
+                inflight.remove(key, job);
+                throw new RejectedExecutionException("爬取任务过多，请稍后重试");
+            }
+            return job;
+        }
+    }
+
+    /**
+     * 排队中的任务数
+     */
+    public int getQueuedJobs() {
+        return queue.size();
+    }
+
+    /**
+     * 关闭进程池：结束所有工作进程，排队中和执行中的任务以失败结束
+     */
+    public void shutdown() {
+        closed = true;
+        for (Worker worker : workers) {
+            worker.thread.interrupt();
+            worker.stopProcess();
+        }
+        Job job;
+        while ((job = queue.poll()) != null) {
+            job.fail(new RejectedExecutionException("爬虫进程池已关闭"));
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    log.error("删除文件/目录失败: " + path + ", 错误: " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.error("清理爬取目录失败: " + dir + ", 错误: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 任务参数，相同参数的任务合并执行
+     */
+    private static final class Key {
+        final String startTime;
+        final String endTime;
+        final String productName;
+
+        Key(String startTime, String endTime, String productName) {
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.productName = productName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(startTime, key.startTime)
+                    && Objects.equals(endTime, key.endTime)
+                    && Objects.equals(productName, key.productName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(startTime, endTime, productName);
+        }
+    }
+
+    /**
+     * 一个爬取任务：完成后得到输出目录中的 CSV 文件路径
+     */
+    public static final class Job {
+        private final String id;
+        private final Key key;
+        private final Path outputDir;
+        private final CompletableFuture<Path> result = new CompletableFuture<>();
+        private volatile int pagesFetched;
+        private volatile int rowsFetched;
+
+        private Job(String id, Key key, Path stagingRoot) {
+            this.id = id;
+            this.key = key;
+            this.outputDir = stagingRoot.resolve(id);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * 已获取的页数（进度）
+         */
+        public int getPagesFetched() {
+            return pagesFetched;
+        }
+
+        /**
+         * 已获取的数据行数（进度）
+         */
+        public int getRowsFetched() {
+            return rowsFetched;
+        }
+
+        public boolean isDone() {
+            return result.isDone();
+        }
+
+        /**
+         * 任务的输出目录，CSV 取走后由调用方删除
+         */
+        public Path getOutputDir() {
+            return outputDir;
+        }
+
+        /**
+         * 等待任务完成
+         *
+         * @return 爬取结果 CSV 文件路径（位于 getOutputDir() 中；没有数据时文件可能不存在）
+         * @throws Exception 脚本报错、进程异常退出或超时（TimeoutException）
+         */
+        public Path await() throws Exception {
+            try {
+                return result.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * 任务完成时回调（在工作进程的读取线程上执行）
+         */
+        public void whenComplete(BiConsumer<Path, Throwable> action) {
+            result.whenComplete(action);
+        }
+
+        private void fail(Exception e) {
+            if (result.isDone()) {
+                return;
+            }
+            // 先清理再结束，等待方拿到异常时临时目录已删除
+            deleteRecursively(outputDir);
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 工作线程：从队列取任务，交给自己的 Python 进程执行
+     */
+    private final class Worker implements Runnable {
+        private final int index;
+        Thread thread;
+
+        // 以下字段由 this 保护
+        private Process process;
+        private Writer stdin;
+        private Job current;
+        private final Deque<String> stderrTail = new ArrayDeque<>();
+
+        Worker(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            while (!closed) {
+                Job job;
+                try {
+                    job = queue.take();
+                } catch (InterruptedException e) {
+                    break;
+                }
+                runJob(job);
+            }
+            stopProcess();
+        }
+
+        private void runJob(Job job) {
+            try {
+                Files.createDirectories(job.outputDir);
+
+                Map<String, Object> request = new LinkedHashMap<>();
+                request.put("id", job.id);
+                request.put("start_time", job.key.startTime);
+                request.put("end_time", job.key.endTime);
+                request.put("product_name", job.key.productName);
+                request.put("result_dir", job.outputDir.toAbsolutePath().toString());
+                String line = JsonWriter.toJson(request);
+
+                synchronized (this) {
+                    if (process == null || !process.isAlive()) {
+                        startProcess();
+                    }
+                    current = job;
+                    stdin.write(line);
+                    stdin.write('\n');
+                    stdin.flush();
+                }
+
+                if (jobTimeoutMillis > 0) {
+                    job.result.get(jobTimeoutMillis, TimeUnit.MILLISECONDS);
+                } else {
+                    job.result.get();
+                }
+            } catch (TimeoutException e) {
+                log.error("爬取任务超时，结束工作进程 crawler-worker-" + index + ": " + job.key.productName);
+                job.fail(new TimeoutException("爬取超时（超过" + jobTimeoutMillis + "毫秒）"));
+                stopProcess();
+            } catch (InterruptedException e) {
+                job.fail(new RejectedExecutionException("爬虫进程池已关闭"));
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // 任务失败，已由读取线程记录
+            } catch (IOException e) {
+                // 进程启动失败或 stdin 已关闭（进程已退出）
+                job.fail(new IOException("爬虫进程通信失败: " + e.getMessage(), e));
+                stopProcess();
+            } finally {
+                synchronized (this) {
+                    if (current == job) {
+                        current = null;
+                    }
+                }
+            }
+        }
+
+        // 调用方持有 this
+        private void startProcess() throws IOException {
+            ProcessBuilder builder = new ProcessBuilder(command);
+            builder.directory(workDir.toFile());
+            Process started = builder.start();
+            process = started;
+            stdin = new OutputStreamWriter(started.getOutputStream(), StandardCharsets.UTF_8);
+            stderrTail.clear();
+            startDrainer("crawler-worker-" + index + "-out", () -> readStdout(started));
+            startDrainer("crawler-worker-" + index + "-err", () -> readStderr(started));
+            log.info("爬虫工作进程已启动: crawler-worker-" + index);
+        }
+
+        private void startDrainer(String name, Runnable body) {
+            Thread thread = new Thread(body, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void stopProcess() {
+            Process p;
+            synchronized (this) {
+                p = process;
+                process = null;
+                stdin = null;
+            }
+            if (p != null) {
+                p.destroyForcibly();
+            }
+        }
+
+        private void readStdout(Process p) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    handleMessage(line);
+                }
+            } catch (IOException e) {
+                // 进程被结束时管道关闭
+            }
+
+            // 进程自行退出：正在执行的任务失败，下一个任务重新启动进程
+            Job job;
+            String tail;
+            synchronized (this) {
+                if (process != p) {
+                    // 已由 stopProcess 结束（超时或关闭），任务由结束方处理
+                    return;
+                }
+                process = null;
+                stdin = null;
+                job = current;
+                tail = String.join("\n", stderrTail);
+            }
+            if (job != null && !job.isDone()) {
+                job.fail(new IOException("Python脚本执行失败: 爬虫进程已退出\n" + tail));
+            }
+        }
+
+        private void readStderr(Process p) {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(p.getErrorStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    log.debug("[crawler-worker-" + index + "] " + line);
+                    synchronized (this) {
+                        if (stderrTail.size() == STDERR_TAIL_LINES) {
+                            stderrTail.removeFirst();
+                        }
+                        stderrTail.addLast(line);
+                    }
+                }
+            } catch (IOException e) {
+                // 进程被结束时管道关闭
+            }
+        }
+
+        private void handleMessage(String line) {
+            Map<String, Object> message;
+            try {
+                message = JsonReader.parseObject(
+                        new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8)), 0, -1);
+            } catch (IOException e) {
+                log.debug("[crawler-worker-" + index + "] " + line);
+                return;
+            }
+
+            Job job;
+            synchronized (this) {
+                job = current;
+            }
+            Object id = message.get("id");
+            if (job == null || !job.id.equals(id)) {
+                // 启动消息或已超时任务的迟到消息
+                return;
+            }
+
+            Object type = message.get("type");
+            if ("progress".equals(type)) {
+                job.pagesFetched = toInt(message.get("page"));
+                job.rowsFetched = toInt(message.get("rows"));
+            } else if ("result".equals(type)) {
+                Object fileName = message.get("file_name");
+                if (fileName == null || fileName.toString().isEmpty()) {
+                    job.fail(new IOException("Python脚本未返回文件名"));
+                } else {
+                    job.result.complete(job.outputDir.resolve(fileName.toString()));
+                }
+            } else if ("error".equals(type)) {
+                job.fail(new IOException("Python脚本执行失败: " + message.get("error")));
+            }
+        }
+
+        private int toInt(Object value) {
+            return value instanceof Number ? ((Number) value).intValue() : 0;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+// service/crawler/CsvFields.java
+package service.crawler;
+
+/**
+ * 可复用的 CSV 行字段缓冲区
+ *
+ * 一行解析后字段内容连续存放在同一个 StringBuilder 中，只记录每个字段的结束位置，
+ * 需要的列才通过 trimmed(i) 生成字符串；逐行复用同一个实例时不再为每行创建字段数组。
+ * 引号规则与 CsvSplitterService 原有的 parseCsvLine 相同：未被反斜杠转义的双引号切换引号状态且不保留，
+ * 引号外的逗号分隔字段。
+ */
+final class CsvFields {
+    private final StringBuilder chars = new StringBuilder(256);
+    private int[] ends = new int[16];
+    private int count;
+
+    void parse(String line) {
+        chars.setLength(0);
+        count = 0;
+        boolean inQuotes = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (c == '"' && (i == 0 || line.charAt(i - 1) != '\\')) {
+                inQuotes = !inQuotes;
+            } else if (c == ',' && !inQuotes) {
+                endField();
+            } else {
+                chars.append(c);
+            }
+        }
+
+        // 最后一个字段
+        endField();
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * 第 index 个字段去掉首尾空白后的内容（与 String.trim() 规则相同）
+     */
+    String trimmed(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        int start = index == 0 ? 0 : ends[index - 1];
+        int end = ends[index];
+        while (start < end && chars.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && chars.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return chars.substring(start, end);
+    }
+
+    private void endField() {
+        if (count == ends.length) {
+            int[] grown = new int[ends.length * 2];
+            System.arraycopy(ends, 0, grown, 0, count);
+            ends = grown;
+        }
+        ends[count++] = chars.length();
+    }
+}
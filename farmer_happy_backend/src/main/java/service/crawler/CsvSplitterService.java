@@ -8,23 +8,88 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.time.LocalDate;
-
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import config.ServerConfig;
 
 /**
  * CSV文件分割服务类
  */
 public class CsvSplitterService {
     private static final String UTF8_BOM = "\uFEFF";
+    // 单个品种缓冲的字符数达到该值时写入文件
+    private static final int PENDING_FLUSH_CHARS = 8192;
+
+    // 各品种并行导出 xlsx 的线程池，所有请求共享
+    private static ExecutorService sharedXlsxPool;
+
+    // 同时打开的品种输出文件数上限
+    private final int maxOpenFiles;
+    private final SplitXlsxWriter xlsxWriter;
+    // 执行各品种的 xlsx 导出，直接在调用线程上执行时为 Runnable::run
+    private final Executor xlsxExecutor;
+
+    /**
+     * 拆分进度回调，可能在多个线程上调用
+     */
+    public interface SplitProgress {
+        SplitProgress NONE = (varieties, exported) -> { };
+
+        /**
+         * @param varieties 目前读到的品种数
+         * @param exported  已生成 xlsx 的品种数
+         */
+        void update(int varieties, int exported);
+    }
+
+    public CsvSplitterService() {
+        this(ServerConfig.getInstance().getSplitMaxOpenFiles(),
+                new SplitXlsxWriter(ServerConfig.getInstance().isSplitXlsxStreaming()), sharedXlsxPool());
+    }
+
+    CsvSplitterService(int maxOpenFiles) {
+        this(maxOpenFiles, new SplitXlsxWriter(true), null);
+    }
+
+    CsvSplitterService(int maxOpenFiles, SplitXlsxWriter xlsxWriter, Executor xlsxExecutor) {
+        this.maxOpenFiles = Math.max(1, maxOpenFiles);
+        this.xlsxWriter = xlsxWriter;
+        this.xlsxExecutor = xlsxExecutor != null ? xlsxExecutor : Runnable::run;
+    }
+
+    private static synchronized ExecutorService sharedXlsxPool() {
+        if (sharedXlsxPool == null) {
+            sharedXlsxPool = newXlsxPool(ServerConfig.getInstance().getSplitXlsxParallelism());
+        }
+        return sharedXlsxPool;
+    }
+
+    /**
+     * 创建 xlsx 导出线程池，工作线程命名为 split-xlsx-N（守护线程，空闲 60 秒后退出）
+     */
+    static ExecutorService newXlsxPool(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads),
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "split-xlsx-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 
     /**
      * 分割CSV文件，根据品名将数据分别存储
@@ -33,6 +98,13 @@ public class CsvSplitterService {
      * @throws IOException IO异常
      */
     public void splitCsvFile(String fileName) throws IOException {
+        splitCsvFile(fileName, SplitProgress.NONE);
+    }
+
+    /**
+     * 分割CSV文件，并报告拆分进度
+     */
+    public void splitCsvFile(String fileName, SplitProgress progress) throws IOException {
         // 获取项目根目录
         String projectRoot = System.getProperty("user.dir");
 
@@ -51,7 +123,7 @@ public class CsvSplitterService {
         }
 
         // 读取并处理CSV文件
-        processCsvFile(inputFilePath, outputDir);
+        processCsvFile(inputFilePath, outputDir, progress);
     }
 
     /**
@@ -202,108 +274,256 @@ public class CsvSplitterService {
     /**
      * 处理CSV文件，按品名分割数据
      *
+     * 逐行读取并立即写入对应品种的文件，内存占用与输入行数无关：
+     * 每个品种的 CSV 和一份临时的紧凑行记录（用于随后生成 xlsx）边读边写，
+     * 同时打开的品种文件不超过 maxOpenFiles 个，超出时关闭最久未写入的，再次出现时以追加方式打开。
+     *
      * @param inputFilePath 输入文件路径
      * @param outputDir 输出目录
      * @throws IOException IO异常
      */
-    private void processCsvFile(Path inputFilePath, Path outputDir) throws IOException {
-        // 存储每个品种的数据
-        Map<String, List<Map<String, String>>> productDataMap = new HashMap<>();
+    void processCsvFile(Path inputFilePath, Path outputDir) throws IOException {
+        processCsvFile(inputFilePath, outputDir, SplitProgress.NONE);
+    }
 
-        // 读取文件所有行
-        List<String> lines = Files.readAllLines(inputFilePath, StandardCharsets.UTF_8);
+    void processCsvFile(Path inputFilePath, Path outputDir, SplitProgress progress) throws IOException {
+        // 获取当前时间戳用于文件命名
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
 
-        // 检查是否有数据
-        if (lines.isEmpty()) {
-            return;
-        }
+        try (BufferedReader reader = Files.newBufferedReader(inputFilePath, StandardCharsets.UTF_8);
+             SplitOutputs outputs = new SplitOutputs(outputDir, timestamp, maxOpenFiles, progress)) {
+            // 获取表头，空文件直接返回
+            String header = reader.readLine();
+            if (header == null) {
+                return;
+            }
 
-        // 获取表头
-        String header = lines.get(0);
+            // 找到各列的索引
+            String[] headers = header.split(",");
+            Map<String, Integer> columnIndexMap = new HashMap<>();
+            for (int i = 0; i < headers.length; i++) {
+                columnIndexMap.put(normalizeHeader(headers[i]), i);
+            }
 
-        // 找到各列的索引
-        String[] headers = header.split(",");
-        Map<String, Integer> columnIndexMap = new HashMap<>();
-        for (int i = 0; i < headers.length; i++) {
-            columnIndexMap.put(normalizeHeader(headers[i]), i);
-        }
+            // 检查必需的列是否存在
+            if (!columnIndexMap.containsKey("品名") ||
+                    !columnIndexMap.containsKey("规格") ||
+                    !columnIndexMap.containsKey("平均价") ||
+                    !columnIndexMap.containsKey("发布日期")) {
+                throw new IllegalArgumentException("CSV文件缺少必需的列：品名、规格、平均价、发布日期");
+            }
+
+            int productNameIndex = columnIndexMap.get("品名");
+            int specIndex = columnIndexMap.get("规格");
+            int avgPriceIndex = columnIndexMap.get("平均价");
+            int dateIndex = columnIndexMap.get("发布日期");
+            int maxIndex = Math.max(Math.max(productNameIndex, specIndex), Math.max(avgPriceIndex, dateIndex));
 
-        // 检查必需的列是否存在
-        if (!columnIndexMap.containsKey("品名") ||
-                !columnIndexMap.containsKey("规格") ||
-                !columnIndexMap.containsKey("平均价") ||
-                !columnIndexMap.containsKey("发布日期")) {
-            throw new IllegalArgumentException("CSV文件缺少必需的列：品名、规格、平均价、发布日期");
+            // 处理每一行数据，字段缓冲区逐行复用，只为用到的四列生成字符串
+            CsvFields fields = new CsvFields();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                fields.parse(line);
+
+                if (fields.size() > maxIndex) {
+                    String productName = fields.trimmed(productNameIndex);
+
+                    // 处理发布日期，只保留日期部分
+                    String dateOnly = safeCell(extractDateOnly(fields.trimmed(dateIndex)));
+
+                    outputs.write(productName, fields.trimmed(specIndex), fields.trimmed(avgPriceIndex), dateOnly);
+                }
+            }
+
+            // 所有品种的 CSV 写完后，再逐个品种生成 xlsx（日期列放第一列，便于系统后续解析/预测时直接上传使用）
+            outputs.finish();
         }
+    }
 
-        int productNameIndex = columnIndexMap.get("品名");
-        int specIndex = columnIndexMap.get("规格");
-        int avgPriceIndex = columnIndexMap.get("平均价");
-        int dateIndex = columnIndexMap.get("发布日期");
+    /**
+     * 各品种的输出文件，文件名格式为"品名_时间"
+     *
+     * 每个品种的行先追加到自己的小缓冲区，攒满 PENDING_FLUSH_CHARS 后才写入文件；
+     * 爬取结果中各品种按日期交错出现，这样品种数多于打开文件数上限时也不会每行都重新打开文件。
+     */
+    private final class SplitOutputs implements Closeable {
+        private final Path outputDir;
+        private final String timestamp;
+        private final int maxOpen;
+        private final SplitProgress progress;
+        // 所有出现过的品种（按首次出现顺序）
+        private final Map<String, VarietyOutput> varieties = new LinkedHashMap<>();
+        // 当前打开的品种，按最近写入顺序排列，最前面的最久未写入
+        private final LinkedHashMap<String, VarietyOutput> open = new LinkedHashMap<>(16, 0.75f, true);
+
+        SplitOutputs(Path outputDir, String timestamp, int maxOpen, SplitProgress progress) {
+            this.outputDir = outputDir;
+            this.timestamp = timestamp;
+            this.maxOpen = maxOpen;
+            this.progress = progress;
+        }
 
-        // 处理每一行数据
-        for (int i = 1; i < lines.size(); i++) {
-            String line = lines.get(i);
-            String[] values = parseCsvLine(line);
+        void write(String productName, String spec, String avgPrice, String date) throws IOException {
+            VarietyOutput output = varieties.get(productName);
+            if (output == null) {
+                String safeFileName = productName.replaceAll("[\\\\/:*?\"<>|]", "_"); // 替换非法字符
+                output = new VarietyOutput(productName, outputDir.resolve(safeFileName + "_" + timestamp + ".csv"),
+                        outputDir.resolve(safeFileName + "_" + timestamp + ".xlsx"));
+                varieties.put(productName, output);
+                progress.update(varieties.size(), 0);
+            }
+            output.append(spec, avgPrice, date);
+            if (output.pendingChars() >= PENDING_FLUSH_CHARS) {
+                flush(output);
+            }
+        }
 
-            if (values.length > Math.max(Math.max(productNameIndex, specIndex),
-                    Math.max(avgPriceIndex, dateIndex))) {
-                String productName = values[productNameIndex].trim();
+        void finish() throws IOException {
+            for (VarietyOutput output : varieties.values()) {
+                flush(output);
+            }
+            closeOpen();
+
+            // 各品种的 xlsx 在线程池上并行生成，全部结束后才返回（close 时会删除临时行记录文件）
+            List<FutureTask<Void>> tasks = new ArrayList<>();
+            AtomicInteger exported = new AtomicInteger();
+            for (VarietyOutput output : varieties.values()) {
+                tasks.add(submitXlsx(() -> {
+                    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(output.rowsFile)))) {
+                        xlsxWriter.write(output.xlsxFile, SplitRow.fromRecords(in, output.rows));
+                    }
+                    progress.update(varieties.size(), exported.incrementAndGet());
+                    return null;
+                }));
+            }
+            IOException failure = null;
+            for (FutureTask<Void> task : tasks) {
+                try {
+                    awaitXlsx(task, tasks);
+                } catch (IOException e) {
+                    if (failure == null) failure = e;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
 
-                // 处理发布日期，只保留日期部分
-                String fullDate = values[dateIndex].trim();
-                String dateOnly = extractDateOnly(fullDate);
+        private void flush(VarietyOutput output) throws IOException {
+            if (open.get(output.productName) == null) {
+                if (open.size() >= maxOpen) {
+                    Iterator<VarietyOutput> eldest = open.values().iterator();
+                    VarietyOutput evicted = eldest.next();
+                    eldest.remove();
+                    evicted.close();
+                }
+                output.open();
+                open.put(output.productName, output);
+            }
+            output.flush();
+        }
 
-                // 创建行数据映射
-                Map<String, String> rowData = new HashMap<>();
-                rowData.put("规格", values[specIndex].trim());
-                rowData.put("平均价", values[avgPriceIndex].trim());
-                rowData.put("发布日期", dateOnly);
+        private void closeOpen() throws IOException {
+            IOException failure = null;
+            for (VarietyOutput output : open.values()) {
+                try {
+                    output.close();
+                } catch (IOException e) {
+                    if (failure == null) failure = e;
+                }
+            }
+            open.clear();
+            if (failure != null) {
+                throw failure;
+            }
+        }
 
-                // 将数据添加到对应品名的列表中
-                productDataMap.computeIfAbsent(productName, k -> new ArrayList<>()).add(rowData);
+        @Override
+        public void close() throws IOException {
+            try {
+                closeOpen();
+            } finally {
+                // 临时行记录文件在任何情况下都删除
+                for (VarietyOutput output : varieties.values()) {
+                    if (output.rowsFile != null) {
+                        Files.deleteIfExists(output.rowsFile);
+                    }
+                }
             }
         }
+    }
 
-        // 获取当前时间戳用于文件命名
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+    private static final class VarietyOutput {
+        final String productName;
+        final Path csvFile;
+        final Path xlsxFile;
+        // 供生成 xlsx 的紧凑行记录（SplitRow.writeTo 格式），首次打开时在系统临时目录创建
+        Path rowsFile;
+        long rows;
+        // 尚未写入文件的行
+        private final StringBuilder pendingCsv = new StringBuilder();
+        private final ByteArrayOutputStream pendingRows = new ByteArrayOutputStream();
+        private final DataOutputStream pendingRowsOut = new DataOutputStream(pendingRows);
+        private Writer csvWriter;
+        private OutputStream rowsOut;
+
+        VarietyOutput(String productName, Path csvFile, Path xlsxFile) {
+            this.productName = productName;
+            this.csvFile = csvFile;
+            this.xlsxFile = xlsxFile;
+        }
 
-        // 为每个品名创建单独的CSV文件
-        for (Map.Entry<String, List<Map<String, String>>> entry : productDataMap.entrySet()) {
-            String productName = entry.getKey();
-            List<Map<String, String>> dataRows = entry.getValue();
+        void append(String spec, String avgPrice, String date) throws IOException {
+            // 换行写在每行之前，最后一行后面不会多一个空行
+            pendingCsv.append(System.lineSeparator())
+                    .append(spec).append(',')
+                    .append(avgPrice).append(',')
+                    .append(date);
+            SplitRow.of(spec, avgPrice, date).writeTo(pendingRowsOut);
+            rows++;
+        }
 
-            // 创建输出文件路径，文件名格式为"品名_时间"
-            String safeFileName = productName.replaceAll("[\\\\/:*?\"<>|]", "_"); // 替换非法字符
-            Path outputFile = outputDir.resolve(safeFileName + "_" + timestamp + ".csv");
-            Path outputXlsxFile = outputDir.resolve(safeFileName + "_" + timestamp + ".xlsx");
+        int pendingChars() {
+            return pendingCsv.length();
+        }
 
-            // 写入数据
-            try (OutputStream os = Files.newOutputStream(outputFile);
-                 OutputStreamWriter osw = new OutputStreamWriter(os, StandardCharsets.UTF_8);
-                 BufferedWriter writer = new BufferedWriter(osw)) {
+        void open() throws IOException {
+            if (rowsFile == null) {
+                rowsFile = Files.createTempFile("split-", ".rows");
+                csvWriter = new OutputStreamWriter(Files.newOutputStream(csvFile), StandardCharsets.UTF_8);
                 // 写入 UTF-8 BOM，提升 Windows/Excel 对中文的兼容性
-                writer.write(UTF8_BOM);
-
+                csvWriter.write(UTF8_BOM);
                 // 写入表头（只包含规格、平均价、发布日期）
-                writer.write("规格,平均价,发布日期");
-                writer.newLine();
-
-                // 写入数据行（避免最后多一个空行：最后一行不再额外 newLine）
-                for (int i = 0; i < dataRows.size(); i++) {
-                    Map<String, String> row = dataRows.get(i);
-                    writer.write(String.join(",",
-                            safeCell(row.get("规格")),
-                            safeCell(row.get("平均价")),
-                            safeCell(row.get("发布日期"))));
-                    if (i < dataRows.size() - 1) {
-                        writer.newLine();
-                    }
-                }
+                csvWriter.write("规格,平均价,发布日期");
+            } else {
+                csvWriter = new OutputStreamWriter(
+                        Files.newOutputStream(csvFile, StandardOpenOption.APPEND), StandardCharsets.UTF_8);
             }
+            rowsOut = Files.newOutputStream(rowsFile, StandardOpenOption.APPEND);
+        }
+
+        void flush() throws IOException {
+            csvWriter.append(pendingCsv);
+            csvWriter.flush();
+            pendingRows.writeTo(rowsOut);
+            pendingCsv.setLength(0);
+            pendingRows.reset();
+        }
 
-            // 同时写出 xlsx（日期列放第一列，便于系统后续解析/预测时直接上传使用）
-            writeSplitXlsx(outputXlsxFile, dataRows);
+        void close() throws IOException {
+            Writer w = csvWriter;
+            OutputStream r = rowsOut;
+            csvWriter = null;
+            rowsOut = null;
+            try {
+                if (w != null) {
+                    w.close();
+                }
+            } finally {
+                if (r != null) {
+                    r.close();
+                }
+            }
         }
     }
 
@@ -328,6 +548,9 @@ public class CsvSplitterService {
             return result;
         }
 
+        // 需要转换的文件在线程池上并行转换，结果按目录遍历顺序汇总
+        List<String> csvNames = new ArrayList<>();
+        List<FutureTask<Boolean>> tasks = new ArrayList<>();
         try (DirectoryStream<Path> stream = Files.newDirectoryStream(splitDir, "*.csv")) {
             for (Path csvPath : stream) {
                 if (!Files.isRegularFile(csvPath)) continue;
@@ -345,43 +568,25 @@ public class CsvSplitterService {
                     continue;
                 }
 
-                try {
-                    List<String> lines = Files.readAllLines(csvPath, StandardCharsets.UTF_8);
-                    if (lines.size() < 2) {
-                        skipped++;
-                        continue;
-                    }
-
-                    // 从第二行开始解析（第一行表头）
-                    List<Map<String, String>> dataRows = new ArrayList<>();
-                    for (int i = 1; i < lines.size(); i++) {
-                        String line = lines.get(i);
-                        if (line == null) continue;
-                        line = line.trim();
-                        if (line.isEmpty()) continue;
-                        String[] values = parseCsvLine(line);
-                        if (values.length < 3) continue;
-                        Map<String, String> rowData = new HashMap<>();
-                        rowData.put("规格", safeCell(values[0]));
-                        rowData.put("平均价", safeCell(values[1]));
-                        rowData.put("发布日期", safeCell(values[2]));
-                        dataRows.add(rowData);
-                    }
-
-                    if (dataRows.isEmpty()) {
-                        skipped++;
-                        continue;
-                    }
+                csvNames.add(csvName);
+                tasks.add(submitXlsx(() -> xlsxWriter.convertSplitCsv(csvPath, xlsxPath)));
+            }
+        }
 
-                    writeSplitXlsx(xlsxPath, dataRows);
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                if (awaitXlsx(tasks.get(i), tasks)) {
                     converted++;
-                } catch (Exception e) {
-                    failed++;
-                    Map<String, Object> err = new HashMap<>();
-                    err.put("file_name", csvName);
-                    err.put("message", e.getMessage());
-                    errors.add(err);
+                } else {
+                    // 没有数据行
+                    skipped++;
                 }
+            } catch (Exception e) {
+                failed++;
+                Map<String, Object> err = new HashMap<>();
+                err.put("file_name", csvNames.get(i));
+                err.put("message", e.getMessage());
+                errors.add(err);
             }
         }
 
@@ -392,59 +597,31 @@ public class CsvSplitterService {
         return result;
     }
 
+    private <T> FutureTask<T> submitXlsx(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        xlsxExecutor.execute(future);
+        return future;
+    }
+
     /**
-     * 写出 split 的 xlsx：
-     * - A列：发布日期（yyyy-MM-dd）
-     * - B列：平均价（数字）
-     * - C列：规格（字符串）
+     * 等待一个导出任务结束，任务中的 IOException/RuntimeException 原样抛出；
+     * 等待时被中断则取消同一批的其余任务
      */
-    private void writeSplitXlsx(Path outputXlsxFile, List<Map<String, String>> dataRows) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("data");
-
-            Row header = sheet.createRow(0);
-            header.createCell(0).setCellValue("发布日期");
-            header.createCell(1).setCellValue("平均价");
-            header.createCell(2).setCellValue("规格");
-
-            CellStyle dateStyle = workbook.createCellStyle();
-            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
-
-            int rowIdx = 1;
-            for (Map<String, String> row : dataRows) {
-                Row r = sheet.createRow(rowIdx++);
-
-                String dateStr = safeCell(row.get("发布日期"));
-                Cell dateCell = r.createCell(0);
-                // 尝试按 yyyy-MM-dd 写入为日期；失败则写字符串
-                try {
-                    LocalDate ld = LocalDate.parse(dateStr);
-                    java.util.Date d = java.sql.Date.valueOf(ld);
-                    dateCell.setCellValue(d);
-                    dateCell.setCellStyle(dateStyle);
-                } catch (Exception e) {
-                    dateCell.setCellValue(dateStr);
-                }
-
-                String priceStr = safeCell(row.get("平均价"));
-                Cell priceCell = r.createCell(1);
-                try {
-                    priceCell.setCellValue(Double.parseDouble(priceStr));
-                } catch (Exception e) {
-                    priceCell.setCellValue(priceStr);
-                }
-
-                r.createCell(2).setCellValue(safeCell(row.get("规格")));
-            }
-
-            // 简单设置列宽（避免太窄）
-            sheet.setColumnWidth(0, 14 * 256);
-            sheet.setColumnWidth(1, 10 * 256);
-            sheet.setColumnWidth(2, 18 * 256);
-
-            try (OutputStream os = Files.newOutputStream(outputXlsxFile)) {
-                workbook.write(os);
+    private static <T> T awaitXlsx(FutureTask<T> future, List<? extends FutureTask<?>> batch) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            for (FutureTask<?> other : batch) {
+                other.cancel(true);
             }
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待 xlsx 导出时被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
         }
     }
 
@@ -497,36 +674,6 @@ public class CsvSplitterService {
         return dateTime;
     }
 
-    /**
-     * 解析CSV行，正确处理包含逗号的字段（被引号包围的情况）
-     *
-     * @param line CSV行
-     * @return 字段数组
-     */
-    private String[] parseCsvLine(String line) {
-        List<String> fields = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder currentField = new StringBuilder();
-
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-
-            if (c == '"' && (i == 0 || line.charAt(i-1) != '\\')) {
-                inQuotes = !inQuotes;
-            } else if (c == ',' && !inQuotes) {
-                fields.add(currentField.toString());
-                currentField.setLength(0);
-            } else {
-                currentField.append(c);
-            }
-        }
-
-        // 添加最后一个字段
-        fields.add(currentField.toString());
-
-        return fields.toArray(new String[0]);
-    }
-
     private Map<String, Object> parseSplitFileName(String fileName) {
         Map<String, Object> info = new HashMap<>();
         if (fileName == null) return info;
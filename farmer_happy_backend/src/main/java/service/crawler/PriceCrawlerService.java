@@ -5,4 +5,16 @@ import java.util.Map;
 
 public interface PriceCrawlerService {
     Map<String, Object> crawlAgriculturalPrices(String startTime, String endTime, String productName) throws Exception;
+
+    /**
+     * 提交异步爬取任务，立即返回任务信息（含 job_id）
+     *
+     * @throws java.util.concurrent.RejectedExecutionException 排队任务过多
+     */
+    Map<String, Object> submitCrawlJob(String startTime, String endTime, String productName);
+
+    /**
+     * 查询异步爬取任务的状态、进度和结果，任务不存在时返回 null
+     */
+    Map<String, Object> getCrawlJob(String jobId);
 }
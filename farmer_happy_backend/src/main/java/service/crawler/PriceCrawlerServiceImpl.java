@@ -1,94 +1,168 @@
 // service/crawler/PriceCrawlerServiceImpl.java
 package service.crawler;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import config.ServerConfig;
+import util.Logger;
+
+import java.io.FileNotFoundException;
 import java.nio.file.*;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class PriceCrawlerServiceImpl implements PriceCrawlerService {
+    private static final Logger log = Logger.getLogger(PriceCrawlerServiceImpl.class);
+
+    // result 目录的清理、取回爬取结果和拆分串行执行，避免并发请求互相删除文件
+    private static final Object RESULT_LOCK = new Object();
+
+    // 执行异步爬取任务的线程池，所有请求共享
+    private static ExecutorService sharedJobPool;
 
+    private final CrawlerWorkerPool crawlerWorkerPool;
     // 添加CsvSplitterService实例
-    private final CsvSplitterService csvSplitterService = new CsvSplitterService();
+    private final CsvSplitterService csvSplitterService;
+    private final CrawlJobStore crawlJobStore;
+    private final ExecutorService jobExecutor;
 
-    @Override
-    public Map<String, Object> crawlAgriculturalPrices(String startTime, String endTime, String productName) throws Exception {
-        // 清理result目录中的旧数据
-        cleanResultDirectory();
+    public PriceCrawlerServiceImpl() {
+        this(CrawlerWorkerPool.getInstance(), new CsvSplitterService(), CrawlJobStore.getInstance(), sharedJobPool());
+    }
 
-        Map<String, Object> response = new HashMap<>();
+    PriceCrawlerServiceImpl(CrawlerWorkerPool crawlerWorkerPool, CsvSplitterService csvSplitterService,
+                            CrawlJobStore crawlJobStore, ExecutorService jobExecutor) {
+        this.crawlerWorkerPool = crawlerWorkerPool;
+        this.csvSplitterService = csvSplitterService;
+        this.crawlJobStore = crawlJobStore;
+        this.jobExecutor = jobExecutor;
+    }
 
-        // 构建Python脚本路径 - 保持原路径不变
-        String projectRoot = System.getProperty("user.dir");
-        String pythonScriptPath = Paths.get(projectRoot, "python", "xinfadi_crawler.py").toString();
-
-        // 构建命令行参数
-        ProcessBuilder processBuilder = new ProcessBuilder(
-                "python", pythonScriptPath,
-                "--start_time", startTime,
-                "--end_time", endTime,
-                "--product_name", productName
-        );
-
-        // 设置工作目录为项目根目录
-        processBuilder.directory(Paths.get(projectRoot).toFile());
-
-        // 启动进程 - 指定UTF-8编码以避免中文乱码
-        Process process = processBuilder.start();
-
-        // 读取标准输出 - 使用UTF-8编码
-        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), "UTF-8"));
-        StringBuilder output = new StringBuilder();
-        String line;
-        while ((line = reader.readLine()) != null) {
-            output.append(line).append("\n");
+    private static synchronized ExecutorService sharedJobPool() {
+        if (sharedJobPool == null) {
+            ServerConfig config = ServerConfig.getInstance();
+            sharedJobPool = newJobPool(config.getCrawlerWorkers(), config.getCrawlerQueueCapacity());
         }
+        return sharedJobPool;
+    }
 
-        // 读取错误输出 - 使用UTF-8编码
-        BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream(), "UTF-8"));
-        StringBuilder errorOutput = new StringBuilder();
-        String errorLine;
-        while ((errorLine = errorReader.readLine()) != null) {
-            errorOutput.append(errorLine).append("\n");
+    /**
+     * 创建异步爬取任务线程池：线程数与爬虫工作进程数相同，排队任务数有上限，
+     * 队列满时 execute 抛出 RejectedExecutionException（工作线程命名为 crawl-job-N，守护线程）
+     */
+    static ExecutorService newJobPool(int threads, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads),
+                60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread thread = new Thread(r, "crawl-job-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Override
+    public Map<String, Object> crawlAgriculturalPrices(String startTime, String endTime, String productName) throws Exception {
+        // 交给常驻的爬虫进程执行，相同参数的并发请求共享同一个任务
+        CrawlerWorkerPool.Job crawl = crawlerWorkerPool.submit(startTime, endTime, productName);
+        return collectResult(crawl, CsvSplitterService.SplitProgress.NONE, null);
+    }
+
+    @Override
+    public Map<String, Object> submitCrawlJob(String startTime, String endTime, String productName) {
+        CrawlJob job = new CrawlJob(UUID.randomUUID().toString().replace("-", ""),
+                startTime, endTime, productName, crawlJobStore.now());
+        crawlJobStore.add(job);
+        try {
+            jobExecutor.execute(() -> runJob(job));
+        } catch (RejectedExecutionException e) {
+            crawlJobStore.remove(job);
+            throw new RejectedExecutionException("爬取任务过多，请稍后重试", e);
         }
+        return job.toMap();
+    }
 
-        // 等待进程结束
-        int exitCode = process.waitFor();
+    @Override
+    public Map<String, Object> getCrawlJob(String jobId) {
+        CrawlJob job = crawlJobStore.get(jobId);
+        return job != null ? job.toMap() : null;
+    }
 
-        if (exitCode == 0) {
-            // 解析Python脚本的输出
-            String outputStr = output.toString().trim();
-            System.out.println("Python output: " + outputStr); // 调试日志
+    private void runJob(CrawlJob job) {
+        try {
+            CrawlerWorkerPool.Job crawl = crawlerWorkerPool.submit(job.getStartTime(), job.getEndTime(), job.getProductName());
+            job.markCrawling(crawl, crawlJobStore.now());
+            crawlJobStore.save(job);
+
+            crawl.await();
+            job.markSplitting();
+            crawlJobStore.save(job);
+
+            collectResult(crawl, job::updateSplit, job);
+        } catch (Exception e) {
+            log.error("爬取任务失败: " + job.getId(), e);
+            job.markFailed(e.getMessage() != null ? e.getMessage() : e.toString(), crawlJobStore.now());
+        }
+        crawlJobStore.save(job);
+    }
 
-            // 使用更安全的方式解析文件名
-            String fileName = parseFileNameFromOutput(outputStr);
-            if (fileName != null && !fileName.isEmpty()) {
-                response.put("file_name", fileName);
+    /**
+     * 等待爬取完成，把结果放入 result 目录并按品种分割，返回 file_name 和 split 文件列表
+     * job 不为空时在持有 RESULT_LOCK 期间标记成功，之后的爬取清理目录时能看到它并标记过期
+     */
+    private Map<String, Object> collectResult(CrawlerWorkerPool.Job crawl,
+                                              CsvSplitterService.SplitProgress progress,
+                                              CrawlJob job) throws Exception {
+        Path crawledFile = crawl.await();
+        String fileName = crawledFile.getFileName().toString();
+        log.debug("Python output: " + fileName); // 调试日志
 
-                // 调用Java方法分割CSV文件
-                splitCsvFile(fileName);
-
-                // 返回 split 文件列表（前端用于动态勾选品种）
-                try {
-                    response.put("split_dir", "result/split");
-                    response.put("split_files", csvSplitterService.listSplitFiles());
-                } catch (Exception e) {
-                    // 不影响主流程
-                    response.put("split_files", new java.util.ArrayList<>());
-                }
+        Map<String, Object> response = new HashMap<>();
+        synchronized (RESULT_LOCK) {
+            String projectRoot = System.getProperty("user.dir");
+            Path resultFile = Paths.get(projectRoot, "result", fileName);
+            if (Files.exists(crawledFile)) {
+                // 清理result目录中的旧数据，再放入本次结果并分割
+                cleanResultDirectory();
+                crawlJobStore.expireResults(fileName);
+                Files.move(crawledFile, resultFile, StandardCopyOption.REPLACE_EXISTING);
+                deleteDirectoryRecursively(crawl.getOutputDir());
 
-                System.out.println("Python output: " + fileName);
-                return response;
+                // 调用Java方法分割CSV文件
+                splitCsvFile(fileName, progress);
+            } else if (!Files.exists(resultFile)) {
+                // 没有数据时脚本不生成文件
+                deleteDirectoryRecursively(crawl.getOutputDir());
+                throw new FileNotFoundException("文件不存在: " + crawledFile);
             }
+            // 否则同一任务的结果已由并发的相同请求取走并分割
 
-            // 如果仍然无法解析JSON，返回原始输出
-            response.put("raw_output", outputStr);
-            return response;
-        } else {
-            throw new Exception("Python脚本执行失败: " + errorOutput.toString());
+            response.put("file_name", fileName);
+
+            // 返回 split 文件列表（前端用于动态勾选品种）
+            try {
+                response.put("split_dir", "result/split");
+                response.put("split_files", csvSplitterService.listSplitFiles());
+            } catch (Exception e) {
+                // 不影响主流程
+                response.put("split_files", new ArrayList<>());
+            }
+            if (job != null) {
+                @SuppressWarnings("unchecked")
+                List<Map<String, Object>> splitFiles = (List<Map<String, Object>>) response.get("split_files");
+                job.markSucceeded(fileName, splitFiles, crawlJobStore.now());
+            }
         }
+        return response;
     }
 
     /**
@@ -110,7 +184,7 @@ public class PriceCrawlerServiceImpl implements PriceCrawlerService {
                         try {
                             Files.deleteIfExists(p);
                         } catch (IOException e) {
-                            System.err.println("删除文件失败: " + p + ", 错误: " + e.getMessage());
+                            log.error("删除文件失败: " + p + ", 错误: " + e.getMessage());
                         }
                     }
                 }
@@ -122,7 +196,7 @@ public class PriceCrawlerServiceImpl implements PriceCrawlerService {
             }
             Files.createDirectories(splitDir);
         } catch (IOException e) {
-            System.err.println("清理或创建result目录失败: " + e.getMessage());
+            log.error("清理或创建result目录失败: " + e.getMessage());
         }
     }
 
@@ -140,49 +214,20 @@ public class PriceCrawlerServiceImpl implements PriceCrawlerService {
                         try {
                             Files.delete(path);
                         } catch (IOException e) {
-                            System.err.println("删除文件/目录失败: " + path.toString() + ", 错误: " + e.getMessage());
+                            log.error("删除文件/目录失败: " + path.toString() + ", 错误: " + e.getMessage());
                         }
                     });
         }
     }
 
-    /**
-     * 使用字符串方式安全解析文件名
-     */
-    private String parseFileNameFromOutput(String outputStr) {
-        // 查找最后出现的完整JSON对象
-        int lastBraceStart = outputStr.lastIndexOf("{");
-        int lastBraceEnd = outputStr.lastIndexOf("}");
-
-        if (lastBraceStart != -1 && lastBraceEnd != -1 && lastBraceEnd > lastBraceStart) {
-            String lastJsonObject = outputStr.substring(lastBraceStart, lastBraceEnd + 1);
-
-            // 在这个JSON对象中查找file_name
-            int fileNameIndex = lastJsonObject.indexOf("\"file_name\"");
-            if (fileNameIndex != -1) {
-                int colonIndex = lastJsonObject.indexOf(":", fileNameIndex);
-                if (colonIndex != -1) {
-                    int firstQuote = lastJsonObject.indexOf("\"", colonIndex);
-                    if (firstQuote != -1) {
-                        int secondQuote = lastJsonObject.indexOf("\"", firstQuote + 1);
-                        if (secondQuote != -1) {
-                            return lastJsonObject.substring(firstQuote + 1, secondQuote);
-                        }
-                    }
-                }
-            }
-        }
-
-        return null;
-    }
-
     /**
      * 分割CSV文件
      *
      * @param fileName 文件名
+     * @param progress 拆分进度回调
      * @throws Exception 异常
      */
-    private void splitCsvFile(String fileName) throws Exception {
-        csvSplitterService.splitCsvFile(fileName);
+    private void splitCsvFile(String fileName, CsvSplitterService.SplitProgress progress) throws Exception {
+        csvSplitterService.splitCsvFile(fileName, progress);
     }
 }
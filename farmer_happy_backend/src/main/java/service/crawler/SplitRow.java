@@ -0,0 +1,151 @@
+// service/crawler/SplitRow.java
+package service.crawler;
+
+import java.io.BufferedReader;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * 拆分文件中的一行数据（规格、平均价、发布日期）
+ *
+ * 价格和日期在创建时就解析好：能解析为数字/日期时只保存 double 和 epochDay，
+ * 解析失败时才保留原文本，写 xlsx 时按原文本输出为字符串单元格。
+ */
+final class SplitRow {
+    final String spec;
+    final double price;
+    /** 价格不是数字时的原文本，是数字时为 null */
+    final String priceText;
+    final long epochDay;
+    /** 日期不是 yyyy-MM-dd 时的原文本，是日期时为 null */
+    final String dateText;
+
+    private SplitRow(String spec, double price, String priceText, long epochDay, String dateText) {
+        this.spec = spec;
+        this.price = price;
+        this.priceText = priceText;
+        this.epochDay = epochDay;
+        this.dateText = dateText;
+    }
+
+    static SplitRow of(String spec, String price, String date) {
+        double priceValue = 0;
+        String priceText = null;
+        try {
+            priceValue = Double.parseDouble(price);
+        } catch (Exception e) {
+            priceText = price;
+        }
+
+        long epochDay = 0;
+        String dateText = null;
+        try {
+            epochDay = LocalDate.parse(date).toEpochDay();
+        } catch (Exception e) {
+            dateText = date;
+        }
+        return new SplitRow(spec, priceValue, priceText, epochDay, dateText);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(spec);
+        if (priceText == null) {
+            out.writeBoolean(true);
+            out.writeDouble(price);
+        } else {
+            out.writeBoolean(false);
+            out.writeUTF(priceText);
+        }
+        if (dateText == null) {
+            out.writeBoolean(true);
+            out.writeLong(epochDay);
+        } else {
+            out.writeBoolean(false);
+            out.writeUTF(dateText);
+        }
+    }
+
+    static SplitRow readFrom(DataInput in) throws IOException {
+        String spec = in.readUTF();
+        double price = 0;
+        String priceText = null;
+        if (in.readBoolean()) {
+            price = in.readDouble();
+        } else {
+            priceText = in.readUTF();
+        }
+        long epochDay = 0;
+        String dateText = null;
+        if (in.readBoolean()) {
+            epochDay = in.readLong();
+        } else {
+            dateText = in.readUTF();
+        }
+        return new SplitRow(spec, price, priceText, epochDay, dateText);
+    }
+
+    /**
+     * 逐行提供数据，next() 返回 null 表示结束
+     */
+    interface Source {
+        SplitRow next() throws IOException;
+    }
+
+    /**
+     * 按 writeTo 格式写出的 rows 条记录
+     */
+    static Source fromRecords(DataInput in, long rows) {
+        return new Source() {
+            private long read;
+
+            @Override
+            public SplitRow next() throws IOException {
+                if (read >= rows) {
+                    return null;
+                }
+                read++;
+                return readFrom(in);
+            }
+        };
+    }
+
+    /**
+     * 先返回 first，再依次返回 rest 中的行
+     */
+    static Source startingWith(SplitRow first, Source rest) {
+        return new Source() {
+            private boolean firstReturned;
+
+            @Override
+            public SplitRow next() throws IOException {
+                if (!firstReturned) {
+                    firstReturned = true;
+                    return first;
+                }
+                return rest.next();
+            }
+        };
+    }
+
+    /**
+     * 拆分出的 CSV 文件（表头 + 规格,平均价,发布日期），跳过空行和列数不足的行
+     */
+    static Source fromSplitCsv(BufferedReader reader) throws IOException {
+        // 第一行是表头
+        reader.readLine();
+        CsvFields fields = new CsvFields();
+        return () -> {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                fields.parse(line);
+                if (fields.size() < 3) continue;
+                return of(fields.trimmed(0), fields.trimmed(1), fields.trimmed(2));
+            }
+            return null;
+        };
+    }
+}
@@ -0,0 +1,111 @@
+// service/crawler/SplitXlsxWriter.java
+package service.crawler;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * 写出 split 的 xlsx：
+ * - A列：发布日期（yyyy-MM-dd）
+ * - B列：平均价（数字）
+ * - C列：规格（字符串）
+ *
+ * 流式模式使用 SXSSF：内存中只保留最近 WINDOW_ROWS 行，更早的行写入临时文件，
+ * 内存占用与行数无关；字符串直接内联在单元格中，整个工作簿只创建一个日期样式。
+ * 非流式模式使用 XSSFWorkbook 在内存中构建完整文档（原有行为），输出内容相同。
+ */
+public final class SplitXlsxWriter {
+    // SXSSF 在内存中保留的行数
+    static final int WINDOW_ROWS = 200;
+
+    private final boolean streaming;
+
+    public SplitXlsxWriter(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * 把拆分出的 CSV（规格,平均价,发布日期）转换为 xlsx
+     *
+     * @return CSV 中没有数据行时不生成文件，返回 false
+     */
+    public boolean convertSplitCsv(Path csvFile, Path xlsxFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            // 从第二行开始逐行解析（第一行表头），没有数据行时跳过
+            SplitRow.Source rows = SplitRow.fromSplitCsv(reader);
+            SplitRow first = rows.next();
+            if (first == null) {
+                return false;
+            }
+            write(xlsxFile, SplitRow.startingWith(first, rows));
+            return true;
+        }
+    }
+
+    void write(Path outputXlsxFile, SplitRow.Source rows) throws IOException {
+        Workbook workbook = streaming ? new SXSSFWorkbook(WINDOW_ROWS) : new XSSFWorkbook();
+        try {
+            Sheet sheet = workbook.createSheet("data");
+
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("发布日期");
+            header.createCell(1).setCellValue("平均价");
+            header.createCell(2).setCellValue("规格");
+
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+
+            int rowIdx = 1;
+            SplitRow row;
+            while ((row = rows.next()) != null) {
+                Row r = sheet.createRow(rowIdx++);
+
+                // 能解析为 yyyy-MM-dd 的写入为日期，否则写字符串
+                Cell dateCell = r.createCell(0);
+                if (row.dateText == null) {
+                    dateCell.setCellValue(java.sql.Date.valueOf(LocalDate.ofEpochDay(row.epochDay)));
+                    dateCell.setCellStyle(dateStyle);
+                } else {
+                    dateCell.setCellValue(row.dateText);
+                }
+
+                Cell priceCell = r.createCell(1);
+                if (row.priceText == null) {
+                    priceCell.setCellValue(row.price);
+                } else {
+                    priceCell.setCellValue(row.priceText);
+                }
+
+                r.createCell(2).setCellValue(row.spec);
+            }
+
+            // 简单设置列宽（避免太窄）
+            sheet.setColumnWidth(0, 14 * 256);
+            sheet.setColumnWidth(1, 10 * 256);
+            sheet.setColumnWidth(2, 18 * 256);
+
+            try (OutputStream os = Files.newOutputStream(outputXlsxFile)) {
+                workbook.write(os);
+            }
+        } finally {
+            if (workbook instanceof SXSSFWorkbook) {
+                // 删除 SXSSF 的临时文件
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+            workbook.close();
+        }
+    }
+}
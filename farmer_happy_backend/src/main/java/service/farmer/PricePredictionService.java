@@ -1,8 +1,10 @@
 // src/main/java/service/farmer/PricePredictionService.java
 package service.farmer;
 
+import config.ServerConfig;
 import dto.farmer.PricePredictionResponseDTO;
 import util.ExcelParser;
+import util.Logger;
 import util.PriceFileParser;
 import util.ARIMAModel;
 
@@ -15,14 +17,63 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 价格预测服务
  */
 public class PricePredictionService {
+    private static final Logger log = Logger.getLogger(PricePredictionService.class);
     
-    // 存储上传的文件数据（实际项目中应使用数据库或缓存）
-    private static final Map<String, Map<String, List<ExcelParser.DataPoint>>> fileSeriesCache = new HashMap<>();
+    // 按规格并行预测的线程池，所有请求共享
+    private static ForkJoinPool sharedPredictionPool;
+
+    // 上传的文件数据：内存 LRU + 磁盘溢出，超过 TTL 未访问自动删除
+    private final UploadedSeriesStore seriesStore;
+    // 为 null 时在请求线程上逐个规格预测
+    private final ForkJoinPool predictionPool;
+    private final long predictionTimeoutMillis;
+
+    public PricePredictionService() {
+        this(UploadedSeriesStore.getInstance(), sharedPredictionPool(),
+                ServerConfig.getInstance().getPredictionTimeoutMillis());
+    }
+
+    PricePredictionService(UploadedSeriesStore seriesStore, ForkJoinPool predictionPool, long predictionTimeoutMillis) {
+        this.seriesStore = seriesStore;
+        this.predictionPool = predictionPool;
+        this.predictionTimeoutMillis = predictionTimeoutMillis;
+    }
+
+    private static synchronized ForkJoinPool sharedPredictionPool() {
+        if (sharedPredictionPool == null) {
+            sharedPredictionPool = newPredictionPool(ServerConfig.getInstance().getPredictionParallelism());
+        }
+        return sharedPredictionPool;
+    }
+
+    /**
+     * 创建预测线程池，工作线程命名为 price-predict-N（守护线程）
+     */
+    static ForkJoinPool newPredictionPool(int parallelism) {
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("price-predict-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ForkJoinPool(Math.max(1, parallelism), factory, null, false);
+    }
     
     /**
      * 上传并解析Excel文件
@@ -31,14 +82,14 @@ public class PricePredictionService {
         Map<String, Object> result = new HashMap<>();
         
         try {
-            PriceFileParser parser = new PriceFileParser();
+            PriceFileParser parser = new PriceFileParser(ServerConfig.getInstance().getUploadMaxFileSize());
             Map<String, List<ExcelParser.DataPoint>> seriesMap = parser.parse(inputStream, fileName);
             
             // 生成文件ID
             String fileId = UUID.randomUUID().toString();
             
             // 缓存数据
-            fileSeriesCache.put(fileId, seriesMap);
+            seriesStore.put(fileId, seriesMap);
             
             // 构建预览数据
             // 注意：预览仅显示前10条用于UI展示，但预测时会处理所有数据，不会遗漏任何一条
@@ -86,7 +137,7 @@ public class PricePredictionService {
      */
     public PricePredictionResponseDTO predict(String fileId, int predictionDays, String modelType) {
         // 从缓存获取数据
-        Map<String, List<ExcelParser.DataPoint>> seriesMap = fileSeriesCache.get(fileId);
+        Map<String, List<ExcelParser.DataPoint>> seriesMap = seriesStore.get(fileId);
         if (seriesMap == null || seriesMap.isEmpty()) {
             throw new IllegalArgumentException("文件数据不存在或已过期，请重新上传");
         }
@@ -110,13 +161,20 @@ public class PricePredictionService {
         SeriesPrediction primary = null;
 
         // 遍历所有规格/类型，每个规格的所有数据点都会被处理
+        List<String> types = new ArrayList<>();
+        List<List<ExcelParser.DataPoint>> pointLists = new ArrayList<>();
         for (Map.Entry<String, List<ExcelParser.DataPoint>> entry : seriesMap.entrySet()) {
-            String type = entry.getKey() != null ? entry.getKey() : "默认";
             List<ExcelParser.DataPoint> points = entry.getValue();
             if (points == null || points.isEmpty()) continue;
+            types.add(entry.getKey() != null ? entry.getKey() : "默认");
+            pointLists.add(points);
+        }
 
-            // 对当前规格的所有数据点进行预测（不会限制数据量）
-            SeriesPrediction sp = predictOneSeries(points, predictionDays);
+        // 对各规格的所有数据点进行预测（不会限制数据量），结果顺序与规格顺序一致
+        List<SeriesPrediction> predictions = predictAllSeries(pointLists, predictionDays);
+        for (int i = 0; i < types.size(); i++) {
+            String type = types.get(i);
+            SeriesPrediction sp = predictions.get(i);
             if (type.equals(primaryType)) {
                 primary = sp;
             }
@@ -171,10 +229,86 @@ public class PricePredictionService {
         }
     }
 
+    /**
+     * 预测多条规格序列，返回结果与输入顺序一致
+     *
+     * 配置了线程池时每条规格作为一个任务提交，请求线程按顺序等待结果；超过 predictionTimeoutMillis
+     * 或任一规格失败时，其余任务通过 cancelled 标志在下一次模型回测前停止。
+     * 异常与顺序执行时相同：抛出排在最前的失败规格的异常。
+     */
+    private List<SeriesPrediction> predictAllSeries(List<List<ExcelParser.DataPoint>> pointLists, int predictionDays) {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<SeriesPrediction> results = new ArrayList<>(pointLists.size());
+        if (predictionPool == null) {
+            for (List<ExcelParser.DataPoint> points : pointLists) {
+                results.add(predictOneSeries(points, predictionDays, cancelled));
+            }
+            return results;
+        }
+
+        List<ForkJoinTask<SeriesOutcome>> tasks = new ArrayList<>(pointLists.size());
+        for (List<ExcelParser.DataPoint> points : pointLists) {
+            tasks.add(predictionPool.submit(() -> {
+                // 自行保存异常：ForkJoinTask 跨线程抛出时会重新包装，提示信息会变
+                SeriesOutcome outcome = new SeriesOutcome();
+                try {
+                    outcome.prediction = predictOneSeries(points, predictionDays, cancelled);
+                } catch (RuntimeException e) {
+                    outcome.failure = e;
+                }
+                return outcome;
+            }));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(predictionTimeoutMillis);
+        try {
+            for (ForkJoinTask<SeriesOutcome> task : tasks) {
+                SeriesOutcome outcome = predictionTimeoutMillis > 0
+                        ? task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)
+                        : task.get();
+                if (outcome.failure != null) {
+                    throw outcome.failure;
+                }
+                results.add(outcome.prediction);
+            }
+            return results;
+        } catch (TimeoutException e) {
+            log.warn("价格预测超时，规格数: " + pointLists.size() + "，已完成: " + results.size());
+            throw new RuntimeException("价格预测超时（" + predictionTimeoutMillis + "ms），请减少规格数量或预测天数后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("价格预测被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            if (results.size() < tasks.size()) {
+                cancelled.set(true);
+                for (ForkJoinTask<SeriesOutcome> task : tasks) {
+                    task.cancel(false);
+                }
+            }
+        }
+    }
+
+    private static class SeriesOutcome {
+        SeriesPrediction prediction;
+        RuntimeException failure;
+    }
+
+    private static void checkCancelled(AtomicBoolean cancelled) {
+        if (cancelled.get()) {
+            throw new CancellationException("价格预测已取消");
+        }
+    }
+
     /**
      * 预测单条规格序列
      */
-    private SeriesPrediction predictOneSeries(List<ExcelParser.DataPoint> rawPoints, int predictionDays) {
+    private SeriesPrediction predictOneSeries(List<ExcelParser.DataPoint> rawPoints, int predictionDays,
+            AtomicBoolean cancelled) {
         // 统一按天聚合（同一天多条记录取平均）
         List<ExcelParser.DataPoint> dataPoints = normalizeDaily(rawPoints);
         if (dataPoints.size() < 2) {
@@ -212,16 +346,13 @@ public class PricePredictionService {
             imputedFraction = Math.max(0.0, (filledData.size() - cleanedData.size()) / (double) filledData.size());
         }
 
-        ModelSelection selection = selectBestARIMAModel(y, filledData, imputedFraction, predictionDays);
+        ModelSelection selection = selectBestARIMAModel(y, filledData, imputedFraction, predictionDays, cancelled);
 
         // 使用ARIMA模型进行预测
         List<Double> forecast;
-        List<ARIMAModel.Point> arimaPoints = new ArrayList<>();
-        for (int i = 0; i < filledData.size(); i++) {
-            arimaPoints.add(new ARIMAModel.Point(i + 1, y.get(i)));
-        }
+        double[] series = toArray(y, filledData.size());
         ARIMAModel model = new ARIMAModel();
-        model.train(arimaPoints, selection.arimaParams);
+        model.train(series, series.length, selection.arimaParams, null);
         forecast = new ArrayList<>();
         for (int i = 1; i <= predictionDays; i++) {
             double pred = model.predict(i);
@@ -566,7 +697,8 @@ public class PricePredictionService {
      * 选择最佳ARIMA模型（使用回测选择最优参数）
      * 通过网格搜索找到表现最好的参数组合，只选择R² > 0的模型
      */
-    private ModelSelection selectBestARIMAModel(List<Double> y, List<ExcelParser.DataPoint> filledData, double imputedFraction, int horizonWanted) {
+    private ModelSelection selectBestARIMAModel(List<Double> y, List<ExcelParser.DataPoint> filledData, double imputedFraction, int horizonWanted,
+            AtomicBoolean cancelled) {
         ModelSelection sel = new ModelSelection();
         sel.modelName = "arima";
         sel.baselineName = "none";
@@ -581,11 +713,8 @@ public class PricePredictionService {
         sel.holdoutSize = horizon;
         sel.cvFolds = folds;
 
-        // 构建ARIMA数据点
-        List<ARIMAModel.Point> arimaPoints = new ArrayList<>();
-        for (int i = 0; i < filledData.size(); i++) {
-            arimaPoints.add(new ARIMAModel.Point(i + 1, y.get(i)));
-        }
+        // ARIMA 序列，各折训练集都是它的前缀，直接按长度引用不复制
+        double[] series = toArray(y, filledData.size());
 
         // 网格搜索最佳ARIMA参数
         // 优先尝试简单的模型，避免过度复杂导致负R²
@@ -598,7 +727,12 @@ public class PricePredictionService {
         int[] dGrid = {0, 1}; // 差分阶数（最多1次，避免过度差分）
         int[] qGrid = {0, 1, 2}; // MA阶数
 
+        // 同一折训练集、相同差分阶数的候选模型共用差分序列
+        PreparedSeriesCache cache = new PreparedSeriesCache();
+        int plannedFolds = series.length < horizon + 10 ? 0 : countUsableFolds(n, horizon, folds);
+
         // 首先尝试非季节性ARIMA模型
+        List<ARIMAModel.ARIMAParams> candidates = new ArrayList<>();
         for (int p : pGrid) {
             for (int d : dGrid) {
                 for (int q : qGrid) {
@@ -607,28 +741,40 @@ public class PricePredictionService {
                     
                     // 对于小数据集，进一步限制复杂度
                     if (n < 100 && p + q + d > 3) continue;
-                    
-                    try {
-                        ARIMAModel.ARIMAParams params = new ARIMAModel.ARIMAParams(p, d, q);
-                        MetricsAgg agg = backtestARIMACv(arimaPoints, horizon, folds, params);
-                        
-                        // 只考虑R² > 0的模型（模型必须比简单平均值好）
-                        if (agg != null && agg.r2 > 0 && Double.isFinite(agg.rmse) && agg.rmse > 0) {
-                            // 评分：优先RMSE，其次R²（希望RMSE小，R²大）
-                            double score = agg.rmse * (1.0 - Math.min(agg.r2, 0.99));
-                            
-                            // 对于相同评分，优先选择更简单的模型（参数总和小的）
-                            if (bestParams == null || score < bestScore || 
-                                (Math.abs(score - bestScore) < 0.01 && (p + q + d) < (bestParams.p + bestParams.q + bestParams.d))) {
-                                bestScore = score;
-                                bestParams = params;
-                                bestAgg = agg;
-                            }
-                        }
-                    } catch (Exception e) {
-                        // 跳过无法训练的模型
-                        continue;
-                    }
+
+                    candidates.add(new ARIMAModel.ARIMAParams(p, d, q));
+                }
+            }
+        }
+
+        // 各候选并行回测（在预测线程池内时），结果按网格顺序比较，选择结果与逐个回测相同
+        CandidateBoard board = new CandidateBoard(candidates.size());
+        List<Callable<MetricsAgg>> work = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            int index = i;
+            work.add(() -> backtestCandidate(series, horizon, plannedFolds, candidates.get(index), index, board,
+                    cache, cancelled));
+        }
+        List<MetricsAgg> aggs = invokeAll(work);
+
+        for (int i = 0; i < candidates.size(); i++) {
+            ARIMAModel.ARIMAParams params = candidates.get(i);
+            MetricsAgg agg = aggs.get(i);
+            int p = params.p;
+            int d = params.d;
+            int q = params.q;
+
+            // 只考虑R² > 0的模型（模型必须比简单平均值好）
+            if (agg != null && agg.r2 > 0 && Double.isFinite(agg.rmse) && agg.rmse > 0) {
+                // 评分：优先RMSE，其次R²（希望RMSE小，R²大）
+                double score = agg.rmse * (1.0 - Math.min(agg.r2, 0.99));
+                
+                // 对于相同评分，优先选择更简单的模型（参数总和小的）
+                if (bestParams == null || score < bestScore || 
+                    (Math.abs(score - bestScore) < 0.01 && (p + q + d) < (bestParams.p + bestParams.q + bestParams.d))) {
+                    bestScore = score;
+                    bestParams = params;
+                    bestAgg = agg;
                 }
             }
         }
@@ -638,28 +784,41 @@ public class PricePredictionService {
             // 只尝试7天和30天的季节性（更保守）
             int[] seasonalPeriods = {7, 30};
             
+            // 只尝试简单的季节性模型：SARIMA(1,d,1)(0,1,0)[s] 避免复杂的(1,1,1)(1,1,1)
+            List<ARIMAModel.ARIMAParams> seasonal = new ArrayList<>();
             for (int s : seasonalPeriods) {
                 // 需要至少3个完整周期才考虑季节性
                 if (n < s * 3) continue;
-                
-                // 只尝试简单的季节性模型：SARIMA(1,d,1)(0,1,0)[s] 避免复杂的(1,1,1)(1,1,1)
                 for (int d : dGrid) {
-                    try {
-                        ARIMAModel.ARIMAParams params1 = new ARIMAModel.ARIMAParams(1, d, 1, 0, 1, 0, s);
-                        MetricsAgg agg1 = backtestARIMACv(arimaPoints, horizon, folds, params1);
-                        
-                        if (agg1 != null && agg1.r2 > 0 && Double.isFinite(agg1.rmse) && agg1.rmse > 0) {
-                            double score = agg1.rmse * (1.0 - Math.min(agg1.r2, 0.99));
-                            // 季节性模型需要有明显优势（R²至少0.1以上）才采用
-                            if (agg1.r2 > 0.1 && (bestAgg == null || score < bestScore || 
-                                (Math.abs(score - bestScore) < 0.05 && agg1.r2 > bestAgg.r2))) {
-                                bestScore = score;
-                                bestParams = params1;
-                                bestAgg = agg1;
-                            }
-                        }
-                    } catch (Exception e) {
-                        continue;
+                    seasonal.add(new ARIMAModel.ARIMAParams(1, d, 1, 0, 1, 0, s));
+                }
+            }
+
+            // 季节候选不剪枝，每个候选的每一折作为一个任务并行回测
+            List<Callable<FoldResult>> foldWork = new ArrayList<>();
+            for (ARIMAModel.ARIMAParams params : seasonal) {
+                for (int f = 0; f < plannedFolds; f++) {
+                    int fold = f;
+                    foldWork.add(() -> {
+                        checkCancelled(cancelled);
+                        return backtestFold(series, horizon, fold, params, cache);
+                    });
+                }
+            }
+            List<FoldResult> foldResults = invokeAll(foldWork);
+
+            for (int c = 0; c < seasonal.size(); c++) {
+                ARIMAModel.ARIMAParams params1 = seasonal.get(c);
+                MetricsAgg agg1 = aggregateFolds(foldResults.subList(c * plannedFolds, (c + 1) * plannedFolds));
+
+                if (agg1.r2 > 0 && Double.isFinite(agg1.rmse) && agg1.rmse > 0) {
+                    double score = agg1.rmse * (1.0 - Math.min(agg1.r2, 0.99));
+                    // 季节性模型需要有明显优势（R²至少0.1以上）才采用
+                    if (agg1.r2 > 0.1 && (bestAgg == null || score < bestScore || 
+                        (Math.abs(score - bestScore) < 0.05 && agg1.r2 > bestAgg.r2))) {
+                        bestScore = score;
+                        bestParams = params1;
+                        bestAgg = agg1;
                     }
                 }
             }
@@ -668,7 +827,7 @@ public class PricePredictionService {
         // 如果所有模型都失败，使用最简单的ARIMA(1,0,1)作为兜底
         if (bestParams == null || bestAgg == null) {
             bestParams = new ARIMAModel.ARIMAParams(1, 0, 1);
-            bestAgg = backtestARIMACv(arimaPoints, horizon, folds, bestParams);
+            bestAgg = backtestARIMACv(series, horizon, folds, bestParams, cache);
             if (bestAgg == null || bestAgg.rmse <= 0) {
                 // 如果回测仍然失败，使用默认值
                 bestAgg = new MetricsAgg();
@@ -701,59 +860,115 @@ public class PricePredictionService {
     /**
      * ARIMA模型交叉验证回测
      */
-    private MetricsAgg backtestARIMACv(List<ARIMAModel.Point> data, int horizon, int folds, ARIMAModel.ARIMAParams params) {
-        MetricsAgg out = new MetricsAgg();
-        out.aic = Double.MAX_VALUE;
-        
-        if (data == null || data.size() < horizon + 10) return out;
-        
-        int n = data.size();
-        int used = 0;
-        double sumMae = 0, sumRmse = 0, sumMape = 0, sumR2 = 0, sumAic = 0;
+    private MetricsAgg backtestARIMACv(double[] data, int horizon, int folds, ARIMAModel.ARIMAParams params,
+            PreparedSeriesCache cache) {
+        if (data == null || data.length < horizon + 10) return new MetricsAgg();
+
+        List<FoldResult> results = new ArrayList<>();
+        int usable = countUsableFolds(data.length, horizon, folds);
+        for (int f = 0; f < usable; f++) {
+            results.add(backtestFold(data, horizon, f, params, cache));
+        }
+        return aggregateFolds(results);
+    }
+
+    /**
+     * 网格搜索中的一个候选：逐折回测，每折之后检查能否提前淘汰
+     *
+     * 由 computeMetrics 可知每折 R² ≤ 1，而评分 rmse·max(0.01, 1-R²) 随每折 RMSE 和 (1-R²) 单调不减，
+     * 所以把已完成各折的和除以计划折数，就得到最终评分的下界（未完成的折按 0 计，失败的折只会让均值更大）。
+     * 网格顺序比较时，最优评分每次被“评分接近但更简单”的候选替换最多上升 0.01，
+     * 所以只要下界比排在它前面的某个有效候选的评分还高出 0.01×候选数，它无论如何都不会被选中，
+     * 提前淘汰不会改变选择结果。平均 R² 必然不大于 0 的候选同理直接淘汰。
+     */
+    private MetricsAgg backtestCandidate(double[] data, int horizon, int plannedFolds,
+            ARIMAModel.ARIMAParams params, int index, CandidateBoard board, PreparedSeriesCache cache,
+            AtomicBoolean cancelled) {
+        checkCancelled(cancelled);
+        if (data == null || data.length < horizon + 10) return new MetricsAgg();
+
+        List<FoldResult> results = new ArrayList<>(plannedFolds);
+        double sumRmse = 0.0;
+        double sumUnexplained = 0.0;
+        for (int f = 0; f < plannedFolds; f++) {
+            checkCancelled(cancelled);
+            FoldResult fold = backtestFold(data, horizon, f, params, cache);
+            results.add(fold);
+            if (fold == null || f == plannedFolds - 1) continue;
+
+            sumRmse += fold.metrics.rmse;
+            sumUnexplained += 1.0 - fold.metrics.r2;
+            double unexplained = sumUnexplained / plannedFolds;
+            double lowerBound = (sumRmse / plannedFolds) * Math.max(0.01, unexplained);
+            if (unexplained > 1.0 + 1e-9 || lowerBound > board.bestScoreBefore(index) + board.tieMargin()) {
+                board.pruned.incrementAndGet();
+                return null;
+            }
+        }
+        MetricsAgg agg = aggregateFolds(results);
+        if (agg.r2 > 0 && Double.isFinite(agg.rmse) && agg.rmse > 0) {
+            board.record(index, agg.rmse * (1.0 - Math.min(agg.r2, 0.99)));
+        }
+        return agg;
+    }
+
+    /**
+     * 回测一折：用最近第 fold+1 个 horizon 长度的区间做测试集，之前的数据做训练集；训练失败时返回 null
+     */
+    private FoldResult backtestFold(double[] data, int horizon, int fold, ARIMAModel.ARIMAParams params,
+            PreparedSeriesCache cache) {
+        int n = data.length;
+        int testStart = n - horizon * (fold + 1);
+        int testEnd = testStart + horizon;
         
-        for (int f = 0; f < folds; f++) {
-            int testStart = n - horizon * (f + 1);
-            int testEnd = testStart + horizon;
-            if (testStart <= 5 || testEnd > n) break;
-            
-            List<ARIMAModel.Point> train = data.subList(0, testStart);
-            List<ARIMAModel.Point> test = data.subList(testStart, testEnd);
+        try {
+            // 训练集为 data[0..testStart)，测试集为 data[testStart..testEnd)
+            ARIMAModel model = new ARIMAModel();
+            model.train(data, testStart, params, cache.get(data, testStart, params));
             
-            try {
-                ARIMAModel model = new ARIMAModel();
-                model.train(train, params);
-                
-                // 预测
-                List<Double> pred = new ArrayList<>();
-                for (int i = 1; i <= horizon; i++) {
-                    double p = model.predict(i);
-                    if (Double.isNaN(p) || Double.isInfinite(p) || p < 0) {
-                        // 使用最后一个训练值作为兜底
-                        p = train.get(train.size() - 1).y;
-                    }
-                    pred.add(p);
-                }
-                
-                // 提取实际值
-                List<Double> actual = new ArrayList<>();
-                for (ARIMAModel.Point pt : test) {
-                    actual.add(pt.y);
+            // 预测
+            List<Double> pred = new ArrayList<>();
+            for (int i = 1; i <= horizon; i++) {
+                double p = model.predict(i);
+                if (Double.isNaN(p) || Double.isInfinite(p) || p < 0) {
+                    // 使用最后一个训练值作为兜底
+                    p = data[testStart - 1];
                 }
-                
-                Metrics m = computeMetrics(actual, pred);
-                sumMae += m.mae;
-                sumRmse += m.rmse;
-                sumMape += m.mape;
-                sumR2 += m.r2;
-                
-                // 评估模型以获取AIC
-                ARIMAModel.Metrics evalMetrics = model.evaluate();
-                sumAic += evalMetrics.aic;
-                used++;
-            } catch (Exception e) {
-                // 忽略错误，继续下一个fold
-                continue;
+                pred.add(p);
+            }
+            
+            // 提取实际值
+            List<Double> actual = new ArrayList<>(horizon);
+            for (int i = testStart; i < testEnd; i++) {
+                actual.add(data[i]);
             }
+            
+            FoldResult result = new FoldResult();
+            result.metrics = computeMetrics(actual, pred);
+            // 评估模型以获取AIC
+            result.aic = model.evaluate().aic;
+            return result;
+        } catch (Exception e) {
+            // 忽略错误，继续下一个fold
+            return null;
+        }
+    }
+
+    /**
+     * 按折的顺序汇总各折指标（跳过失败的折）
+     */
+    private static MetricsAgg aggregateFolds(List<FoldResult> results) {
+        MetricsAgg out = new MetricsAgg();
+        int used = 0;
+        double sumMae = 0, sumRmse = 0, sumMape = 0, sumR2 = 0, sumAic = 0;
+        for (FoldResult fold : results) {
+            if (fold == null) continue;
+            sumMae += fold.metrics.mae;
+            sumRmse += fold.metrics.rmse;
+            sumMape += fold.metrics.mape;
+            sumR2 += fold.metrics.r2;
+            sumAic += fold.aic;
+            used++;
         }
         
         if (used == 0) return out;
@@ -765,6 +980,101 @@ public class PricePredictionService {
         return out;
     }
 
+    private static double[] toArray(List<Double> values, int size) {
+        double[] out = new double[size];
+        for (int i = 0; i < size; i++) {
+            out[i] = values.get(i);
+        }
+        return out;
+    }
+
+    // 测试集起点之前至少保留 6 个点做训练，越往前的折训练集越短
+    private static int countUsableFolds(int n, int horizon, int folds) {
+        int usable = 0;
+        while (usable < folds && n - horizon * (usable + 1) > 5) {
+            usable++;
+        }
+        return usable;
+    }
+
+    /**
+     * 在预测线程池内时把任务交给线程池并行执行（当前线程也参与），否则按顺序执行；结果与任务顺序一致
+     */
+    private <T> List<T> invokeAll(List<Callable<T>> work) {
+        List<T> results = new ArrayList<>(work.size());
+        if (predictionPool == null || ForkJoinTask.getPool() != predictionPool || work.size() < 2) {
+            for (Callable<T> task : work) {
+                try {
+                    results.add(task.call());
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return results;
+        }
+        List<ForkJoinTask<T>> tasks = new ArrayList<>(work.size());
+        for (Callable<T> task : work) {
+            tasks.add(ForkJoinTask.adapt(task));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        for (ForkJoinTask<T> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    private static class FoldResult {
+        Metrics metrics;
+        double aic;
+    }
+
+    /**
+     * 训练集差分序列缓存，键为训练集长度和实际生效的 d/D/s
+     */
+    private static class PreparedSeriesCache {
+        private final ConcurrentHashMap<String, double[]> prepared = new ConcurrentHashMap<>();
+
+        double[] get(double[] data, int trainSize, ARIMAModel.ARIMAParams params) {
+            String key = trainSize + ":" + params.d
+                    + (params.isSeasonal() && params.D > 0 ? ":" + params.D + "x" + params.s : "");
+            return prepared.computeIfAbsent(key, k -> ARIMAModel.prepareSeries(data, trainSize, params));
+        }
+    }
+
+    /**
+     * 已完成回测的候选评分（按网格下标），用于提前淘汰
+     */
+    private static class CandidateBoard {
+        private final double[] scores;
+        final AtomicInteger pruned = new AtomicInteger();
+
+        CandidateBoard(int size) {
+            scores = new double[size];
+            Arrays.fill(scores, Double.NaN);
+        }
+
+        synchronized void record(int index, double score) {
+            scores[index] = score;
+        }
+
+        // 排在 index 之前、已完成且有效的候选中的最低评分
+        synchronized double bestScoreBefore(int index) {
+            double best = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < index; i++) {
+                if (!Double.isNaN(scores[i]) && scores[i] < best) {
+                    best = scores[i];
+                }
+            }
+            return best;
+        }
+
+        double tieMargin() {
+            return 0.01 * scores.length;
+        }
+    }
+
     private static int chooseCvHorizon(int n, int horizonWanted) {
         int hw = (horizonWanted <= 0) ? 30 : horizonWanted;
         // 中期默认 30；上限 45（避免极端难评估），下限 7
@@ -1470,17 +1780,18 @@ public class PricePredictionService {
             dataPrompt.append("6. prediction_reason字段必须提供详细的预测理由，说明你是如何基于历史数据特征做出预测的，这是增强预测信服力的关键。\n");
 
             String promptText = dataPrompt.toString();
-            System.out.println("========== AI预测输入日志 ==========");
-            System.out.println("规格/类型: " + type);
-            System.out.println("历史数据点数: " + historicalData.size());
-            System.out.println("预测天数: " + predictionDays);
-            System.out.println("历史数据:");
-            for (Map<String, Object> item : historicalData) {
-                System.out.println("  " + item.get("date") + ": " + item.get("price"));
+            log.debug("========== AI预测输入日志 ==========");
+            log.debug("规格/类型: " + type);
+            log.debug("历史数据点数: " + historicalData.size());
+            log.debug("预测天数: " + predictionDays);
+            if (log.isDebugEnabled()) {
+                log.debug("历史数据:");
+                for (Map<String, Object> item : historicalData) {
+                    log.debug("  " + item.get("date") + ": " + item.get("price"));
+                }
             }
-            System.out.println("发送给AI的提示词:");
-            System.out.println(promptText);
-            System.out.println("====================================");
+            log.body("发送给AI的提示词", promptText);
+            log.debug("====================================");
 
             // 调用AI接口
             try {
@@ -1508,12 +1819,11 @@ public class PricePredictionService {
                 bodyBuilder.append("}");
 
                 String requestBody = bodyBuilder.toString();
-                System.out.println("========== AI API请求日志 ==========");
-                System.out.println("请求URL: " + url);
-                System.out.println("请求体长度: " + requestBody.length() + " 字符");
-                System.out.println("请求体内容:");
-                System.out.println(requestBody);
-                System.out.println("====================================");
+                log.debug("========== AI API请求日志 ==========");
+                log.debug("请求URL: " + url);
+                log.debug("请求体长度: " + requestBody.length() + " 字符");
+                log.body("请求体内容", requestBody);
+                log.debug("====================================");
                 
                 try (OutputStream os = conn.getOutputStream()) {
                     byte[] input = requestBody.getBytes(StandardCharsets.UTF_8);
@@ -1521,8 +1831,8 @@ public class PricePredictionService {
                 }
 
                 int statusCode = conn.getResponseCode();
-                System.out.println("========== AI API响应日志 ==========");
-                System.out.println("HTTP状态码: " + statusCode);
+                log.debug("========== AI API响应日志 ==========");
+                log.debug("HTTP状态码: " + statusCode);
                 BufferedReader reader;
                 if (statusCode >= 200 && statusCode < 300) {
                     reader = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
@@ -1538,33 +1848,31 @@ public class PricePredictionService {
                 reader.close();
 
                 String apiResp = sb.toString();
-                System.out.println("API原始响应长度: " + apiResp.length() + " 字符");
-                System.out.println("API原始响应内容:");
-                System.out.println(apiResp);
-                System.out.println("====================================");
+                log.debug("API原始响应长度: " + apiResp.length() + " 字符");
+                log.body("API原始响应内容", apiResp);
+                log.debug("====================================");
                 
                 if (statusCode >= 200 && statusCode < 300) {
                     String aiResponse = extractFirstMessageContent(apiResp);
-                    System.out.println("========== AI响应解析日志 ==========");
-                    System.out.println("提取的AI响应内容:");
-                    System.out.println(aiResponse);
-                    System.out.println("====================================");
+                    log.debug("========== AI响应解析日志 ==========");
+                    log.body("提取的AI响应内容", aiResponse);
+                    log.debug("====================================");
                     
                     // 解析AI返回的JSON数据
                     SeriesPrediction sp = parseAIResponse(aiResponse, historicalData, dataPoints, predictionDays, historicalFeatures);
                     
-                    System.out.println("========== AI解析结果日志 ==========");
-                    System.out.println("解析后的预测数据点数: " + (sp.predictedData != null ? sp.predictedData.size() : 0));
+                    log.debug("========== AI解析结果日志 ==========");
+                    log.debug("解析后的预测数据点数: " + (sp.predictedData != null ? sp.predictedData.size() : 0));
                     if (sp.predictedData != null && !sp.predictedData.isEmpty()) {
-                        System.out.println("前5条预测数据:");
+                        log.debug("前5条预测数据:");
                         for (int i = 0; i < Math.min(5, sp.predictedData.size()); i++) {
                             Map<String, Object> pred = sp.predictedData.get(i);
-                            System.out.println("  " + pred.get("date") + ": " + pred.get("price"));
+                            log.debug("  " + pred.get("date") + ": " + pred.get("price"));
                         }
                     }
-                    System.out.println("趋势: " + sp.trend);
-                    System.out.println("指标: " + sp.metrics);
-                    System.out.println("====================================");
+                    log.debug("趋势: " + sp.trend);
+                    log.debug("指标: " + sp.metrics);
+                    log.debug("====================================");
                     if (type.equals(primaryType)) {
                         primary = sp;
                     }
@@ -1578,7 +1886,7 @@ public class PricePredictionService {
                     seriesData.add(one);
                 } else {
                     // AI调用失败，使用naive预测作为兜底
-                    System.err.println("AI预测失败，使用naive预测: " + apiResp);
+                    log.error("AI预测失败，使用naive预测: " + apiResp);
                     SeriesPrediction sp = naivePredict(dataPoints, predictionDays);
                     if (type.equals(primaryType)) {
                         primary = sp;
@@ -1592,7 +1900,7 @@ public class PricePredictionService {
                     seriesData.add(one);
                 }
             } catch (Exception e) {
-                e.printStackTrace();
+                log.error("predictWithAI 执行异常", e);
                 // AI调用异常，使用naive预测作为兜底
                 SeriesPrediction sp = naivePredict(dataPoints, predictionDays);
                 if (type.equals(primaryType)) {
@@ -1636,9 +1944,9 @@ public class PricePredictionService {
         sp.historicalData = historicalData;
         sp.historicalFeatures = historicalFeatures;
 
-        System.out.println("========== 开始解析AI响应 ==========");
-        System.out.println("AI响应内容长度: " + aiResponse.length());
-        System.out.println("AI响应前500字符: " + (aiResponse.length() > 500 ? aiResponse.substring(0, 500) : aiResponse));
+        log.debug("========== 开始解析AI响应 ==========");
+        log.debug("AI响应内容长度: " + aiResponse.length());
+        log.debug("AI响应前500字符: " + (aiResponse.length() > 500 ? aiResponse.substring(0, 500) : aiResponse));
 
         // 尝试从AI响应中提取JSON数据
         // 查找predicted_data数组
@@ -1655,28 +1963,28 @@ public class PricePredictionService {
         try {
             // 查找predicted_data数组
             int dataIndex = aiResponse.indexOf("\"predicted_data\"");
-            System.out.println("查找predicted_data位置: " + dataIndex);
+            log.debug("查找predicted_data位置: " + dataIndex);
             if (dataIndex != -1) {
                 int arrayStart = aiResponse.indexOf("[", dataIndex);
-                System.out.println("找到数组开始位置: " + arrayStart);
+                log.debug("找到数组开始位置: " + arrayStart);
                 if (arrayStart != -1) {
                     int arrayEnd = findMatchingBracket(aiResponse, arrayStart);
-                    System.out.println("找到数组结束位置: " + arrayEnd);
+                    log.debug("找到数组结束位置: " + arrayEnd);
                     if (arrayEnd != -1) {
                         String arrayContent = aiResponse.substring(arrayStart + 1, arrayEnd);
-                        System.out.println("数组内容长度: " + arrayContent.length());
-                        System.out.println("数组内容前200字符: " + (arrayContent.length() > 200 ? arrayContent.substring(0, 200) : arrayContent));
+                        log.debug("数组内容长度: " + arrayContent.length());
+                        log.debug("数组内容前200字符: " + (arrayContent.length() > 200 ? arrayContent.substring(0, 200) : arrayContent));
                         // 解析数组中的对象
                         predictedData = parsePredictedDataArray(arrayContent, dataPoints, predictionDays, sdf);
-                        System.out.println("解析后预测数据数量: " + predictedData.size());
+                        log.debug("解析后预测数据数量: " + predictedData.size());
                     } else {
-                        System.out.println("警告: 未找到数组结束位置");
+                        log.warn("警告: 未找到数组结束位置");
                     }
                 } else {
-                    System.out.println("警告: 未找到数组开始位置");
+                    log.warn("警告: 未找到数组开始位置");
                 }
             } else {
-                System.out.println("警告: 未找到predicted_data字段");
+                log.warn("警告: 未找到predicted_data字段");
             }
 
             // 查找trend
@@ -1745,15 +2053,14 @@ public class PricePredictionService {
                 }
             }
         } catch (Exception e) {
-            System.err.println("解析AI响应时发生异常: " + e.getMessage());
-            e.printStackTrace();
+            log.error("解析AI响应时发生异常: " + e.getMessage(), e);
         }
 
-        System.out.println("解析完成 - 预测数据数量: " + predictedData.size() + ", 需要: " + predictionDays);
+        log.debug("解析完成 - 预测数据数量: " + predictedData.size() + ", 需要: " + predictionDays);
 
         // 如果AI没有返回足够的预测数据，使用naive预测补充
         if (predictedData.size() < predictionDays) {
-            System.out.println("警告: AI返回的预测数据不足，使用naive预测补充");
+            log.warn("警告: AI返回的预测数据不足，使用naive预测补充");
             Date lastDate = dataPoints.get(dataPoints.size() - 1).getDate();
             Calendar cal = Calendar.getInstance();
             cal.setTime(lastDate);
@@ -1811,8 +2118,8 @@ public class PricePredictionService {
                                                               List<ExcelParser.DataPoint> dataPoints, 
                                                               int predictionDays, 
                                                               SimpleDateFormat sdf) {
-        System.out.println("========== 解析predicted_data数组 ==========");
-        System.out.println("数组内容长度: " + arrayContent.length());
+        log.debug("========== 解析predicted_data数组 ==========");
+        log.debug("数组内容长度: " + arrayContent.length());
         
         List<Map<String, Object>> result = new ArrayList<>();
         Date lastDate = dataPoints.get(dataPoints.size() - 1).getDate();
@@ -1825,28 +2132,28 @@ public class PricePredictionService {
         while (count < predictionDays && objStart < arrayContent.length()) {
             int braceStart = arrayContent.indexOf("{", objStart);
             if (braceStart == -1) {
-                System.out.println("未找到更多对象，已解析 " + count + " 个");
+                log.debug("未找到更多对象，已解析 " + count + " 个");
                 break;
             }
             
             int braceEnd = findMatchingBrace(arrayContent, braceStart);
             if (braceEnd == -1) {
-                System.out.println("未找到对象结束位置");
+                log.debug("未找到对象结束位置");
                 break;
             }
 
             String objContent = arrayContent.substring(braceStart + 1, braceEnd);
-            System.out.println("对象 " + (count + 1) + " 内容: " + objContent);
+            log.debug("对象 " + (count + 1) + " 内容: " + objContent);
             
             // 提取date和price
             String date = extractStringValue(objContent, "date");
             String priceStr = extractStringValue(objContent, "price");
             
-            System.out.println("  提取的date: " + date);
-            System.out.println("  提取的price: " + priceStr);
+            log.debug("  提取的date: " + date);
+            log.debug("  提取的price: " + priceStr);
             
             if (date == null || priceStr == null) {
-                System.out.println("  警告: date或price为空，使用默认值");
+                log.warn("  警告: date或price为空，使用默认值");
                 // 如果解析失败，使用递增日期和最后一个价格
                 cal.add(Calendar.DAY_OF_MONTH, 1);
                 date = sdf.format(cal.getTime());
@@ -1856,7 +2163,7 @@ public class PricePredictionService {
             try {
                 double price = Double.parseDouble(priceStr);
                 if (price < 0) {
-                    System.out.println("  警告: 价格为负数，使用最后一个价格");
+                    log.warn("  警告: 价格为负数，使用最后一个价格");
                     price = dataPoints.get(dataPoints.size() - 1).getPrice();
                 }
                 
@@ -1864,18 +2171,18 @@ public class PricePredictionService {
                 item.put("date", date);
                 item.put("price", Math.round(price * 100.0) / 100.0);
                 result.add(item);
-                System.out.println("  成功添加: " + date + " -> " + item.get("price"));
+                log.debug("  成功添加: " + date + " -> " + item.get("price"));
                 
                 // 更新日期
                 try {
                     Date parsedDate = sdf.parse(date);
                     cal.setTime(parsedDate);
                 } catch (Exception e) {
-                    System.out.println("  日期解析失败，使用递增日期");
+                    log.warn("  日期解析失败，使用递增日期");
                     cal.add(Calendar.DAY_OF_MONTH, 1);
                 }
             } catch (NumberFormatException e) {
-                System.out.println("  价格解析失败: " + e.getMessage() + "，使用最后一个价格");
+                log.warn("  价格解析失败: " + e.getMessage() + "，使用最后一个价格");
                 // 价格解析失败，使用最后一个价格
                 cal.add(Calendar.DAY_OF_MONTH, 1);
                 Map<String, Object> item = new HashMap<>();
@@ -1888,8 +2195,8 @@ public class PricePredictionService {
             count++;
         }
 
-        System.out.println("解析完成，共解析 " + result.size() + " 条数据");
-        System.out.println("====================================");
+        log.debug("解析完成，共解析 " + result.size() + " 条数据");
+        log.debug("====================================");
         return result;
     }
 
@@ -2062,7 +2369,7 @@ public class PricePredictionService {
             }
             return result;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("extractFirstMessageContent 执行异常", e);
             return json;
         }
     }
@@ -2,6 +2,8 @@
 package service.farmer;
 
 import dto.farmer.*;
+import util.Page;
+
 import java.util.List;
 
 public interface ProductService {
@@ -29,7 +31,7 @@ public interface ProductService {
     // 批量操作方法
     ProductBatchActionResultDTO batchActionProducts(ProductBatchActionRequestDTO request) throws Exception;
 
-    // 获取所有在售商品（用于广告）
-    List<ProductListResponseDTO> getAllOnShelfProducts() throws Exception;
+    // 分页获取在售商品（用于广告），cursor 为空表示第一页，pageSize 为 PageCursor.UNPAGED 时返回全部
+    Page<ProductListResponseDTO> getAllOnShelfProducts(String cursor, int pageSize) throws Exception;
 
 }
@@ -4,8 +4,14 @@ package service.farmer;
 import dto.farmer.*;
 import entity.Product;
 import repository.DatabaseManager;
+import repository.ImageBatchLoader;
+import repository.UserIdentity;
 import service.auth.AuthService;
 import service.auth.AuthServiceImpl;
+import service.auth.Session;
+import util.Logger;
+import util.Page;
+import util.PageCursor;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -15,6 +21,7 @@ import java.time.LocalDateTime;
 import java.util.*;
 
 public class ProductServiceImpl implements ProductService {
+    private static final Logger log = Logger.getLogger(ProductServiceImpl.class);
     private DatabaseManager databaseManager;
     private AuthService authService;
 
@@ -96,10 +103,7 @@ public class ProductServiceImpl implements ProductService {
     public ProductStatusUpdateResponseDTO onShelfProduct(String productId, String phone) throws Exception {
         Connection conn = null;
         try {
-            conn = databaseManager.getConnection();
-            conn.setAutoCommit(false);
-
-            // 验证用户
+            // 验证用户：身份缓存未命中时会另借连接，须在本方法借出连接之前完成
             entity.User user = authService.findUserByPhone(phone);
             if (user == null) {
                 throw new IllegalArgumentException("用户不存在");
@@ -114,6 +118,9 @@ public class ProductServiceImpl implements ProductService {
                 throw new SQLException("验证用户身份失败: " + e.getMessage());
             }
 
+            conn = databaseManager.getConnection();
+            conn.setAutoCommit(false);
+
             // 获取农户ID
             Long farmerId = getFarmerIdByUserId(conn, user.getUid());
 
@@ -130,6 +137,7 @@ public class ProductServiceImpl implements ProductService {
             updateProductStatus(conn, prodId, farmerId, "on_shelf");
 
             conn.commit();
+            databaseManager.invalidateStockReservation(prodId);
 
             // 构建响应对象
             ProductStatusUpdateResponseDTO response = new ProductStatusUpdateResponseDTO();
@@ -155,10 +163,7 @@ public class ProductServiceImpl implements ProductService {
     public ProductStatusUpdateResponseDTO offShelfProduct(String productId, String phone) throws Exception {
         Connection conn = null;
         try {
-            conn = databaseManager.getConnection();
-            conn.setAutoCommit(false);
-
-            // 验证用户
+            // 验证用户：身份缓存未命中时会另借连接，须在本方法借出连接之前完成
             entity.User user = authService.findUserByPhone(phone);
             if (user == null) {
                 throw new IllegalArgumentException("用户不存在");
@@ -173,6 +178,9 @@ public class ProductServiceImpl implements ProductService {
                 throw new SQLException("验证用户身份失败: " + e.getMessage());
             }
 
+            conn = databaseManager.getConnection();
+            conn.setAutoCommit(false);
+
             // 获取农户ID
             Long farmerId = getFarmerIdByUserId(conn, user.getUid());
 
@@ -189,6 +197,7 @@ public class ProductServiceImpl implements ProductService {
             updateProductStatus(conn, prodId, farmerId, "off_shelf");
 
             conn.commit();
+            databaseManager.invalidateStockReservation(prodId);
 
             // 构建响应对象
             ProductStatusUpdateResponseDTO response = new ProductStatusUpdateResponseDTO();
@@ -214,10 +223,7 @@ public class ProductServiceImpl implements ProductService {
     public void deleteProduct(String productId, String phone) throws Exception {
         Connection conn = null;
         try {
-            conn = databaseManager.getConnection();
-            conn.setAutoCommit(false);
-
-            // 验证用户
+            // 验证用户：身份缓存未命中时会另借连接，须在本方法借出连接之前完成
             entity.User user = authService.findUserByPhone(phone);
             if (user == null) {
                 throw new IllegalArgumentException("用户不存在");
@@ -232,6 +238,9 @@ public class ProductServiceImpl implements ProductService {
                 throw new SQLException("验证用户身份失败: " + e.getMessage());
             }
 
+            conn = databaseManager.getConnection();
+            conn.setAutoCommit(false);
+
             // 获取农户ID
             Long farmerId = getFarmerIdByUserId(conn, user.getUid());
 
@@ -240,6 +249,7 @@ public class ProductServiceImpl implements ProductService {
             deleteProductById(conn, prodId, farmerId);
 
             conn.commit();
+            databaseManager.invalidateStockReservation(prodId);
         } catch (Exception e) {
             if (conn != null) {
                 conn.rollback();
@@ -258,9 +268,7 @@ public class ProductServiceImpl implements ProductService {
     public ProductDetailResponseDTO getProductDetail(String productId, String phone) throws Exception {
         Connection conn = null;
         try {
-            conn = databaseManager.getConnection();
-
-            // 验证用户
+            // 验证用户：身份缓存未命中时会另借连接，须在本方法借出连接之前完成
             entity.User user = authService.findUserByPhone(phone);
             if (user == null) {
                 throw new IllegalArgumentException("用户不存在");
@@ -271,14 +279,16 @@ public class ProductServiceImpl implements ProductService {
             Long farmerId = null;
             try {
                 isFarmer = authService.checkUserTypeExists(user.getUid(), "farmer");
-                if (isFarmer) {
-                    // 如果是农户，获取农户ID，用于验证商品是否属于该农户
-                    farmerId = getFarmerIdByUserId(conn, user.getUid());
-                }
             } catch (SQLException e) {
                 throw new SQLException("验证用户身份失败: " + e.getMessage());
             }
 
+            conn = databaseManager.getConnection();
+            if (isFarmer) {
+                // 如果是农户，获取农户ID，用于验证商品是否属于该农户
+                farmerId = getFarmerIdByUserId(conn, user.getUid());
+            }
+
             // 获取商品详情
             long prodId = Long.parseLong(productId);
             ProductDetailResponseDTO productDetail;
@@ -304,9 +314,7 @@ public class ProductServiceImpl implements ProductService {
     public List<ProductListResponseDTO> getProductList(String phone, String status, String title) throws Exception {
         Connection conn = null;
         try {
-            conn = databaseManager.getConnection();
-
-            // 验证用户 - 直接使用手机号查询
+            // 验证用户 - 直接使用手机号查询，须在本方法借出连接之前完成
             entity.User user = authService.findUserByPhone(phone);
             if (user == null) {
                 throw new IllegalArgumentException("用户不存在");
@@ -317,20 +325,21 @@ public class ProductServiceImpl implements ProductService {
             Long farmerId = null;
             try {
                 isFarmer = authService.checkUserTypeExists(user.getUid(), "farmer");
-                if (isFarmer) {
-                    // 如果是农户，获取农户ID，用于查询该农户自己的商品
-                    farmerId = getFarmerIdByUserId(conn, user.getUid());
-                }
             } catch (SQLException e) {
                 throw new SQLException("验证用户身份失败: " + e.getMessage());
             }
 
+            conn = databaseManager.getConnection();
+            if (isFarmer) {
+                // 如果是农户，获取农户ID，用于查询该农户自己的商品
+                farmerId = getFarmerIdByUserId(conn, user.getUid());
+            }
+
             // 构建查询语句
             StringBuilder sqlBuilder = new StringBuilder();
             sqlBuilder
-                    .append("SELECT p.product_id, p.title, p.price, p.stock, p.status, pi.image_url as main_image_url ")
-                    .append("FROM products p ")
-                    .append("LEFT JOIN product_images pi ON p.product_id = pi.product_id AND pi.sort_order = 0 ");
+                    .append("SELECT p.product_id, p.title, p.price, p.stock, p.status ")
+                    .append("FROM products p ");
 
             List<Object> params = new ArrayList<>();
 
@@ -369,15 +378,28 @@ public class ProductServiceImpl implements ProductService {
             ResultSet rs = stmt.executeQuery();
 
             List<ProductListResponseDTO> productList = new ArrayList<>();
+            List<Long> productIds = new ArrayList<>();
             while (rs.next()) {
                 ProductListResponseDTO product = new ProductListResponseDTO();
-                product.setProduct_id(String.valueOf(rs.getLong("product_id")));
+                long productId = rs.getLong("product_id");
+                product.setProduct_id(String.valueOf(productId));
                 product.setTitle(rs.getString("title"));
                 product.setPrice(rs.getDouble("price"));
                 product.setStock(rs.getInt("stock"));
                 product.setStatus(rs.getString("status"));
-                product.setMain_image_url(rs.getString("main_image_url"));
                 productList.add(product);
+                productIds.add(productId);
+            }
+            rs.close();
+            stmt.close();
+
+            // 主图取排序最靠前的一张，整页商品一次查询
+            Map<Long, List<String>> mainImages = ImageBatchLoader.loadProductImages(conn, productIds, 1);
+            for (int i = 0; i < productList.size(); i++) {
+                List<String> images = mainImages.get(productIds.get(i));
+                if (images != null && !images.isEmpty()) {
+                    productList.get(i).setMain_image_url(images.get(0));
+                }
             }
 
             return productList;
@@ -388,23 +410,46 @@ public class ProductServiceImpl implements ProductService {
         }
     }
 
-    // 获取所有在售商品（用于广告）
+    // 分页获取在售商品（用于广告），按 (created_at, product_id) 倒序做键集分页
     @Override
-    public List<ProductListResponseDTO> getAllOnShelfProducts() throws Exception {
+    public Page<ProductListResponseDTO> getAllOnShelfProducts(String cursor, int pageSize) throws Exception {
+        PageCursor pageCursor = PageCursor.decode(cursor, DatabaseManager.ON_SHELF_CURSOR_SORT);
+        long cursorProductId = 0;
+        if (pageCursor != null) {
+            try {
+                cursorProductId = Long.parseLong(pageCursor.getId());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+        }
         Connection conn = null;
         try {
             conn = databaseManager.getConnection();
 
-            // 构建查询语句 - 查询所有在售商品的基本信息
-            String sql = "SELECT p.product_id, p.title, p.price, p.stock, p.status, p.detailed_description " +
+            // 构建查询语句 - 查询一页在售商品的基本信息，多取一行用于判断是否还有下一页
+            String sql = "SELECT p.product_id, p.title, p.price, p.stock, p.status, p.detailed_description, p.created_at " +
                     "FROM products p " +
                     "WHERE p.status = 'on_shelf' AND p.stock > 0 AND p.enable = TRUE " +
-                    "ORDER BY p.created_at DESC";
+                    (pageCursor != null ? "AND (p.created_at < ? OR (p.created_at = ? AND p.product_id < ?)) " : "") +
+                    "ORDER BY p.created_at DESC, p.product_id DESC" +
+                    (pageSize > PageCursor.UNPAGED ? " LIMIT ?" : "");
 
             PreparedStatement stmt = conn.prepareStatement(sql);
+            int index = 1;
+            if (pageCursor != null) {
+                Timestamp key = new Timestamp(pageCursor.getKey());
+                stmt.setTimestamp(index++, key);
+                stmt.setTimestamp(index++, key);
+                stmt.setLong(index++, cursorProductId);
+            }
+            if (pageSize > PageCursor.UNPAGED) {
+                stmt.setInt(index, pageSize + 1);
+            }
             ResultSet rs = stmt.executeQuery();
 
-            List<ProductListResponseDTO> productList = new ArrayList<>();
+            List<ProductListResponseDTO> fetched = new ArrayList<>();
+            // 商品ID -> 创建时间，用于生成下一页游标
+            Map<String, Long> createdAtById = new HashMap<>();
             while (rs.next()) {
                 ProductListResponseDTO product = new ProductListResponseDTO();
                 long productId = rs.getLong("product_id");
@@ -413,47 +458,49 @@ public class ProductServiceImpl implements ProductService {
                 product.setPrice(rs.getDouble("price"));
                 product.setStock(rs.getInt("stock"));
                 product.setStatus(rs.getString("status"));
-                
-                // 获取商品的所有图片
-                String imgSql = "SELECT image_url FROM product_images WHERE product_id = ? ORDER BY sort_order";
-                PreparedStatement imgStmt = conn.prepareStatement(imgSql);
-                imgStmt.setLong(1, productId);
-                ResultSet imgRs = imgStmt.executeQuery();
-                
+                product.setDetailed_description(rs.getString("detailed_description"));
+                fetched.add(product);
+                createdAtById.put(product.getProduct_id(), rs.getTimestamp("created_at").getTime());
+            }
+            rs.close();
+            stmt.close();
+
+            Page<ProductListResponseDTO> page = Page.of(fetched, pageSize,
+                    last -> PageCursor.of(DatabaseManager.ON_SHELF_CURSOR_SORT, createdAtById.get(last.getProduct_id()),
+                            last.getProduct_id()));
+            List<ProductListResponseDTO> productList = page.getItems();
+            List<Long> productIds = new ArrayList<>(productList.size());
+            for (ProductListResponseDTO product : productList) {
+                productIds.add(Long.valueOf(product.getProduct_id()));
+            }
+
+            // 一次查询取回本页商品的全部图片，再按商品归组
+            Map<Long, List<String>> imagesByProduct = ImageBatchLoader.loadProductImages(conn, productIds, 0);
+            for (int i = 0; i < productList.size(); i++) {
+                ProductListResponseDTO product = productList.get(i);
                 List<String> images = new ArrayList<>();
-                int imageCount = 0;
-                while (imgRs.next()) {
-                    String imageUrl = imgRs.getString("image_url");
-                    if (imageUrl != null && !imageUrl.trim().isEmpty()) {
-                        images.add(imageUrl);
-                        imageCount++;
+                List<String> loaded = imagesByProduct.get(productIds.get(i));
+                if (loaded != null) {
+                    for (String imageUrl : loaded) {
+                        if (imageUrl != null && !imageUrl.trim().isEmpty()) {
+                            images.add(imageUrl);
+                        }
                     }
                 }
-                imgRs.close();
-                imgStmt.close();
-                
+
                 // 调试日志
-                System.out.println("商品ID: " + productId + ", 查询到的图片数量: " + imageCount + ", 图片列表: " + images);
-                
-                // 设置主图和所有图片
+                if (log.isDebugEnabled()) {
+                    log.debug("商品ID: " + product.getProduct_id() + ", 查询到的图片数量: " + images.size() + ", 图片列表: " + images);
+                }
+
+                // 设置主图和所有图片；没有图片时为空列表
                 if (!images.isEmpty()) {
                     product.setMain_image_url(images.get(0));
-                    product.setImages(images);
-                } else {
-                    // 如果没有图片，设置空列表
-                    product.setImages(new ArrayList<>());
                 }
-                
-                // 设置详细介绍
-                String detailedDesc = rs.getString("detailed_description");
-                product.setDetailed_description(detailedDesc);
-                
-                productList.add(product);
+                product.setImages(images);
             }
 
-            rs.close();
-            stmt.close();
-            return productList;
+            return page;
         } finally {
             if (conn != null) {
                 conn.close();
@@ -466,10 +513,7 @@ public class ProductServiceImpl implements ProductService {
     public ProductResponseDTO updateProduct(String productId, ProductUpdateRequestDTO request) throws Exception {
         Connection conn = null;
         try {
-            conn = databaseManager.getConnection();
-            conn.setAutoCommit(false);
-
-            // 验证用户
+            // 验证用户：身份缓存未命中时会另借连接，须在本方法借出连接之前完成
             entity.User user = authService.findUserByPhone(request.getPhone());
             if (user == null) {
                 throw new IllegalArgumentException("用户不存在");
@@ -484,6 +528,9 @@ public class ProductServiceImpl implements ProductService {
                 throw new SQLException("验证用户身份失败: " + e.getMessage());
             }
 
+            conn = databaseManager.getConnection();
+            conn.setAutoCommit(false);
+
             // 获取农户ID
             Long farmerId = getFarmerIdByUserId(conn, user.getUid());
 
@@ -518,6 +565,7 @@ public class ProductServiceImpl implements ProductService {
             }
 
             conn.commit();
+            databaseManager.invalidateStockReservation(prodId);
 
             // 构建响应对象
             ProductResponseDTO response = new ProductResponseDTO();
@@ -553,10 +601,7 @@ public class ProductServiceImpl implements ProductService {
     public ProductBatchActionResultDTO batchActionProducts(ProductBatchActionRequestDTO request) throws Exception {
         Connection conn = null;
         try {
-            conn = databaseManager.getConnection();
-            conn.setAutoCommit(false);
-
-            // 验证用户
+            // 验证用户：身份缓存未命中时会另借连接，须在本方法借出连接之前完成
             entity.User user = authService.findUserByPhone(request.getPhone());
             if (user == null) {
                 throw new IllegalArgumentException("用户不存在");
@@ -571,6 +616,9 @@ public class ProductServiceImpl implements ProductService {
                 throw new SQLException("验证用户身份失败: " + e.getMessage());
             }
 
+            conn = databaseManager.getConnection();
+            conn.setAutoCommit(false);
+
             // 验证参数
             if (request.getProduct_ids() == null || request.getProduct_ids().isEmpty()) {
                 throw new IllegalArgumentException("商品ID列表不能为空");
@@ -594,6 +642,7 @@ public class ProductServiceImpl implements ProductService {
 
             int successCount = 0;
             int failureCount = 0;
+            List<Long> changedProductIds = new ArrayList<>();
 
             for (String productId : request.getProduct_ids()) {
                 ProductBatchActionResultDTO.BatchActionResultItem item = new ProductBatchActionResultDTO.BatchActionResultItem();
@@ -626,6 +675,7 @@ public class ProductServiceImpl implements ProductService {
 
                     item.setSuccess(true);
                     successCount++;
+                    changedProductIds.add(prodId);
 
                     // 设置链接
                     Map<String, String> links = new HashMap<>();
@@ -655,6 +705,9 @@ public class ProductServiceImpl implements ProductService {
             result.setResults(items);
 
             conn.commit();
+            for (Long changedProductId : changedProductIds) {
+                databaseManager.invalidateStockReservation(changedProductId);
+            }
             return result;
 
         } catch (Exception e) {
@@ -735,10 +788,7 @@ public class ProductServiceImpl implements ProductService {
     public ProductResponseDTO partialUpdateProduct(String productId, ProductUpdateRequestDTO request) throws Exception {
         Connection conn = null;
         try {
-            conn = databaseManager.getConnection();
-            conn.setAutoCommit(false);
-
-            // 验证用户
+            // 验证用户：身份缓存未命中时会另借连接，须在本方法借出连接之前完成
             entity.User user = authService.findUserByPhone(request.getPhone());
             if (user == null) {
                 throw new IllegalArgumentException("用户不存在");
@@ -753,6 +803,9 @@ public class ProductServiceImpl implements ProductService {
                 throw new SQLException("验证用户身份失败: " + e.getMessage());
             }
 
+            conn = databaseManager.getConnection();
+            conn.setAutoCommit(false);
+
             // 获取农户ID
             Long farmerId = getFarmerIdByUserId(conn, user.getUid());
 
@@ -791,6 +844,7 @@ public class ProductServiceImpl implements ProductService {
             }
 
             conn.commit();
+            databaseManager.invalidateStockReservation(prodId);
 
             // 构建响应对象
             ProductResponseDTO response = new ProductResponseDTO();
@@ -828,6 +882,15 @@ public class ProductServiceImpl implements ProductService {
 
     // 根据用户ID获取农户ID
     private Long getFarmerIdByUserId(Connection conn, String userId) throws SQLException {
+        // 当前会话或身份缓存中有农户ID时省去一次查询；都没有时在当前连接上查
+        Session session = Session.current();
+        if (session != null && userId.equals(session.getUid()) && session.getFarmerId() != null) {
+            return session.getFarmerId();
+        }
+        UserIdentity identity = databaseManager.peekUserIdentityByUid(userId);
+        if (identity != null && identity.getFarmerId() != null) {
+            return identity.getFarmerId();
+        }
         String sql = "SELECT farmer_id FROM user_farmers WHERE uid = ?";
         PreparedStatement stmt = conn.prepareStatement(sql);
         stmt.setString(1, userId);
@@ -0,0 +1,511 @@
+// service/farmer/UploadedSeriesStore.java
+package service.farmer;
+
+import config.ServerConfig;
+import util.ExcelParser;
+import util.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * 价格文件上传后解析出的序列存储（file_id -> 规格 -> 数据点）
+ *
+ * 上传时序列先写成紧凑的二进制文件（每个数据点 8 字节时间戳 + 8 字节价格）落到本地目录，再放入内存；
+ * 内存部分按估算字节数做 LRU，超过 max resident 时把最久未访问的序列从内存中丢弃（“溢出”），
+ * 之后再访问时从磁盘读回。条目数超过上限时最久未访问的条目连同文件一起删除。
+ * 过期采用滑动窗口：超过 TTL 未访问的条目在访问时顺带清理，文件同时删除。
+ * 服务启动时扫描目录，未过期的文件重新登记，上传后重启仍可继续预测。
+ *
+ * 磁盘读写都在锁外进行；目录不可写时退化为纯内存存储，此时超出内存上限的条目只能直接删除。
+ */
+public final class UploadedSeriesStore {
+    private static final Logger log = Logger.getLogger(UploadedSeriesStore.class);
+    private static final String FILE_SUFFIX = ".series";
+    private static final Pattern FILE_ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final int MAGIC = 0x50534552; // "PSER"
+    private static final int VERSION = 1;
+    private static final long SWEEP_INTERVAL_MILLIS = 60_000;
+
+    // 内存占用估算：每个数据点（DataPoint + Date + 列表槽位）、每个规格、每个条目的固定开销
+    private static final long POINT_BYTES = 64;
+    private static final long SERIES_BYTES = 96;
+    private static final long ENTRY_BYTES = 160;
+
+    private static UploadedSeriesStore instance;
+
+    private static final class Entry {
+        final String fileId;
+        final long weight;
+        final Path file;
+        final long diskBytes;
+        Map<String, List<ExcelParser.DataPoint>> series;
+        long lastAccessAt;
+
+        Entry(String fileId, long weight, Path file, long diskBytes, long lastAccessAt) {
+            this.fileId = fileId;
+            this.weight = weight;
+            this.file = file;
+            this.diskBytes = diskBytes;
+            this.lastAccessAt = lastAccessAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final long maxResidentBytes;
+    private final long ttlMillis;
+    private final Path directory;
+    private final LongSupplier clock;
+
+    // 按访问顺序排列，最久未访问的在最前
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentBytes;
+    private int residentEntries;
+    private long diskBytes;
+    private long nextSweepAt;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong spills = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong diskFailures = new AtomicLong();
+
+    UploadedSeriesStore(int maxEntries, long maxResidentBytes, long ttlMillis, Path directory, LongSupplier clock) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxResidentBytes = Math.max(0, maxResidentBytes);
+        this.ttlMillis = ttlMillis;
+        this.directory = prepareDirectory(directory);
+        this.clock = clock;
+        recover();
+    }
+
+    public static synchronized UploadedSeriesStore getInstance() {
+        if (instance == null) {
+            ServerConfig config = ServerConfig.getInstance();
+            String dir = config.getSeriesStoreDir();
+            Path directory = dir == null || dir.trim().isEmpty()
+                    ? Paths.get(System.getProperty("java.io.tmpdir"), "farmer-happy-series")
+                    : Paths.get(dir.trim());
+            instance = new UploadedSeriesStore(config.getSeriesStoreMaxEntries(),
+                    config.getSeriesStoreMaxResidentMb() * 1024L * 1024L,
+                    config.getSeriesStoreTtlMinutes() * 60_000L, directory, System::currentTimeMillis);
+        }
+        return instance;
+    }
+
+    /**
+     * 保存一次上传解析出的序列，fileId 由调用方生成（UUID）
+     */
+    public void put(String fileId, Map<String, List<ExcelParser.DataPoint>> series) {
+        long weight = weigh(series);
+        Path file = null;
+        long written = 0;
+        if (directory != null && FILE_ID.matcher(fileId).matches()) {
+            try {
+                file = directory.resolve(fileId + FILE_SUFFIX);
+                written = writeSeries(file, series);
+            } catch (IOException e) {
+                diskFailures.incrementAndGet();
+                log.warn("价格序列写入磁盘失败，仅保存在内存: " + e.getMessage());
+                file = null;
+                written = 0;
+            }
+        }
+
+        List<Path> obsolete = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.getAsLong();
+            sweepIfDue(now, obsolete);
+            Entry previous = entries.remove(fileId);
+            if (previous != null) {
+                detach(previous);
+            }
+            Entry entry = new Entry(fileId, weight, file, written, now);
+            entry.series = series;
+            entries.put(fileId, entry);
+            residentBytes += weight;
+            residentEntries++;
+            diskBytes += written;
+            enforceLimits(entry, obsolete);
+        }
+        deleteFiles(obsolete);
+    }
+
+    /**
+     * 读取序列，不存在或已过期时返回 null；已溢出到磁盘的序列会读回内存
+     */
+    public Map<String, List<ExcelParser.DataPoint>> get(String fileId) {
+        if (fileId == null) {
+            return null;
+        }
+        Entry entry;
+        List<Path> obsolete = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.getAsLong();
+            sweepIfDue(now, obsolete);
+            entry = entries.get(fileId);
+            if (entry != null && isExpired(entry, now)) {
+                entries.remove(fileId);
+                detach(entry);
+                obsolete.add(entry.file);
+                expirations.incrementAndGet();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.incrementAndGet();
+            } else {
+                entry.lastAccessAt = now;
+            }
+        }
+        deleteFiles(obsolete);
+        if (entry == null) {
+            return null;
+        }
+        touch(entry.file);
+        synchronized (this) {
+            if (entry.series != null) {
+                hits.incrementAndGet();
+                return entry.series;
+            }
+        }
+
+        Map<String, List<ExcelParser.DataPoint>> loaded;
+        try {
+            loaded = readSeries(entry.file);
+        } catch (IOException e) {
+            diskFailures.incrementAndGet();
+            log.warn("读取价格序列文件失败 " + entry.file + ": " + e.getMessage());
+            synchronized (this) {
+                if (entries.get(fileId) == entry) {
+                    entries.remove(fileId);
+                    detach(entry);
+                }
+            }
+            return null;
+        }
+        loads.incrementAndGet();
+        synchronized (this) {
+            // 读盘期间可能已被其他线程读回或删除
+            if (entry.series != null) {
+                return entry.series;
+            }
+            if (entries.get(fileId) == entry) {
+                entry.series = loaded;
+                residentBytes += entry.weight;
+                residentEntries++;
+                enforceLimits(entry, obsolete);
+            }
+        }
+        deleteFiles(obsolete);
+        return loaded;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("resident_entries", residentEntries);
+        stats.put("resident_bytes", residentBytes);
+        stats.put("max_resident_bytes", maxResidentBytes);
+        stats.put("disk_bytes", diskBytes);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("loads", loads.get());
+        stats.put("spills", spills.get());
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        stats.put("disk_failures", diskFailures.get());
+        return stats;
+    }
+
+    // 调用方持有锁：先按条目数淘汰，再把内存超限的部分溢出到磁盘；keep 为刚放入内存的条目，最后才考虑
+    private void enforceLimits(Entry keep, List<Path> obsolete) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            Entry eldest = it.next();
+            if (eldest == keep) {
+                continue;
+            }
+            it.remove();
+            detach(eldest);
+            obsolete.add(eldest.file);
+            evictions.incrementAndGet();
+        }
+        if (residentBytes <= maxResidentBytes) {
+            return;
+        }
+        it = entries.values().iterator();
+        while (residentBytes > maxResidentBytes && it.hasNext()) {
+            Entry eldest = it.next();
+            if (eldest.series == null || eldest == keep) {
+                continue;
+            }
+            if (eldest.file != null) {
+                dropFromMemory(eldest);
+                spills.incrementAndGet();
+            } else {
+                it.remove();
+                detach(eldest);
+                evictions.incrementAndGet();
+            }
+        }
+        // 单个条目就超过上限：有磁盘文件时同样溢出，预测时再从磁盘读取
+        if (residentBytes > maxResidentBytes && keep != null && keep.series != null && keep.file != null) {
+            dropFromMemory(keep);
+            spills.incrementAndGet();
+        }
+    }
+
+    // 调用方持有锁：按访问顺序从最久未访问的开始清理过期条目
+    private void sweepIfDue(long now, List<Path> obsolete) {
+        if (now < nextSweepAt) {
+            return;
+        }
+        nextSweepAt = now + SWEEP_INTERVAL_MILLIS;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (!isExpired(entry, now)) {
+                break;
+            }
+            it.remove();
+            detach(entry);
+            obsolete.add(entry.file);
+            expirations.incrementAndGet();
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return ttlMillis > 0 && now - entry.lastAccessAt >= ttlMillis;
+    }
+
+    private void dropFromMemory(Entry entry) {
+        entry.series = null;
+        residentBytes -= entry.weight;
+        residentEntries--;
+    }
+
+    // 条目移出存储时扣减统计
+    private void detach(Entry entry) {
+        if (entry.series != null) {
+            dropFromMemory(entry);
+        }
+        diskBytes -= entry.diskBytes;
+    }
+
+    private static long weigh(Map<String, List<ExcelParser.DataPoint>> series) {
+        long weight = ENTRY_BYTES;
+        for (Map.Entry<String, List<ExcelParser.DataPoint>> spec : series.entrySet()) {
+            weight += SERIES_BYTES + (spec.getKey() != null ? 2L * spec.getKey().length() : 0);
+            if (spec.getValue() != null) {
+                weight += POINT_BYTES * spec.getValue().size();
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * 文件格式：魔数、版本、规格数、数据点总数，之后每个规格依次为
+     * 名称（是否为空 + UTF）、点数（-1 表示列表为空）、每个点的时间戳（毫秒，无日期时为 Long.MIN_VALUE）和价格
+     */
+    private static long writeSeries(Path file, Map<String, List<ExcelParser.DataPoint>> series) throws IOException {
+        int totalPoints = 0;
+        for (List<ExcelParser.DataPoint> points : series.values()) {
+            totalPoints += points != null ? points.size() : 0;
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024));
+        boolean complete = false;
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(series.size());
+            out.writeInt(totalPoints);
+            for (Map.Entry<String, List<ExcelParser.DataPoint>> spec : series.entrySet()) {
+                out.writeBoolean(spec.getKey() != null);
+                if (spec.getKey() != null) {
+                    out.writeUTF(spec.getKey());
+                }
+                List<ExcelParser.DataPoint> points = spec.getValue();
+                out.writeInt(points != null ? points.size() : -1);
+                if (points == null) {
+                    continue;
+                }
+                for (ExcelParser.DataPoint point : points) {
+                    out.writeLong(point.getDate() != null ? point.getDate().getTime() : Long.MIN_VALUE);
+                    out.writeDouble(point.getPrice());
+                }
+            }
+            complete = true;
+        } finally {
+            out.close();
+            if (!complete) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return out.size();
+    }
+
+    private static Map<String, List<ExcelParser.DataPoint>> readSeries(Path file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024));
+        try {
+            readHeader(in);
+            int specCount = in.readInt();
+            in.readInt();
+            Map<String, List<ExcelParser.DataPoint>> series = new LinkedHashMap<>();
+            for (int s = 0; s < specCount; s++) {
+                String spec = in.readBoolean() ? in.readUTF() : null;
+                int count = in.readInt();
+                if (count < 0) {
+                    series.put(spec, null);
+                    continue;
+                }
+                List<ExcelParser.DataPoint> points = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    long time = in.readLong();
+                    double price = in.readDouble();
+                    points.add(new ExcelParser.DataPoint(time != Long.MIN_VALUE ? new Date(time) : null, price));
+                }
+                series.put(spec, points);
+            }
+            return series;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("不是有效的价格序列文件");
+        }
+    }
+
+    // 启动时登记目录中未过期的文件，只读文件头估算内存占用
+    private void recover() {
+        if (directory == null) {
+            return;
+        }
+        List<Entry> recovered = new ArrayList<>();
+        List<Path> obsolete = new ArrayList<>();
+        long now = clock.getAsLong();
+        try {
+            DirectoryStream<Path> files = Files.newDirectoryStream(directory);
+            try {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(FILE_SUFFIX + ".tmp")) {
+                        obsolete.add(file);
+                        continue;
+                    }
+                    if (!name.endsWith(FILE_SUFFIX)) {
+                        continue;
+                    }
+                    String fileId = name.substring(0, name.length() - FILE_SUFFIX.length());
+                    long modified = Files.getLastModifiedTime(file).toMillis();
+                    if (!FILE_ID.matcher(fileId).matches()) {
+                        continue;
+                    }
+                    if (ttlMillis > 0 && now - modified >= ttlMillis) {
+                        obsolete.add(file);
+                        continue;
+                    }
+                    try {
+                        recovered.add(recoverEntry(fileId, file, modified));
+                    } catch (IOException e) {
+                        log.warn("跳过无法识别的价格序列文件 " + file + ": " + e.getMessage());
+                        obsolete.add(file);
+                    }
+                }
+            } finally {
+                files.close();
+            }
+        } catch (IOException e) {
+            log.warn("扫描价格序列目录失败 " + directory + ": " + e.getMessage());
+        }
+        recovered.sort((a, b) -> Long.compare(a.lastAccessAt, b.lastAccessAt));
+        synchronized (this) {
+            for (Entry entry : recovered) {
+                entries.put(entry.fileId, entry);
+                diskBytes += entry.diskBytes;
+            }
+            enforceLimits(null, obsolete);
+        }
+        deleteFiles(obsolete);
+        if (!recovered.isEmpty()) {
+            log.info("恢复上传的价格序列 " + entries.size() + " 个，目录: " + directory);
+        }
+    }
+
+    private static Entry recoverEntry(String fileId, Path file, long modified) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64));
+        try {
+            readHeader(in);
+            int specCount = in.readInt();
+            int totalPoints = in.readInt();
+            long weight = ENTRY_BYTES + SERIES_BYTES * specCount + POINT_BYTES * totalPoints;
+            return new Entry(fileId, weight, file, Files.size(file), modified);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static Path prepareDirectory(Path directory) {
+        if (directory == null) {
+            return null;
+        }
+        try {
+            Files.createDirectories(directory);
+            return directory;
+        } catch (IOException e) {
+            log.warn("价格序列目录不可用，上传数据仅保存在内存: " + directory + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    // 访问时刷新文件修改时间，重启后按它计算过期
+    private void touch(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(clock.getAsLong()));
+        } catch (IOException e) {
+            // 文件可能刚被清理，忽略
+        }
+    }
+
+    private void deleteFiles(List<Path> files) {
+        for (Path file : files) {
+            if (file == null) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                diskFailures.incrementAndGet();
+                log.warn("删除价格序列文件失败 " + file + ": " + e.getMessage());
+            }
+        }
+    }
+}
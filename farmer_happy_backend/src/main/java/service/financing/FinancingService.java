@@ -11,7 +11,9 @@ import entity.financing.CreditLimit;
 import entity.financing.CreditApplication;
 import entity.User;
 import repository.DatabaseManager;
+import service.auth.Session;
 import dto.financing.*;
+import util.Logger;
 import java.math.BigDecimal;
 import java.sql.SQLException;
 import java.sql.Timestamp;
@@ -22,6 +24,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class FinancingService {
+    private static final Logger log = Logger.getLogger(FinancingService.class);
     private DatabaseManager dbManager;
     private static final AtomicLong productIdCounter = new AtomicLong(1);
     private static final AtomicLong applicationIdCounter = new AtomicLong(1);
@@ -66,7 +69,7 @@ public class FinancingService {
             loanProduct.setProductId(productId);
             
             // 调试输出
-            System.out.println("DEBUG: 生成的产品ID = " + productId);
+            log.debug("DEBUG: 生成的产品ID = " + productId);
 
             String productCode = request.getProduct_code();
             if (productCode == null || productCode.trim().isEmpty()) {
@@ -912,22 +915,22 @@ public class FinancingService {
             saveJointLoanApplicationPartners(applicationRecordId, partnerRecords);
             
             // 调试：验证数据是否正确保存
-            System.out.println("=== DEBUG: 验证保存的联合贷款伙伴记录 ===");
+            log.debug("=== DEBUG: 验证保存的联合贷款伙伴记录 ===");
             for (Map<String, Object> partnerRecord : partnerRecords) {
                 Long partnerFarmerId = ((Long) partnerRecord.get("partner_farmer_id"));
-                System.out.println("已保存伙伴记录: partner_farmer_id=" + partnerFarmerId + 
+                log.debug("已保存伙伴记录: partner_farmer_id=" + partnerFarmerId + 
                                  ", loan_application_id(数据库ID)=" + applicationRecordId);
             }
-            System.out.println("loan_application_id(字符串ID)=" + loanApplicationId);
+            log.debug("loan_application_id(字符串ID)=" + loanApplicationId);
             
             // 验证：立即查询保存的数据，确保可以查询到
             List<Map<String, Object>> savedPartners = getJointLoanPartnersByApplicationId(applicationRecordId);
-            System.out.println("验证查询：保存后立即查询，找到 " + savedPartners.size() + " 条伙伴记录");
+            log.debug("验证查询：保存后立即查询，找到 " + savedPartners.size() + " 条伙伴记录");
             for (Map<String, Object> savedPartner : savedPartners) {
-                System.out.println("  伙伴ID: " + savedPartner.get("partner_farmer_id") + 
+                log.debug("  伙伴ID: " + savedPartner.get("partner_farmer_id") + 
                                  ", 状态: " + savedPartner.get("status"));
             }
-            System.out.println("=== DEBUG END ===");
+            log.debug("=== DEBUG END ===");
 
             // 更新贷款申请状态为pending_partners（等待合作伙伴确认）
             updateLoanApplicationStatus(loanApplicationId, "pending_partners", null, null, null);
@@ -2616,7 +2619,7 @@ public class FinancingService {
     // 私有辅助方法：检查用户是否具有银行身份
     private Map<String, Object> checkUserBankRole(String uid) throws SQLException {
         // 检查用户是否具有银行身份
-        List<String> userRoles = dbManager.getUserRole(uid);
+        List<String> userRoles = userRoles(uid);
         if (!userRoles.contains("bank")) {
             return null;
         }
@@ -2625,10 +2628,19 @@ public class FinancingService {
         return dbManager.getBankInfoByUid(uid);
     }
 
+    // 当前会话属于该用户时直接使用登录时的角色
+    private List<String> userRoles(String uid) throws SQLException {
+        Session session = Session.current();
+        if (session != null && session.getUid().equals(uid)) {
+            return session.getRoles();
+        }
+        return dbManager.getUserRole(uid);
+    }
+
     // 私有辅助方法：检查用户是否具有农户身份
     private Map<String, Object> checkUserFarmerRole(String uid) throws SQLException {
         // 检查用户是否具有农户身份
-        List<String> userRoles = dbManager.getUserRole(uid);
+        List<String> userRoles = userRoles(uid);
         if (!userRoles.contains("farmer")) {
             return null;
         }
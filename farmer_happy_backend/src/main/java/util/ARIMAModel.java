@@ -2,6 +2,7 @@
 package util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -89,58 +90,72 @@ public class ARIMAModel {
         }
     }
     
-    private List<Point> originalData;
-    private List<Double> differencedData; // 差分后的数据
+    // 原始观测值取 values[0..length)；按 List<Point> 训练时复制到 ownValues，按 double[] 训练时直接引用调用方数组
+    private double[] values;
+    private int length;
+    private double[] ownValues;
+    // 差分后的数据取 differenced[0..diffLength)；自己差分时写入 diffBuffer，使用共享的 prepared 时直接引用
+    private double[] differenced;
+    private int diffLength;
+    private double[] diffBuffer;
     private ARIMAParams params;
     private double[] arCoefficients; // AR系数
     private double[] maCoefficients; // MA系数
     private double[] seasonalARCoefficients; // 季节性AR系数
     private double[] seasonalMACoefficients; // 季节性MA系数
     private double constant; // 常数项
-    private double[] residuals; // 残差
+    private double[] residuals; // 残差（前 diffLength 个有效）
+    private boolean hasResiduals;
     private double mean; // 均值
+    // 差分序列的未来预测值和对应的累加结果，predict(1..h) 逐步调用时增量计算
+    private double[] forecastDiffs;
+    private double[] forecastPath;
+    private int forecastCount;
     
     /**
      * 训练ARIMA模型
      */
     public void train(List<Point> data, ARIMAParams params) {
-        this.originalData = data;
-        this.params = params;
-        
         if (data == null || data.isEmpty()) {
+            this.params = params;
             throw new IllegalArgumentException("数据不能为空");
         }
-        
-        // 提取价格序列
-        List<Double> priceSeries = new ArrayList<>();
-        for (Point point : data) {
-            priceSeries.add(point.y);
+        int n = data.size();
+        ownValues = SeriesMath.ensureCapacity(ownValues, n);
+        for (int i = 0; i < n; i++) {
+            ownValues[i] = data.get(i).y;
         }
+        train(ownValues, n, params, null);
+    }
+
+    /**
+     * 使用 values[0..length) 训练，模型只读取 values，训练后调用方在使用模型期间不能修改它。
+     * prepared 必须是 {@link #prepareSeries} 对同一份数据、相同 d/D/s 的结果，为 null 时现算；
+     * 模型同样只读取 prepared，多个模型可以共用同一份。
+     * 同一个实例重复训练时复用内部缓冲区，实例本身不是线程安全的。
+     */
+    public void train(double[] values, int length, ARIMAParams params, double[] prepared) {
+        this.values = values;
+        this.length = length;
+        this.params = params;
         
-        // 计算均值
-        this.mean = priceSeries.stream().mapToDouble(Double::doubleValue).average().orElse(0);
-        
-        // 去中心化
-        List<Double> centeredSeries = new ArrayList<>();
-        for (Double price : priceSeries) {
-            centeredSeries.add(price - mean);
+        if (values == null || length <= 0) {
+            throw new IllegalArgumentException("数据不能为空");
         }
         
-        // 差分处理
-        List<Double> series = centeredSeries;
-        for (int i = 0; i < params.d; i++) {
-            series = ARIMAModel.difference(series);
-        }
+        // 计算均值
+        this.mean = SeriesMath.mean(values, 0, length);
+        this.forecastCount = 0;
         
-        // 季节性差分
-        if (params.isSeasonal() && params.D > 0 && series.size() > params.s) {
-            for (int i = 0; i < params.D; i++) {
-                series = seasonalDifference(series, params.s);
-            }
+        if (prepared != null) {
+            this.differenced = prepared;
+            this.diffLength = prepared.length;
+        } else {
+            diffBuffer = SeriesMath.ensureCapacity(diffBuffer, length);
+            this.diffLength = prepareInto(values, length, params, diffBuffer);
+            this.differenced = diffBuffer;
         }
         
-        this.differencedData = series;
-        
         // 估计参数（使用最小二乘法）
         estimateParameters();
         
@@ -154,7 +169,7 @@ public class ARIMAModel {
      * 估计季节性参数
      */
     private void estimateSeasonalParameters() {
-        if (!params.isSeasonal() || differencedData.size() < params.s * 2) {
+        if (!params.isSeasonal() || diffLength < params.s * 2) {
             this.seasonalARCoefficients = new double[params.P];
             this.seasonalMACoefficients = new double[params.Q];
             return;
@@ -166,9 +181,8 @@ public class ARIMAModel {
             // 使用季节滞后的自相关
             for (int i = 0; i < params.P; i++) {
                 int lag = params.s * (i + 1);
-                if (lag < differencedData.size()) {
-                    double[] acf = ARIMAModel.calculateACF(differencedData, lag);
-                    seasonalARCoefficients[i] = Math.max(-0.9, Math.min(0.9, acf[lag] * 0.6));
+                if (lag < diffLength) {
+                    seasonalARCoefficients[i] = Math.max(-0.9, Math.min(0.9, SeriesMath.acfAt(differenced, diffLength, lag) * 0.6));
                 }
             }
         } else {
@@ -180,9 +194,8 @@ public class ARIMAModel {
             this.seasonalMACoefficients = new double[params.Q];
             for (int i = 0; i < params.Q; i++) {
                 int lag = params.s * (i + 1);
-                if (lag < differencedData.size()) {
-                    double[] acf = ARIMAModel.calculateACF(differencedData, lag);
-                    seasonalMACoefficients[i] = Math.max(-0.9, Math.min(0.9, acf[lag] * 0.5));
+                if (lag < diffLength) {
+                    seasonalMACoefficients[i] = Math.max(-0.9, Math.min(0.9, SeriesMath.acfAt(differenced, diffLength, lag) * 0.5));
                 }
             }
         } else {
@@ -191,44 +204,71 @@ public class ARIMAModel {
     }
     
     /**
-     * 季节性差分
+     * 训练用的序列：去均值后做 d 次差分，季节模型再做 D 次季节差分。
+     * 只与数据和 d/D/s 有关，与 p/q/P/Q 无关，网格搜索时同一训练集上的候选模型可以共用。
      */
-    private List<Double> seasonalDifference(List<Double> series, int period) {
-        List<Double> diff = new ArrayList<>();
-        for (int i = period; i < series.size(); i++) {
-            diff.add(series.get(i) - series.get(i - period));
+    public static double[] prepareSeries(double[] values, int length, ARIMAParams params) {
+        double[] series = new double[length];
+        int n = prepareInto(values, length, params, series);
+        return n == length ? series : Arrays.copyOf(series, n);
+    }
+    
+    /**
+     * 把 {@link #prepareSeries} 的结果写入 out（长度至少为 length），返回差分后的长度
+     */
+    private static int prepareInto(double[] values, int length, ARIMAParams params, double[] out) {
+        double mean = SeriesMath.mean(values, 0, length);
+        
+        // 去中心化
+        for (int i = 0; i < length; i++) {
+            out[i] = values[i] - mean;
         }
-        return diff;
+        int n = length;
+        
+        // 差分处理（原地）
+        for (int i = 0; i < params.d; i++) {
+            n = SeriesMath.difference(out, n, out);
+        }
+        
+        // 季节性差分
+        if (params.isSeasonal() && params.D > 0 && n > params.s) {
+            for (int i = 0; i < params.D; i++) {
+                n = SeriesMath.seasonalDifference(out, n, params.s, out);
+            }
+        }
+        return n;
     }
     
     /**
      * 估计ARIMA参数（简化版，使用最小二乘法）
      */
     private void estimateParameters() {
-        int n = differencedData.size();
+        int n = diffLength;
         if (n < Math.max(params.p, params.q) + 10) {
             // 数据太少，使用默认值
             this.arCoefficients = new double[params.p];
             this.maCoefficients = new double[params.q];
+            this.hasResiduals = false;
+            this.constant = 0;
             return;
         }
         
         // 估计AR系数（使用Yule-Walker方程的简化版本）
         if (params.p > 0) {
-            this.arCoefficients = estimateARCoefficients(differencedData, params.p);
+            this.arCoefficients = estimateARCoefficients(differenced, n, params.p);
         } else {
             this.arCoefficients = new double[0];
         }
         
         // 估计MA系数（简化版）
         if (params.q > 0) {
-            this.maCoefficients = estimateMACoefficients(differencedData, params.q);
+            this.maCoefficients = estimateMACoefficients(differenced, n, params.q);
         } else {
             this.maCoefficients = new double[0];
         }
         
         // 计算残差
-        this.residuals = calculateResiduals();
+        calculateResiduals();
         
         // 估计常数项
         this.constant = estimateConstant();
@@ -237,16 +277,15 @@ public class ARIMAModel {
     /**
      * 估计AR系数（使用自相关函数和Yule-Walker方程）
      */
-    private double[] estimateARCoefficients(List<Double> series, int p) {
+    private double[] estimateARCoefficients(double[] series, int n, int p) {
         double[] coefficients = new double[p];
-        int n = series.size();
         
         if (p == 0 || n < p + 5) {
             return coefficients;
         }
         
         // 计算自相关函数
-        double[] acf = ARIMAModel.calculateACF(series, p);
+        double[] acf = SeriesMath.acf(series, n, p);
         
         // 使用Yule-Walker方程
         if (p == 1) {
@@ -276,16 +315,15 @@ public class ARIMAModel {
     /**
      * 估计MA系数（使用自相关函数）
      */
-    private double[] estimateMACoefficients(List<Double> series, int q) {
+    private double[] estimateMACoefficients(double[] series, int n, int q) {
         double[] coefficients = new double[q];
-        int n = series.size();
         
         if (q == 0 || n < q + 5) {
             return coefficients;
         }
         
         // 计算自相关函数
-        double[] acf = ARIMAModel.calculateACF(series, q);
+        double[] acf = SeriesMath.acf(series, n, q);
         
         // 对于MA模型，ACF在lag>q后应该截断
         // 简化估计：使用ACF值，但限制系数大小
@@ -298,18 +336,18 @@ public class ARIMAModel {
     }
     
     /**
-     * 计算残差
+     * 计算残差，写入 residuals[0..diffLength)
      */
-    private double[] calculateResiduals() {
-        int n = differencedData.size();
-        double[] residuals = new double[n];
+    private void calculateResiduals() {
+        int n = diffLength;
+        residuals = SeriesMath.ensureCapacity(residuals, n);
         
         for (int i = 0; i < n; i++) {
             double predicted = 0;
             
             // AR部分
             for (int j = 0; j < params.p && i - j - 1 >= 0; j++) {
-                predicted += arCoefficients[j] * differencedData.get(i - j - 1);
+                predicted += arCoefficients[j] * differenced[i - j - 1];
             }
             
             // MA部分（使用之前的残差，简化处理）
@@ -319,62 +357,101 @@ public class ARIMAModel {
                 }
             }
             
-            residuals[i] = differencedData.get(i) - predicted;
+            residuals[i] = differenced[i] - predicted;
         }
-        
-        return residuals;
+        hasResiduals = true;
     }
     
     /**
      * 估计常数项
      */
     private double estimateConstant() {
-        if (differencedData.isEmpty()) {
+        if (diffLength == 0) {
             return 0;
         }
-        return differencedData.stream().mapToDouble(Double::doubleValue).average().orElse(0);
+        return SeriesMath.mean(differenced, 0, diffLength);
     }
     
     /**
      * 预测未来值
      */
     public double predict(int stepsAhead) {
-        if (differencedData == null || differencedData.isEmpty() || originalData == null || originalData.isEmpty()) {
+        if (differenced == null || diffLength == 0 || values == null || length == 0) {
             return mean;
         }
         
-        int n = differencedData.size();
-        List<Double> forecastDiffSeries = new ArrayList<>(differencedData);
-        List<Double> forecastResiduals = new ArrayList<>();
+        // 如果检测到季节性，优先使用历史周期模式（更准确）
+        if (params.isSeasonal() && params.s > 0 && length >= params.s * 2) {
+            return predictUsingHistoricalPattern(stepsAhead);
+        }
         
-        // 初始化残差（使用实际残差）
-        if (residuals != null) {
-            for (int i = Math.max(0, residuals.length - params.q); i < residuals.length; i++) {
-                forecastResiduals.add(residuals[i]);
-            }
+        // 非季节性模型，使用标准ARIMA预测
+        double result = calculateARIMAPrediction(stepsAhead);
+        
+        // 如果结果不合理，使用趋势外推
+        if (result < 0 || Double.isNaN(result) || Double.isInfinite(result)) {
+            result = predictUsingHistoricalPattern(stepsAhead);
         }
         
-        // 预测差分序列的未来值
-        for (int step = 0; step < stepsAhead; step++) {
+        // 确保价格不为负
+        if (result < 0) {
+            result = Math.max(0, values[length - 1] * 0.9);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * 计算ARIMA预测值（不考虑季节性，用于非季节性模型或作为参考）
+     * 反向差分：从最后一个原始值开始，累加所有差分预测值
+     */
+    private double calculateARIMAPrediction(int stepsAhead) {
+        if (stepsAhead <= 0) {
+            return values[length - 1];
+        }
+        extendForecast(stepsAhead);
+        return forecastPath[stepsAhead];
+    }
+    
+    /**
+     * 把差分序列的预测值算到第 steps 步，forecastPath[k] 为最后一个原始值依次累加前 k 个预测值的结果。
+     * 每一步只依赖前面的预测值，与预测步数无关，逐步调用 predict(1..h) 时只计算新增的部分。
+     */
+    private void extendForecast(int steps) {
+        if (forecastCount >= steps) {
+            return;
+        }
+        forecastDiffs = SeriesMath.grow(forecastDiffs, forecastCount, steps);
+        forecastPath = SeriesMath.grow(forecastPath, forecastCount + 1, steps + 1);
+        if (forecastCount == 0) {
+            forecastPath[0] = values[length - 1];
+        }
+        int n = diffLength;
+        // 参与预测的残差：最近 q 个实际残差，之后的未来残差为 0（简化处理）
+        int residualTail = hasResiduals ? Math.min(params.q, n) : 0;
+        
+        for (int step = forecastCount; step < steps; step++) {
+            int size = n + step; // 差分序列加上已有预测值的长度
+            int residualSize = residualTail + step;
             double forecast = constant;
             
             // AR部分：使用最近的差分值
-            for (int i = 0; i < params.p && forecastDiffSeries.size() - i - 1 >= 0; i++) {
-                forecast += arCoefficients[i] * forecastDiffSeries.get(forecastDiffSeries.size() - i - 1);
+            for (int i = 0; i < params.p && size - i - 1 >= 0; i++) {
+                forecast += arCoefficients[i] * diffAt(size - i - 1);
             }
             
             // MA部分：使用最近的残差
-            for (int i = 0; i < params.q && forecastResiduals.size() - i - 1 >= 0; i++) {
-                forecast += maCoefficients[i] * forecastResiduals.get(forecastResiduals.size() - i - 1);
+            for (int i = 0; i < params.q && residualSize - i - 1 >= 0; i++) {
+                forecast += maCoefficients[i] * residualAt(residualSize - i - 1, residualTail);
             }
             
             // 季节性AR部分（如果适用）
             if (params.isSeasonal() && seasonalARCoefficients != null) {
                 for (int i = 0; i < params.P; i++) {
                     int seasonalLag = params.s * (i + 1);
-                    int idx = forecastDiffSeries.size() - seasonalLag - 1;
-                    if (idx >= 0 && idx < forecastDiffSeries.size()) {
-                        forecast += seasonalARCoefficients[i] * forecastDiffSeries.get(idx);
+                    int idx = size - seasonalLag - 1;
+                    if (idx >= 0 && idx < size) {
+                        forecast += seasonalARCoefficients[i] * diffAt(idx);
                     }
                 }
             }
@@ -383,58 +460,27 @@ public class ARIMAModel {
             if (params.isSeasonal() && seasonalMACoefficients != null) {
                 for (int i = 0; i < params.Q; i++) {
                     int seasonalLag = params.s * (i + 1);
-                    int idx = forecastResiduals.size() - seasonalLag - 1;
-                    if (idx >= 0 && idx < forecastResiduals.size()) {
-                        forecast += seasonalMACoefficients[i] * forecastResiduals.get(idx);
+                    int idx = residualSize - seasonalLag - 1;
+                    if (idx >= 0 && idx < residualSize) {
+                        forecast += seasonalMACoefficients[i] * residualAt(idx, residualTail);
                     }
                 }
             }
             
-            // 对于未来值，残差设为0（简化处理）
-            forecastResiduals.add(0.0);
-            forecastDiffSeries.add(forecast);
-        }
-        
-        // 反向差分：从最后一个原始值开始，累加所有差分预测值
-        // 对于SARIMA模型，需要正确处理季节性
-        
-        // 如果检测到季节性，优先使用历史周期模式（更准确）
-        if (params.isSeasonal() && params.s > 0 && originalData.size() >= params.s * 2) {
-            return predictUsingHistoricalPattern(stepsAhead);
-        }
-        
-        // 非季节性模型，使用标准ARIMA预测
-        double result = calculateARIMAPrediction(stepsAhead, forecastDiffSeries, n);
-        
-        // 如果结果不合理，使用趋势外推
-        if (result < 0 || Double.isNaN(result) || Double.isInfinite(result)) {
-            result = predictUsingHistoricalPattern(stepsAhead);
-        }
-        
-        // 确保价格不为负
-        if (result < 0) {
-            result = Math.max(0, originalData.get(originalData.size() - 1).y * 0.9);
+            forecastDiffs[step] = forecast;
+            forecastPath[step + 1] = forecastPath[step] + forecast;
         }
-        
-        return result;
+        forecastCount = steps;
     }
     
-    /**
-     * 计算ARIMA预测值（不考虑季节性，用于非季节性模型或作为参考）
-     */
-    private double calculateARIMAPrediction(int stepsAhead, List<Double> forecastDiffSeries, int n) {
-        // 反向差分：从最后一个原始值开始，累加所有差分预测值
-        double result = originalData.get(originalData.size() - 1).y;
-        
-        // 累加所有预测的差分值
-        for (int i = 0; i < stepsAhead; i++) {
-            int diffIndex = n + i;
-            if (diffIndex < forecastDiffSeries.size()) {
-                result += forecastDiffSeries.get(diffIndex);
-            }
-        }
-        
-        return result;
+    // 差分序列后接预测值的第 idx 个
+    private double diffAt(int idx) {
+        return idx < diffLength ? differenced[idx] : forecastDiffs[idx - diffLength];
+    }
+    
+    // 最近 tail 个实际残差后接 0 的第 idx 个
+    private double residualAt(int idx, int tail) {
+        return idx < tail ? residuals[diffLength - tail + idx] : 0.0;
     }
     
     /**
@@ -442,26 +488,26 @@ public class ARIMAModel {
      * 通过建立周期模板来更准确地复制历史周期模式
      */
     private double predictUsingHistoricalPattern(int stepsAhead) {
+        double[] y = values;
+        int n = length;
         // 如果没有季节性参数，使用简单趋势
-        if (!params.isSeasonal() || params.s <= 0 || originalData.size() < params.s * 2) {
-            if (originalData.size() >= 3) {
+        if (!params.isSeasonal() || params.s <= 0 || n < params.s * 2) {
+            if (n >= 3) {
                 // 使用最近几个点的平均趋势
                 double recentTrend = 0;
-                int lookback = Math.min(5, originalData.size() - 1);
-                for (int i = originalData.size() - lookback; i < originalData.size() - 1; i++) {
-                    recentTrend += originalData.get(i + 1).y - originalData.get(i).y;
+                int lookback = Math.min(5, n - 1);
+                for (int i = n - lookback; i < n - 1; i++) {
+                    recentTrend += y[i + 1] - y[i];
                 }
                 recentTrend /= lookback;
-                return originalData.get(originalData.size() - 1).y + recentTrend * stepsAhead;
-            } else if (originalData.size() >= 2) {
-                double trend = originalData.get(originalData.size() - 1).y - 
-                              originalData.get(originalData.size() - 2).y;
-                return originalData.get(originalData.size() - 1).y + trend * stepsAhead;
+                return y[n - 1] + recentTrend * stepsAhead;
+            } else if (n >= 2) {
+                double trend = y[n - 1] - y[n - 2];
+                return y[n - 1] + trend * stepsAhead;
             }
-            return originalData.get(originalData.size() - 1).y;
+            return y[n - 1];
         }
         
-        int n = originalData.size();
         int numCompleteCycles = n / params.s;
         
         if (numCompleteCycles < 2) {
@@ -471,9 +517,9 @@ public class ARIMAModel {
             int lastCycleStart = Math.max(0, n - params.s);
             int targetIdx = lastCycleStart + targetPos;
             if (targetIdx >= 0 && targetIdx < n) {
-                return originalData.get(targetIdx).y;
+                return y[targetIdx];
             }
-            return originalData.get(n - 1).y;
+            return y[n - 1];
         }
         
         // 计算目标位置在周期中的索引
@@ -481,65 +527,44 @@ public class ARIMAModel {
         int targetPositionInCycle = (currentPositionInCycle + stepsAhead) % params.s;
         int cyclesAhead = (currentPositionInCycle + stepsAhead) / params.s;
         
-        // 建立周期模板：分析历史周期中每个位置相对于周期平均值的相对变化
-        // 周期模板存储每个位置相对于周期平均值的偏移量
-        List<List<Double>> positionOffsets = new ArrayList<>(); // 每个位置的历史偏移量列表
-        for (int pos = 0; pos < params.s; pos++) {
-            positionOffsets.add(new ArrayList<>());
-        }
-        List<Double> cycleAverages = new ArrayList<>();
-        
-        // 计算每个完整周期的平均值和周期模板
-        int maxCyclesToUse = Math.min(5, numCompleteCycles); // 使用最近5个周期
+        // 计算每个完整周期的平均值（从最近的周期开始，使用最近5个周期）
+        int maxCyclesToUse = Math.min(5, numCompleteCycles);
+        double[] cycleAverages = new double[maxCyclesToUse];
         for (int i = 0; i < maxCyclesToUse; i++) {
-            int cycleIndex = numCompleteCycles - 1 - i; // 从最近的周期开始
-            int cycleStart = cycleIndex * params.s;
-            
-            // 计算这个周期的平均值
+            int cycleStart = (numCompleteCycles - 1 - i) * params.s;
             double cycleSum = 0;
             for (int pos = 0; pos < params.s && cycleStart + pos < n; pos++) {
-                cycleSum += originalData.get(cycleStart + pos).y;
-            }
-            double cycleAvg = cycleSum / params.s;
-            cycleAverages.add(cycleAvg);
-            
-            // 计算这个周期中每个位置相对于平均值的偏移
-            for (int pos = 0; pos < params.s && cycleStart + pos < n; pos++) {
-                double offset = originalData.get(cycleStart + pos).y - cycleAvg;
-                positionOffsets.get(pos).add(offset);
+                cycleSum += y[cycleStart + pos];
             }
+            cycleAverages[i] = cycleSum / params.s;
         }
         
-        // 计算周期模板：每个位置的平均偏移（使用加权平均，最近周期权重更高）
-        double[] cycleTemplate = new double[params.s];
-        for (int pos = 0; pos < params.s; pos++) {
-            List<Double> offsets = positionOffsets.get(pos);
-            if (!offsets.isEmpty()) {
-                double weightedSum = 0;
-                double totalWeight = 0;
-                for (int i = 0; i < offsets.size(); i++) {
-                    double weight = Math.pow(0.85, i); // 最近周期权重更高
-                    weightedSum += offsets.get(i) * weight;
-                    totalWeight += weight;
-                }
-                cycleTemplate[pos] = weightedSum / totalWeight;
-            }
+        // 周期模板：目标位置在各周期中相对于周期平均值的偏移，加权平均（最近周期权重更高）
+        double weightedSum = 0;
+        double totalWeight = 0;
+        for (int i = 0; i < maxCyclesToUse; i++) {
+            int cycleStart = (numCompleteCycles - 1 - i) * params.s;
+            double offset = y[cycleStart + targetPositionInCycle] - cycleAverages[i];
+            double weight = Math.pow(0.85, i);
+            weightedSum += offset * weight;
+            totalWeight += weight;
         }
+        double templateOffset = weightedSum / totalWeight;
         
         // 预测目标周期的平均值（使用最近几个周期的平均值和趋势）
         double predictedCycleAvg;
-        if (cycleAverages.size() >= 2) {
+        if (maxCyclesToUse >= 2) {
             // 计算周期平均值的趋势
             double trend = 0;
-            for (int i = 0; i < cycleAverages.size() - 1; i++) {
-                trend += cycleAverages.get(i) - cycleAverages.get(i + 1);
+            for (int i = 0; i < maxCyclesToUse - 1; i++) {
+                trend += cycleAverages[i] - cycleAverages[i + 1];
             }
-            trend /= (cycleAverages.size() - 1);
+            trend /= (maxCyclesToUse - 1);
             
             // 预测值 = 最近周期平均值 + 趋势 * 跨越的周期数
-            predictedCycleAvg = cycleAverages.get(0) + trend * cyclesAhead;
+            predictedCycleAvg = cycleAverages[0] + trend * cyclesAhead;
         } else {
-            predictedCycleAvg = cycleAverages.get(0);
+            predictedCycleAvg = cycleAverages[0];
         }
         
         // 如果预测还在当前周期内，需要考虑当前周期已过去的部分
@@ -549,19 +574,19 @@ public class ARIMAModel {
             double currentCycleSum = 0;
             int currentCycleCount = 0;
             for (int i = currentCycleStart; i < n; i++) {
-                currentCycleSum += originalData.get(i).y;
+                currentCycleSum += y[i];
                 currentCycleCount++;
             }
             if (currentCycleCount > 0 && currentCycleCount < params.s) {
                 // 当前周期还没结束，使用已过去部分的平均值
                 double currentCycleAvg = currentCycleSum / currentCycleCount;
                 // 混合使用：70%当前周期部分平均值 + 30%历史周期平均值
-                predictedCycleAvg = currentCycleAvg * 0.7 + cycleAverages.get(0) * 0.3;
+                predictedCycleAvg = currentCycleAvg * 0.7 + cycleAverages[0] * 0.3;
             }
         }
         
         // 最终预测值 = 预测周期平均值 + 周期模板中目标位置的偏移
-        double result = predictedCycleAvg + cycleTemplate[targetPositionInCycle];
+        double result = predictedCycleAvg + templateOffset;
         
         // 如果结果不合理，使用简单方法
         if (result < 0 || Double.isNaN(result) || Double.isInfinite(result)) {
@@ -569,9 +594,9 @@ public class ARIMAModel {
             int lastCycleStart = Math.max(0, n - params.s);
             int targetIdx = lastCycleStart + targetPositionInCycle;
             if (targetIdx >= 0 && targetIdx < n) {
-                result = originalData.get(targetIdx).y;
+                result = y[targetIdx];
             } else {
-                result = originalData.get(n - 1).y;
+                result = y[n - 1];
             }
         }
         
@@ -582,62 +607,45 @@ public class ARIMAModel {
      * 评估模型（在原始数据上计算）
      */
     public Metrics evaluate() {
-        if (originalData == null || originalData.isEmpty() || differencedData == null || differencedData.isEmpty()) {
+        if (values == null || length == 0 || differenced == null || diffLength == 0) {
             return new Metrics(0, 0, 0, Double.MAX_VALUE);
         }
         
-        // 在原始数据上计算拟合值和评估指标
-        List<Double> fittedValues = new ArrayList<>();
-        List<Double> originalValues = new ArrayList<>();
-        
-        // 计算差分数据的拟合值
-        int n = differencedData.size();
+        // 差分数据第 i 个拟合值对应原始数据第 d+i 个点，原始数据范围内的点都参与评估
+        int n = diffLength;
         int startIdx = Math.max(params.p, params.q);
+        int endIdx = Math.min(n, length - params.d);
+        
+        if (startIdx >= endIdx) {
+            return new Metrics(0, 0, 0, Double.MAX_VALUE);
+        }
+        
+        // 在原始数据上计算评估指标
+        double ssRes = 0;
+        double ssTot = 0;
+        double mae = 0;
+        double rmse = 0;
         
-        for (int i = startIdx; i < n; i++) {
+        double yMean = SeriesMath.mean(values, params.d + startIdx, params.d + endIdx);
+        
+        for (int i = startIdx; i < endIdx; i++) {
             double predictedDiff = constant;
             
             // AR部分
             for (int j = 0; j < params.p && i - j - 1 >= 0; j++) {
-                predictedDiff += arCoefficients[j] * differencedData.get(i - j - 1);
+                predictedDiff += arCoefficients[j] * differenced[i - j - 1];
             }
             
             // MA部分
-            for (int j = 0; j < params.q && residuals != null && i - j - 1 >= 0; j++) {
+            for (int j = 0; j < params.q && hasResiduals && i - j - 1 >= 0; j++) {
                 predictedDiff += maCoefficients[j] * residuals[i - j - 1];
             }
             
             // 反向差分得到原始数据的拟合值
-            // 对于一阶差分：Y(t) = Y(t-1) + diff(t)
+            // 对于一阶差分：Y(t) = Y(t-1) + diff(t)；第一个点使用第一个原始值
             int originalIdx = params.d + i;
-            if (originalIdx > 0 && originalIdx < originalData.size()) {
-                double fittedOriginal = originalData.get(originalIdx - 1).y + predictedDiff;
-                fittedValues.add(fittedOriginal);
-                originalValues.add(originalData.get(originalIdx).y);
-            } else if (originalIdx == params.d && originalIdx < originalData.size()) {
-                // 第一个点，使用第一个原始值
-                double fittedOriginal = originalData.get(0).y + predictedDiff;
-                fittedValues.add(fittedOriginal);
-                originalValues.add(originalData.get(originalIdx).y);
-            }
-        }
-        
-        if (fittedValues.isEmpty() || originalValues.isEmpty()) {
-            return new Metrics(0, 0, 0, Double.MAX_VALUE);
-        }
-        
-        // 在原始数据上计算评估指标
-        double ssRes = 0;
-        double ssTot = 0;
-        double mae = 0;
-        double rmse = 0;
-        
-        double yMean = originalValues.stream().mapToDouble(Double::doubleValue).average().orElse(0);
-        
-        int minSize = Math.min(fittedValues.size(), originalValues.size());
-        for (int i = 0; i < minSize; i++) {
-            double predicted = fittedValues.get(i);
-            double actual = originalValues.get(i);
+            double predicted = values[originalIdx > 0 ? originalIdx - 1 : 0] + predictedDiff;
+            double actual = values[originalIdx];
             double error = actual - predicted;
             
             ssRes += error * error;
@@ -646,10 +654,9 @@ public class ARIMAModel {
             rmse += error * error;
         }
         
-        if (minSize > 0) {
-            mae /= minSize;
-            rmse = Math.sqrt(rmse / minSize);
-        }
+        int count = endIdx - startIdx;
+        mae /= count;
+        rmse = Math.sqrt(rmse / count);
         
         double rSquared = 1 - (ssRes / ssTot);
         if (Double.isNaN(rSquared) || Double.isInfinite(rSquared) || ssTot < 1e-10) {
@@ -657,7 +664,7 @@ public class ARIMAModel {
         }
         
         // 计算AIC（简化版）
-        double aic = minSize * Math.log(Math.max(ssRes / minSize, 1e-10)) + 2 * (params.p + params.q + 1);
+        double aic = count * Math.log(Math.max(ssRes / count, 1e-10)) + 2 * (params.p + params.q + 1);
         
         return new Metrics(rSquared, mae, rmse, aic);
     }
@@ -671,7 +678,7 @@ public class ARIMAModel {
         }
         
         // 简化处理：使用最后一个原始值作为基准
-        if (originalData.size() < 2) {
+        if (length < 2) {
             return diffValue + mean;
         }
         
@@ -679,14 +686,14 @@ public class ARIMAModel {
         double result = diffValue;
         
         // 找到对应的原始数据点
-        int baseIdx = originalData.size() - differencedData.size() + position;
-        if (baseIdx > 0 && baseIdx < originalData.size()) {
-            result += originalData.get(baseIdx - 1).y;
+        int baseIdx = length - diffLength + position;
+        if (baseIdx > 0 && baseIdx < length) {
+            result += values[baseIdx - 1];
         } else if (baseIdx == 0) {
-            result += originalData.get(0).y;
+            result += values[0];
         } else {
             // 使用最后一个值
-            result += originalData.get(originalData.size() - 1).y;
+            result += values[length - 1];
         }
         
         return result;
@@ -708,29 +715,35 @@ public class ARIMAModel {
         }
         
         // 提取价格序列
-        List<Double> priceSeries = new ArrayList<>();
-        for (Point point : data) {
-            priceSeries.add(point.y);
+        int n = data.size();
+        double[] priceSeries = new double[n];
+        for (int i = 0; i < n; i++) {
+            priceSeries[i] = data.get(i).y;
         }
         
         // 检测是否需要差分（简化版：检查趋势）
-        int d = detectDifferencingOrder(priceSeries);
+        int d = detectDifferencingOrder(priceSeries, n);
         
         // 应用差分
-        List<Double> differenced = priceSeries;
-        for (int i = 0; i < d; i++) {
-            differenced = difference(differenced);
+        double[] differenced = priceSeries;
+        int diffLength = n;
+        if (d > 0) {
+            differenced = new double[n];
+            System.arraycopy(priceSeries, 0, differenced, 0, n);
+            for (int i = 0; i < d; i++) {
+                diffLength = SeriesMath.difference(differenced, diffLength, differenced);
+            }
         }
         
         // 检测季节性（简化版）
-        int s = detectSeasonality(priceSeries);
+        int s = detectSeasonality(priceSeries, n);
         
         // 选择AR和MA的阶数（简化版：使用ACF和PACF的简化分析）
-        int p = selectAROrder(differenced);
-        int q = selectMAOrder(differenced);
+        int p = selectAROrder(differenced, diffLength);
+        int q = selectMAOrder(diffLength);
         
         // 如果检测到季节性，使用SARIMA
-        if (s > 0 && differenced.size() > s * 2) {
+        if (s > 0 && diffLength > s * 2) {
             return new ARIMAParams(p, d, q, 1, 1, 1, s);
         } else {
             return new ARIMAParams(p, d, q);
@@ -741,16 +754,12 @@ public class ARIMAModel {
      * 检测差分阶数（简化版）
      * 针对小数据集：更谨慎地使用差分，避免过度差分导致数据点减少
      */
-    private static int detectDifferencingOrder(List<Double> series) {
-        int n = series.size();
-        
+    private static int detectDifferencingOrder(double[] series, int n) {
         // 对于小数据集（<30），除非趋势非常明显，否则不使用差分
         if (n < 30) {
             // 检查是否有非常明显的趋势
-            double firstThird = series.subList(0, n / 3)
-                .stream().mapToDouble(Double::doubleValue).average().orElse(0);
-            double lastThird = series.subList(2 * n / 3, n)
-                .stream().mapToDouble(Double::doubleValue).average().orElse(0);
+            double firstThird = SeriesMath.mean(series, 0, n / 3);
+            double lastThird = SeriesMath.mean(series, 2 * n / 3, n);
             
             double trend = Math.abs(lastThird - firstThird) / (Math.abs(firstThird) + 1e-10);
             
@@ -762,10 +771,8 @@ public class ARIMAModel {
         }
         
         // 对于较大数据集，使用原有逻辑
-        double firstHalf = series.subList(0, series.size() / 2)
-            .stream().mapToDouble(Double::doubleValue).average().orElse(0);
-        double secondHalf = series.subList(series.size() / 2, series.size())
-            .stream().mapToDouble(Double::doubleValue).average().orElse(0);
+        double firstHalf = SeriesMath.mean(series, 0, n / 2);
+        double secondHalf = SeriesMath.mean(series, n / 2, n);
         
         double trend = Math.abs(secondHalf - firstHalf) / (Math.abs(firstHalf) + 1e-10);
         
@@ -779,9 +786,7 @@ public class ARIMAModel {
      * 检测季节性（简化版）
      * 针对小数据集优化：降低检测阈值，优先检测短周期
      */
-    private static int detectSeasonality(List<Double> series) {
-        int n = series.size();
-        
+    private static int detectSeasonality(double[] series, int n) {
         // 对于小数据集，降低检测要求
         double correlationThreshold = n < 30 ? 0.25 : 0.3;
         int minCyclesRequired = n < 30 ? 1 : 2; // 小数据集只需要1个完整周期即可检测
@@ -791,7 +796,7 @@ public class ARIMAModel {
         
         for (int period : periods) {
             if (n >= period * minCyclesRequired) {
-                double correlation = calculatePeriodCorrelation(series, period);
+                double correlation = calculatePeriodCorrelation(series, n, period);
                 if (correlation > correlationThreshold) {
                     return period;
                 }
@@ -804,17 +809,16 @@ public class ARIMAModel {
     /**
      * 计算周期相关性
      */
-    private static double calculatePeriodCorrelation(List<Double> series, int period) {
-        int n = series.size();
-        double mean = series.stream().mapToDouble(Double::doubleValue).average().orElse(0);
+    private static double calculatePeriodCorrelation(double[] series, int n, int period) {
+        double mean = SeriesMath.mean(series, 0, n);
         
         double numerator = 0;
         double denominator1 = 0;
         double denominator2 = 0;
         
         for (int i = period; i < n; i++) {
-            double diff1 = series.get(i) - mean;
-            double diff2 = series.get(i - period) - mean;
+            double diff1 = series[i] - mean;
+            double diff2 = series[i - period] - mean;
             numerator += diff1 * diff2;
             denominator1 += diff1 * diff1;
             denominator2 += diff2 * diff2;
@@ -832,15 +836,14 @@ public class ARIMAModel {
      * 选择AR阶数（简化版）
      * 针对小数据集：优先使用低阶模型，避免过拟合
      */
-    private static int selectAROrder(List<Double> series) {
-        int n = series.size();
+    private static int selectAROrder(double[] series, int n) {
         if (n < 10) {
             return 1; // 数据太少，使用AR(1)
         }
         
         // 对于小数据集，限制最大阶数
         int maxLag = n < 30 ? 3 : 5;
-        double[] acf = calculateACF(series, maxLag);
+        double[] acf = SeriesMath.acf(series, n, maxLag);
         
         // 如果ACF快速衰减，使用AR(1)
         if (Math.abs(acf[1]) > 0.3 && (maxLag < 2 || Math.abs(acf[2]) < Math.abs(acf[1]) * 0.7)) {
@@ -858,8 +861,7 @@ public class ARIMAModel {
      * 选择MA阶数（简化版）
      * 针对小数据集：优先使用MA(1)，避免过拟合
      */
-    private static int selectMAOrder(List<Double> series) {
-        int n = series.size();
+    private static int selectMAOrder(int n) {
         if (n < 10) {
             return 1; // 数据太少，使用MA(1)
         }
@@ -869,49 +871,6 @@ public class ARIMAModel {
         return 1;
     }
     
-    /**
-     * 计算ACF（静态方法）
-     */
-    private static double[] calculateACF(List<Double> series, int maxLag) {
-        int n = series.size();
-        double mean = series.stream().mapToDouble(Double::doubleValue).average().orElse(0);
-        
-        double variance = 0;
-        for (Double value : series) {
-            variance += Math.pow(value - mean, 2);
-        }
-        variance /= n;
-        
-        if (variance < 1e-10) {
-            return new double[maxLag + 1];
-        }
-        
-        double[] acf = new double[maxLag + 1];
-        acf[0] = 1.0;
-        
-        for (int lag = 1; lag <= maxLag && lag < n; lag++) {
-            double covariance = 0;
-            for (int i = lag; i < n; i++) {
-                covariance += (series.get(i) - mean) * (series.get(i - lag) - mean);
-            }
-            covariance /= (n - lag);
-            acf[lag] = covariance / variance;
-        }
-        
-        return acf;
-    }
-    
-    /**
-     * 一阶差分（静态方法）
-     */
-    private static List<Double> difference(List<Double> series) {
-        List<Double> diff = new ArrayList<>();
-        for (int i = 1; i < series.size(); i++) {
-            diff.add(series.get(i) - series.get(i - 1));
-        }
-        return diff;
-    }
-    
     /**
      * 获取模型参数
      */
@@ -937,14 +896,14 @@ public class ARIMAModel {
      * 获取残差
      */
     public double[] getResiduals() {
-        return residuals != null ? residuals.clone() : new double[0];
+        return hasResiduals ? Arrays.copyOf(residuals, diffLength) : new double[0];
     }
     
     /**
      * 获取差分后的数据
      */
     public List<Double> getDifferencedData() {
-        return new ArrayList<>(differencedData);
+        return new ArrayList<>(SeriesMath.asList(differenced, diffLength));
     }
 }
 
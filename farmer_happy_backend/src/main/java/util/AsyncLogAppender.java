@@ -0,0 +1,228 @@
+// src/main/java/util/AsyncLogAppender.java
+package util;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于无锁环形缓冲区的异步日志输出
+ *
+ * 多个请求线程并发写入（每个槽位带序号，CAS 抢占写入位置），单个后台线程批量取出、
+ * 格式化后按批写到控制台（一批只调用一次 print）。缓冲区满时丢弃新日志并计数，不阻塞请求线程；
+ * 丢弃数量会在后台线程下一次输出时补打一行提示。
+ */
+final class AsyncLogAppender {
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    // 缓冲区为空时后台线程的最长休眠时间
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // 单批最多累积的条数，避免持续高负载时批次无限增长
+    private static final int MAX_BATCH = 256;
+
+    /**
+     * 一条待输出的日志
+     */
+    static final class Event {
+        final long timestamp;
+        final Logger.Level level;
+        final String loggerName;
+        final String threadName;
+        final String message;
+        final Throwable error;
+
+        Event(Logger.Level level, String loggerName, String message, Throwable error) {
+            this.timestamp = System.currentTimeMillis();
+            this.level = level;
+            this.loggerName = loggerName;
+            this.threadName = Thread.currentThread().getName();
+            this.message = message;
+            this.error = error;
+        }
+    }
+
+    private final int mask;
+    private final Event[] slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong writePosition = new AtomicLong();
+    // 只由后台线程推进；publishedReadPosition 供 flush() 观察进度
+    private long readPosition;
+    private volatile long publishedReadPosition;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final PrintStream out;
+    private final PrintStream err;
+    private final StringBuilder outBatch = new StringBuilder(16 * 1024);
+    private final StringBuilder errBatch = new StringBuilder(4 * 1024);
+    private final Thread worker;
+    private volatile boolean waiting;
+    private volatile boolean stopped;
+
+    AsyncLogAppender(int capacity, PrintStream out, PrintStream err) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.slots = new Event[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.out = out;
+        this.err = err;
+        this.worker = new Thread(this::drainLoop, "async-logger");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 放入一条日志，缓冲区已满时返回 false
+     */
+    boolean offer(Event event) {
+        long position;
+        while (true) {
+            position = writePosition.get();
+            int index = (int) position & mask;
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (writePosition.compareAndSet(position, position + 1)) {
+                    slots[index] = event;
+                    sequences.set(index, position + 1);
+                    break;
+                }
+            } else if (diff < 0) {
+                dropped.increment();
+                return false;
+            }
+        }
+        if (waiting) {
+            LockSupport.unpark(worker);
+        }
+        return true;
+    }
+
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    long getWrittenCount() {
+        return written.sum();
+    }
+
+    /**
+     * 等待缓冲区中已有的日志全部输出，最多等待 timeoutMillis
+     */
+    void flush(long timeoutMillis) {
+        long target = writePosition.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        LockSupport.unpark(worker);
+        while (publishedReadPosition < target && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * 输出剩余日志后停止后台线程
+     */
+    void shutdown(long timeoutMillis) {
+        flush(timeoutMillis);
+        stopped = true;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        long reportedDrops = 0;
+        while (true) {
+            int batch = 0;
+            Event event;
+            while ((event = poll()) != null) {
+                write(event);
+                if (++batch % MAX_BATCH == 0) {
+                    flushWriters();
+                }
+            }
+            long drops = dropped.sum();
+            if (drops != reportedDrops) {
+                writeLine(errBatch, TIME_FORMAT.format(Instant.now()) + " WARN  [async-logger] AsyncLogAppender - 日志缓冲区已满，累计丢弃 "
+                        + drops + " 条日志", null);
+                reportedDrops = drops;
+                batch++;
+            }
+            if (batch > 0) {
+                flushWriters();
+                publishedReadPosition = readPosition;
+                continue;
+            }
+            publishedReadPosition = readPosition;
+            if (stopped) {
+                flushWriters();
+                return;
+            }
+            waiting = true;
+            if (sequences.get((int) readPosition & mask) != readPosition + 1) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            waiting = false;
+        }
+    }
+
+    private Event poll() {
+        int index = (int) readPosition & mask;
+        if (sequences.get(index) != readPosition + 1) {
+            return null;
+        }
+        Event event = slots[index];
+        slots[index] = null;
+        sequences.set(index, readPosition + mask + 1);
+        readPosition++;
+        return event;
+    }
+
+    private void write(Event event) {
+        StringBuilder sb = new StringBuilder(64 + (event.message != null ? event.message.length() : 4));
+        sb.append(TIME_FORMAT.format(Instant.ofEpochMilli(event.timestamp))).append(' ');
+        String level = event.level.name();
+        sb.append(level);
+        for (int i = level.length(); i < 5; i++) {
+            sb.append(' ');
+        }
+        sb.append(" [").append(event.threadName).append("] ").append(event.loggerName).append(" - ")
+                .append(event.message);
+        writeLine(event.level.compareTo(Logger.Level.WARN) >= 0 ? errBatch : outBatch, sb.toString(), event.error);
+        written.increment();
+    }
+
+    private static void writeLine(StringBuilder batch, String line, Throwable error) {
+        batch.append(line).append(System.lineSeparator());
+        if (error != null) {
+            StringWriter trace = new StringWriter();
+            error.printStackTrace(new PrintWriter(trace));
+            batch.append(trace);
+        }
+    }
+
+    private void flushWriters() {
+        if (outBatch.length() > 0) {
+            out.print(outBatch);
+            out.flush();
+            outBatch.setLength(0);
+        }
+        if (errBatch.length() > 0) {
+            err.print(errBatch);
+            err.flush();
+            errBatch.setLength(0);
+        }
+    }
+}
@@ -2,12 +2,18 @@
 package util;
 
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.util.NumberToTextConverter;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.function.BiConsumer;
 
 /**
  * Excel文件解析器
@@ -36,93 +42,305 @@ public class ExcelParser {
         }
     }
     
+    /**
+     * 上传文件默认大小上限（10MB）
+     */
+    public static final long DEFAULT_MAX_FILE_BYTES = 10L * 1024 * 1024;
+
+    private static final String DEFAULT_SPEC = "默认";
+
+    // 支持的日期格式
+    private static final String[] DATE_PATTERNS = {
+        "yyyy-MM-dd",
+        "yyyy/MM/dd",
+        "yyyy-MM-dd HH:mm:ss",
+        "yyyy/MM/dd HH:mm:ss",
+        "MM/dd/yyyy",
+        "dd/MM/yyyy"
+    };
+
+    // 文件大小上限（字节），0 表示不限制
+    private final long maxFileBytes;
+    private SimpleDateFormat[] dateFormats;
+
+    public ExcelParser() {
+        this(DEFAULT_MAX_FILE_BYTES);
+    }
+
+    /**
+     * @param maxFileBytes 文件大小上限（字节），超出时抛出 IllegalArgumentException，0 表示不限制
+     */
+    public ExcelParser(long maxFileBytes) {
+        this.maxFileBytes = maxFileBytes;
+    }
+
+    /**
+     * 按列号读取一行中的单元格，规则与 POI 的 Cell 相同；
+     * xlsx 由 XlsxSheetReader 逐行流式提供，xls 由 HSSFWorkbook 的 Row 提供
+     */
+    interface SheetCells {
+        /** 最后一个单元格的列号，没有单元格时为 -1 */
+        int lastColumn();
+
+        /** 单元格类型，没有该单元格时为 null */
+        CellType getCellType(int col);
+
+        double getNumericCellValue(int col);
+
+        String getStringCellValue(int col);
+
+        boolean isCellDateFormatted(int col);
+
+        Date getDateCellValue(int col);
+    }
+
     /**
      * 解析Excel文件
      * @param inputStream Excel文件输入流
      * @param fileName 文件名（用于判断格式）
-     * @return 解析后的数据点列表
+     * @return 解析后的数据点列表（所有规格合并，按日期排序）
      * @throws Exception 解析异常
      */
     public List<DataPoint> parse(InputStream inputStream, String fileName) throws Exception {
-        Workbook workbook;
-        
-        // 根据文件扩展名选择不同的Workbook实现
+        List<DataPoint> dataPoints = new ArrayList<>();
+        read(inputStream, fileName, (spec, point) -> dataPoints.add(point));
+
+        // 按日期排序
+        dataPoints.sort(Comparator.comparing(DataPoint::getDate));
+
+        return dataPoints;
+    }
+
+    /**
+     * 解析Excel文件，按规格分组
+     *
+     * 表头中有“规格”列时按该列分组（空白规格归入“默认”），否则所有数据都属于“默认”。
+     * 日期、价格固定在第一、二列，与 parse 相同。
+     *
+     * @return 规格 -> 按日期排序的数据点，按规格首次出现的顺序
+     */
+    public Map<String, List<DataPoint>> parseBySpec(InputStream inputStream, String fileName) throws Exception {
+        Map<String, List<DataPoint>> bySpec = new LinkedHashMap<>();
+        read(inputStream, fileName, (spec, point) -> bySpec.computeIfAbsent(spec, k -> new ArrayList<>()).add(point));
+
+        for (List<DataPoint> series : bySpec.values()) {
+            series.sort(Comparator.comparing(DataPoint::getDate));
+        }
+        return bySpec;
+    }
+
+    /**
+     * 逐行读取第一个工作表，把每个有效数据点交给 sink
+     *
+     * xlsx 使用 POI 事件 API 流式读取（先写入临时文件，按 zip 条目边解压边解析，不会把工作表整体载入内存），
+     * 只有旧版 .xls 才使用 HSSFWorkbook。
+     */
+    private void read(InputStream inputStream, String fileName, BiConsumer<String, DataPoint> sink) throws Exception {
+        RowCollector collector = new RowCollector(sink);
+        int physicalRows;
+
+        // 根据文件扩展名选择不同的读取方式
         if (fileName.endsWith(".xlsx")) {
-            workbook = new XSSFWorkbook(inputStream);
+            Path file = Files.createTempFile("price-upload-", ".xlsx");
+            try {
+                copyWithLimit(inputStream, file);
+                physicalRows = XlsxSheetReader.read(file, collector);
+            } finally {
+                Files.deleteIfExists(file);
+            }
         } else if (fileName.endsWith(".xls")) {
-            workbook = new HSSFWorkbook(inputStream);
+            try (Workbook workbook = new HSSFWorkbook(new LimitedInputStream(inputStream, maxFileBytes))) {
+                Sheet sheet = workbook.getSheetAt(0); // 读取第一个工作表
+                physicalRows = sheet == null ? 0 : sheet.getPhysicalNumberOfRows();
+                if (physicalRows >= 2) {
+                    RowCells cells = new RowCells();
+                    for (int i = 0; i <= sheet.getLastRowNum(); i++) {
+                        Row row = sheet.getRow(i);
+                        if (row != null) {
+                            cells.row = row;
+                            collector.row(i, cells);
+                        }
+                    }
+                }
+            }
         } else {
             throw new IllegalArgumentException("不支持的文件格式，仅支持.xls和.xlsx");
         }
-        
-        try {
-            Sheet sheet = workbook.getSheetAt(0); // 读取第一个工作表
-            
-            if (sheet == null || sheet.getPhysicalNumberOfRows() < 2) {
-                throw new IllegalArgumentException("Excel文件至少需要2行数据（表头+数据）");
-            }
-            
-            List<DataPoint> dataPoints = new ArrayList<>();
-            
-            // 跳过表头，从第二行开始读取
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) {
-                    continue;
-                }
-                
-                // 读取日期（第一列）
-                Cell dateCell = row.getCell(0);
-                if (dateCell == null) {
-                    continue;
-                }
-                
-                Date date = parseDate(dateCell);
-                if (date == null) {
-                    continue;
-                }
-                
-                // 读取价格（第二列）
-                Cell priceCell = row.getCell(1);
-                if (priceCell == null) {
-                    continue;
-                }
-                
-                double price = parsePrice(priceCell);
-                if (price < 0) {
-                    continue; // 跳过负数价格
+
+        if (physicalRows < 2) {
+            throw new IllegalArgumentException("Excel文件至少需要2行数据（表头+数据）");
+        }
+        if (collector.count < 2) {
+            throw new IllegalArgumentException("数据量不足，至少需要2条有效数据");
+        }
+    }
+
+    private void copyWithLimit(InputStream in, Path file) throws IOException {
+        try (InputStream limited = new LimitedInputStream(in, maxFileBytes)) {
+            Files.copy(limited, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 读取超过上限时抛出 IllegalArgumentException，不关闭底层输入流
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long read;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) {
+            read += n;
+            if (limit > 0 && read > limit) {
+                throw new IllegalArgumentException("文件大小不能超过" + (limit / (1024 * 1024)) + "MB");
+            }
+        }
+
+        @Override
+        public void close() {
+            // 输入流由调用方关闭
+        }
+    }
+
+    /**
+     * 每行的处理：第 0 行是表头（查找“规格”列），其余行读取第一列日期、第二列价格
+     */
+    private final class RowCollector implements XlsxSheetReader.RowHandler {
+        private final BiConsumer<String, DataPoint> sink;
+        private int specColumn = -1;
+        int count;
+
+        RowCollector(BiConsumer<String, DataPoint> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void row(int rowNum, SheetCells cells) {
+            if (rowNum == 0) {
+                findSpecColumn(cells);
+                return;
+            }
+
+            // 读取日期（第一列）
+            if (cells.getCellType(0) == null) {
+                return;
+            }
+            Date date = parseDate(cells, 0);
+            if (date == null) {
+                return;
+            }
+
+            // 读取价格（第二列）
+            if (cells.getCellType(1) == null) {
+                return;
+            }
+            double price = parsePrice(cells, 1);
+            if (price < 0) {
+                return; // 跳过负数价格
+            }
+
+            sink.accept(parseSpec(cells), new DataPoint(date, price));
+            count++;
+        }
+
+        private void findSpecColumn(SheetCells cells) {
+            for (int col = 0; col <= cells.lastColumn(); col++) {
+                if (cells.getCellType(col) == CellType.STRING && "规格".equals(cells.getStringCellValue(col).trim())) {
+                    specColumn = col;
+                    return;
                 }
-                
-                dataPoints.add(new DataPoint(date, price));
-            }
-            
-            if (dataPoints.size() < 2) {
-                throw new IllegalArgumentException("数据量不足，至少需要2条有效数据");
-            }
-            
-            // 按日期排序
-            dataPoints.sort(Comparator.comparing(DataPoint::getDate));
-            
-            return dataPoints;
-            
-        } finally {
-            workbook.close();
+            }
+        }
+
+        private String parseSpec(SheetCells cells) {
+            if (specColumn < 0) {
+                return DEFAULT_SPEC;
+            }
+            CellType type = cells.getCellType(specColumn);
+            String spec = null;
+            if (type == CellType.STRING) {
+                spec = cells.getStringCellValue(specColumn).trim();
+            } else if (type == CellType.NUMERIC) {
+                spec = NumberToTextConverter.toText(cells.getNumericCellValue(specColumn));
+            }
+            return spec == null || spec.isEmpty() ? DEFAULT_SPEC : spec;
         }
     }
-    
+
+    /**
+     * HSSF 行的 SheetCells 视图
+     */
+    private static final class RowCells implements SheetCells {
+        Row row;
+
+        @Override
+        public int lastColumn() {
+            return row.getLastCellNum() - 1;
+        }
+
+        @Override
+        public CellType getCellType(int col) {
+            Cell cell = row.getCell(col);
+            return cell == null ? null : cell.getCellType();
+        }
+
+        @Override
+        public double getNumericCellValue(int col) {
+            return row.getCell(col).getNumericCellValue();
+        }
+
+        @Override
+        public String getStringCellValue(int col) {
+            return row.getCell(col).getStringCellValue();
+        }
+
+        @Override
+        public boolean isCellDateFormatted(int col) {
+            return DateUtil.isCellDateFormatted(row.getCell(col));
+        }
+
+        @Override
+        public Date getDateCellValue(int col) {
+            return row.getCell(col).getDateCellValue();
+        }
+    }
+
     /**
      * 解析日期单元格
      */
-    private Date parseDate(Cell cell) {
+    private Date parseDate(SheetCells cells, int col) {
         try {
-            if (cell.getCellType() == CellType.NUMERIC) {
+            CellType type = cells.getCellType(col);
+            if (type == CellType.NUMERIC) {
                 // Excel日期格式
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue();
+                if (cells.isCellDateFormatted(col)) {
+                    return cells.getDateCellValue(col);
                 }
-            } else if (cell.getCellType() == CellType.STRING) {
+            } else if (type == CellType.STRING) {
                 // 字符串格式的日期
-                String dateStr = cell.getStringCellValue().trim();
+                String dateStr = cells.getStringCellValue(col).trim();
                 return parseDateString(dateStr);
             }
         } catch (Exception e) {
@@ -135,20 +353,17 @@ public class ExcelParser {
      * 解析字符串格式的日期
      */
     private Date parseDateString(String dateStr) {
-        // 支持的日期格式
-        String[] patterns = {
-            "yyyy-MM-dd",
-            "yyyy/MM/dd",
-            "yyyy-MM-dd HH:mm:ss",
-            "yyyy/MM/dd HH:mm:ss",
-            "MM/dd/yyyy",
-            "dd/MM/yyyy"
-        };
-        
-        for (String pattern : patterns) {
+        // 解析器实例只在一次解析中使用，格式对象在各行之间复用
+        if (dateFormats == null) {
+            dateFormats = new SimpleDateFormat[DATE_PATTERNS.length];
+            for (int i = 0; i < DATE_PATTERNS.length; i++) {
+                dateFormats[i] = new SimpleDateFormat(DATE_PATTERNS[i]);
+                dateFormats[i].setLenient(false);
+            }
+        }
+
+        for (SimpleDateFormat sdf : dateFormats) {
             try {
-                SimpleDateFormat sdf = new SimpleDateFormat(pattern);
-                sdf.setLenient(false);
                 return sdf.parse(dateStr);
             } catch (Exception e) {
                 // 继续尝试下一个格式
@@ -161,18 +376,19 @@ public class ExcelParser {
     /**
      * 解析价格单元格
      */
-    private double parsePrice(Cell cell) {
+    private double parsePrice(SheetCells cells, int col) {
         try {
-            if (cell.getCellType() == CellType.NUMERIC) {
-                return cell.getNumericCellValue();
-            } else if (cell.getCellType() == CellType.STRING) {
-                String priceStr = cell.getStringCellValue().trim();
+            CellType type = cells.getCellType(col);
+            if (type == CellType.NUMERIC) {
+                return cells.getNumericCellValue(col);
+            } else if (type == CellType.STRING) {
+                String priceStr = cells.getStringCellValue(col).trim();
                 // 移除可能的货币符号和空格
                 priceStr = priceStr.replaceAll("[¥$€£,，\\s]", "");
                 return Double.parseDouble(priceStr);
-            } else if (cell.getCellType() == CellType.FORMULA) {
+            } else if (type == CellType.FORMULA) {
                 // 公式单元格，获取计算结果
-                return cell.getNumericCellValue();
+                return cells.getNumericCellValue(col);
             }
         } catch (Exception e) {
             // 解析失败
@@ -180,6 +396,3 @@ public class ExcelParser {
         return -1;
     }
 }
-
-
-
@@ -2,6 +2,7 @@
 package util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -50,9 +51,13 @@ public class HoltWintersModel {
         }
     }
 
-    private List<Double> y = Collections.emptyList();
-    private List<Double> fitted = Collections.emptyList();
-    private List<Double> seasonals = Collections.emptyList();
+    // 训练序列取 y[0..n)，季节项取 seasonals[0..n)；两者是可复用的缓冲区，重复 fit 时不再重新分配
+    private double[] y = new double[0];
+    private int n = 0;
+    private double[] seasonals = new double[0];
+    // 每次 fit 新建，拟合结果和 getFitted() 共用同一份只读数据
+    private double[] fitted = new double[0];
+    private double[] seasonalBase = new double[1]; // forecastIterative 的季节项工作区
     private double level = 0.0;
     private double trend = 0.0;
     private int m = 1;
@@ -80,10 +85,32 @@ public class HoltWintersModel {
      * - psi ∈ (0,1]：季节项在预测期的衰减（越远季节振幅越小）
      */
     public FitResult fit(List<Double> y, int seasonLength, double alpha, double beta, double gamma, double phi, double psi) {
-        if (y == null || y.isEmpty()) {
-            this.y = Collections.emptyList();
-            this.fitted = Collections.emptyList();
-            this.seasonals = Collections.emptyList();
+        int size = y == null ? 0 : y.size();
+        this.y = SeriesMath.ensureCapacity(this.y, size);
+        for (int i = 0; i < size; i++) {
+            this.y[i] = y.get(i);
+        }
+        return fitLoaded(size, seasonLength, alpha, beta, gamma, phi, psi);
+    }
+
+    /**
+     * 与 {@link #fit(List, int, double, double, double, double, double)} 相同，序列取 y[0..length)。
+     * 数据复制到模型内部的缓冲区，同一个实例反复拟合（如参数网格搜索）时不产生逐点的装箱对象。
+     */
+    public FitResult fit(double[] y, int length, int seasonLength, double alpha, double beta, double gamma, double phi, double psi) {
+        int size = y == null ? 0 : length;
+        this.y = SeriesMath.ensureCapacity(this.y, size);
+        if (size > 0) {
+            System.arraycopy(y, 0, this.y, 0, size);
+        }
+        return fitLoaded(size, seasonLength, alpha, beta, gamma, phi, psi);
+    }
+
+    // 序列已在 this.y[0..size) 中
+    private FitResult fitLoaded(int size, int seasonLength, double alpha, double beta, double gamma, double phi, double psi) {
+        if (size == 0) {
+            this.n = 0;
+            this.fitted = new double[0];
             this.level = 0.0;
             this.trend = 0.0;
             this.m = Math.max(1, seasonLength);
@@ -95,7 +122,9 @@ public class HoltWintersModel {
             return new FitResult(Collections.emptyList(), 0.0, 0.0, this.phi, this.m, alpha, beta, gamma);
         }
 
-        this.y = new ArrayList<>(y);
+        double[] y = this.y;
+        int n = size;
+        this.n = n;
         this.alpha = clamp01(alpha);
         this.beta = clamp01(beta);
         this.gamma = clamp01(gamma);
@@ -103,30 +132,30 @@ public class HoltWintersModel {
         this.psi = clampPhi(psi);
 
         // 数据不足以估计季节项时，退化为无季节（m=1, gamma=0）
-        if (seasonLength <= 1 || y.size() < 2 * seasonLength) {
+        if (seasonLength <= 1 || n < 2 * seasonLength) {
             this.m = 1;
             this.gamma = 0.0;
         } else {
             this.m = seasonLength;
         }
 
-        int n = y.size();
-        List<Double> fittedLocal = new ArrayList<>(Collections.nCopies(n, 0.0));
-        List<Double> seasonalsLocal = new ArrayList<>(Collections.nCopies(n, 0.0));
+        double[] fittedLocal = new double[n];
+        double[] seasonalsLocal = SeriesMath.ensureCapacity(this.seasonals, n);
+        Arrays.fill(seasonalsLocal, 0, n, 0.0);
 
         // 初始化 level / trend / seasonals（加性）
         double l0;
         double b0;
         if (m == 1) {
-            l0 = y.get(0);
-            b0 = (n >= 2) ? (y.get(1) - y.get(0)) : 0.0;
+            l0 = y[0];
+            b0 = (n >= 2) ? (y[1] - y[0]) : 0.0;
         } else {
-            double season1Avg = mean(y, 0, m);
-            double season2Avg = mean(y, m, 2 * m);
+            double season1Avg = mean(y, n, 0, m);
+            double season2Avg = mean(y, n, m, 2 * m);
             l0 = season1Avg;
             b0 = (season2Avg - season1Avg) / m;
             for (int i = 0; i < m; i++) {
-                seasonalsLocal.set(i, y.get(i) - season1Avg);
+                seasonalsLocal[i] = y[i] - season1Avg;
             }
         }
 
@@ -134,18 +163,18 @@ public class HoltWintersModel {
         double bt = b0;
 
         // t=0 的拟合值直接置为真实值（避免前期误差主导）
-        fittedLocal.set(0, y.get(0));
+        fittedLocal[0] = y[0];
 
         for (int t = 1; t < n; t++) {
-            double st_m = (m == 1 || t - m < 0) ? 0.0 : seasonalsLocal.get(t - m);
+            double st_m = (m == 1 || t - m < 0) ? 0.0 : seasonalsLocal[t - m];
 
             // 一步预测（用于拟合/评估）
             // 阻尼趋势：一步预测使用 (lt + phi * bt)
             double yhat = (lt + this.phi * bt) + st_m;
-            fittedLocal.set(t, yhat);
+            fittedLocal[t] = yhat;
 
             // 更新
-            double yt = y.get(t);
+            double yt = y[t];
             // 阻尼趋势版本更新（参考 ETS(A,Ad,A) 的常见形式）
             double newLevel = this.alpha * (yt - st_m) + (1.0 - this.alpha) * (lt + this.phi * bt);
             double newTrend = this.beta * (newLevel - lt) + (1.0 - this.beta) * (this.phi * bt);
@@ -156,12 +185,12 @@ public class HoltWintersModel {
                 newSeasonal = this.gamma * (yt - newLevel) + (1.0 - this.gamma) * st_m;
             } else {
                 // 还没走满一个季节，沿用初始化季节项
-                newSeasonal = seasonalsLocal.get(t);
+                newSeasonal = seasonalsLocal[t];
             }
 
             lt = newLevel;
             bt = newTrend;
-            seasonalsLocal.set(t, newSeasonal);
+            seasonalsLocal[t] = newSeasonal;
         }
 
         this.level = lt;
@@ -170,7 +199,7 @@ public class HoltWintersModel {
         this.seasonals = seasonalsLocal;
 
         return new FitResult(
-            new ArrayList<>(fittedLocal),
+            SeriesMath.asList(fittedLocal, n),
             this.level,
             this.trend,
             this.phi,
@@ -183,24 +212,28 @@ public class HoltWintersModel {
 
     public List<Double> forecast(int steps) {
         if (steps <= 0) return Collections.emptyList();
-        if (y == null || y.isEmpty()) {
-            List<Double> out = new ArrayList<>(steps);
-            for (int i = 0; i < steps; i++) out.add(0.0);
+        return toList(forecast(steps, new double[steps]), steps);
+    }
+
+    /**
+     * 与 {@link #forecast(int)} 相同，结果写入 out[0..steps)，out 可以在多次调用间复用
+     */
+    public double[] forecast(int steps, double[] out) {
+        if (steps <= 0) return out;
+        if (n == 0) {
+            Arrays.fill(out, 0, steps, 0.0);
             return out;
         }
 
-        int n = y.size();
-        List<Double> out = new ArrayList<>(steps);
-        double last = y.get(n - 1);
-        double maxStepDelta = estimateMaxStepDelta(y);
-        double prev = last;
+        double maxStepDelta = estimateMaxStepDelta(y, n);
+        double prev = y[n - 1];
 
         for (int h = 1; h <= steps; h++) {
             double seasonal = 0.0;
-            if (m > 1 && seasonals != null && !seasonals.isEmpty()) {
+            if (m > 1) {
                 int idx = (n - m) + ((h - 1) % m);
-                if (idx >= 0 && idx < seasonals.size()) {
-                    seasonal = seasonals.get(idx);
+                if (idx >= 0 && idx < n) {
+                    seasonal = seasonals[idx];
                 }
             }
             // 季节项衰减：越远的预测，季节振幅逐步降低（避免机械重复）
@@ -225,7 +258,7 @@ public class HoltWintersModel {
                 if (yhat < 0) yhat = 0.0;
             }
             prev = yhat;
-            out.add(yhat);
+            out[h - 1] = yhat;
         }
         return out;
     }
@@ -239,29 +272,34 @@ public class HoltWintersModel {
      */
     public List<Double> forecastIterative(int steps) {
         if (steps <= 0) return Collections.emptyList();
-        if (y == null || y.isEmpty()) {
-            List<Double> out = new ArrayList<>(steps);
-            for (int i = 0; i < steps; i++) out.add(0.0);
+        return toList(forecastIterative(steps, new double[steps]), steps);
+    }
+
+    /**
+     * 与 {@link #forecastIterative(int)} 相同，结果写入 out[0..steps)，out 可以在多次调用间复用
+     */
+    public double[] forecastIterative(int steps, double[] out) {
+        if (steps <= 0) return out;
+        if (n == 0) {
+            Arrays.fill(out, 0, steps, 0.0);
             return out;
         }
 
-        int n = y.size();
-        List<Double> out = new ArrayList<>(steps);
-        double maxStepDelta = estimateMaxStepDelta(y);
-        double prev = y.get(n - 1);
+        double maxStepDelta = estimateMaxStepDelta(y, n);
+        double prev = y[n - 1];
 
         // 本地状态（不污染模型本体，便于同一个模型多次调用）
         double lt = this.level;
         double bt = this.trend;
 
         // 取最后一个完整季节周期的季节项作为未来起点（加性）
-        double[] seasonalBase = new double[Math.max(1, this.m)];
-        if (this.m > 1 && this.seasonals != null && !this.seasonals.isEmpty()) {
+        double[] seasonalBase = this.seasonalBase = SeriesMath.ensureCapacity(this.seasonalBase, Math.max(1, this.m));
+        if (this.m > 1) {
             int start = Math.max(0, n - this.m);
             for (int i = 0; i < this.m; i++) {
                 int idx = start + i;
-                if (idx >= 0 && idx < this.seasonals.size()) {
-                    seasonalBase[i] = this.seasonals.get(idx);
+                if (idx >= 0 && idx < n) {
+                    seasonalBase[i] = this.seasonals[idx];
                 } else {
                     seasonalBase[i] = 0.0;
                 }
@@ -301,23 +339,28 @@ public class HoltWintersModel {
             lt = newLevel;
             bt = newTrend;
             prev = yhat;
-            out.add(yhat);
+            out[h - 1] = yhat;
         }
 
         return out;
     }
 
     public List<Double> getFitted() {
-        return fitted;
+        return SeriesMath.asList(fitted, fitted.length);
+    }
+
+    private static List<Double> toList(double[] values, int length) {
+        List<Double> out = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) out.add(values[i]);
+        return out;
     }
 
-    private static double mean(List<Double> y, int start, int endExclusive) {
-        int n = y.size();
+    private static double mean(double[] y, int n, int start, int endExclusive) {
         int a = Math.max(0, start);
         int b = Math.min(n, endExclusive);
         if (a >= b) return 0.0;
         double sum = 0.0;
-        for (int i = a; i < b; i++) sum += y.get(i);
+        for (int i = a; i < b; i++) sum += y[i];
         return sum / (b - a);
     }
 
@@ -345,20 +388,20 @@ public class HoltWintersModel {
      * 从历史序列估计“单日最大合理变动”，用于限制预测发散。
      * 采用最近窗口的一阶差分绝对值的中位数（robust），再乘以倍数；并叠加一个最小比例阈值。
      */
-    private static double estimateMaxStepDelta(List<Double> y) {
-        if (y == null || y.size() < 2) return 0.0;
-        int n = y.size();
+    private static double estimateMaxStepDelta(double[] y, int n) {
+        if (y == null || n < 2) return 0.0;
         int window = Math.min(30, n - 1);
-        List<Double> diffs = new ArrayList<>();
+        double[] diffs = new double[window];
+        int count = 0;
         for (int i = n - window; i < n; i++) {
             if (i <= 0) continue;
-            double d = y.get(i) - y.get(i - 1);
-            diffs.add(Math.abs(d));
+            double d = y[i] - y[i - 1];
+            diffs[count++] = Math.abs(d);
         }
-        if (diffs.isEmpty()) return 0.0;
-        Collections.sort(diffs);
-        double med = diffs.get(diffs.size() / 2);
-        double last = y.get(n - 1);
+        if (count == 0) return 0.0;
+        Arrays.sort(diffs, 0, count);
+        double med = diffs[count / 2];
+        double last = y[n - 1];
         double minDelta = Math.max(0.02, Math.abs(last) * 0.02); // 至少允许 ~2%/天
         double robustDelta = med * 8.0; // 允许约 8×中位差分（可抵抗偶发噪声）
         return Math.max(minDelta, robustDelta);
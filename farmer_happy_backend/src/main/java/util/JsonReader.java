@@ -0,0 +1,448 @@
+// src/main/java/util/JsonReader.java
+package util;
+
+import exception.RequestBodyTooLargeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 流式 JSON 请求体解析器
+ *
+ * 直接从输入流按字节解析，只扫描一遍，不把请求体先读成字符串：
+ * - 不含转义、且完整落在读缓冲区内的字符串直接由缓冲区构造；
+ * - 跨缓冲区的大字符串（如 Base64 图片、价格文件）按 Content-Length 一次分配暂存区，
+ *   最终只复制一次生成 String；纯 ASCII 内容按 ISO-8859-1 构造，省去 UTF-8 解码。
+ * - 读取的字节数超过上限时抛出 {@link RequestBodyTooLargeException}。
+ *
+ * 返回结构与原 application.parseJsonString 保持一致：顶层为 HashMap，数组为 ArrayList，
+ * 整数为 Integer（超出范围时为 Long），小数为 Double，嵌套对象保留为原始 JSON 文本。
+ */
+public final class JsonReader {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private final InputStream in;
+    private final long maxBytes;
+    private final long expectedLength;
+    private final byte[] buf;
+    private int pos;
+    private int limit;
+    // 已从输入流读取的总字节数
+    private long consumed;
+
+    // 跨缓冲区字符串和嵌套对象的暂存区，同一次解析内复用
+    private byte[] scratch;
+    private int scratchLen;
+
+    private JsonReader(InputStream in, long maxBytes, long expectedLength) {
+        this.in = in;
+        this.maxBytes = maxBytes;
+        this.expectedLength = expectedLength;
+        this.buf = BUFFERS.get();
+    }
+
+    /**
+     * 解析 JSON 对象请求体
+     *
+     * @param in             请求体输入流
+     * @param maxBytes       允许的最大字节数，0 或负数表示不限制
+     * @param expectedLength Content-Length，未知时传 -1
+     * @return 请求体为空时返回空 Map
+     * @throws RequestBodyTooLargeException 请求体超过 maxBytes
+     * @throws IOException                  读取失败或 JSON 格式错误
+     */
+    public static Map<String, Object> parseObject(InputStream in, long maxBytes, long expectedLength) throws IOException {
+        if (maxBytes > 0 && expectedLength > maxBytes) {
+            throw new RequestBodyTooLargeException(maxBytes);
+        }
+        return new JsonReader(in, maxBytes, expectedLength).readTopLevel();
+    }
+
+    private Map<String, Object> readTopLevel() throws IOException {
+        Map<String, Object> result = new HashMap<>();
+        int c = skipWhitespace();
+        if (c == -1) {
+            return result;
+        }
+        if (c != '{') {
+            throw error("请求体不是JSON对象");
+        }
+        pos++;
+        c = skipWhitespace();
+        if (c == '}') {
+            pos++;
+            return result;
+        }
+        while (true) {
+            if (c != '"') {
+                throw error("键必须用双引号包围");
+            }
+            pos++;
+            String key = readString();
+            if (skipWhitespace() != ':') {
+                throw error("键后缺少冒号");
+            }
+            pos++;
+            result.put(key, readValue());
+            c = skipWhitespace();
+            if (c == ',') {
+                pos++;
+                c = skipWhitespace();
+            } else if (c == '}') {
+                pos++;
+                return result;
+            } else {
+                throw error("缺少逗号或右大括号");
+            }
+        }
+    }
+
+    private Object readValue() throws IOException {
+        int c = skipWhitespace();
+        switch (c) {
+            case '"':
+                pos++;
+                return readString();
+            case '[':
+                pos++;
+                return readArray();
+            case '{':
+                // 与原解析器一致，嵌套对象保留原始文本
+                return readRawObject();
+            case 't':
+                expectLiteral("true");
+                return Boolean.TRUE;
+            case 'f':
+                expectLiteral("false");
+                return Boolean.FALSE;
+            case 'n':
+                expectLiteral("null");
+                return null;
+            case -1:
+                throw error("请求体意外结束");
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return readNumber();
+                }
+                throw error("无法识别的值");
+        }
+    }
+
+    private List<Object> readArray() throws IOException {
+        List<Object> list = new ArrayList<>();
+        int c = skipWhitespace();
+        if (c == ']') {
+            pos++;
+            return list;
+        }
+        while (true) {
+            list.add(readValue());
+            c = skipWhitespace();
+            if (c == ',') {
+                pos++;
+            } else if (c == ']') {
+                pos++;
+                return list;
+            } else {
+                throw error("缺少逗号或右中括号");
+            }
+        }
+    }
+
+    /**
+     * 读取字符串内容（开始引号已消费）
+     */
+    private String readString() throws IOException {
+        scratchLen = 0;
+        boolean ascii = true;
+        boolean spilled = false;
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw error("字符串未闭合");
+            }
+            int start = pos;
+            while (pos < limit) {
+                byte b = buf[pos];
+                if (b == '"' || b == '\\') {
+                    break;
+                }
+                if (b < 0) {
+                    ascii = false;
+                }
+                pos++;
+            }
+            if (!spilled && pos < limit && buf[pos] == '"') {
+                // 常见情况：整个字符串都在缓冲区内，直接构造
+                String value = new String(buf, start, pos - start, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+                pos++;
+                return value;
+            }
+            appendScratch(buf, start, pos - start);
+            spilled = true;
+            if (pos == limit) {
+                continue;
+            }
+            if (buf[pos] == '"') {
+                pos++;
+                return new String(scratch, 0, scratchLen, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+            }
+            pos++;
+            if (!readEscape(read())) {
+                ascii = false;
+            }
+        }
+    }
+
+    /**
+     * 解码一个转义序列写入暂存区，返回写入的内容是否为 ASCII
+     */
+    private boolean readEscape(int e) throws IOException {
+        switch (e) {
+            case '"':
+            case '\\':
+            case '/':
+                appendScratch((byte) e);
+                return true;
+            case 'b': appendScratch((byte) '\b'); return true;
+            case 'f': appendScratch((byte) '\f'); return true;
+            case 'n': appendScratch((byte) '\n'); return true;
+            case 'r': appendScratch((byte) '\r'); return true;
+            case 't': appendScratch((byte) '\t'); return true;
+            case 'u':
+                return readUnicodeEscape();
+            case -1:
+                throw error("字符串未闭合");
+            default:
+                // 与原解析器一致，未知转义保留字符本身
+                appendScratch((byte) e);
+                return e < 0x80;
+        }
+    }
+
+    private boolean readUnicodeEscape() throws IOException {
+        char c = (char) readHex4();
+        if (!Character.isHighSurrogate(c)) {
+            appendChar(c);
+            return c < 0x80;
+        }
+        // 代理对由两个连续的 \\u 转义组成
+        if (peek() == '\\') {
+            pos++;
+            int next = read();
+            if (next == 'u') {
+                char low = (char) readHex4();
+                if (Character.isLowSurrogate(low)) {
+                    appendCodePoint(Character.toCodePoint(c, low));
+                } else {
+                    appendScratch((byte) '?');
+                    appendChar(low);
+                }
+                return false;
+            }
+            appendScratch((byte) '?');
+            readEscape(next);
+            return false;
+        }
+        appendScratch((byte) '?');
+        return true;
+    }
+
+    private int readHex4() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int d = Character.digit(read(), 16);
+            if (d < 0) {
+                throw error("无效的\\u转义");
+            }
+            value = (value << 4) | d;
+        }
+        return value;
+    }
+
+    /**
+     * 读取嵌套对象的原始文本（从 '{' 到匹配的 '}'）
+     */
+    private String readRawObject() throws IOException {
+        scratchLen = 0;
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw error("对象未闭合");
+            }
+            int start = pos;
+            while (pos < limit) {
+                byte b = buf[pos++];
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        inString = false;
+                    }
+                } else if (b == '"') {
+                    inString = true;
+                } else if (b == '{') {
+                    depth++;
+                } else if (b == '}' && --depth == 0) {
+                    appendScratch(buf, start, pos - start);
+                    return new String(scratch, 0, scratchLen, StandardCharsets.UTF_8);
+                }
+            }
+            appendScratch(buf, start, pos - start);
+        }
+    }
+
+    private Object readNumber() throws IOException {
+        StringBuilder sb = new StringBuilder(16);
+        boolean decimal = false;
+        while (true) {
+            int c = peek();
+            if (c >= '0' && c <= '9' || c == '-' || c == '+') {
+                sb.append((char) c);
+            } else if (c == '.' || c == 'e' || c == 'E') {
+                sb.append((char) c);
+                decimal = true;
+            } else {
+                break;
+            }
+            pos++;
+        }
+        String text = sb.toString();
+        try {
+            if (decimal) {
+                return Double.parseDouble(text);
+            }
+            try {
+                return Integer.parseInt(text);
+            } catch (NumberFormatException e) {
+                try {
+                    return Long.parseLong(text);
+                } catch (NumberFormatException overflow) {
+                    return Double.parseDouble(text);
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw error("无效的数字: " + text);
+        }
+    }
+
+    private void expectLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw error("无效的字面量，期望 " + literal);
+            }
+        }
+    }
+
+    // ============= 缓冲区 =============
+
+    private boolean fill() throws IOException {
+        int n = in.read(buf, 0, buf.length);
+        pos = 0;
+        if (n <= 0) {
+            limit = 0;
+            return false;
+        }
+        limit = n;
+        consumed += n;
+        if (maxBytes > 0 && consumed > maxBytes) {
+            throw new RequestBodyTooLargeException(maxBytes);
+        }
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buf[pos++] & 0xFF;
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buf[pos] & 0xFF;
+    }
+
+    private int skipWhitespace() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+            pos++;
+        }
+    }
+
+    private IOException error(String message) {
+        long offset = consumed - (limit - pos);
+        return new IOException("JSON格式错误: " + message + "（位置 " + offset + "）");
+    }
+
+    // ============= 暂存区 =============
+
+    private void ensureScratch(int extra) {
+        int needed = scratchLen + extra;
+        if (scratch == null) {
+            // 已知 Content-Length 时按剩余长度一次分配，大字符串不会反复扩容
+            long remaining = expectedLength > 0 ? expectedLength - (consumed - limit) : 0;
+            int initial = (int) Math.min(Math.max(remaining, 2L * BUFFER_SIZE), Integer.MAX_VALUE - 8);
+            scratch = new byte[Math.max(initial, needed)];
+        } else if (needed > scratch.length) {
+            scratch = Arrays.copyOf(scratch, Math.max(needed, scratch.length * 2));
+        }
+    }
+
+    private void appendScratch(byte[] src, int offset, int length) {
+        if (length == 0) {
+            return;
+        }
+        ensureScratch(length);
+        System.arraycopy(src, offset, scratch, scratchLen, length);
+        scratchLen += length;
+    }
+
+    private void appendScratch(byte b) {
+        ensureScratch(1);
+        scratch[scratchLen++] = b;
+    }
+
+    private void appendChar(char c) {
+        if (Character.isSurrogate(c)) {
+            appendScratch((byte) '?');
+        } else {
+            appendCodePoint(c);
+        }
+    }
+
+    private void appendCodePoint(int cp) {
+        ensureScratch(4);
+        if (cp < 0x80) {
+            scratch[scratchLen++] = (byte) cp;
+        } else if (cp < 0x800) {
+            scratch[scratchLen++] = (byte) (0xC0 | (cp >> 6));
+            scratch[scratchLen++] = (byte) (0x80 | (cp & 0x3F));
+        } else if (cp < 0x10000) {
+            scratch[scratchLen++] = (byte) (0xE0 | (cp >> 12));
+            scratch[scratchLen++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+            scratch[scratchLen++] = (byte) (0x80 | (cp & 0x3F));
+        } else {
+            scratch[scratchLen++] = (byte) (0xF0 | (cp >> 18));
+            scratch[scratchLen++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+            scratch[scratchLen++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+            scratch[scratchLen++] = (byte) (0x80 | (cp & 0x3F));
+        }
+    }
+}
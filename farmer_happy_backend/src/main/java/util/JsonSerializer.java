@@ -0,0 +1,14 @@
+// src/main/java/util/JsonSerializer.java
+package util;
+
+import java.io.IOException;
+
+/**
+ * 单个类型的 JSON 序列化器
+ * 在 {@link JsonWriter#register(Class, JsonSerializer)} 中按类型注册一次，
+ * 写出时直接调用 JsonWriter 的流式方法，不经过中间字符串。
+ */
+public interface JsonSerializer<T> {
+
+    void write(JsonWriter out, T value) throws IOException;
+}
@@ -0,0 +1,500 @@
+// src/main/java/util/JsonWriter.java
+package util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 流式 JSON 写出器
+ *
+ * 直接把 UTF-8 字节写进复用的线程本地缓冲区，不拼接中间字符串：
+ * - 响应体能放进缓冲区时，由 {@link Sink#complete} 按固定 Content-Length 一次写出；
+ * - 缓冲区第一次写满时调用 {@link Sink#open} 提交响应头（分块传输），之后边写边刷出。
+ *
+ * DTO 的序列化器通过 {@link #register(Class, JsonSerializer)} 按类型注册一次，
+ * 写出时按 getClass() 查表分派，不再走 instanceof 链，也不使用反射。
+ * 逗号由写出器根据嵌套层级自动补齐，序列化器只需要按顺序写字段。
+ */
+public final class JsonWriter {
+
+    /**
+     * 写出目标
+     */
+    public interface Sink {
+        /**
+         * 缓冲区第一次写满时调用，返回后续分块写出的输出流
+         */
+        OutputStream open() throws IOException;
+
+        /**
+         * 全部内容都在缓冲区内时调用，可以按固定长度一次写出
+         */
+        void complete(byte[] bytes, int length) throws IOException;
+    }
+
+    private static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+    // 单个字符转义后最多占 6 个字节（反斜杠加 u00XX）
+    private static final int MAX_CHAR_BYTES = 6;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LONG_MIN = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private static final Map<Class<?>, JsonSerializer<Object>> SERIALIZERS = new ConcurrentHashMap<>();
+    // 查找失败的缓存标记，避免每次都沿父类链查找
+    private static final JsonSerializer<Object> NONE = (out, value) -> { };
+
+    private static volatile int bufferSize = DEFAULT_BUFFER_SIZE;
+    private static final ThreadLocal<JsonWriter> LOCAL = ThreadLocal.withInitial(() -> new JsonWriter(bufferSize));
+
+    private final byte[] buf;
+    private int pos;
+    private Sink sink;
+    private OutputStream out;
+    private boolean inUse;
+
+    // hasElement[depth] 表示当前层级是否已写过元素，用于自动补逗号
+    private boolean[] hasElement = new boolean[16];
+    private int depth;
+    private boolean afterName;
+
+    private JsonWriter(int size) {
+        this.buf = new byte[Math.max(256, size)];
+    }
+
+    /**
+     * 设置线程本地缓冲区大小，超过该大小的响应改为分块传输。
+     * 只对之后新建缓冲区的线程生效，应在服务启动时调用。
+     */
+    public static void setBufferSize(int size) {
+        bufferSize = size;
+    }
+
+    /**
+     * 注册某个类型的序列化器，应在服务启动时完成；子类会沿用父类的序列化器
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void register(Class<T> type, JsonSerializer<? super T> serializer) {
+        SERIALIZERS.put(type, (JsonSerializer<Object>) serializer);
+        SERIALIZERS.values().removeIf(s -> s == NONE);
+    }
+
+    /**
+     * 获取当前线程复用的写出器；同一线程嵌套使用时返回独立实例
+     */
+    public static JsonWriter acquire(Sink sink) {
+        JsonWriter writer = LOCAL.get();
+        if (writer.inUse) {
+            writer = new JsonWriter(writer.buf.length);
+        }
+        writer.reset(sink);
+        return writer;
+    }
+
+    /**
+     * 序列化为 UTF-8 字节数组
+     */
+    public static byte[] toBytes(Object value) throws IOException {
+        BufferSink target = new BufferSink();
+        JsonWriter writer = acquire(target);
+        try {
+            writer.writeValue(value);
+            writer.finish();
+        } finally {
+            writer.release();
+        }
+        return target.result != null ? target.result : target.stream.toByteArray();
+    }
+
+    /**
+     * 序列化为字符串
+     */
+    public static String toJson(Object value) throws IOException {
+        return new String(toBytes(value), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 是否已经开始分块写出；已提交时响应头无法再修改
+     */
+    public boolean isCommitted() {
+        return out != null;
+    }
+
+    /**
+     * 写出缓冲区中剩余的内容
+     */
+    public void finish() throws IOException {
+        if (depth != 0) {
+            throw new IllegalStateException("JSON 结构未闭合");
+        }
+        if (out == null) {
+            sink.complete(buf, pos);
+        } else {
+            out.write(buf, 0, pos);
+            pos = 0;
+            out.flush();
+        }
+    }
+
+    /**
+     * 归还写出器，之后不能再使用
+     */
+    public void release() {
+        inUse = false;
+        sink = null;
+        out = null;
+    }
+
+    // ============= 结构 =============
+
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        writeByte((byte) '{');
+        push();
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        depth--;
+        writeByte((byte) '}');
+        return this;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        writeByte((byte) '[');
+        push();
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        depth--;
+        writeByte((byte) ']');
+        return this;
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        beforeValue();
+        writeQuoted(name);
+        writeByte((byte) ':');
+        afterName = true;
+        return this;
+    }
+
+    // ============= 值 =============
+
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        writeBytes(NULL);
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeQuoted(value);
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        writeBytes(value ? TRUE : FALSE);
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        writeLong(value);
+        return this;
+    }
+
+    public JsonWriter value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            // NaN/Infinity 不是合法的 JSON 数字
+            return nullValue();
+        }
+        beforeValue();
+        writeAscii(Double.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(Number value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return value(value.longValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return value(value.doubleValue());
+        }
+        beforeValue();
+        writeAscii(value.toString());
+        return this;
+    }
+
+    /**
+     * 写出任意值：基础类型、Map、List 以及已注册的 DTO，其余类型按 toString() 写成字符串
+     */
+    public JsonWriter writeValue(Object value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        JsonSerializer<Object> serializer = SERIALIZERS.get(value.getClass());
+        if (serializer != null && serializer != NONE) {
+            serializer.write(this, value);
+        } else if (value instanceof String) {
+            value((String) value);
+        } else if (value instanceof Number) {
+            value((Number) value);
+        } else if (value instanceof Boolean) {
+            value(((Boolean) value).booleanValue());
+        } else if (value instanceof Map) {
+            writeMap((Map<?, ?>) value);
+        } else if (value instanceof List) {
+            writeList((List<?>) value);
+        } else {
+            serializer = serializer == NONE ? NONE : resolve(value.getClass());
+            if (serializer != NONE) {
+                serializer.write(this, value);
+            } else {
+                value(value.toString());
+            }
+        }
+        return this;
+    }
+
+    public JsonWriter writeMap(Map<?, ?> map) throws IOException {
+        beginObject();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            name(String.valueOf(entry.getKey()));
+            writeValue(entry.getValue());
+        }
+        return endObject();
+    }
+
+    public JsonWriter writeList(List<?> list) throws IOException {
+        beginArray();
+        for (Object item : list) {
+            writeValue(item);
+        }
+        return endArray();
+    }
+
+    // ============= DTO 字段（值为 null 时整个字段省略） =============
+
+    public JsonWriter stringField(String name, Object value) throws IOException {
+        if (value != null) {
+            name(name);
+            value(value.toString());
+        }
+        return this;
+    }
+
+    public JsonWriter numberField(String name, Number value) throws IOException {
+        if (value != null) {
+            name(name);
+            value(value);
+        }
+        return this;
+    }
+
+    public JsonWriter valueField(String name, Object value) throws IOException {
+        if (value != null) {
+            name(name);
+            writeValue(value);
+        }
+        return this;
+    }
+
+    // ============= 内部实现 =============
+
+    private void reset(Sink sink) {
+        this.sink = sink;
+        this.out = null;
+        this.pos = 0;
+        this.depth = 0;
+        this.afterName = false;
+        this.inUse = true;
+    }
+
+    private static JsonSerializer<Object> resolve(Class<?> type) {
+        for (Class<?> c = type.getSuperclass(); c != null && c != Object.class; c = c.getSuperclass()) {
+            JsonSerializer<Object> inherited = SERIALIZERS.get(c);
+            if (inherited != null && inherited != NONE) {
+                SERIALIZERS.putIfAbsent(type, inherited);
+                return inherited;
+            }
+        }
+        SERIALIZERS.putIfAbsent(type, NONE);
+        return NONE;
+    }
+
+    private void push() {
+        depth++;
+        if (depth == hasElement.length) {
+            hasElement = Arrays.copyOf(hasElement, depth * 2);
+        }
+        hasElement[depth] = false;
+    }
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasElement[depth]) {
+                writeByte((byte) ',');
+            } else {
+                hasElement[depth] = true;
+            }
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (out == null) {
+            out = sink.open();
+        }
+        out.write(buf, 0, pos);
+        pos = 0;
+    }
+
+    private void writeByte(byte b) throws IOException {
+        if (pos == buf.length) {
+            flushBuffer();
+        }
+        buf[pos++] = b;
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        if (pos + bytes.length > buf.length) {
+            flushBuffer();
+        }
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    // 数字等纯 ASCII 内容，不需要转义
+    private void writeAscii(String s) throws IOException {
+        int n = s.length();
+        if (pos + n > buf.length) {
+            flushBuffer();
+        }
+        for (int i = 0; i < n; i++) {
+            if (pos == buf.length) {
+                flushBuffer();
+            }
+            buf[pos++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void writeLong(long v) throws IOException {
+        if (v == Long.MIN_VALUE) {
+            writeBytes(LONG_MIN);
+            return;
+        }
+        if (pos + 20 > buf.length) {
+            flushBuffer();
+        }
+        if (v < 0) {
+            buf[pos++] = '-';
+            v = -v;
+        }
+        int start = pos;
+        do {
+            buf[pos++] = (byte) ('0' + (int) (v % 10));
+            v /= 10;
+        } while (v != 0);
+        // 数字是倒序写入的，原地翻转
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            byte t = buf[i];
+            buf[i] = buf[j];
+            buf[j] = t;
+        }
+    }
+
+    /**
+     * 一次遍历完成转义和 UTF-8 编码
+     */
+    private void writeQuoted(String s) throws IOException {
+        writeByte((byte) '"');
+        for (int i = 0, n = s.length(); i < n; i++) {
+            if (pos + MAX_CHAR_BYTES > buf.length) {
+                flushBuffer();
+            }
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    buf[pos++] = (byte) c;
+                } else {
+                    writeEscaped(c);
+                }
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // 孤立的代理字符无法编码，与 String.getBytes 一致替换为 '?'
+                buf[pos++] = '?';
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        writeByte((byte) '"');
+    }
+
+    private void writeEscaped(char c) {
+        buf[pos++] = '\\';
+        switch (c) {
+            case '"': buf[pos++] = '"'; break;
+            case '\\': buf[pos++] = '\\'; break;
+            case '\b': buf[pos++] = 'b'; break;
+            case '\f': buf[pos++] = 'f'; break;
+            case '\n': buf[pos++] = 'n'; break;
+            case '\r': buf[pos++] = 'r'; break;
+            case '\t': buf[pos++] = 't'; break;
+            default:
+                buf[pos++] = 'u';
+                buf[pos++] = '0';
+                buf[pos++] = '0';
+                buf[pos++] = HEX[c >> 4];
+                buf[pos++] = HEX[c & 0xF];
+        }
+    }
+
+    /**
+     * 收集到内存的写出目标，供 toBytes 使用
+     */
+    private static class BufferSink implements Sink {
+        private ByteArrayOutputStream stream;
+        private byte[] result;
+
+        @Override
+        public OutputStream open() {
+            stream = new ByteArrayOutputStream();
+            return stream;
+        }
+
+        @Override
+        public void complete(byte[] bytes, int length) {
+            result = Arrays.copyOf(bytes, length);
+        }
+    }
+}
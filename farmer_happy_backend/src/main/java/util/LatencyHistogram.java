@@ -0,0 +1,131 @@
+// src/main/java/util/LatencyHistogram.java
+package util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁延迟直方图（以微秒为单位记录）
+ *
+ * 采用对数分桶：0~15 微秒每微秒一个桶，之后每个 2 的幂区间再等分为 8 个子桶，
+ * 相对误差不超过 12.5%。记录只做一次数组下标计算和一次原子自增，适合放在请求热路径上。
+ */
+public final class LatencyHistogram {
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 最高记录到 2^40 微秒（约 12 天），更大的值计入最后一个桶
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + (MAX_EXPONENT - 3) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * 记录一次耗时（纳秒）
+     */
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000L);
+    }
+
+    /**
+     * 记录一次耗时（微秒）
+     */
+    public void recordMicros(long micros) {
+        if (micros < 0) {
+            micros = 0;
+        }
+        buckets.incrementAndGet(indexOf(micros));
+        count.increment();
+        sumMicros.add(micros);
+        long max = maxMicros.get();
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+            max = maxMicros.get();
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumMicros() {
+        return sumMicros.sum();
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    public double getMeanMicros() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double) sumMicros.sum() / n;
+    }
+
+    /**
+     * 返回给定分位（0~1）所在桶的上界（微秒），没有数据时返回 0
+     */
+    public long getPercentileMicros(double quantile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(Math.min(1.0, Math.max(0.0, quantile)) * total);
+        if (rank < 1) {
+            rank = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    /**
+     * 常用统计值，便于直接序列化输出
+     */
+    public Map<String, Object> getSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", getCount());
+        summary.put("mean_us", Math.round(getMeanMicros()));
+        summary.put("p50_us", getPercentileMicros(0.50));
+        summary.put("p90_us", getPercentileMicros(0.90));
+        summary.put("p99_us", getPercentileMicros(0.99));
+        summary.put("max_us", getMaxMicros());
+        return summary;
+    }
+
+    static int indexOf(long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int exponent = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+        int sub = (index - LINEAR_BUCKETS) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (SUB_BUCKETS + sub) * width + width - 1;
+    }
+}
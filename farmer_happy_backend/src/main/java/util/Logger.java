@@ -0,0 +1,214 @@
+// src/main/java/util/Logger.java
+package util;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 轻量日志门面
+ *
+ * 级别判断在调用线程上完成，低于当前级别的日志直接丢弃；通过的日志只封装成事件放入
+ * {@link AsyncLogAppender} 的环形缓冲区，格式化和控制台输出都在后台线程完成。
+ * 单条日志超过长度上限时截断；请求体、响应体这类大对象用 {@link #body} 输出，
+ * 按 1/N 采样并使用更短的长度上限。
+ *
+ * 用法：private static final Logger log = Logger.getLogger(Xxx.class);
+ * 拼接代价较高的 debug 日志先用 {@link #isDebugEnabled()} 判断。
+ */
+public final class Logger {
+
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR, OFF
+    }
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final int DEFAULT_MAX_MESSAGE_LENGTH = 4096;
+    private static final int DEFAULT_BODY_MAX_LENGTH = 1024;
+    private static final int DEFAULT_BODY_SAMPLE_EVERY = 100;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 2000L;
+
+    private static volatile Level level = Level.INFO;
+    private static volatile int bufferSize = DEFAULT_BUFFER_SIZE;
+    private static volatile int maxMessageLength = DEFAULT_MAX_MESSAGE_LENGTH;
+    private static volatile int bodyMaxLength = DEFAULT_BODY_MAX_LENGTH;
+    private static volatile int bodySampleEvery = DEFAULT_BODY_SAMPLE_EVERY;
+    private static volatile AsyncLogAppender appender;
+    // shutdown() 之后的日志直接同步输出，不再启动后台线程
+    private static volatile boolean closed;
+
+    private final String name;
+    private final AtomicLong bodyCounter = new AtomicLong();
+
+    private Logger(String name) {
+        this.name = name;
+    }
+
+    public static Logger getLogger(Class<?> type) {
+        return new Logger(type.getSimpleName());
+    }
+
+    /**
+     * 启动时配置一次；缓冲区大小只在后台线程启动前生效
+     *
+     * @param newBodySampleEvery 请求体/响应体每 N 次输出一次，1 表示每次都输出，0 表示不输出
+     */
+    public static void configure(Level newLevel, int newBufferSize, int newMaxMessageLength,
+            int newBodyMaxLength, int newBodySampleEvery) {
+        level = newLevel != null ? newLevel : Level.INFO;
+        bufferSize = Math.max(16, newBufferSize);
+        maxMessageLength = Math.max(64, newMaxMessageLength);
+        bodyMaxLength = Math.max(64, newBodyMaxLength);
+        bodySampleEvery = Math.max(0, newBodySampleEvery);
+    }
+
+    /**
+     * 解析级别名称，无法识别时返回 defaultLevel
+     */
+    public static Level parseLevel(String value, Level defaultLevel) {
+        if (value == null) {
+            return defaultLevel;
+        }
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return defaultLevel;
+        }
+    }
+
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    /**
+     * 因缓冲区已满被丢弃的日志条数
+     */
+    public static long getDroppedCount() {
+        AsyncLogAppender current = appender;
+        return current != null ? current.getDroppedCount() : 0L;
+    }
+
+    /**
+     * 等待已提交的日志输出完成
+     */
+    public static void flush() {
+        AsyncLogAppender current = appender;
+        if (current != null) {
+            current.flush(SHUTDOWN_TIMEOUT_MILLIS);
+        }
+    }
+
+    /**
+     * 输出剩余日志并停止后台线程，服务停止时调用
+     */
+    public static void shutdown() {
+        AsyncLogAppender current;
+        synchronized (Logger.class) {
+            current = appender;
+            appender = null;
+            closed = true;
+        }
+        if (current != null) {
+            current.shutdown(SHUTDOWN_TIMEOUT_MILLIS);
+        }
+    }
+
+    /**
+     * 超过长度上限时截断，并注明原始长度
+     */
+    public static String truncate(Object value, int maxLength) {
+        String text = String.valueOf(value);
+        if (text.length() <= maxLength) {
+            return text;
+        }
+        return text.substring(0, maxLength) + "...(共 " + text.length() + " 字符，已截断)";
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public boolean isInfoEnabled() {
+        return isEnabled(Level.INFO);
+    }
+
+    public boolean isEnabled(Level target) {
+        return target.compareTo(level) >= 0 && target != Level.OFF;
+    }
+
+    public void debug(String message) {
+        log(Level.DEBUG, message, null);
+    }
+
+    public void info(String message) {
+        log(Level.INFO, message, null);
+    }
+
+    public void warn(String message) {
+        log(Level.WARN, message, null);
+    }
+
+    public void warn(String message, Throwable error) {
+        log(Level.WARN, message, error);
+    }
+
+    public void error(String message) {
+        log(Level.ERROR, message, null);
+    }
+
+    public void error(String message, Throwable error) {
+        log(Level.ERROR, message, error);
+    }
+
+    /**
+     * 以 DEBUG 级别输出请求体/响应体等大对象：按配置采样，并截断到较短的长度
+     */
+    public void body(String label, Object body) {
+        if (!isDebugEnabled()) {
+            return;
+        }
+        int every = bodySampleEvery;
+        if (every == 0 || bodyCounter.getAndIncrement() % every != 0) {
+            return;
+        }
+        enqueue(Level.DEBUG, label + ": " + truncate(body, bodyMaxLength), null);
+    }
+
+    private void log(Level target, String message, Throwable error) {
+        if (!isEnabled(target)) {
+            return;
+        }
+        enqueue(target, truncate(message, maxMessageLength), error);
+    }
+
+    private void enqueue(Level target, String message, Throwable error) {
+        if (closed) {
+            PrintStream stream = target.compareTo(Level.WARN) >= 0 ? System.err : System.out;
+            stream.println(target + " " + name + " - " + message);
+            if (error != null) {
+                error.printStackTrace(stream);
+            }
+            return;
+        }
+        appender().offer(new AsyncLogAppender.Event(target, name, message, error));
+    }
+
+    private static AsyncLogAppender appender() {
+        AsyncLogAppender current = appender;
+        if (current == null) {
+            synchronized (Logger.class) {
+                current = appender;
+                if (current == null) {
+                    current = new AsyncLogAppender(bufferSize, System.out, System.err);
+                    appender = current;
+                    // 进程退出前尽量输出缓冲区中剩余的日志
+                    Runtime.getRuntime().addShutdownHook(new Thread(Logger::flush, "async-logger-flush"));
+                }
+            }
+        }
+        return current;
+    }
+}
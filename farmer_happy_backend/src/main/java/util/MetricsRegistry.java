@@ -0,0 +1,292 @@
+// src/main/java/util/MetricsRegistry.java
+package util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内指标注册表
+ *
+ * 指标有两种来源：
+ * - 通过 {@link #counter} / {@link #histogram} 创建并由注册表持有，热路径上只做无锁累加；
+ * - 已有组件自行维护的统计（路由表、请求执行器、连接池），通过 {@link Collector} 在采集时读取。
+ *
+ * 采集结果可以输出为 Prometheus 文本格式，也可以输出为 JSON 结构。
+ * 延迟直方图在 Prometheus 中按 summary 输出（分位数、_sum、_count，单位秒）。
+ */
+public final class MetricsRegistry {
+    private static final Logger log = Logger.getLogger(MetricsRegistry.class);
+
+    private static final String TYPE_COUNTER = "counter";
+    private static final String TYPE_GAUGE = "gauge";
+    private static final String TYPE_SUMMARY = "summary";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    /**
+     * 采集时回调，把组件自身的统计写入 {@link Samples}
+     */
+    public interface Collector {
+        void collect(Samples samples);
+    }
+
+    private final Map<String, Series> owned = new ConcurrentHashMap<>();
+    private final List<Collector> collectors = new CopyOnWriteArrayList<>();
+
+    MetricsRegistry() {
+    }
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 获取（不存在则创建）计数器，labels 按 "名1, 值1, 名2, 值2" 成对传入
+     */
+    public LongAdder counter(String name, String help, String... labels) {
+        return (LongAdder) ownedSeries(name, help, TYPE_COUNTER, labels).value;
+    }
+
+    /**
+     * 获取（不存在则创建）延迟直方图，labels 规则同 {@link #counter}
+     */
+    public LatencyHistogram histogram(String name, String help, String... labels) {
+        return (LatencyHistogram) ownedSeries(name, help, TYPE_SUMMARY, labels).value;
+    }
+
+    public void register(Collector collector) {
+        collectors.add(collector);
+    }
+
+    /**
+     * Prometheus 文本格式（text/plain; version=0.0.4）
+     */
+    public String toPrometheus() {
+        StringBuilder sb = new StringBuilder(4096);
+        for (Family family : collect().values()) {
+            sb.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            sb.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Series series : family.series) {
+                if (series.value instanceof LatencyHistogram) {
+                    LatencyHistogram histogram = (LatencyHistogram) series.value;
+                    for (double q : QUANTILES) {
+                        sb.append(family.name);
+                        appendLabels(sb, series.labels, "quantile", Double.toString(q));
+                        sb.append(' ').append(seconds(histogram.getPercentileMicros(q))).append('\n');
+                    }
+                    sb.append(family.name).append("_sum");
+                    appendLabels(sb, series.labels, null, null);
+                    sb.append(' ').append(seconds(histogram.getSumMicros())).append('\n');
+                    sb.append(family.name).append("_count");
+                    appendLabels(sb, series.labels, null, null);
+                    sb.append(' ').append(histogram.getCount()).append('\n');
+                } else {
+                    sb.append(family.name);
+                    appendLabels(sb, series.labels, null, null);
+                    sb.append(' ').append(formatNumber(numericValue(series.value))).append('\n');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * JSON 结构：指标名 -> {type, help, series: [{labels, value | latency}]}
+     */
+    public Map<String, Object> toJson() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Family family : collect().values()) {
+            List<Map<String, Object>> seriesList = new ArrayList<>(family.series.size());
+            for (Series series : family.series) {
+                Map<String, Object> item = new LinkedHashMap<>();
+                Map<String, Object> labels = new LinkedHashMap<>();
+                for (int i = 0; i + 1 < series.labels.length; i += 2) {
+                    labels.put(series.labels[i], series.labels[i + 1]);
+                }
+                item.put("labels", labels);
+                if (series.value instanceof LatencyHistogram) {
+                    item.put("latency", ((LatencyHistogram) series.value).getSummary());
+                } else {
+                    item.put("value", numericValue(series.value));
+                }
+                seriesList.add(item);
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("type", family.type);
+            entry.put("help", family.help);
+            entry.put("series", seriesList);
+            result.put(family.name, entry);
+        }
+        return result;
+    }
+
+    private Series ownedSeries(String name, String help, String type, String[] labels) {
+        String key = seriesKey(name, labels);
+        Series series = owned.get(key);
+        if (series == null) {
+            series = owned.computeIfAbsent(key, k -> new Series(name, help, type, labels.clone(),
+                    TYPE_COUNTER.equals(type) ? new LongAdder() : new LatencyHistogram()));
+        }
+        if (!series.type.equals(type)) {
+            throw new IllegalArgumentException("指标类型冲突: " + name);
+        }
+        return series;
+    }
+
+    private Map<String, Family> collect() {
+        Samples samples = new Samples();
+        List<Series> ownedSnapshot = new ArrayList<>(owned.values());
+        ownedSnapshot.sort((a, b) -> seriesKey(a.name, a.labels).compareTo(seriesKey(b.name, b.labels)));
+        for (Series series : ownedSnapshot) {
+            samples.add(series);
+        }
+        for (Collector collector : collectors) {
+            try {
+                collector.collect(samples);
+            } catch (RuntimeException e) {
+                log.warn("采集指标失败: " + e.getMessage());
+            }
+        }
+        return samples.families;
+    }
+
+    private static String seriesKey(String name, String[] labels) {
+        if (labels.length == 0) {
+            return name;
+        }
+        StringBuilder sb = new StringBuilder(name).append('{');
+        for (String label : labels) {
+            sb.append(label).append('\u0000');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static void appendLabels(StringBuilder sb, String[] labels, String extraName, String extraValue) {
+        if (labels.length == 0 && extraName == null) {
+            return;
+        }
+        sb.append('{');
+        boolean first = true;
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            appendLabel(sb, labels[i], labels[i + 1]);
+        }
+        if (extraName != null) {
+            if (!first) {
+                sb.append(',');
+            }
+            appendLabel(sb, extraName, extraValue);
+        }
+        sb.append('}');
+    }
+
+    private static void appendLabel(StringBuilder sb, String name, String value) {
+        sb.append(name).append("=\"");
+        String v = value != null ? value : "";
+        for (int i = 0; i < v.length(); i++) {
+            char c = v.charAt(i);
+            if (c == '\\' || c == '"') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    private static Number numericValue(Object value) {
+        if (value instanceof LongAdder) {
+            return ((LongAdder) value).sum();
+        }
+        return (Number) value;
+    }
+
+    private static String formatNumber(Number value) {
+        if (value instanceof Double || value instanceof Float) {
+            double d = value.doubleValue();
+            if (Double.isNaN(d)) {
+                return "NaN";
+            }
+            if (Double.isInfinite(d)) {
+                return d > 0 ? "+Inf" : "-Inf";
+            }
+            return Double.toString(d);
+        }
+        return Long.toString(value.longValue());
+    }
+
+    private static String seconds(long micros) {
+        return Double.toString(micros / 1_000_000.0);
+    }
+
+    /**
+     * 一次采集的结果，按指标名归组，保证同名序列在输出中连续
+     */
+    public static final class Samples {
+        private final Map<String, Family> families = new LinkedHashMap<>();
+
+        private Samples() {
+        }
+
+        public void counter(String name, String help, long value, String... labels) {
+            add(new Series(name, help, TYPE_COUNTER, labels, value));
+        }
+
+        public void gauge(String name, String help, Number value, String... labels) {
+            add(new Series(name, help, TYPE_GAUGE, labels, value));
+        }
+
+        public void histogram(String name, String help, LatencyHistogram histogram, String... labels) {
+            add(new Series(name, help, TYPE_SUMMARY, labels, histogram));
+        }
+
+        private void add(Series series) {
+            Family family = families.get(series.name);
+            if (family == null) {
+                family = new Family(series.name, series.help, series.type);
+                families.put(series.name, family);
+            }
+            family.series.add(series);
+        }
+    }
+
+    private static final class Family {
+        final String name;
+        final String help;
+        final String type;
+        final List<Series> series = new ArrayList<>();
+
+        Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private static final class Series {
+        final String name;
+        final String help;
+        final String type;
+        final String[] labels;
+        final Object value;
+
+        Series(String name, String help, String type, String[] labels, Object value) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.labels = labels;
+            this.value = value;
+        }
+    }
+}
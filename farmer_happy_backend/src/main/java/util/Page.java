@@ -0,0 +1,63 @@
+// src/main/java/util/Page.java
+package util;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 一页查询结果及下一页游标
+ * 查询时多取一行（limit + 1），多出来的那一行只用来判断是否还有下一页。
+ * limit 为 {@link PageCursor#UNPAGED} 时查询不加 LIMIT，结果即全部数据，响应中不输出分页字段。
+ */
+public final class Page<T> {
+    private final List<T> items;
+    private final String nextCursor;
+    private final boolean paged;
+
+    public Page(List<T> items, String nextCursor) {
+        this(items, nextCursor, true);
+    }
+
+    private Page(List<T> items, String nextCursor, boolean paged) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.paged = paged;
+    }
+
+    /**
+     * @param fetched  按 limit + 1 查出的行（不分页时为全部行）
+     * @param cursorOf 由本页最后一行生成游标
+     */
+    public static <T> Page<T> of(List<T> fetched, int limit, Function<T, PageCursor> cursorOf) {
+        if (limit <= PageCursor.UNPAGED) {
+            return new Page<>(fetched, null, false);
+        }
+        if (fetched.size() <= limit) {
+            return new Page<>(fetched, null);
+        }
+        List<T> items = fetched.subList(0, limit);
+        return new Page<>(items, cursorOf.apply(items.get(limit - 1)).encode());
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * 下一页游标，没有下一页时为 null
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    /**
+     * 是否按页查询；为 false 时调用方没有请求分页，响应保持不分页时的结构
+     */
+    public boolean isPaged() {
+        return paged;
+    }
+}
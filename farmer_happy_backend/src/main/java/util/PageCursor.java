@@ -0,0 +1,121 @@
+// src/main/java/util/PageCursor.java
+package util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 键集分页（keyset pagination）游标
+ *
+ * 游标记录上一页最后一行的排序键和主键，下一页用 "排序键 < ? OR (排序键 = ? AND 主键 < ?)"
+ * 从索引上直接定位，不需要 OFFSET 跳过前面的行，翻到多深代价都一样。
+ * 对客户端来说游标是不透明字符串（URL 安全的 Base64），其中还带着排序方式，
+ * 换了排序方式再用旧游标会被拒绝。
+ */
+public final class PageCursor {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    // 不分页：调用方既没有传 cursor 也没有传 page_size 时一次返回全部，响应保持原有结构
+    public static final int UNPAGED = 0;
+
+    private static final char SEPARATOR = '|';
+
+    private final String sort;
+    private final long key;
+    private final String id;
+
+    private PageCursor(String sort, long key, String id) {
+        this.sort = sort;
+        this.key = key;
+        this.id = id;
+    }
+
+    /**
+     * @param sort 排序方式标识
+     * @param key  排序键：时间取毫秒时间戳，计数类字段取原值
+     * @param id   主键，排序键相同时用于确定先后
+     */
+    public static PageCursor of(String sort, long key, String id) {
+        return new PageCursor(sort, key, id);
+    }
+
+    /**
+     * 解析客户端传回的游标；为空表示第一页，返回 null
+     *
+     * @throws IllegalArgumentException 游标格式错误或与当前排序方式不符
+     */
+    public static PageCursor decode(String token, String expectedSort) {
+        if (token == null || token.trim().isEmpty()) {
+            return null;
+        }
+        String text;
+        try {
+            text = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        int first = text.indexOf(SEPARATOR);
+        int second = first < 0 ? -1 : text.indexOf(SEPARATOR, first + 1);
+        if (second < 0 || second == text.length() - 1) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        String sort = text.substring(0, first);
+        if (!sort.equals(expectedSort)) {
+            throw new IllegalArgumentException("分页游标与当前排序方式不匹配");
+        }
+        long key;
+        try {
+            key = Long.parseLong(text.substring(first + 1, second));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        return new PageCursor(sort, key, text.substring(second + 1));
+    }
+
+    /**
+     * 解析列表接口的分页参数：cursor 和 page_size 都未传时返回 {@link #UNPAGED}，否则同 {@link #pageSize(String)}
+     */
+    public static int pageSize(String cursor, String requested) {
+        boolean noCursor = cursor == null || cursor.trim().isEmpty();
+        boolean noPageSize = requested == null || requested.trim().isEmpty();
+        return noCursor && noPageSize ? UNPAGED : pageSize(requested);
+    }
+
+    /**
+     * 解析每页条数：为空取默认值，超过上限按上限处理
+     *
+     * @throws IllegalArgumentException 不是正整数
+     */
+    public static int pageSize(String requested) {
+        if (requested == null || requested.trim().isEmpty()) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        int size;
+        try {
+            size = Integer.parseInt(requested.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("page_size 必须是正整数");
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("page_size 必须是正整数");
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    public String encode() {
+        String text = sort + SEPARATOR + key + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
@@ -2,17 +2,27 @@
 package util;
 
 import java.io.InputStream;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * 价格文件解析器：统一支持 Excel(.xls/.xlsx) 与 CSV(.csv)
- * - Excel: 默认认为是两列（日期, 价格），返回单序列，规格名为“默认”
+ * - Excel: 第一列日期、第二列价格；表头有“规格”列时按规格分组，否则返回单序列，规格名为“默认”
  * - CSV: 支持（规格/平均价/发布日期）或（日期/价格），返回按规格分组的多序列
  */
 public class PriceFileParser {
 
+    // Excel 文件大小上限（字节），0 表示不限制
+    private final long maxFileBytes;
+
+    public PriceFileParser() {
+        this(ExcelParser.DEFAULT_MAX_FILE_BYTES);
+    }
+
+    public PriceFileParser(long maxFileBytes) {
+        this.maxFileBytes = maxFileBytes;
+    }
+
     public Map<String, List<ExcelParser.DataPoint>> parse(InputStream inputStream, String fileName) throws Exception {
         if (fileName == null) {
             throw new IllegalArgumentException("fileName不能为空");
@@ -20,11 +30,8 @@ public class PriceFileParser {
 
         String lower = fileName.toLowerCase();
         if (lower.endsWith(".xls") || lower.endsWith(".xlsx")) {
-            ExcelParser parser = new ExcelParser();
-            List<ExcelParser.DataPoint> points = parser.parse(inputStream, fileName);
-            Map<String, List<ExcelParser.DataPoint>> map = new HashMap<>();
-            map.put("默认", points);
-            return map;
+            ExcelParser parser = new ExcelParser(maxFileBytes);
+            return parser.parseBySpec(inputStream, fileName);
         }
 
         if (lower.endsWith(".csv")) {
@@ -159,34 +159,51 @@ public class RegressionModel {
     
     /**
      * 拟合多项式（使用最小二乘法，改进数值稳定性）
+     *
+     * 逐点累加正规方程 A^T·A 和 A^T·b，不构造 n×m 的 Vandermonde 矩阵；
+     * 每个元素仍按数据点顺序累加，结果与先建矩阵再相乘相同。
      */
     private double[] fitPolynomial(List<Point> data, int degree) {
         int n = data.size();
         int m = degree + 1;
+        if (n == 0) {
+            throw new IllegalArgumentException("至少需要1个数据点");
+        }
         
         // 数据标准化：将x值标准化到[-1, 1]范围，提高数值稳定性
-        double xMin = data.stream().mapToDouble(p -> p.x).min().orElse(0);
-        double xMax = data.stream().mapToDouble(p -> p.x).max().orElse(1);
+        double xMin = data.get(0).x;
+        double xMax = data.get(0).x;
+        for (int i = 1; i < n; i++) {
+            xMin = Math.min(xMin, data.get(i).x);
+            xMax = Math.max(xMax, data.get(i).x);
+        }
         double xRange = xMax - xMin;
         if (xRange < 1e-10) {
             xRange = 1.0;
         }
         
-        // 构建矩阵 A (Vandermonde矩阵，使用标准化后的x)
-        double[][] A = new double[n][m];
-        double[] b = new double[n];
+        // 求解线性方程组 A^T * A * x = A^T * b，A 为标准化后 x 的 Vandermonde 矩阵
+        double[][] AtA = new double[m][m];
+        double[] Atb = new double[m];
+        double[] row = new double[m];
         
-        for (int i = 0; i < n; i++) {
+        for (int k = 0; k < n; k++) {
             // 标准化x值到[-1, 1]
-            double xNormalized = 2.0 * (data.get(i).x - xMin) / xRange - 1.0;
-            b[i] = data.get(i).y;
+            double xNormalized = 2.0 * (data.get(k).x - xMin) / xRange - 1.0;
+            double b = data.get(k).y;
             for (int j = 0; j < m; j++) {
-                A[i][j] = Math.pow(xNormalized, j);
+                row[j] = Math.pow(xNormalized, j);
+            }
+            for (int i = 0; i < m; i++) {
+                for (int j = 0; j < m; j++) {
+                    AtA[i][j] += row[i] * row[j];
+                }
+                Atb[i] += row[i] * b;
             }
         }
         
-        // 求解线性方程组 A^T * A * x = A^T * b
-        double[] coeffsNormalized = solveNormalEquations(A, b);
+        // 求解线性方程组（高斯消元法）
+        double[] coeffsNormalized = gaussianElimination(AtA, Atb);
         
         // 保存标准化参数，用于预测时转换
         this.normalizedXMin = xMin;
@@ -195,35 +212,6 @@ public class RegressionModel {
         return coeffsNormalized;
     }
     
-    /**
-     * 求解正规方程
-     */
-    private double[] solveNormalEquations(double[][] A, double[] b) {
-        int n = A.length;
-        int m = A[0].length;
-        
-        // 计算 A^T * A
-        double[][] AtA = new double[m][m];
-        for (int i = 0; i < m; i++) {
-            for (int j = 0; j < m; j++) {
-                for (int k = 0; k < n; k++) {
-                    AtA[i][j] += A[k][i] * A[k][j];
-                }
-            }
-        }
-        
-        // 计算 A^T * b
-        double[] Atb = new double[m];
-        for (int i = 0; i < m; i++) {
-            for (int k = 0; k < n; k++) {
-                Atb[i] += A[k][i] * b[k];
-            }
-        }
-        
-        // 求解线性方程组（高斯消元法）
-        return gaussianElimination(AtA, Atb);
-    }
-    
     /**
      * 高斯消元法求解线性方程组
      */
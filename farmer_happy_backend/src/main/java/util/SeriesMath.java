@@ -0,0 +1,171 @@
+// src/main/java/util/SeriesMath.java
+package util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * 预测模型共用的 double[] 数值计算
+ *
+ * 序列统一用 double[] + 长度表示，结果写入调用方提供的缓冲区（不够长时才新分配），
+ * 同一个模型实例反复训练时不再为每个数据点装箱/拆箱。
+ * 各方法的运算顺序与原先基于 List&lt;Double&gt; 的实现逐项相同，结果逐位一致。
+ */
+final class SeriesMath {
+
+    private SeriesMath() {
+    }
+
+    /**
+     * 区间 [from, to) 的平均值，空区间为 0
+     *
+     * 原实现使用 DoubleStream.average()（带误差补偿的求和），这里直接在数组上复用同一实现，
+     * 保证与原结果逐位一致；只分配常数个对象，与序列长度无关。
+     */
+    static double mean(double[] values, int from, int to) {
+        if (from >= to) {
+            return 0;
+        }
+        return Arrays.stream(values, from, to).average().orElse(0);
+    }
+
+    /**
+     * 返回长度至少为 length 的缓冲区，够用时原样返回
+     */
+    static double[] ensureCapacity(double[] buffer, int length) {
+        if (buffer != null && buffer.length >= length) {
+            return buffer;
+        }
+        return new double[Math.max(length, buffer != null ? buffer.length + (buffer.length >> 1) : 16)];
+    }
+
+    /**
+     * 把缓冲区扩到至少 length，保留前 keep 个元素
+     */
+    static double[] grow(double[] buffer, int keep, int length) {
+        if (buffer != null && buffer.length >= length) {
+            return buffer;
+        }
+        double[] grown = ensureCapacity(buffer, length);
+        if (buffer != null && keep > 0) {
+            System.arraycopy(buffer, 0, grown, 0, keep);
+        }
+        return grown;
+    }
+
+    /**
+     * 一阶差分：out[i] = series[i+1] - series[i]，返回差分后的长度
+     * out 可以与 series 是同一个数组（按下标递增原地覆盖）
+     */
+    static int difference(double[] series, int length, double[] out) {
+        for (int i = 1; i < length; i++) {
+            out[i - 1] = series[i] - series[i - 1];
+        }
+        return Math.max(0, length - 1);
+    }
+
+    /**
+     * 季节差分：out[i] = series[i+period] - series[i]，返回差分后的长度
+     * out 可以与 series 是同一个数组
+     */
+    static int seasonalDifference(double[] series, int length, int period, double[] out) {
+        for (int i = period; i < length; i++) {
+            out[i - period] = series[i] - series[i - period];
+        }
+        return Math.max(0, length - period);
+    }
+
+    /**
+     * 自相关函数 acf[0..maxLag]，方差过小时全为 0
+     */
+    static double[] acf(double[] series, int n, int maxLag) {
+        double mean = mean(series, 0, n);
+
+        double variance = 0;
+        for (int i = 0; i < n; i++) {
+            variance += Math.pow(series[i] - mean, 2);
+        }
+        variance /= n;
+
+        double[] acf = new double[maxLag + 1];
+        if (variance < 1e-10) {
+            return acf;
+        }
+
+        acf[0] = 1.0;
+        for (int lag = 1; lag <= maxLag && lag < n; lag++) {
+            double covariance = 0;
+            for (int i = lag; i < n; i++) {
+                covariance += (series[i] - mean) * (series[i - lag] - mean);
+            }
+            covariance /= (n - lag);
+            acf[lag] = covariance / variance;
+        }
+
+        return acf;
+    }
+
+    /**
+     * 单个滞后的自相关系数，与 acf(series, n, lag)[lag] 相同，lag 必须小于 n
+     */
+    static double acfAt(double[] series, int n, int lag) {
+        double mean = mean(series, 0, n);
+
+        double variance = 0;
+        for (int i = 0; i < n; i++) {
+            variance += Math.pow(series[i] - mean, 2);
+        }
+        variance /= n;
+
+        if (variance < 1e-10) {
+            return 0;
+        }
+
+        double covariance = 0;
+        for (int i = lag; i < n; i++) {
+            covariance += (series[i] - mean) * (series[i - lag] - mean);
+        }
+        covariance /= (n - lag);
+        return covariance / variance;
+    }
+
+    static double[] toArray(List<Double> values) {
+        double[] out = new double[values.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = values.get(i);
+        }
+        return out;
+    }
+
+    /**
+     * 把 double[] 的前 length 个元素包装成只读 List（取值时才装箱）
+     */
+    static List<Double> asList(double[] values, int length) {
+        return new DoubleArrayView(values, length);
+    }
+
+    private static final class DoubleArrayView extends AbstractList<Double> implements RandomAccess {
+        private final double[] values;
+        private final int length;
+
+        DoubleArrayView(double[] values, int length) {
+            this.values = values;
+            this.length = length;
+        }
+
+        @Override
+        public Double get(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+            }
+            return values[index];
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+    }
+}
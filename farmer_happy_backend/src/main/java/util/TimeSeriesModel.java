@@ -40,7 +40,10 @@ public class TimeSeriesModel {
         }
     }
     
-    private List<Point> data;
+    // 训练数据复制到 xs/ys 的前 n 个元素；缓冲区在同一实例重复训练时复用
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private int n;
     private double alpha; // 指数平滑参数
     private double[] smoothedValues;
     private double trend;
@@ -49,30 +52,38 @@ public class TimeSeriesModel {
      * 训练指数平滑模型
      */
     public void trainExponentialSmoothing(List<Point> data, double alpha) {
-        this.data = data;
+        int size = data.size();
+        this.xs = SeriesMath.ensureCapacity(this.xs, size);
+        this.ys = SeriesMath.ensureCapacity(this.ys, size);
+        for (int i = 0; i < size; i++) {
+            Point point = data.get(i);
+            xs[i] = point.x;
+            ys[i] = point.y;
+        }
+        this.n = size;
         this.alpha = alpha;
-        this.smoothedValues = new double[data.size()];
+        this.smoothedValues = SeriesMath.ensureCapacity(this.smoothedValues, size);
         
-        if (data.isEmpty()) {
+        if (n == 0) {
             return;
         }
         
         // 初始化：第一个平滑值等于第一个实际值
-        smoothedValues[0] = data.get(0).y;
+        smoothedValues[0] = ys[0];
         
         // 计算指数平滑值
-        for (int i = 1; i < data.size(); i++) {
-            smoothedValues[i] = alpha * data.get(i).y + (1 - alpha) * smoothedValues[i - 1];
+        for (int i = 1; i < n; i++) {
+            smoothedValues[i] = alpha * ys[i] + (1 - alpha) * smoothedValues[i - 1];
         }
         
         // 计算趋势（使用最后几个点的平均变化率）
-        if (data.size() >= 5) {
+        if (n >= 5) {
             double sumTrend = 0;
             int count = 0;
-            for (int i = data.size() - 5; i < data.size() - 1; i++) {
-                double xDiff = data.get(i + 1).x - data.get(i).x;
+            for (int i = n - 5; i < n - 1; i++) {
+                double xDiff = xs[i + 1] - xs[i];
                 if (xDiff > 0) {
-                    double yDiff = data.get(i + 1).y - data.get(i).y;
+                    double yDiff = ys[i + 1] - ys[i];
                     sumTrend += yDiff / xDiff;
                     count++;
                 }
@@ -87,12 +98,12 @@ public class TimeSeriesModel {
      * 预测未来值
      */
     public double predict(double futureX) {
-        if (data == null || data.isEmpty()) {
+        if (n == 0) {
             return 0;
         }
         
-        double lastX = data.get(data.size() - 1).x;
-        double lastSmoothed = smoothedValues[data.size() - 1];
+        double lastX = xs[n - 1];
+        double lastSmoothed = smoothedValues[n - 1];
         double steps = futureX - lastX;
         
         // 使用指数平滑值 + 趋势外推
@@ -103,7 +114,7 @@ public class TimeSeriesModel {
      * 评估模型
      */
     public Metrics evaluate() {
-        if (data == null || data.isEmpty()) {
+        if (n == 0) {
             return new Metrics(0, 0, 0);
         }
         
@@ -112,11 +123,11 @@ public class TimeSeriesModel {
         double mae = 0;
         double rmse = 0;
         
-        double yMean = data.stream().mapToDouble(p -> p.y).average().orElse(0);
+        double yMean = SeriesMath.mean(ys, 0, n);
         
-        for (int i = 0; i < data.size(); i++) {
+        for (int i = 0; i < n; i++) {
             double predicted = smoothedValues[i];
-            double actual = data.get(i).y;
+            double actual = ys[i];
             double error = actual - predicted;
             
             ssRes += error * error;
@@ -125,8 +136,8 @@ public class TimeSeriesModel {
             rmse += error * error;
         }
         
-        mae /= data.size();
-        rmse = Math.sqrt(rmse / data.size());
+        mae /= n;
+        rmse = Math.sqrt(rmse / n);
         
         double rSquared = 1 - (ssRes / ssTot);
         if (Double.isNaN(rSquared) || Double.isInfinite(rSquared)) {
@@ -142,24 +153,24 @@ public class TimeSeriesModel {
     public Map<String, Object> getCalculationDetails() {
         Map<String, Object> details = new HashMap<>();
         
-        if (data == null || data.isEmpty()) {
+        if (n == 0) {
             return details;
         }
         
         // 指数平滑计算过程
         List<Map<String, Object>> smoothingSteps = new ArrayList<>();
-        for (int i = 0; i < data.size(); i++) {
+        for (int i = 0; i < n; i++) {
             Map<String, Object> step = new HashMap<>();
             step.put("index", i + 1);
-            step.put("days", (long)data.get(i).x);
-            step.put("actual_price", Math.round(data.get(i).y * 100.0) / 100.0);
+            step.put("days", (long)xs[i]);
+            step.put("actual_price", Math.round(ys[i] * 100.0) / 100.0);
             
             if (i == 0) {
-                step.put("formula", "S(0) = Y(0) = " + Math.round(data.get(i).y * 100.0) / 100.0);
+                step.put("formula", "S(0) = Y(0) = " + Math.round(ys[i] * 100.0) / 100.0);
                 step.put("smoothed_value", Math.round(smoothedValues[i] * 100.0) / 100.0);
             } else {
                 double prevSmoothed = smoothedValues[i - 1];
-                double actual = data.get(i).y;
+                double actual = ys[i];
                 double smoothed = smoothedValues[i];
                 step.put("formula", String.format("S(%d) = %.4f × %.2f + (1-%.4f) × %.2f = %.2f", 
                     i, alpha, actual, alpha, prevSmoothed, smoothed));
@@ -173,15 +184,15 @@ public class TimeSeriesModel {
         
         // 趋势计算过程
         Map<String, Object> trendDetails = new HashMap<>();
-        if (data.size() >= 5) {
+        if (n >= 5) {
             List<Map<String, Object>> trendSteps = new ArrayList<>();
             double sumTrend = 0;
             int count = 0;
-            for (int i = data.size() - 5; i < data.size() - 1; i++) {
+            for (int i = n - 5; i < n - 1; i++) {
                 Map<String, Object> step = new HashMap<>();
-                double xDiff = data.get(i + 1).x - data.get(i).x;
+                double xDiff = xs[i + 1] - xs[i];
                 if (xDiff > 0) {
-                    double yDiff = data.get(i + 1).y - data.get(i).y;
+                    double yDiff = ys[i + 1] - ys[i];
                     double changeRate = yDiff / xDiff;
                     sumTrend += changeRate;
                     count++;
@@ -191,7 +202,7 @@ public class TimeSeriesModel {
                     step.put("time_change", (long)xDiff);
                     step.put("change_rate", Math.round(changeRate * 10000.0) / 10000.0);
                     step.put("formula", String.format("(%.2f - %.2f) / %.0f = %.4f", 
-                        data.get(i + 1).y, data.get(i).y, xDiff, changeRate));
+                        ys[i + 1], ys[i], xDiff, changeRate));
                     trendSteps.add(step);
                 }
             }
@@ -207,16 +218,16 @@ public class TimeSeriesModel {
         
         // 评估指标计算过程
         Map<String, Object> evaluationDetails = new HashMap<>();
-        double yMean = data.stream().mapToDouble(p -> p.y).average().orElse(0);
+        double yMean = SeriesMath.mean(ys, 0, n);
         double ssRes = 0;
         double ssTot = 0;
         double mae = 0;
         double rmse = 0;
         
         List<Map<String, Object>> evaluationSteps = new ArrayList<>();
-        for (int i = 0; i < data.size(); i++) {
+        for (int i = 0; i < n; i++) {
             double predicted = smoothedValues[i];
-            double actual = data.get(i).y;
+            double actual = ys[i];
             double error = actual - predicted;
             double errorSquared = error * error;
             double totalSquared = Math.pow(actual - yMean, 2);
@@ -236,8 +247,8 @@ public class TimeSeriesModel {
             evaluationSteps.add(step);
         }
         
-        mae /= data.size();
-        rmse = Math.sqrt(rmse / data.size());
+        mae /= n;
+        rmse = Math.sqrt(rmse / n);
         double rSquared = 1 - (ssRes / ssTot);
         if (Double.isNaN(rSquared) || Double.isInfinite(rSquared)) {
             rSquared = 0;
@@ -250,9 +261,9 @@ public class TimeSeriesModel {
         evaluationDetails.put("r_squared_formula", String.format("R² = 1 - (%.4f / %.4f) = %.4f", 
             ssRes, ssTot, rSquared));
         evaluationDetails.put("mae_formula", String.format("MAE = %.4f / %d = %.4f", 
-            mae * data.size(), data.size(), mae));
+            mae * n, n, mae));
         evaluationDetails.put("rmse_formula", String.format("RMSE = √(%.4f / %d) = %.4f", 
-            rmse * rmse * data.size(), data.size(), rmse));
+            rmse * rmse * n, n, rmse));
         
         details.put("evaluation_calculation", evaluationDetails);
         
@@ -265,12 +276,12 @@ public class TimeSeriesModel {
     public List<Map<String, Object>> getPredictionDetails(List<Double> futureXValues) {
         List<Map<String, Object>> predictionDetails = new ArrayList<>();
         
-        if (data == null || data.isEmpty()) {
+        if (n == 0) {
             return predictionDetails;
         }
         
-        double lastX = data.get(data.size() - 1).x;
-        double lastSmoothed = smoothedValues[data.size() - 1];
+        double lastX = xs[n - 1];
+        double lastSmoothed = smoothedValues[n - 1];
         
         for (int i = 0; i < futureXValues.size(); i++) {
             double futureX = futureXValues.get(i);
@@ -300,10 +311,10 @@ public class TimeSeriesModel {
         double bestAlpha = 0.3;
         double bestR2 = Double.NEGATIVE_INFINITY;
         
-        // 尝试不同的alpha值
+        // 尝试不同的alpha值（复用同一个模型实例的缓冲区）
+        TimeSeriesModel model = new TimeSeriesModel();
         for (double alpha = 0.1; alpha <= 0.9; alpha += 0.1) {
             try {
-                TimeSeriesModel model = new TimeSeriesModel();
                 model.trainExponentialSmoothing(data, alpha);
                 Metrics metrics = model.evaluate();
                 if (metrics.rSquared > bestR2) {
@@ -327,10 +338,10 @@ public class TimeSeriesModel {
         double bestAlpha = 0.3;
         double bestR2 = Double.NEGATIVE_INFINITY;
         
-        // 尝试不同的alpha值
+        // 尝试不同的alpha值（复用同一个模型实例的缓冲区）
+        TimeSeriesModel model = new TimeSeriesModel();
         for (double alpha = 0.1; alpha <= 0.9; alpha += 0.1) {
             try {
-                TimeSeriesModel model = new TimeSeriesModel();
                 model.trainExponentialSmoothing(data, alpha);
                 Metrics metrics = model.evaluate();
                 
@@ -0,0 +1,332 @@
+// src/main/java/util/XlsxSheetReader.java
+package util;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 基于 POI 事件 API（XSSFReader + SAX）逐行读取 xlsx 的第一个工作表
+ *
+ * 不构建 XSSFWorkbook 的 DOM：工作表 XML 边解压边解析，每读完一行就回调一次，
+ * 常驻内存的只有共享字符串表、样式表和当前行的单元格。
+ * 单元格类型、取值和日期判断的规则与 XSSFCell 相同（公式单元格使用缓存的计算结果）。
+ */
+final class XlsxSheetReader {
+
+    /**
+     * 每读完一行回调一次，rowNum 从 0 开始；cells 只在回调期间有效
+     */
+    interface RowHandler {
+        void row(int rowNum, ExcelParser.SheetCells cells);
+    }
+
+    private XlsxSheetReader() {
+    }
+
+    /**
+     * 读取第一个工作表
+     *
+     * @return 工作表中的行数（与 Sheet.getPhysicalNumberOfRows() 相同）
+     */
+    static int read(Path file, RowHandler handler) throws Exception {
+        OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ);
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            boolean date1904;
+            try (InputStream workbook = reader.getWorkbookData()) {
+                date1904 = readDate1904(workbook);
+            }
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new IllegalArgumentException("Excel文件中没有工作表");
+            }
+            try (InputStream sheet = sheets.next()) {
+                SheetHandler sheetHandler = new SheetHandler(strings, styles, date1904, handler);
+                XMLReader xmlReader = XMLHelper.newXMLReader();
+                xmlReader.setContentHandler(sheetHandler);
+                xmlReader.parse(new InputSource(sheet));
+                return sheetHandler.rows;
+            }
+        } finally {
+            // 只读打开的包用 revert 关闭，不会写回文件
+            pkg.revert();
+        }
+    }
+
+    private static boolean readDate1904(InputStream workbook) throws Exception {
+        boolean[] date1904 = new boolean[1];
+        XMLReader xmlReader = XMLHelper.newXMLReader();
+        xmlReader.setContentHandler(new DefaultHandler() {
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if ("workbookPr".equals(localName)) {
+                    String value = attributes.getValue("date1904");
+                    date1904[0] = "1".equals(value) || "true".equals(value);
+                }
+            }
+        });
+        xmlReader.parse(new InputSource(workbook));
+        return date1904[0];
+    }
+
+    private static final class SheetHandler extends DefaultHandler implements ExcelParser.SheetCells {
+        private final ReadOnlySharedStringsTable strings;
+        private final StylesTable styles;
+        private final boolean date1904;
+        private final RowHandler handler;
+        // 样式序号 -> 是否为日期格式
+        private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+
+        int rows;
+        private int rowNum = -1;
+
+        // 当前行的单元格，按列号存放，列号超出时扩容；present 标记该列是否有单元格
+        private boolean[] present = new boolean[8];
+        private CellType[] types = new CellType[8];
+        // 公式单元格的缓存结果类型，非公式单元格与 types 相同
+        private CellType[] valueTypes = new CellType[8];
+        private String[] values = new String[8];
+        private int[] styleIndexes = new int[8];
+        private int maxColumn = -1;
+
+        // 当前单元格
+        private int column;
+        private String cellType;
+        private int cellStyle;
+        private boolean formula;
+        private boolean hasValue;
+        private boolean inlineString;
+        private boolean phonetic;
+        private boolean collecting;
+        private final StringBuilder value = new StringBuilder();
+        private final StringBuilder inlineText = new StringBuilder();
+
+        SheetHandler(ReadOnlySharedStringsTable strings, StylesTable styles, boolean date1904, RowHandler handler) {
+            this.strings = strings;
+            this.styles = styles;
+            this.date1904 = date1904;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row": {
+                    String r = attributes.getValue("r");
+                    rowNum = r != null ? Integer.parseInt(r) - 1 : rowNum + 1;
+                    Arrays.fill(present, 0, maxColumn + 1, false);
+                    maxColumn = -1;
+                    column = -1;
+                    break;
+                }
+                case "c": {
+                    String r = attributes.getValue("r");
+                    column = r != null ? columnOf(r) : column + 1;
+                    cellType = attributes.getValue("t");
+                    String s = attributes.getValue("s");
+                    cellStyle = s != null ? Integer.parseInt(s) : 0;
+                    formula = false;
+                    hasValue = false;
+                    inlineString = false;
+                    value.setLength(0);
+                    inlineText.setLength(0);
+                    break;
+                }
+                case "f":
+                    formula = true;
+                    break;
+                case "v":
+                    hasValue = true;
+                    collecting = true;
+                    break;
+                case "is":
+                    inlineString = true;
+                    break;
+                case "rPh":
+                    // 拼音注释不属于单元格文本
+                    phonetic = true;
+                    break;
+                case "t":
+                    collecting = inlineString && !phonetic;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collecting) {
+                (inlineString ? inlineText : value).append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                case "t":
+                    collecting = false;
+                    break;
+                case "rPh":
+                    phonetic = false;
+                    break;
+                case "c":
+                    endCell();
+                    break;
+                case "row":
+                    rows++;
+                    handler.row(rowNum, this);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void endCell() {
+            ensureColumn(column);
+            CellType valueType;
+            String text;
+            if ("s".equals(cellType)) {
+                valueType = CellType.STRING;
+                text = hasValue ? strings.getItemAt(Integer.parseInt(value.toString().trim())).getString() : "";
+            } else if ("inlineStr".equals(cellType)) {
+                valueType = CellType.STRING;
+                text = inlineString ? inlineText.toString() : (hasValue ? value.toString() : "");
+            } else if ("str".equals(cellType)) {
+                valueType = CellType.STRING;
+                text = hasValue ? value.toString() : "";
+            } else if ("b".equals(cellType)) {
+                valueType = CellType.BOOLEAN;
+                text = value.toString();
+            } else if ("e".equals(cellType)) {
+                valueType = CellType.ERROR;
+                text = value.toString();
+            } else {
+                valueType = hasValue || formula ? CellType.NUMERIC : CellType.BLANK;
+                text = hasValue ? value.toString() : null;
+            }
+
+            present[column] = true;
+            types[column] = formula ? CellType.FORMULA : valueType;
+            valueTypes[column] = valueType;
+            values[column] = text;
+            styleIndexes[column] = cellStyle;
+            maxColumn = Math.max(maxColumn, column);
+        }
+
+        // 单元格引用（如 "AB12"）中的列号，从 0 开始
+        private static int columnOf(String ref) {
+            int col = 0;
+            for (int i = 0; i < ref.length(); i++) {
+                char c = ref.charAt(i);
+                if (c < 'A' || c > 'Z') {
+                    break;
+                }
+                col = col * 26 + (c - 'A' + 1);
+            }
+            return col - 1;
+        }
+
+        private void ensureColumn(int col) {
+            if (col < present.length) {
+                return;
+            }
+            int size = Math.max(col + 1, present.length * 2);
+            present = Arrays.copyOf(present, size);
+            types = Arrays.copyOf(types, size);
+            valueTypes = Arrays.copyOf(valueTypes, size);
+            values = Arrays.copyOf(values, size);
+            styleIndexes = Arrays.copyOf(styleIndexes, size);
+        }
+
+        private boolean has(int col) {
+            return col >= 0 && col <= maxColumn && present[col];
+        }
+
+        @Override
+        public int lastColumn() {
+            return maxColumn;
+        }
+
+        @Override
+        public CellType getCellType(int col) {
+            return has(col) ? types[col] : null;
+        }
+
+        @Override
+        public double getNumericCellValue(int col) {
+            CellType valueType = valueTypes[col];
+            if (valueType == CellType.BLANK) {
+                return 0.0;
+            }
+            if (valueType != CellType.NUMERIC) {
+                throw new IllegalStateException("Cannot get a NUMERIC value from a " + valueType + " cell");
+            }
+            String v = values[col];
+            if (v == null || v.isEmpty()) {
+                return 0.0;
+            }
+            try {
+                return Double.parseDouble(v);
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("Cannot get a NUMERIC value from \"" + v + "\"", e);
+            }
+        }
+
+        @Override
+        public String getStringCellValue(int col) {
+            CellType valueType = valueTypes[col];
+            if (valueType == CellType.BLANK) {
+                return "";
+            }
+            if (valueType != CellType.STRING) {
+                throw new IllegalStateException("Cannot get a STRING value from a " + valueType + " cell");
+            }
+            return values[col];
+        }
+
+        @Override
+        public boolean isCellDateFormatted(int col) {
+            double d = getNumericCellValue(col);
+            if (!DateUtil.isValidExcelDate(d)) {
+                return false;
+            }
+            // 没有样式表时 XSSFCell.getCellStyle() 为 null，不算日期
+            if (styles == null || styles.getNumCellStyles() == 0) {
+                return false;
+            }
+            return dateStyles.computeIfAbsent(styleIndexes[col], idx -> {
+                XSSFCellStyle style = styles.getStyleAt(idx);
+                return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+            });
+        }
+
+        @Override
+        public Date getDateCellValue(int col) {
+            return DateUtil.getJavaDate(getNumericCellValue(col), date1904);
+        }
+    }
+}
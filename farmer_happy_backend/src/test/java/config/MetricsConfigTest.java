@@ -0,0 +1,32 @@
+package config;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricsConfigTest {
+
+    @Test
+    void isAuthorized_shouldOnlyAllowLoopback_whenNoTokenConfigured() throws Exception {
+        InetAddress local = InetAddress.getByName("127.0.0.1");
+        InetAddress remote = InetAddress.getByName("10.0.0.8");
+
+        assertThat(MetricsConfig.isAuthorized(local, null, "")).isTrue();
+        assertThat(MetricsConfig.isAuthorized(remote, null, "")).isFalse();
+        assertThat(MetricsConfig.isAuthorized(remote, "Bearer anything", "")).isFalse();
+    }
+
+    @Test
+    void isAuthorized_shouldRequireMatchingBearerToken_whenTokenConfigured() throws Exception {
+        InetAddress local = InetAddress.getByName("127.0.0.1");
+        InetAddress remote = InetAddress.getByName("10.0.0.8");
+
+        assertThat(MetricsConfig.isAuthorized(remote, "Bearer s3cret", "s3cret")).isTrue();
+        assertThat(MetricsConfig.isAuthorized(remote, "bearer s3cret", "s3cret")).isTrue();
+        assertThat(MetricsConfig.isAuthorized(remote, "Bearer wrong", "s3cret")).isFalse();
+        // 配置了令牌后本机访问同样需要令牌
+        assertThat(MetricsConfig.isAuthorized(local, null, "s3cret")).isFalse();
+    }
+}
@@ -0,0 +1,141 @@
+package config;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求执行器压测工具（非单元测试，不会被 surefire 执行）
+ *
+ * 在本地临时端口启动 HttpServer，处理器模拟一次慢查询（默认 20ms），
+ * 分别使用 single / fixed / work-stealing / virtual 模式压测，输出吞吐量、延迟分位数和 503 数量。
+ *
+ * 运行方式：
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=config.RequestExecutorLoadHarness \
+ *       -Dexec.args="--clients 64 --seconds 10 --work-ms 20"
+ */
+public class RequestExecutorLoadHarness {
+
+    public static void main(String[] args) throws Exception {
+        int clients = 64;
+        int seconds = 10;
+        int workMillis = 20;
+        int threads = 32;
+        int queue = 200;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--clients": clients = Integer.parseInt(args[i + 1]); break;
+                case "--seconds": seconds = Integer.parseInt(args[i + 1]); break;
+                case "--work-ms": workMillis = Integer.parseInt(args[i + 1]); break;
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--queue": queue = Integer.parseInt(args[i + 1]); break;
+                default: System.err.println("未知参数: " + args[i]);
+            }
+        }
+
+        System.out.printf("压测参数: clients=%d, seconds=%d, work=%dms, threads=%d, queue=%d%n",
+                clients, seconds, workMillis, threads, queue);
+        System.out.printf("%-14s %10s %10s %10s %10s %8s%n", "mode", "req/s", "p50(ms)", "p99(ms)", "max(ms)", "503");
+
+        String[] modes = {RequestExecutor.MODE_SINGLE, RequestExecutor.MODE_FIXED,
+                RequestExecutor.MODE_WORK_STEALING, RequestExecutor.MODE_VIRTUAL};
+        for (String mode : modes) {
+            runMode(mode, clients, seconds, workMillis, threads, queue);
+        }
+    }
+
+    private static void runMode(String mode, int clients, int seconds, int workMillis,
+                                int threads, int queue) throws Exception {
+        RequestExecutor executor = new RequestExecutor(mode, threads, queue);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        byte[] ok = "{\"code\":200}".getBytes(StandardCharsets.UTF_8);
+        byte[] busy = "{\"code\":503}".getBytes(StandardCharsets.UTF_8);
+        server.createContext("/", exchange -> {
+            if (RequestExecutor.isShedding()) {
+                exchange.sendResponseHeaders(503, busy.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(busy);
+                }
+                return;
+            }
+            try {
+                Thread.sleep(workMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, ok.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(ok);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/api/v1/load");
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(clients))
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong unavailable = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(clients);
+        ExecutorService load = Executors.newFixedThreadPool(clients);
+        for (int c = 0; c < clients; c++) {
+            load.execute(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        long elapsed = System.nanoTime() - start;
+                        if (response.statusCode() == 503) {
+                            unavailable.incrementAndGet();
+                        } else {
+                            latencies.add(elapsed);
+                        }
+                    }
+                } catch (Exception e) {
+                    System.err.println("请求失败: " + e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        load.shutdown();
+        server.stop(0);
+        executor.shutdown(1000);
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        double throughput = sorted.size() / (double) seconds;
+        System.out.printf("%-14s %10.1f %10.1f %10.1f %10.1f %8d%n", executor.getMode(), throughput,
+                percentile(sorted, 0.50), percentile(sorted, 0.99),
+                sorted.isEmpty() ? 0.0 : sorted.get(sorted.size() - 1) / 1_000_000.0, unavailable.get());
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0.0;
+        }
+        int index = (int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1);
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+}
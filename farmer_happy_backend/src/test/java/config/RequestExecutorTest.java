@@ -0,0 +1,88 @@
+package config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestExecutorTest {
+
+    @Test
+    void execute_shouldShedOnCallerThread_whenInFlightLimitReached() throws Exception {
+        // 1 个工作线程 + 1 个排队位置，第三个请求应被降载
+        RequestExecutor executor = new RequestExecutor(RequestExecutor.MODE_FIXED, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                started.countDown();
+                awaitQuietly(release);
+            });
+            executor.execute(() -> awaitQuietly(release));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            AtomicBoolean shed = new AtomicBoolean(false);
+            Thread caller = Thread.currentThread();
+            AtomicBoolean ranOnCaller = new AtomicBoolean(false);
+            executor.execute(() -> {
+                shed.set(RequestExecutor.isShedding());
+                ranOnCaller.set(Thread.currentThread() == caller);
+            });
+
+            assertThat(shed.get()).isTrue();
+            assertThat(ranOnCaller.get()).isTrue();
+            assertThat(RequestExecutor.isShedding()).isFalse();
+            assertThat(executor.getRejectedCount()).isEqualTo(1);
+        } finally {
+            release.countDown();
+            executor.shutdown(5000);
+        }
+        assertThat(executor.getCompletedCount()).isEqualTo(2);
+        assertThat(executor.getInFlight()).isZero();
+    }
+
+    @Test
+    void create_shouldFallBackToSupportedMode_andRunTasksOffCallerThread() throws Exception {
+        String[] modes = {RequestExecutor.MODE_FIXED, RequestExecutor.MODE_WORK_STEALING, RequestExecutor.MODE_VIRTUAL};
+        for (String mode : modes) {
+            RequestExecutor executor = new RequestExecutor(mode, 2, 10);
+            AtomicInteger count = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(5);
+            for (int i = 0; i < 5; i++) {
+                executor.execute(() -> {
+                    assertThat(RequestExecutor.isShedding()).isFalse();
+                    count.incrementAndGet();
+                    done.countDown();
+                });
+            }
+            assertThat(done.await(5, TimeUnit.SECONDS)).as(mode).isTrue();
+            executor.shutdown(5000);
+            assertThat(count.get()).isEqualTo(5);
+            assertThat(executor.getMode()).isIn(RequestExecutor.MODE_FIXED, RequestExecutor.MODE_WORK_STEALING,
+                    RequestExecutor.MODE_VIRTUAL);
+        }
+    }
+
+    @Test
+    void checkThreads_shouldRejectConfiguredThreads_andCapAutoThreads_whenAbovePoolSize() {
+        assertThat(RequestExecutor.checkThreads(RequestExecutor.MODE_FIXED, 8, true, 10)).isEqualTo(8);
+        assertThat(RequestExecutor.checkThreads(RequestExecutor.MODE_FIXED, 16, false, 10)).isEqualTo(10);
+        assertThat(RequestExecutor.checkThreads(RequestExecutor.MODE_SINGLE, 16, true, 10)).isEqualTo(16);
+        assertThatThrownBy(() -> RequestExecutor.checkThreads(RequestExecutor.MODE_FIXED, 16, true, 10))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("db.max.connections");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.auth.Session;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RouteTableTest {
+
+    private RouteTable table;
+
+    @BeforeEach
+    void setUp() {
+        table = new RouteTable();
+        table.add("POST", "/api/v1/buyer/orders", r -> result("create", null));
+        table.add("POST", "/api/v1/buyer/orders/list_query", r -> result("list", null));
+        table.add("PUT", "/api/v1/buyer/orders/{order_id}", r -> result("update", r.getPathVariable("order_id")));
+        table.add("POST", "/api/v1/buyer/orders/query/{order_id}", r -> result("detail", r.getPathVariable("order_id")));
+        table.add("POST", "/api/v1/buyer/orders/{order_id}/refund", r -> result("refund", r.getPathVariable("order_id")));
+    }
+
+    @Test
+    void dispatch_shouldPreferExactAndStaticSegments_andCapturePathVariables() {
+        assertThat(dispatch("/api/v1/buyer/orders/list_query", "POST")).containsEntry("route", "list");
+        assertThat(dispatch("/api/v1/buyer/orders/query/ORD-1", "POST"))
+                .containsEntry("route", "detail").containsEntry("id", "ORD-1");
+        assertThat(dispatch("/api/v1/buyer/orders/ORD-2/refund", "POST"))
+                .containsEntry("route", "refund").containsEntry("id", "ORD-2");
+    }
+
+    @Test
+    void dispatch_shouldFallBackToVariableSegment_whenMethodDoesNotMatchStaticRoute() {
+        // 与原 if 链一致：PUT /list_query 没有精确路由，落到 {order_id}
+        assertThat(dispatch("/api/v1/buyer/orders/list_query", "PUT"))
+                .containsEntry("route", "update").containsEntry("id", "list_query");
+        assertThat(dispatch("/api/v1/buyer/orders/query", "PUT"))
+                .containsEntry("route", "update").containsEntry("id", "query");
+
+        assertThat(dispatch("/api/v1/buyer/orders/ORD-3", "GET")).isNull();
+        assertThat(dispatch("/api/v1/buyer/orders//refund", "POST")).isNull();
+        assertThat(dispatch("/api/v1/buyer/orders/ORD-3/refund/", "POST")).isNull();
+    }
+
+    @Test
+    void dispatch_shouldCountHitsAndLatencyPerRoute() {
+        dispatch("/api/v1/buyer/orders/A/refund", "POST");
+        dispatch("/api/v1/buyer/orders/B/refund", "POST");
+        dispatch("/api/v1/buyer/orders", "POST");
+
+        List<Map<String, Object>> stats = table.getStats();
+        Map<String, Object> refund = stats.get(4);
+        assertThat(refund).containsEntry("pattern", "/api/v1/buyer/orders/{order_id}/refund").containsEntry("hits", 2L);
+        assertThat(((Map<?, ?>) refund.get("latency")).get("count")).isEqualTo(2L);
+        assertThat(stats.get(0)).containsEntry("hits", 1L);
+        assertThat(stats.get(1)).containsEntry("hits", 0L);
+    }
+
+    @Test
+    void add_shouldRejectDuplicateRoute() {
+        assertThatThrownBy(() -> table.add("PUT", "/api/v1/buyer/orders/{id}", r -> null))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void dispatch_shouldFillAndCheckSessionPhone_onlyOnRoutesDeclaringCallerPhone() {
+        table.add("POST", "/api/v1/buyer/orders/{order_id}/confirm_receipt", new String[] { "buyer_phone" },
+                r -> result("confirm", (String) r.getBody().get("buyer_phone")));
+        table.add("POST", "/api/v1/bank/loans/approve", r -> result("approve", (String) r.getBody().get("phone")));
+        Session session = mock(Session.class);
+        when(session.getPhone()).thenReturn("13800000001");
+
+        Map<String, Object> body = new HashMap<>();
+        assertThat(table.dispatch("/api/v1/buyer/orders/A/confirm_receipt", "POST", body, new HashMap<>(),
+                new HashMap<>(), session)).containsEntry("id", "13800000001");
+
+        body = new HashMap<>();
+        body.put("buyer_phone", "13800000002");
+        assertThat(table.dispatch("/api/v1/buyer/orders/A/confirm_receipt", "POST", body, new HashMap<>(),
+                new HashMap<>(), session)).containsEntry("code", 403);
+
+        // 未声明的路由中手机号可以指向其他用户，不补齐也不校验
+        body = new HashMap<>();
+        body.put("phone", "13800000002");
+        Map<String, Object> approved = table.dispatch("/api/v1/bank/loans/approve", "POST", body, new HashMap<>(),
+                new HashMap<>(), session);
+        assertThat(approved).containsEntry("route", "approve").containsEntry("id", "13800000002");
+        Map<String, Object> emptyBody = new HashMap<>();
+        table.dispatch("/api/v1/bank/loans/approve", "POST", emptyBody, new HashMap<>(), new HashMap<>(), session);
+        assertThat(emptyBody).doesNotContainKey("phone");
+    }
+
+    private Map<String, Object> dispatch(String path, String method) {
+        return table.dispatch(path, method, new HashMap<>(), new HashMap<>(), new HashMap<>());
+    }
+
+    private static Map<String, Object> result(String route, String id) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("route", route);
+        response.put("id", id);
+        return response;
+    }
+}
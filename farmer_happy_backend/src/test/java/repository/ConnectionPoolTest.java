@@ -0,0 +1,151 @@
+package repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = new ConnectionPool("org.h2.Driver", "jdbc:h2:mem:pool_test;DB_CLOSE_DELAY=-1", "sa", "",
+                0, 2, 200, 600000, 0, 0, 1, 60000, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void close_shouldReturnPhysicalConnectionToPool() throws SQLException {
+        Connection first = pool.borrow();
+        Connection physical = first.unwrap(Connection.class);
+        first.close();
+
+        assertThat(first.isClosed()).isTrue();
+        assertThat(pool.getIdleConnections()).isEqualTo(1);
+
+        Connection second = pool.borrow();
+        assertThat(second.unwrap(Connection.class)).isSameAs(physical);
+        assertThat(pool.getActiveConnections()).isEqualTo(1);
+        second.close();
+    }
+
+    @Test
+    void borrow_shouldTimeOut_whenPoolExhausted() throws SQLException {
+        Connection a = pool.borrow();
+        Connection b = pool.borrow();
+
+        assertThatThrownBy(() -> pool.borrow()).isInstanceOf(SQLTimeoutException.class);
+        assertThat(pool.getStats().get("timeout_count")).isEqualTo(1L);
+
+        a.close();
+        b.close();
+        assertThat(pool.getTotalConnections()).isEqualTo(2);
+    }
+
+    @Test
+    void releaseMostRecent_shouldReleaseNestedBorrowsInLifoOrder() throws SQLException {
+        Connection outer = pool.borrow();
+        Connection inner = pool.borrow();
+
+        pool.releaseMostRecent();
+        assertThat(inner.isClosed()).isTrue();
+        assertThat(outer.isClosed()).isFalse();
+
+        pool.releaseMostRecent();
+        assertThat(outer.isClosed()).isTrue();
+        assertThat(pool.getActiveConnections()).isZero();
+    }
+
+    @Test
+    void release_shouldRollBackOpenTransaction_andCloseLeftoverStatements() throws SQLException {
+        Connection setup = pool.borrow();
+        Statement ddl = setup.createStatement();
+        ddl.execute("CREATE TABLE IF NOT EXISTS pool_items (id INT PRIMARY KEY)");
+        ddl.execute("DELETE FROM pool_items");
+        setup.close();
+
+        Connection conn = pool.borrow();
+        conn.setAutoCommit(false);
+        PreparedStatement leftover = conn.prepareStatement("INSERT INTO pool_items (id) VALUES (1)");
+        leftover.executeUpdate();
+        conn.close();
+
+        assertThat(leftover.isClosed()).isTrue();
+        Connection check = pool.borrow();
+        assertThat(check.getAutoCommit()).isTrue();
+        java.sql.ResultSet rs = check.createStatement().executeQuery("SELECT COUNT(*) FROM pool_items");
+        rs.next();
+        assertThat(rs.getInt(1)).isZero();
+        check.close();
+    }
+
+    @Test
+    void prepareStatement_shouldReuseCachedStatement_andEvictLeastRecentlyUsed() throws SQLException {
+        Connection conn = pool.borrow();
+        PreparedStatement first = conn.prepareStatement("SELECT ? AS v");
+        first.setInt(1, 1);
+        first.executeQuery().close();
+        first.close();
+
+        PreparedStatement second = conn.prepareStatement("SELECT ? AS v");
+        second.setInt(1, 2);
+        java.sql.ResultSet rs = second.executeQuery();
+        rs.next();
+        assertThat(rs.getInt(1)).isEqualTo(2);
+
+        // 同一条 SQL 仍被占用时，新的 prepare 不应复用同一个物理语句
+        PreparedStatement nested = conn.prepareStatement("SELECT ? AS v");
+        assertThat(nested.unwrap(PreparedStatement.class)).isNotSameAs(second.unwrap(PreparedStatement.class));
+        nested.close();
+        second.close();
+
+        // 缓存容量为 2，第三条 SQL 会淘汰最久未用的语句
+        conn.prepareStatement("SELECT 1").close();
+        conn.prepareStatement("SELECT 2").close();
+        conn.prepareStatement("SELECT ? AS v").close();
+        conn.close();
+
+        assertThat(pool.getStats().get("statement_cache_hits")).isEqualTo(1L);
+        assertThat(pool.getStats().get("statement_cache_misses")).isEqualTo(5L);
+        assertThat((Long) pool.getStats().get("statement_cache_evictions")).isGreaterThanOrEqualTo(1L);
+    }
+
+    @Test
+    void shutdown_shouldCloseCachedStatements_whenDiscardingConnections() throws SQLException {
+        Connection conn = pool.borrow();
+        PreparedStatement cached = conn.prepareStatement("SELECT ? AS v");
+        PreparedStatement physical = cached.unwrap(PreparedStatement.class);
+        cached.close();
+        conn.close();
+        assertThat(physical.isClosed()).isFalse();
+
+        pool.shutdown();
+
+        assertThat(physical.isClosed()).isTrue();
+    }
+
+    @Test
+    void release_shouldRecordHoldTimePerCallingMethod_whenOperationMetricsEnabled() throws SQLException {
+        pool.setOperationMetricsEnabled(true);
+        Connection conn = pool.borrow();
+        conn.close();
+
+        assertThat(pool.getOperationLatencies())
+                .containsKey("ConnectionPoolTest.release_shouldRecordHoldTimePerCallingMethod_whenOperationMetricsEnabled");
+        assertThat(pool.getOperationLatencies().values().iterator().next().getCount()).isEqualTo(1L);
+    }
+}
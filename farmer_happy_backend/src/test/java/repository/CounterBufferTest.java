@@ -0,0 +1,177 @@
+package repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CounterBufferTest {
+
+    private final Map<String, long[]> table = new ConcurrentHashMap<>();
+    private final AtomicInteger batches = new AtomicInteger();
+    private final AtomicBoolean failing = new AtomicBoolean();
+
+    // 模拟批量 UPDATE：把增量加到“表”上
+    private final CounterBuffer buffer = new CounterBuffer(2, deltas -> {
+        if (failing.get()) {
+            throw new SQLException("数据库不可用");
+        }
+        batches.incrementAndGet();
+        for (Map.Entry<String, long[]> entry : deltas.entrySet()) {
+            long[] row = table.computeIfAbsent(entry.getKey(), k -> new long[2]);
+            synchronized (row) {
+                row[0] += entry.getValue()[0];
+                row[1] += entry.getValue()[1];
+            }
+        }
+    }, 60_000, 60_000, "counter-test");
+
+    @AfterEach
+    void tearDown() {
+        failing.set(false);
+        buffer.shutdown();
+    }
+
+    private long stored(String key, int column) {
+        long[] row = table.get(key);
+        return row != null ? row[column] : 0;
+    }
+
+    @Test
+    void flush_shouldNotLoseIncrements_whenFlushingConcurrentlyWithWriters() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> writers = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        buffer.add("c" + (i % 3), 0, 1);
+                        if (i % 10 == 0) {
+                            buffer.add("c" + (i % 3), 1, 1);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            Future<?> flusher = pool.submit(() -> {
+                start.await();
+                while (writing.get()) {
+                    buffer.flush();
+                }
+                return null;
+            });
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            flusher.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long views = 0;
+        long comments = 0;
+        for (int k = 0; k < 3; k++) {
+            views += stored("c" + k, 0) + buffer.pending("c" + k, 0);
+            comments += stored("c" + k, 1) + buffer.pending("c" + k, 1);
+        }
+        assertThat(views).isEqualTo((long) threads * perThread);
+        assertThat(comments).isEqualTo((long) threads * (perThread / 10));
+
+        buffer.flush();
+        assertThat(stored("c0", 0) + stored("c1", 0) + stored("c2", 0)).isEqualTo((long) threads * perThread);
+        assertThat(buffer.pending("c0", 0)).isZero();
+    }
+
+    @Test
+    void flush_shouldKeepDeltasForRetry_whenSinkFails() throws SQLException {
+        buffer.add("c1", 0, 5);
+        buffer.add("c1", 1, 2);
+        failing.set(true);
+
+        assertThatThrownBy(buffer::flush).isInstanceOf(SQLException.class);
+        assertThat(buffer.pending("c1", 0)).isEqualTo(5);
+        assertThat(buffer.pending("c1", 1)).isEqualTo(2);
+        assertThat(buffer.getStats()).containsEntry("flush_failures", 1L);
+
+        failing.set(false);
+        buffer.flush();
+        assertThat(stored("c1", 0)).isEqualTo(5);
+        assertThat(stored("c1", 1)).isEqualTo(2);
+        assertThat(buffer.pending("c1", 0)).isZero();
+    }
+
+    @Test
+    void pending_shouldStillCountDeltas_whileSinkIsWriting() throws SQLException {
+        List<Long> seenDuringWrite = new ArrayList<>();
+        CounterBuffer[] self = new CounterBuffer[1];
+        self[0] = new CounterBuffer(2, deltas -> {
+            // 写库过程中读取：已取出但未提交的增量仍要补上
+            seenDuringWrite.add(self[0].pending("c1", 0));
+            self[0].add("c1", 0, 1);
+        }, 60_000, 60_000, "counter-test");
+        self[0].add("c1", 0, 4);
+
+        self[0].flush();
+
+        assertThat(seenDuringWrite).containsExactly(4L);
+        // 写库期间的新增量保留到下一轮
+        assertThat(self[0].pending("c1", 0)).isEqualTo(1);
+        self[0].shutdown();
+    }
+
+    @Test
+    void add_shouldBeRejected_afterShutdown() throws SQLException {
+        assertThat(buffer.add("c1", 0, 3)).isTrue();
+        buffer.shutdown();
+
+        assertThat(stored("c1", 0)).isEqualTo(3);
+        assertThat(buffer.add("c1", 0, 1)).isFalse();
+        buffer.flush();
+        assertThat(stored("c1", 0)).isEqualTo(3);
+        assertThat(buffer.pending("c1", 0)).isZero();
+    }
+
+    @Test
+    void flush_shouldBatchAllKeysInOneCall_andDropIdleKeys() throws SQLException {
+        CounterBuffer idleDropping = new CounterBuffer(2, deltas -> {
+            batches.incrementAndGet();
+            for (Map.Entry<String, long[]> entry : deltas.entrySet()) {
+                table.put(entry.getKey(), entry.getValue());
+            }
+        }, 60_000, 0, "counter-test");
+        for (int i = 0; i < 100; i++) {
+            idleDropping.add("c" + i, 0, 1);
+        }
+        idleDropping.flush();
+        assertThat(batches.get()).isEqualTo(1);
+        assertThat(table).hasSize(100);
+
+        // 空闲后移除，不会再次写库
+        idleDropping.flush();
+        assertThat(idleDropping.getStats()).containsEntry("keys", 0);
+        idleDropping.flush();
+        assertThat(batches.get()).isEqualTo(1);
+        idleDropping.shutdown();
+    }
+}
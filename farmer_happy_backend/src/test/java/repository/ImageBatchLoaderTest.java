@@ -0,0 +1,87 @@
+package repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageBatchLoaderTest {
+
+    private Connection conn;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:image_loader_test;DB_CLOSE_DELAY=-1", "sa", "");
+        Statement ddl = conn.createStatement();
+        ddl.execute("DROP TABLE IF EXISTS product_images");
+        ddl.execute("DROP TABLE IF EXISTS content_images");
+        ddl.execute("CREATE TABLE product_images (image_id BIGINT AUTO_INCREMENT PRIMARY KEY, product_id BIGINT, "
+                + "image_url VARCHAR(500), sort_order INT DEFAULT 0, is_main BOOLEAN DEFAULT FALSE)");
+        ddl.execute("CREATE TABLE content_images (image_id BIGINT AUTO_INCREMENT PRIMARY KEY, content_id VARCHAR(50), "
+                + "image_url VARCHAR(500), sort_order INT DEFAULT 0)");
+        ddl.execute("INSERT INTO product_images (product_id, image_url, sort_order, is_main) VALUES "
+                + "(1, 'p1-b', 1, FALSE), (1, 'p1-a', 0, TRUE), (1, 'p1-c', 2, FALSE), "
+                + "(2, 'p2-a', 0, FALSE), (3, 'p3-main', 5, TRUE)");
+        ddl.execute("INSERT INTO content_images (content_id, image_url, sort_order) VALUES "
+                + "('c1', 'c1-b', 1), ('c1', 'c1-a', 0), ('c2', 'c2-a', 0)");
+        ddl.close();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    void loadProductImages_shouldGroupBySortOrder_andApplyPerProductLimit() throws SQLException {
+        Map<Long, List<String>> all = ImageBatchLoader.loadProductImages(conn, Arrays.asList(1L, 2L, 4L, 1L), 0);
+        assertThat(all.get(1L)).containsExactly("p1-a", "p1-b", "p1-c");
+        assertThat(all.get(2L)).containsExactly("p2-a");
+        assertThat(all).doesNotContainKey(4L);
+
+        Map<Long, List<String>> limited = ImageBatchLoader.loadProductImages(conn, Arrays.asList(1L, 2L), 2);
+        assertThat(limited.get(1L)).containsExactly("p1-a", "p1-b");
+
+        assertThat(ImageBatchLoader.loadProductImages(conn, Collections.emptyList(), 0)).isEmpty();
+    }
+
+    @Test
+    void loadMainProductImages_andContentImages_shouldReturnOnlyMatchingRows() throws SQLException {
+        Map<Long, String> main = ImageBatchLoader.loadMainProductImages(conn, Arrays.asList(1L, 2L, 3L));
+        assertThat(main).containsEntry(1L, "p1-a").containsEntry(3L, "p3-main").doesNotContainKey(2L);
+
+        Map<String, List<String>> contents = ImageBatchLoader.loadContentImages(conn, Arrays.asList("c1", "c2", "c3"));
+        assertThat(contents.get("c1")).containsExactly("c1-a", "c1-b");
+        assertThat(contents.get("c2")).containsExactly("c2-a");
+        assertThat(contents).doesNotContainKey("c3");
+    }
+
+    @Test
+    void batches_shouldSplitLargeIdLists_andPadPlaceholdersToPowerOfTwo() throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 1; i <= InClause.MAX_BATCH_SIZE + 3; i++) {
+            ids.add(i);
+        }
+        List<List<Long>> batches = InClause.batches(ids);
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(1)).containsExactly(257L, 258L, 259L);
+
+        assertThat(InClause.placeholderCount(1)).isEqualTo(1);
+        assertThat(InClause.placeholderCount(3)).isEqualTo(4);
+        assertThat(InClause.placeholderCount(4)).isEqualTo(4);
+        assertThat(InClause.placeholderCount(200)).isEqualTo(256);
+
+        assertThat(ImageBatchLoader.loadProductImages(conn, ids, 0).keySet()).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+}
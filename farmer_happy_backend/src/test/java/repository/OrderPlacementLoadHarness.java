@@ -0,0 +1,258 @@
+package repository;
+
+import entity.Order;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 下单路径压测工具（非单元测试，不会被 surefire 执行）
+ *
+ * 多个线程同时抢购同一件库存有限的商品，分别使用旧的逐条自动提交路径（先查库存/余额再分别扣减）、
+ * {@link OrderPlacement} 的单事务条件扣减路径和 {@link StockReservations} 的内存预占路径，
+ * 输出吞吐量、延迟分位数以及超卖件数。
+ * 默认使用 H2 内存库，也可以通过 --url 指向一个已有 orders/products/users/user_farmers 表结构的测试库
+ * （会被清空重建）。
+ *
+ * 运行方式：
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=repository.OrderPlacementLoadHarness \
+ *       -Dexec.args="--threads 32 --orders 200 --stock 2000"
+ */
+public class OrderPlacementLoadHarness {
+
+    public static void main(String[] args) throws Exception {
+        int threads = 32;
+        int orders = 200;
+        int stock = 2000;
+        String url = "jdbc:h2:mem:order_placement_load;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+        String user = "sa";
+        String password = "";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--orders": orders = Integer.parseInt(args[i + 1]); break;
+                case "--stock": stock = Integer.parseInt(args[i + 1]); break;
+                case "--url": url = args[i + 1]; break;
+                case "--user": user = args[i + 1]; break;
+                case "--password": password = args[i + 1]; break;
+                default: System.err.println("未知参数: " + args[i]);
+            }
+        }
+
+        System.out.printf("压测参数: threads=%d, orders/thread=%d, stock=%d%n", threads, orders, stock);
+        System.out.printf("%-12s %10s %10s %10s %10s %8s %8s%n",
+                "path", "orders/s", "p50(ms)", "p99(ms)", "max(ms)", "placed", "oversold");
+        run("legacy", url, user, password, threads, orders, stock);
+        run("transaction", url, user, password, threads, orders, stock);
+        run("reserved", url, user, password, threads, orders, stock);
+    }
+
+    private static void run(String path, String url, String user, String password,
+                            int threads, int orders, int stock) throws Exception {
+        Connection admin = DriverManager.getConnection(url, user, password);
+        try {
+            OrderPlacementTest.createSchema(admin);
+            Statement stmt = admin.createStatement();
+            stmt.execute("INSERT INTO user_farmers (farmer_id, uid) VALUES (1, 'farmer-1')");
+            stmt.execute("INSERT INTO products (product_id, farmer_id, title, detailed_description, price, stock, "
+                    + "status) VALUES (1, 1, '苹果', '5斤装', 1.00, " + stock + ", 'on_shelf')");
+            for (int t = 0; t < threads; t++) {
+                stmt.execute("INSERT INTO users (uid, money) VALUES ('buyer-" + t + "', 1000000)");
+            }
+            stmt.close();
+        } finally {
+            admin.close();
+        }
+
+        StockReservations reservations = null;
+        if ("reserved".equals(path)) {
+            reservations = new StockReservations(() -> DriverManager.getConnection(url, user, password),
+                    8, 200, 500);
+            reservations.start();
+        }
+        StockReservations engine = reservations;
+
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong placed = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            String buyer = "buyer-" + t;
+            pool.execute(() -> {
+                try {
+                    Connection conn = DriverManager.getConnection(url, user, password);
+                    try {
+                        start.await();
+                        for (int i = 0; i < orders; i++) {
+                            Order order = OrderPlacementTest.newOrder(buyer, 1, 1);
+                            long begin = System.nanoTime();
+                            boolean ok;
+                            if ("legacy".equals(path)) {
+                                ok = placeLegacy(conn, order);
+                            } else if (engine != null) {
+                                ok = placeReserved(engine, conn, order);
+                            } else {
+                                ok = OrderPlacement.place(conn, order).getStatus() == OrderPlacement.Status.PLACED;
+                            }
+                            latencies.add(System.nanoTime() - begin);
+                            if (ok) {
+                                placed.incrementAndGet();
+                            }
+                        }
+                    } finally {
+                        conn.close();
+                    }
+                } catch (Exception e) {
+                    System.err.println("下单失败: " + e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+        pool.shutdown();
+        if (engine != null) {
+            engine.shutdown();
+        }
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("%-12s %10.1f %10.2f %10.2f %10.2f %8d %8d%n", path, sorted.size() / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99),
+                sorted.isEmpty() ? 0.0 : sorted.get(sorted.size() - 1) / 1_000_000.0,
+                placed.get(), Math.max(0, placed.get() - stock));
+    }
+
+    // 与 DatabaseManager.placeOrder 开启预占时的流程相同
+    private static boolean placeReserved(StockReservations engine, Connection conn, Order order)
+            throws SQLException {
+        StockReservations.Reservation reservation = engine.reserve(order.getProductId(), order.getQuantity());
+        if (reservation.getStatus() != StockReservations.Status.RESERVED) {
+            return false;
+        }
+        boolean placed = false;
+        try {
+            placed = OrderPlacement.placeReserved(conn, order).getStatus() == OrderPlacement.Status.PLACED;
+            if (placed) {
+                engine.confirm(reservation, order.getOrderId());
+            }
+            return placed;
+        } finally {
+            if (!placed) {
+                engine.cancel(reservation);
+            }
+        }
+    }
+
+    /**
+     * 旧下单流程：每一步单独自动提交，检查库存和扣减库存之间没有任何保护
+     */
+    private static boolean placeLegacy(Connection conn, Order order) throws SQLException {
+        BigDecimal price;
+        long farmerId;
+        PreparedStatement stmt = conn.prepareStatement(
+                "SELECT farmer_id, title, detailed_description, price, stock, status FROM products WHERE product_id = ?");
+        try {
+            stmt.setLong(1, order.getProductId());
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next() || !"on_shelf".equals(rs.getString("status")) || rs.getInt("stock") < order.getQuantity()) {
+                return false;
+            }
+            farmerId = rs.getLong("farmer_id");
+            price = new BigDecimal(rs.getDouble("price"));
+            order.setProductTitle(rs.getString("title"));
+            order.setProductSpecification(rs.getString("detailed_description"));
+        } finally {
+            stmt.close();
+        }
+        BigDecimal total = price.multiply(new BigDecimal(order.getQuantity()));
+
+        stmt = conn.prepareStatement("SELECT money FROM users WHERE uid = ?");
+        try {
+            stmt.setString(1, order.getBuyerUid());
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next() || rs.getBigDecimal(1).compareTo(total) < 0) {
+                return false;
+            }
+        } finally {
+            stmt.close();
+        }
+
+        stmt = conn.prepareStatement("SELECT uid FROM user_farmers WHERE farmer_id = ?");
+        try {
+            stmt.setLong(1, farmerId);
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
+                return false;
+            }
+            order.setFarmerUid(rs.getString(1));
+        } finally {
+            stmt.close();
+        }
+
+        stmt = conn.prepareStatement("INSERT INTO orders (order_id, buyer_uid, farmer_uid, product_id, "
+                + "product_title, product_specification, product_price, quantity, total_amount, buyer_name, "
+                + "buyer_address, buyer_phone, remark, status, shipped_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)");
+        try {
+            stmt.setString(1, order.getOrderId());
+            stmt.setString(2, order.getBuyerUid());
+            stmt.setString(3, order.getFarmerUid());
+            stmt.setLong(4, order.getProductId());
+            stmt.setString(5, order.getProductTitle());
+            stmt.setString(6, order.getProductSpecification());
+            stmt.setBigDecimal(7, price);
+            stmt.setInt(8, order.getQuantity());
+            stmt.setBigDecimal(9, total);
+            stmt.setString(10, order.getBuyerName());
+            stmt.setString(11, order.getBuyerAddress());
+            stmt.setString(12, order.getBuyerPhone());
+            stmt.setString(13, order.getRemark());
+            stmt.setString(14, order.getStatus());
+            stmt.executeUpdate();
+        } finally {
+            stmt.close();
+        }
+
+        executeUpdate(conn, "UPDATE products SET stock = stock - " + order.getQuantity()
+                + " WHERE product_id = " + order.getProductId());
+        executeUpdate(conn, "UPDATE users SET money = money - " + total.toPlainString()
+                + " WHERE uid = '" + order.getBuyerUid() + "'");
+        executeUpdate(conn, "UPDATE products SET sales_count = sales_count + " + order.getQuantity()
+                + " WHERE product_id = " + order.getProductId());
+        return true;
+    }
+
+    private static void executeUpdate(Connection conn, String sql) throws SQLException {
+        Statement stmt = conn.createStatement();
+        try {
+            stmt.executeUpdate(sql);
+        } finally {
+            stmt.close();
+        }
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0.0;
+        }
+        int index = (int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1);
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+}
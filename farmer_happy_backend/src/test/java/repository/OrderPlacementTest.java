@@ -0,0 +1,210 @@
+package repository;
+
+import entity.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderPlacementTest {
+
+    static final String URL = "jdbc:h2:mem:order_placement_test;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+
+    private Connection conn;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = DriverManager.getConnection(URL, "sa", "");
+        createSchema(conn);
+        Statement stmt = conn.createStatement();
+        stmt.execute("INSERT INTO user_farmers (farmer_id, uid) VALUES (1, 'farmer-1')");
+        stmt.execute("INSERT INTO products (product_id, farmer_id, title, detailed_description, price, stock, status) "
+                + "VALUES (10, 1, '苹果', '5斤装', 12.50, 50, 'on_shelf'), "
+                + "(11, 1, '梨', '3斤装', 10.00, 1000, 'on_shelf'), "
+                + "(12, 1, '桃', '2斤装', 8.00, 10, 'off_shelf')");
+        stmt.close();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    /**
+     * 建表语句只保留下单涉及的列，压测工具也复用
+     */
+    static void createSchema(Connection conn) throws SQLException {
+        Statement ddl = conn.createStatement();
+        ddl.execute("DROP TABLE IF EXISTS orders");
+        ddl.execute("DROP TABLE IF EXISTS products");
+        ddl.execute("DROP TABLE IF EXISTS user_farmers");
+        ddl.execute("DROP TABLE IF EXISTS users");
+        ddl.execute("CREATE TABLE users (uid VARCHAR(36) PRIMARY KEY, money DECIMAL(10,2) DEFAULT 1000)");
+        ddl.execute("CREATE TABLE user_farmers (farmer_id BIGINT PRIMARY KEY, uid VARCHAR(36) NOT NULL)");
+        ddl.execute("CREATE TABLE products (product_id BIGINT PRIMARY KEY, farmer_id BIGINT NOT NULL, "
+                + "title VARCHAR(100) NOT NULL, detailed_description VARCHAR(200) NOT NULL, "
+                + "price DECIMAL(10,2) NOT NULL, stock INT NOT NULL DEFAULT 0, status VARCHAR(20) NOT NULL, "
+                + "sales_count INT DEFAULT 0)");
+        ddl.execute("CREATE TABLE orders (order_id VARCHAR(50) PRIMARY KEY, buyer_uid VARCHAR(36) NOT NULL, "
+                + "farmer_uid VARCHAR(36) NOT NULL, product_id BIGINT NOT NULL, product_title VARCHAR(100) NOT NULL, "
+                + "product_specification VARCHAR(200) NOT NULL, product_price DECIMAL(10,2) NOT NULL, "
+                + "quantity INT NOT NULL, total_amount DECIMAL(10,2) NOT NULL, buyer_name VARCHAR(50) NOT NULL, "
+                + "buyer_address VARCHAR(200) NOT NULL, buyer_phone VARCHAR(11) NOT NULL, remark VARCHAR(500), "
+                + "status VARCHAR(20), stock_applied BOOLEAN NOT NULL DEFAULT TRUE, shipped_at TIMESTAMP NULL)");
+        ddl.close();
+    }
+
+    static Order newOrder(String buyerUid, long productId, int quantity) {
+        Order order = new Order();
+        order.setOrderId("order-" + UUID.randomUUID());
+        order.setBuyerUid(buyerUid);
+        order.setProductId(productId);
+        order.setQuantity(quantity);
+        order.setBuyerName("张三");
+        order.setBuyerAddress("北京市海淀区");
+        order.setBuyerPhone("13800000001");
+        order.setStatus("shipped");
+        return order;
+    }
+
+    private void addBuyer(String uid, String money) throws SQLException {
+        Statement stmt = conn.createStatement();
+        stmt.execute("INSERT INTO users (uid, money) VALUES ('" + uid + "', " + money + ")");
+        stmt.close();
+    }
+
+    private long queryLong(String sql) throws SQLException {
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery(sql);
+        rs.next();
+        long value = rs.getLong(1);
+        stmt.close();
+        return value;
+    }
+
+    private BigDecimal money(String uid) throws SQLException {
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT money FROM users WHERE uid = '" + uid + "'");
+        rs.next();
+        BigDecimal value = rs.getBigDecimal(1);
+        stmt.close();
+        return value;
+    }
+
+    @Test
+    void place_shouldDeductStockAndBalance_andInsertOrder_inOneTransaction() throws SQLException {
+        addBuyer("buyer-1", "100.00");
+
+        OrderPlacement.Result result = OrderPlacement.place(conn, newOrder("buyer-1", 10, 4));
+
+        assertThat(result.getStatus()).isEqualTo(OrderPlacement.Status.PLACED);
+        assertThat(result.getOrder().getFarmerUid()).isEqualTo("farmer-1");
+        assertThat(result.getOrder().getProductTitle()).isEqualTo("苹果");
+        assertThat(result.getTotalAmount()).isEqualByComparingTo("50.00");
+        assertThat(queryLong("SELECT stock FROM products WHERE product_id = 10")).isEqualTo(46);
+        assertThat(queryLong("SELECT sales_count FROM products WHERE product_id = 10")).isEqualTo(4);
+        assertThat(money("buyer-1")).isEqualByComparingTo("50.00");
+        assertThat(queryLong("SELECT COUNT(*) FROM orders")).isEqualTo(1);
+        assertThat(conn.getAutoCommit()).isTrue();
+    }
+
+    @Test
+    void place_shouldRollBackStock_whenBalanceInsufficient_andReportReasons() throws SQLException {
+        addBuyer("buyer-1", "20.00");
+
+        OrderPlacement.Result poor = OrderPlacement.place(conn, newOrder("buyer-1", 10, 2));
+        OrderPlacement.Result tooMany = OrderPlacement.place(conn, newOrder("buyer-1", 10, 51));
+        OrderPlacement.Result offShelf = OrderPlacement.place(conn, newOrder("buyer-1", 12, 1));
+        OrderPlacement.Result missing = OrderPlacement.place(conn, newOrder("buyer-1", 99, 1));
+
+        assertThat(poor.getStatus()).isEqualTo(OrderPlacement.Status.INSUFFICIENT_BALANCE);
+        assertThat(poor.getBalance()).isEqualByComparingTo("20.00");
+        assertThat(poor.getTotalAmount()).isEqualByComparingTo("25.00");
+        assertThat(tooMany.getStatus()).isEqualTo(OrderPlacement.Status.INSUFFICIENT_STOCK);
+        assertThat(tooMany.getAvailableStock()).isEqualTo(50);
+        assertThat(offShelf.getStatus()).isEqualTo(OrderPlacement.Status.OFF_SHELF);
+        assertThat(missing.getStatus()).isEqualTo(OrderPlacement.Status.PRODUCT_NOT_FOUND);
+        assertThat(queryLong("SELECT stock FROM products WHERE product_id = 10")).isEqualTo(50);
+        assertThat(queryLong("SELECT sales_count FROM products WHERE product_id = 10")).isZero();
+        assertThat(queryLong("SELECT COUNT(*) FROM orders")).isZero();
+    }
+
+    @Test
+    void place_shouldNeverOversellOrOverdraw_underConcurrentBuyers() throws Exception {
+        int threads = 16;
+        int attemptsPerThread = 20;
+        for (int i = 0; i < threads; i++) {
+            addBuyer("buyer-" + i, "100000.00");
+        }
+        // 共享买家的余额只够买 10 件梨
+        addBuyer("shared", "100.00");
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger placedQuantity = new AtomicInteger();
+        AtomicInteger sharedPlaced = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                String buyer = "buyer-" + t;
+                int seed = t;
+                futures.add(pool.submit((Callable<Void>) () -> {
+                    Connection own = DriverManager.getConnection(URL, "sa", "");
+                    try {
+                        start.await();
+                        for (int i = 0; i < attemptsPerThread; i++) {
+                            int quantity = 1 + (seed + i) % 3;
+                            OrderPlacement.Result result = OrderPlacement.place(own, newOrder(buyer, 10, quantity));
+                            if (result.getStatus() == OrderPlacement.Status.PLACED) {
+                                placedQuantity.addAndGet(quantity);
+                            }
+                            if (OrderPlacement.place(own, newOrder("shared", 11, 1)).getStatus()
+                                    == OrderPlacement.Status.PLACED) {
+                                sharedPlaced.incrementAndGet();
+                            }
+                        }
+                    } finally {
+                        own.close();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long stock = queryLong("SELECT stock FROM products WHERE product_id = 10");
+        long orderedQuantity = queryLong("SELECT COALESCE(SUM(quantity), 0) FROM orders WHERE product_id = 10");
+        assertThat(stock).isGreaterThanOrEqualTo(0);
+        assertThat(orderedQuantity).isEqualTo(placedQuantity.get()).isEqualTo(50 - stock);
+        assertThat(queryLong("SELECT sales_count FROM products WHERE product_id = 10")).isEqualTo(orderedQuantity);
+        // 总需求远大于库存，库存只会剩下不够任何一次 3 件下单的零头
+        assertThat(stock).isLessThan(3);
+
+        assertThat(sharedPlaced.get()).isEqualTo(10);
+        assertThat(queryLong("SELECT COUNT(*) FROM orders WHERE buyer_uid = 'shared'")).isEqualTo(10);
+        assertThat(money("shared")).isEqualByComparingTo("0.00");
+    }
+}
@@ -0,0 +1,267 @@
+package repository;
+
+import entity.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockReservationsTest {
+
+    private static final String URL = "jdbc:h2:mem:stock_reservations_test;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+
+    private Connection conn;
+    private final List<StockReservations> engines = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = DriverManager.getConnection(URL, "sa", "");
+        OrderPlacementTest.createSchema(conn);
+        execute("INSERT INTO user_farmers (farmer_id, uid) VALUES (1, 'farmer-1')");
+        execute("INSERT INTO products (product_id, farmer_id, title, detailed_description, price, stock, status) "
+                + "VALUES (10, 1, '苹果', '5斤装', 1.00, 100, 'on_shelf'), "
+                + "(11, 1, '梨', '3斤装', 1.00, 7, 'on_shelf'), "
+                + "(12, 1, '桃', '2斤装', 1.00, 10, 'off_shelf')");
+        execute("INSERT INTO users (uid, money) VALUES ('rich', 100000.00), ('poor', 0.00)");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        for (StockReservations engine : engines) {
+            engine.shutdown();
+        }
+        conn.close();
+    }
+
+    private StockReservations newEngine() throws SQLException {
+        StockReservations engine = new StockReservations(() -> DriverManager.getConnection(URL, "sa", ""),
+                8, 60_000, 20);
+        engine.start();
+        engines.add(engine);
+        return engine;
+    }
+
+    // 与 DatabaseManager.placeOrder 开启预占时的流程相同
+    private static boolean place(StockReservations engine, Connection own, String buyer, long productId, int quantity)
+            throws SQLException {
+        StockReservations.Reservation reservation = engine.reserve(productId, quantity);
+        if (reservation.getStatus() != StockReservations.Status.RESERVED) {
+            return false;
+        }
+        Order order = OrderPlacementTest.newOrder(buyer, productId, quantity);
+        boolean placed = false;
+        try {
+            placed = OrderPlacement.placeReserved(own, order).getStatus() == OrderPlacement.Status.PLACED;
+            if (placed) {
+                engine.confirm(reservation, order.getOrderId());
+            }
+            return placed;
+        } finally {
+            if (!placed) {
+                engine.cancel(reservation);
+            }
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        Statement stmt = conn.createStatement();
+        stmt.execute(sql);
+        stmt.close();
+    }
+
+    private long queryLong(String sql) throws SQLException {
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery(sql);
+        rs.next();
+        long value = rs.getLong(1);
+        stmt.close();
+        return value;
+    }
+
+    @Test
+    void reserve_shouldNeverOversell_andFlushShouldApplyPlacedOrdersInBatches() throws Exception {
+        StockReservations engine = newEngine();
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger placedQuantity = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                int seed = t;
+                futures.add(pool.submit((Callable<Void>) () -> {
+                    Connection own = DriverManager.getConnection(URL, "sa", "");
+                    try {
+                        start.await();
+                        for (int i = 0; i < 30; i++) {
+                            int quantity = 1 + (seed + i) % 3;
+                            // 余额不足的下单会回滚并归还预占的库存
+                            String buyer = i % 4 == 0 ? "poor" : "rich";
+                            if (place(engine, own, buyer, 10, quantity)) {
+                                placedQuantity.addAndGet(quantity);
+                            }
+                        }
+                    } finally {
+                        own.close();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long ordered = queryLong("SELECT COALESCE(SUM(quantity), 0) FROM orders WHERE product_id = 10");
+        assertThat(ordered).isEqualTo(placedQuantity.get()).isLessThanOrEqualTo(100);
+        assertThat(engine.available(10)).isEqualTo(100 - ordered).isLessThan(3);
+        // 回写前表内库存不变
+        assertThat(queryLong("SELECT stock FROM products WHERE product_id = 10")).isEqualTo(100);
+        assertThat(queryLong("SELECT COUNT(*) FROM orders WHERE stock_applied = FALSE")).isPositive();
+
+        engine.flush();
+
+        assertThat(queryLong("SELECT stock FROM products WHERE product_id = 10")).isEqualTo(100 - ordered);
+        assertThat(queryLong("SELECT sales_count FROM products WHERE product_id = 10")).isEqualTo(ordered);
+        assertThat(queryLong("SELECT COUNT(*) FROM orders WHERE stock_applied = FALSE")).isZero();
+        assertThat(engine.getStats()).containsEntry("pending_orders", 0L);
+        assertThat((Long) engine.getStats().get("flush_batches")).isGreaterThan(1L);
+    }
+
+    @Test
+    void start_shouldReconcileOrdersLeftUnappliedByPreviousRun_exactlyOnce() throws SQLException {
+        StockReservations crashed = new StockReservations(() -> DriverManager.getConnection(URL, "sa", ""),
+                8, 60_000, 20);
+        crashed.start();
+        engines.add(crashed);
+        for (int i = 0; i < 3; i++) {
+            assertThat(place(crashed, conn, "rich", 10, 4)).isTrue();
+        }
+        // 未回写就“崩溃”：不调用 flush/shutdown
+
+        StockReservations restarted = newEngine();
+        assertThat(queryLong("SELECT stock FROM products WHERE product_id = 10")).isEqualTo(88);
+        assertThat(queryLong("SELECT sales_count FROM products WHERE product_id = 10")).isEqualTo(12);
+        assertThat(queryLong("SELECT COUNT(*) FROM orders WHERE stock_applied = FALSE")).isZero();
+        assertThat(restarted.getStats()).containsEntry("reconciled_orders", 3L);
+
+        newEngine();
+        assertThat(queryLong("SELECT stock FROM products WHERE product_id = 10")).isEqualTo(88);
+        assertThat(restarted.reserve(10, 88).getStatus()).isEqualTo(StockReservations.Status.RESERVED);
+    }
+
+    @Test
+    void reconcile_shouldApplyLeftoverOrders_withoutStartingFlusher_whenReservationIsTurnedOff() throws SQLException {
+        StockReservations crashed = newEngine();
+        for (int i = 0; i < 2; i++) {
+            assertThat(place(crashed, conn, "rich", 11, 3)).isTrue();
+        }
+        // 未回写就“崩溃”：不调用 flush/shutdown
+
+        // 关闭预占后启动：只补扣，不启动回写线程
+        StockReservations drain = new StockReservations(() -> DriverManager.getConnection(URL, "sa", ""),
+                8, 60_000, 1);
+        assertThat(drain.reconcile()).isEqualTo(2);
+        assertThat(queryLong("SELECT stock FROM products WHERE product_id = 11")).isEqualTo(1);
+        assertThat(queryLong("SELECT COUNT(*) FROM orders WHERE stock_applied = FALSE")).isZero();
+        assertThat(drain.reconcile()).isZero();
+        assertThat(queryLong("SELECT stock FROM products WHERE product_id = 11")).isEqualTo(1);
+    }
+
+    @Test
+    void reserve_shouldNeverOversell_whenCountIsInvalidatedAndReloadedConcurrently() throws Exception {
+        StockReservations engine = newEngine();
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reservedCount = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit((Callable<Void>) () -> {
+                    start.await();
+                    // 预占后既不下单也不归还，全部计入未回写数量
+                    while (engine.reserve(10, 1).getStatus() == StockReservations.Status.RESERVED) {
+                        reservedCount.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            Future<?> invalidator = pool.submit((Callable<Void>) () -> {
+                start.await();
+                while (!Thread.currentThread().isInterrupted()) {
+                    engine.invalidate(10);
+                }
+                return null;
+            });
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            invalidator.cancel(true);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(reservedCount.get()).isEqualTo(100);
+        assertThat(engine.reserve(10, 1).getStatus()).isEqualTo(StockReservations.Status.INSUFFICIENT_STOCK);
+    }
+
+    @Test
+    void flush_shouldClampStockAtZero_whenStockWasLoweredBeforeOrdersWereApplied() throws SQLException {
+        StockReservations engine = newEngine();
+        assertThat(place(engine, conn, "rich", 11, 5)).isTrue();
+        // 回写前农户把库存调低到 2
+        execute("UPDATE products SET stock = 2 WHERE product_id = 11");
+        assertThat(place(engine, conn, "rich", 10, 4)).isTrue();
+
+        engine.flush();
+
+        assertThat(queryLong("SELECT stock FROM products WHERE product_id = 11")).isZero();
+        assertThat(queryLong("SELECT sales_count FROM products WHERE product_id = 11")).isEqualTo(5);
+        assertThat(queryLong("SELECT stock FROM products WHERE product_id = 10")).isEqualTo(96);
+        assertThat(queryLong("SELECT COUNT(*) FROM orders WHERE stock_applied = FALSE")).isZero();
+        assertThat(engine.getStats()).containsEntry("clamped_products", 1L);
+    }
+
+    @Test
+    void invalidate_shouldReloadTableStock_minusOrdersNotYetApplied() throws SQLException {
+        StockReservations engine = newEngine();
+        assertThat(place(engine, conn, "rich", 10, 5)).isTrue();
+        // 农户把库存改为 20，未回写的 5 件仍需扣除
+        execute("UPDATE products SET stock = 20 WHERE product_id = 10");
+        engine.invalidate(10);
+
+        assertThat(engine.reserve(10, 16).getStatus()).isEqualTo(StockReservations.Status.INSUFFICIENT_STOCK);
+        assertThat(engine.reserve(10, 16).getAvailableStock()).isEqualTo(15);
+
+        // 余量分散在多个分段时仍能一次扣完
+        assertThat(engine.reserve(11, 7).getStatus()).isEqualTo(StockReservations.Status.RESERVED);
+        assertThat(engine.reserve(11, 1).getStatus()).isEqualTo(StockReservations.Status.INSUFFICIENT_STOCK);
+
+        assertThat(engine.reserve(12, 1).getStatus()).isEqualTo(StockReservations.Status.OFF_SHELF);
+        assertThat(engine.reserve(99, 1).getStatus()).isEqualTo(StockReservations.Status.PRODUCT_NOT_FOUND);
+        execute("UPDATE products SET status = 'off_shelf' WHERE product_id = 10");
+        engine.invalidate(10);
+        assertThat(engine.reserve(10, 1).getStatus()).isEqualTo(StockReservations.Status.OFF_SHELF);
+    }
+}
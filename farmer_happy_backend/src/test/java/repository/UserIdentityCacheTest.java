@@ -0,0 +1,153 @@
+package repository;
+
+import entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserIdentityCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private final Map<String, UserIdentity> users = new HashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final UserIdentityCache.Loader loader = new UserIdentityCache.Loader() {
+        @Override
+        public UserIdentity loadByPhone(String phone) {
+            loads.incrementAndGet();
+            return users.get(phone);
+        }
+
+        @Override
+        public UserIdentity loadByUid(String uid) {
+            loads.incrementAndGet();
+            for (UserIdentity identity : users.values()) {
+                if (identity.getUid().equals(uid)) {
+                    return identity;
+                }
+            }
+            return null;
+        }
+    };
+
+    private static UserIdentity identity(String uid, String phone, String nickname) {
+        User user = new User("pwd", nickname, phone);
+        user.setUid(uid);
+        return new UserIdentity(user, 7L, null, 3L, null, Arrays.asList("farmer", "buyer"));
+    }
+
+    @Test
+    void getByPhone_shouldServeFromCache_untilTtlExpires() throws SQLException {
+        users.put("13800000001", identity("u1", "13800000001", "老张"));
+        UserIdentityCache cache = new UserIdentityCache(10, 60_000, loader, now::get);
+
+        cache.getByPhone("13800000001");
+        UserIdentity hit = cache.getByPhone("13800000001");
+        assertThat(cache.getByUid("u1")).isSameAs(hit);
+        assertThat(loads.get()).isEqualTo(1);
+
+        now.addAndGet(60_000);
+        cache.getByPhone("13800000001");
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.getStats()).containsEntry("hits", 2L).containsEntry("misses", 2L)
+                .containsEntry("expirations", 1L).containsEntry("hit_ratio", 0.5);
+    }
+
+    @Test
+    void cache_shouldEvictLeastRecentlyUsed_andNotCacheMissingUsers() throws SQLException {
+        users.put("1", identity("u1", "1", "a"));
+        users.put("2", identity("u2", "2", "b"));
+        users.put("3", identity("u3", "3", "c"));
+        UserIdentityCache cache = new UserIdentityCache(2, 60_000, loader, now::get);
+
+        cache.getByPhone("1");
+        cache.getByPhone("2");
+        cache.getByPhone("1");
+        cache.getByPhone("3");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.peekByUid("u2")).isNull();
+        assertThat(cache.peekByUid("u1")).isNotNull();
+        assertThat(cache.getStats()).containsEntry("evictions", 1L);
+
+        assertThat(cache.getByPhone("404")).isNull();
+        assertThat(cache.getByPhone("404")).isNull();
+        assertThat(loads.get()).isEqualTo(5);
+    }
+
+    @Test
+    void invalidate_shouldForceReload_andDropLoadsThatRacedTheWrite() throws SQLException {
+        users.put("1", identity("u1", "1", "旧昵称"));
+        UserIdentityCache[] holder = new UserIdentityCache[1];
+        UserIdentityCache cache = new UserIdentityCache(10, 60_000, new UserIdentityCache.Loader() {
+            @Override
+            public UserIdentity loadByPhone(String phone) throws SQLException {
+                UserIdentity loaded = loader.loadByPhone(phone);
+                if (loads.get() == 1) {
+                    // 模拟加载过程中另一个请求改了昵称并失效缓存
+                    users.put("1", identity("u1", "1", "新昵称"));
+                    holder[0].invalidateUid("u1");
+                }
+                return loaded;
+            }
+
+            @Override
+            public UserIdentity loadByUid(String uid) throws SQLException {
+                return loader.loadByUid(uid);
+            }
+        }, now::get);
+        holder[0] = cache;
+
+        assertThat(cache.getByPhone("1").getUser().getNickname()).isEqualTo("旧昵称");
+        assertThat(cache.getByPhone("1").getUser().getNickname()).isEqualTo("新昵称");
+
+        cache.invalidatePhone("1");
+        users.put("1", identity("u1", "1", "再次修改"));
+        assertThat(cache.getByUid("u1").getUser().getNickname()).isEqualTo("再次修改");
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    void queryByPhone_shouldLoadRolesAndExtensionIds_inOneJoin() throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:h2:mem:user_identity_test;DB_CLOSE_DELAY=-1", "sa", "");
+        try {
+            Statement ddl = conn.createStatement();
+            for (String table : Arrays.asList("users", "user_farmers", "user_experts", "user_buyers", "user_banks")) {
+                ddl.execute("DROP TABLE IF EXISTS " + table);
+            }
+            ddl.execute("CREATE TABLE users (uid VARCHAR(36) PRIMARY KEY, phone VARCHAR(11), password VARCHAR(255), "
+                    + "nickname VARCHAR(30), money DECIMAL(10,2), created_at TIMESTAMP, updated_at TIMESTAMP)");
+            ddl.execute("CREATE TABLE user_farmers (farmer_id BIGINT PRIMARY KEY, uid VARCHAR(36), enable BOOLEAN)");
+            ddl.execute("CREATE TABLE user_experts (expert_id BIGINT PRIMARY KEY, uid VARCHAR(36), enable BOOLEAN)");
+            ddl.execute("CREATE TABLE user_buyers (buyer_id BIGINT PRIMARY KEY, uid VARCHAR(36), enable BOOLEAN)");
+            ddl.execute("CREATE TABLE user_banks (bank_id BIGINT PRIMARY KEY, uid VARCHAR(36), enable BOOLEAN)");
+            ddl.execute("INSERT INTO users VALUES ('u1', '13800000001', 'pwd', '老张', NULL, CURRENT_TIMESTAMP, NULL)");
+            ddl.execute("INSERT INTO user_farmers VALUES (11, 'u1', FALSE)");
+            ddl.execute("INSERT INTO user_buyers VALUES (21, 'u1', TRUE)");
+            ddl.execute("INSERT INTO user_banks VALUES (31, 'u1', TRUE)");
+            ddl.close();
+
+            UserIdentity identity = UserIdentity.queryByPhone(conn, "13800000001");
+
+            assertThat(identity.getRoles()).containsExactly("buyer", "bank");
+            assertThat(identity.getFarmerId()).isEqualTo(11L);
+            assertThat(identity.hasUserType("farmer")).isTrue();
+            assertThat(identity.hasUserType("expert")).isFalse();
+            assertThat(identity.getUser().getMoney()).isZero();
+            assertThat(UserIdentity.queryByUid(conn, "u1").getBuyerId()).isEqualTo(21L);
+            assertThat(UserIdentity.queryByPhone(conn, "13900000000")).isNull();
+        } finally {
+            conn.close();
+        }
+    }
+}
@@ -258,6 +258,10 @@ class AuthServiceImplJUnit4Test {
         Assertions.assertEquals("13800138000", resp.getPhone());
         Assertions.assertEquals("buyer", resp.getUserType());
         Assertions.assertEquals(new BigDecimal("100.50"), resp.getMoney());
+        // 查询余额（另借连接）之前已归还登录校验用的连接
+        org.mockito.InOrder order = inOrder(conn, databaseManager);
+        order.verify(conn).close();
+        order.verify(databaseManager).getBuyerBalance("13800138000");
     }
 
     @Test
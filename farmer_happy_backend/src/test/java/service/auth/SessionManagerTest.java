@@ -0,0 +1,94 @@
+package service.auth;
+
+import entity.User;
+import org.junit.jupiter.api.Test;
+import repository.UserIdentity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionManagerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final SessionManager manager = new SessionManager(
+            "test-secret".getBytes(StandardCharsets.UTF_8), 30_000, 120_000, 4, now::get);
+
+    private static UserIdentity farmerAndBuyer() {
+        User user = new User("pwd", "老张", "13800000001");
+        user.setUid("u1");
+        return new UserIdentity(user, 7L, null, 9L, null, Arrays.asList("farmer", "buyer"));
+    }
+
+    @Test
+    void resolve_shouldReturnSessionIdentity_forIssuedToken() {
+        String token = manager.issue(farmerAndBuyer(), "farmer");
+
+        Session session = manager.resolve(token);
+
+        assertThat(session.getUid()).isEqualTo("u1");
+        assertThat(session.getPhone()).isEqualTo("13800000001");
+        assertThat(session.getUserType()).isEqualTo("farmer");
+        assertThat(session.getFarmerId()).isEqualTo(7L);
+        assertThat(session.getBuyerId()).isEqualTo(9L);
+        assertThat(session.hasRole("buyer")).isTrue();
+        assertThat(manager.getStats()).containsEntry("active", 1).containsEntry("resolved", 1L);
+    }
+
+    @Test
+    void resolve_shouldReject_whenTokenTamperedOrRevoked() {
+        String token = manager.issue(farmerAndBuyer(), "farmer");
+        String payload = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))),
+                StandardCharsets.UTF_8);
+        String forged = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.replace("|u1|", "|u2|").getBytes(StandardCharsets.UTF_8))
+                + token.substring(token.indexOf('.'));
+        SessionManager otherKey = new SessionManager("other".getBytes(StandardCharsets.UTF_8), 30_000, 120_000, 4,
+                now::get);
+
+        assertThat(manager.resolve(forged)).isNull();
+        assertThat(manager.resolve("not-a-token")).isNull();
+        assertThat(otherKey.resolve(token)).isNull();
+
+        assertThat(manager.revoke(token)).isTrue();
+        assertThat(manager.resolve(token)).isNull();
+        assertThat(manager.revoke(token)).isFalse();
+    }
+
+    @Test
+    void resolve_shouldSlideIdleExpiry_butEnforceMaxLifetime() {
+        String token = manager.issue(farmerAndBuyer(), "buyer");
+
+        for (int i = 0; i < 3; i++) {
+            now.addAndGet(25_000);
+            assertThat(manager.resolve(token)).isNotNull();
+        }
+        now.addAndGet(30_000);
+        assertThat(manager.resolve(token)).isNull();
+
+        String longLived = manager.issue(farmerAndBuyer(), "buyer");
+        for (int i = 0; i < 4; i++) {
+            now.addAndGet(25_000);
+            assertThat(manager.resolve(longLived)).isNotNull();
+        }
+        now.addAndGet(25_000);
+        assertThat(manager.resolve(longLived)).isNull();
+        assertThat(manager.getStats()).containsEntry("expired", 2L).containsEntry("active", 0);
+    }
+
+    @Test
+    void currentFor_shouldOnlyMatchBoundSessionPhone() {
+        Session session = manager.resolve(manager.issue(farmerAndBuyer(), "buyer"));
+        Session.bind(session);
+        try {
+            assertThat(Session.currentFor("13800000001")).isSameAs(session);
+            assertThat(Session.currentFor("13900000000")).isNull();
+        } finally {
+            Session.bind(null);
+        }
+        assertThat(Session.current()).isNull();
+    }
+}
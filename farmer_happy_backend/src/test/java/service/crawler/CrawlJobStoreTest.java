@@ -0,0 +1,123 @@
+package service.crawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CrawlJobStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+
+    private CrawlJob job(String id) {
+        return new CrawlJob(id, "2024-01-01", "2024-01-31", "苹果", clock.incrementAndGet());
+    }
+
+    private static String id(int n) {
+        return String.format("%032x", n);
+    }
+
+    @Test
+    void recover_shouldRestoreFinishedJobsAndFailInterruptedOnes_whenRestarted() throws Exception {
+        CrawlJobStore store = new CrawlJobStore(dir, 10, clock::get);
+        CrawlJob done = job(id(1));
+        store.add(done);
+        Map<String, Object> file = new LinkedHashMap<>();
+        file.put("variety", "富士");
+        file.put("csv_file_name", "富士_20240101_000000.csv");
+        file.put("csv_file_size", 123L);
+        List<Map<String, Object>> files = new ArrayList<>();
+        files.add(file);
+        done.updateSplit(1, 1);
+        done.markSucceeded("苹果_price_data.csv", files, clock.incrementAndGet());
+        store.save(done);
+
+        CrawlJob running = job(id(2));
+        store.add(running);
+        running.markSplitting();
+        store.save(running);
+
+        CrawlJobStore restarted = new CrawlJobStore(dir, 10, clock::get);
+
+        Map<String, Object> restored = restarted.get(id(1)).toMap();
+        assertThat(restored).containsEntry("status", CrawlJob.SUCCEEDED)
+                .containsEntry("product_name", "苹果")
+                .containsEntry("file_name", "苹果_price_data.csv")
+                .containsEntry("varieties_split", 1);
+        assertThat((List<?>) restored.get("split_files")).hasSize(1);
+        Map<?, ?> restoredFile = (Map<?, ?>) ((List<?>) restored.get("split_files")).get(0);
+        assertThat(restoredFile.get("variety")).isEqualTo("富士");
+        assertThat(((Number) restoredFile.get("csv_file_size")).longValue()).isEqualTo(123L);
+
+        CrawlJob interrupted = restarted.get(id(2));
+        assertThat(interrupted.getStatus()).isEqualTo(CrawlJob.FAILED);
+        assertThat(interrupted.toMap().get("error")).isEqualTo("服务重启，任务已中断");
+        // 中断状态已写回磁盘
+        assertThat(new CrawlJobStore(dir, 10, clock::get).get(id(2)).getStatus()).isEqualTo(CrawlJob.FAILED);
+    }
+
+    @Test
+    void add_shouldDropOldestFinishedJobs_whenHistoryIsFull() throws Exception {
+        CrawlJobStore store = new CrawlJobStore(dir, 2, clock::get);
+        CrawlJob unfinished = job(id(1));
+        store.add(unfinished);
+        CrawlJob finished = job(id(2));
+        store.add(finished);
+        finished.markFailed("接口异常", clock.incrementAndGet());
+        store.save(finished);
+
+        store.add(job(id(3)));
+
+        // 未完成的任务不会被删除
+        assertThat(store.get(id(1))).isSameAs(unfinished);
+        assertThat(store.get(id(2))).isNull();
+        assertThat(store.get(id(3))).isNotNull();
+        assertThat(Files.exists(dir.resolve(id(2) + ".json"))).isFalse();
+        assertThat(Files.exists(dir.resolve(id(3) + ".json"))).isTrue();
+    }
+
+    @Test
+    void expireResults_shouldClearFileListsOfOtherSucceededJobs_andPersistIt() throws Exception {
+        CrawlJobStore store = new CrawlJobStore(dir, 10, clock::get);
+        Map<String, Object> file = new LinkedHashMap<>();
+        file.put("variety", "富士");
+        List<Map<String, Object>> files = new ArrayList<>();
+        files.add(file);
+        CrawlJob older = job(id(1));
+        store.add(older);
+        older.markSucceeded("苹果_price_data.csv", files, clock.incrementAndGet());
+        store.save(older);
+        // 相同参数的任务共用同一个结果文件
+        CrawlJob sameFile = job(id(2));
+        store.add(sameFile);
+        sameFile.markSucceeded("梨_price_data.csv", files, clock.incrementAndGet());
+        store.save(sameFile);
+        CrawlJob failed = job(id(3));
+        store.add(failed);
+        failed.markFailed("接口异常", clock.incrementAndGet());
+        store.save(failed);
+
+        store.expireResults("梨_price_data.csv");
+
+        Map<String, Object> expired = new CrawlJobStore(dir, 10, clock::get).get(id(1)).toMap();
+        assertThat(expired).containsEntry("status", CrawlJob.SUCCEEDED)
+                .containsEntry("results_expired", true)
+                .containsEntry("file_name", null)
+                .containsEntry("split_dir", null);
+        assertThat((List<?>) expired.get("split_files")).isEmpty();
+        assertThat(store.get(id(2)).toMap()).containsEntry("results_expired", false)
+                .containsEntry("file_name", "梨_price_data.csv");
+        assertThat(store.get(id(3)).isResultsExpired()).isFalse();
+    }
+}
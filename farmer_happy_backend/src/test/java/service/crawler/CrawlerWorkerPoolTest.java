@@ -0,0 +1,173 @@
+package service.crawler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CrawlerWorkerPoolTest {
+
+    /**
+     * 按 --worker 协议应答的桩脚本，行为由品种名决定：
+     * ok 写出 CSV；slow 等待 2 秒后写出；error 返回错误；slow-error 等待 2 秒后返回错误；
+     * noisy 先向 stderr 写 1MB 再写出；crash 直接退出。
+     * 每次执行在 calls.log 中追加一行品种名，每次启动进程在 starts.log 中追加一行。
+     */
+    static final String STUB = String.join("\n",
+            "import io, json, os, sys, time",
+            "base = os.path.dirname(os.path.abspath(__file__))",
+            "def log(name, text):",
+            "    with open(os.path.join(base, name), 'a', encoding='utf-8') as f:",
+            "        f.write(text + '\\n')",
+            "out = io.TextIOWrapper(sys.stdout.buffer, encoding='utf-8')",
+            "def send(m):",
+            "    out.write(json.dumps(m, ensure_ascii=False) + '\\n')",
+            "    out.flush()",
+            "log('starts.log', 'start')",
+            "send({'type': 'ready'})",
+            "for line in io.TextIOWrapper(sys.stdin.buffer, encoding='utf-8'):",
+            "    job = json.loads(line)",
+            "    name = job['product_name']",
+            "    log('calls.log', name)",
+            "    if name == 'crash':",
+            "        sys.stderr.write('boom\\n')",
+            "        sys.stderr.flush()",
+            "        sys.exit(3)",
+            "    if name.startswith('slow'):",
+            "        time.sleep(2)",
+            "    if name.endswith('error'):",
+            "        send({'id': job['id'], 'type': 'error', 'error': '接口异常'})",
+            "        continue",
+            "    if name == 'noisy':",
+            "        sys.stderr.write('x' * (1024 * 1024) + '\\n')",
+            "        sys.stderr.flush()",
+            "    send({'id': job['id'], 'type': 'progress', 'page': 1, 'rows': 3})",
+            "    file_name = name + '_price_data.csv'",
+            "    with open(os.path.join(job['result_dir'], file_name), 'w', encoding='utf-8') as f:",
+            "        f.write(job['start_time'] + ',' + job['end_time'] + '\\n')",
+            "    send({'id': job['id'], 'type': 'result', 'file_name': file_name})",
+            "");
+
+    @TempDir
+    Path dir;
+
+    private CrawlerWorkerPool pool;
+
+    private CrawlerWorkerPool newPool(int workers, int queueCapacity, long timeoutMillis) throws IOException {
+        Path script = Files.write(dir.resolve("stub_worker.py"), STUB.getBytes(StandardCharsets.UTF_8));
+        String python = System.getProperty("crawler.test.python", "python3");
+        pool = new CrawlerWorkerPool(Arrays.asList(python, script.toString()), dir, dir.resolve("staging"),
+                workers, queueCapacity, timeoutMillis);
+        return pool;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private List<String> lines(String name) throws IOException {
+        Path file = dir.resolve(name);
+        return Files.exists(file) ? Files.readAllLines(file) : Arrays.asList();
+    }
+
+    @Test
+    void submit_shouldReuseWorkerProcess_whenRunningSeveralJobs() throws Exception {
+        newPool(1, 4, 10_000);
+
+        CrawlerWorkerPool.Job first = pool.submit("2024-01-01", "2024-01-31", "ok");
+        Path file = first.await();
+        CrawlerWorkerPool.Job second = pool.submit("2024-02-01", "2024-02-29", "ok");
+        Path secondFile = second.await();
+
+        assertThat(file.getParent()).isEqualTo(first.getOutputDir());
+        assertThat(Files.readAllLines(file)).containsExactly("2024-01-01,2024-01-31");
+        assertThat(Files.readAllLines(secondFile)).containsExactly("2024-02-01,2024-02-29");
+        assertThat(first.getRowsFetched()).isEqualTo(3);
+        assertThat(lines("starts.log")).hasSize(1);
+    }
+
+    @Test
+    void submit_shouldRunOnce_whenSameJobSubmittedConcurrently() throws Exception {
+        newPool(2, 4, 10_000);
+
+        CrawlerWorkerPool.Job first = pool.submit("2024-01-01", "2024-01-31", "slow");
+        CrawlerWorkerPool.Job second = pool.submit("2024-01-01", "2024-01-31", "slow");
+        CrawlerWorkerPool.Job other = pool.submit("2024-01-01", "2024-02-01", "slow");
+
+        assertThat(second).isSameAs(first);
+        assertThat(other).isNotSameAs(first);
+        first.await();
+        other.await();
+        assertThat(lines("calls.log")).containsExactly("slow", "slow");
+
+        // 完成后再提交相同参数会重新执行
+        assertThat(pool.submit("2024-01-01", "2024-01-31", "slow")).isNotSameAs(first);
+    }
+
+    @Test
+    void submit_shouldReject_whenQueueIsFull() throws Exception {
+        newPool(1, 1, 10_000);
+
+        CrawlerWorkerPool.Job running = pool.submit("2024-01-01", "2024-01-31", "slow");
+        // 等待工作线程取走第一个任务
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (pool.getQueuedJobs() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        pool.submit("2024-02-01", "2024-02-29", "slow");
+
+        assertThatThrownBy(() -> pool.submit("2024-03-01", "2024-03-31", "slow"))
+                .isInstanceOf(RejectedExecutionException.class);
+        running.await();
+    }
+
+    @Test
+    void await_shouldFailAndRestartWorker_whenScriptErrorsOrExits() throws Exception {
+        newPool(1, 4, 10_000);
+
+        assertThatThrownBy(() -> pool.submit("2024-01-01", "2024-01-31", "error").await())
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("接口异常");
+        CrawlerWorkerPool.Job crashed = pool.submit("2024-01-01", "2024-01-31", "crash");
+        assertThatThrownBy(crashed::await)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("爬虫进程已退出");
+        assertThat(crashed.getOutputDir()).doesNotExist();
+
+        assertThat(pool.submit("2024-01-01", "2024-01-31", "ok").await()).exists();
+        assertThat(lines("starts.log")).hasSize(2);
+    }
+
+    @Test
+    void await_shouldCompleteJob_whenWorkerWritesLotsOfStderr() throws Exception {
+        newPool(1, 4, 10_000);
+
+        assertThat(pool.submit("2024-01-01", "2024-01-31", "noisy").await()).exists();
+    }
+
+    @Test
+    void await_shouldTimeOutAndKillWorker_whenJobTakesTooLong() throws Exception {
+        newPool(1, 4, 500);
+
+        assertThatThrownBy(() -> pool.submit("2024-01-01", "2024-01-31", "slow").await())
+                .isInstanceOf(TimeoutException.class);
+
+        // 超时的进程已结束，下一个任务在新进程中执行
+        assertThat(pool.submit("2024-01-01", "2024-01-31", "ok").await()).exists();
+        assertThat(lines("starts.log")).hasSize(2);
+    }
+}
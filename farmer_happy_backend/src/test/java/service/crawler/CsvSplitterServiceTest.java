@@ -1,17 +1,33 @@
 package service.crawler;
 
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 class CsvSplitterServiceTest {
 
+    @TempDir
+    Path dir;
+
     @Test
     void splitCsvFile_shouldWriteUtf8BomForExcelCompatibility_andHandleBomInHeader() throws Exception {
         String projectRoot = System.getProperty("user.dir");
@@ -59,6 +75,150 @@ class CsvSplitterServiceTest {
         Files.deleteIfExists(input);
         Files.deleteIfExists(out);
     }
+
+    private static Path single(Path dir, String glob) throws Exception {
+        Path found = null;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, glob)) {
+            for (Path p : stream) {
+                assertThat(found).as("只应有一个文件: " + glob).isNull();
+                found = p;
+            }
+        }
+        assertThat(found).as("应生成文件: " + glob).isNotNull();
+        return found;
+    }
+
+    private static String read(Path file) throws Exception {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void processCsvFile_shouldKeepRowOrderPerVariety_whenMoreVarietiesThanOpenFiles() throws Exception {
+        Path input = dir.resolve("input.csv");
+        // 品名不在第一列；包含引号内的逗号、带时间的日期、空行、列数不足的行和无法解析的价格/日期
+        String content =
+                "\uFEFF序号,发布日期,品名,规格,平均价\n" +
+                "1,2025-01-01 00:00:00,白菜,大,1.50\n" +
+                "2,2025-01-01,土豆,\"中,小\",2.0\n" +
+                "3,2025-01-02 08:00:00,萝卜, ,abc\n" +
+                "\n" +
+                "4,2025-01-02\n" +
+                "5,2025-01-02,西红柿,一级,3.25\n" +
+                "6,2025-01-03,黄瓜,统货,2.10\n" +
+                "7,2025-01-03,茄子,,4\n" +
+                "8,2025-01-04,白菜,小,1.40\n" +
+                "9,bad-date,土豆,大,2.2\n";
+        Files.write(input, content.getBytes(StandardCharsets.UTF_8));
+        Path out = Files.createDirectories(dir.resolve("split"));
+
+        // 同时只打开 2 个品种文件，白菜、土豆会被关闭后再追加写入
+        new CsvSplitterService(2).processCsvFile(input, out);
+
+        String header = "\uFEFF规格,平均价,发布日期";
+        String nl = System.lineSeparator();
+        assertThat(read(single(out, "白菜_*.csv"))).isEqualTo(header + nl + "大,1.50,2025-01-01" + nl + "小,1.40,2025-01-04");
+        assertThat(read(single(out, "土豆_*.csv"))).isEqualTo(header + nl + "中,小,2.0,2025-01-01" + nl + "大,2.2,bad-date");
+        assertThat(read(single(out, "萝卜_*.csv"))).isEqualTo(header + nl + ",abc,2025-01-02");
+        assertThat(read(single(out, "茄子_*.csv"))).isEqualTo(header + nl + ",4,2025-01-03");
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(out)) {
+            assertThat(stream).hasSize(12);
+        }
+
+        try (InputStream in = Files.newInputStream(single(out, "土豆_*.xlsx"));
+             XSSFWorkbook workbook = new XSSFWorkbook(in)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertThat(sheet.getLastRowNum()).isEqualTo(2);
+            Row first = sheet.getRow(1);
+            assertThat(DateUtil.isCellDateFormatted(first.getCell(0))).isTrue();
+            assertThat(first.getCell(0).getDateCellValue().toInstant().atZone(ZoneId.systemDefault()).toLocalDate())
+                    .isEqualTo(LocalDate.of(2025, 1, 1));
+            assertThat(first.getCell(1).getNumericCellValue()).isEqualTo(2.0);
+            assertThat(first.getCell(2).getStringCellValue()).isEqualTo("中,小");
+            assertThat(sheet.getRow(2).getCell(0).getStringCellValue()).isEqualTo("bad-date");
+        }
+        try (InputStream in = Files.newInputStream(single(out, "萝卜_*.xlsx"));
+             XSSFWorkbook workbook = new XSSFWorkbook(in)) {
+            assertThat(workbook.getSheetAt(0).getRow(1).getCell(1).getStringCellValue()).isEqualTo("abc");
+        }
+    }
+
+    @Test
+    void processCsvFile_shouldAppendAfterReopening_whenVarietiesInterleaveBeyondBufferSize() throws Exception {
+        String[] varieties = {"甲", "乙", "丙"};
+        StringBuilder content = new StringBuilder("品名,规格,平均价,发布日期\n");
+        StringBuilder[] expected = new StringBuilder[varieties.length];
+        for (int v = 0; v < varieties.length; v++) {
+            expected[v] = new StringBuilder("\uFEFF规格,平均价,发布日期");
+        }
+        // 每个品种约 40KB，多次攒满缓冲区；只允许打开 1 个文件，每次写入都要关闭其他品种再追加打开
+        for (int i = 0; i < 6000; i++) {
+            int v = i % varieties.length;
+            String price = String.format(java.util.Locale.ROOT, "%.2f", 1 + (i % 97) / 10.0);
+            String date = LocalDate.of(2020, 1, 1).plusDays(i / varieties.length).toString();
+            content.append(varieties[v]).append(",规格").append(i % 5).append(',').append(price).append(',')
+                    .append(date).append(" 00:00:00\n");
+            expected[v].append(System.lineSeparator()).append("规格").append(i % 5).append(',').append(price)
+                    .append(',').append(date);
+        }
+        Path input = dir.resolve("input.csv");
+        Files.write(input, content.toString().getBytes(StandardCharsets.UTF_8));
+        Path out = Files.createDirectories(dir.resolve("split"));
+
+        new CsvSplitterService(1).processCsvFile(input, out);
+
+        for (int v = 0; v < varieties.length; v++) {
+            assertThat(read(single(out, varieties[v] + "_*.csv"))).isEqualTo(expected[v].toString());
+            try (InputStream in = Files.newInputStream(single(out, varieties[v] + "_*.xlsx"));
+                 XSSFWorkbook workbook = new XSSFWorkbook(in)) {
+                assertThat(workbook.getSheetAt(0).getLastRowNum()).isEqualTo(2000);
+            }
+        }
+    }
+
+    // 每个单元格的类型、值和日期格式
+    private static List<String> cells(Path xlsx) throws Exception {
+        List<String> out = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(xlsx); XSSFWorkbook workbook = new XSSFWorkbook(in)) {
+            for (Row row : workbook.getSheetAt(0)) {
+                for (Cell cell : row) {
+                    out.add(row.getRowNum() + ":" + cell.getColumnIndex() + ":" + cell.getCellType() + ":"
+                            + (cell.getCellType() == CellType.NUMERIC
+                            ? cell.getNumericCellValue() + "/" + cell.getCellStyle().getDataFormatString()
+                            : cell.getStringCellValue()));
+                }
+            }
+        }
+        return out;
+    }
+
+    @Test
+    void processCsvFile_shouldWriteSameXlsx_whenStreamingInParallel() throws Exception {
+        StringBuilder content = new StringBuilder("品名,规格,平均价,发布日期\n");
+        for (int i = 0; i < 3000; i++) {
+            String price = i % 500 == 7 ? "暂无" : String.format(java.util.Locale.ROOT, "%.2f", 1 + (i % 97) / 10.0);
+            String date = i % 700 == 3 ? "--" : LocalDate.of(2020, 1, 1).plusDays(i / 6) + " 00:00:00";
+            content.append("品种").append(i % 6).append(",\"规格,").append(i % 4).append("\",")
+                    .append(price).append(',').append(date).append('\n');
+        }
+        Path input = dir.resolve("input.csv");
+        Files.write(input, content.toString().getBytes(StandardCharsets.UTF_8));
+        Path expectedDir = Files.createDirectories(dir.resolve("expected"));
+        Path actualDir = Files.createDirectories(dir.resolve("actual"));
+
+        ExecutorService pool = CsvSplitterService.newXlsxPool(3);
+        try {
+            new CsvSplitterService(4, new SplitXlsxWriter(false), null).processCsvFile(input, expectedDir);
+            new CsvSplitterService(4, new SplitXlsxWriter(true), pool).processCsvFile(input, actualDir);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (int v = 0; v < 6; v++) {
+            assertThat(cells(single(actualDir, "品种" + v + "_*.xlsx")))
+                    .hasSize(3 * 501)
+                    .isEqualTo(cells(single(expectedDir, "品种" + v + "_*.xlsx")));
+        }
+    }
 }
 
 
@@ -0,0 +1,104 @@
+package service.crawler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriceCrawlerServiceImplTest {
+
+    @TempDir
+    Path dir;
+
+    private CrawlerWorkerPool pool;
+    private ExecutorService jobPool;
+
+    private PriceCrawlerServiceImpl newService(int threads, int queueCapacity) throws Exception {
+        Path script = Files.write(dir.resolve("stub_worker.py"),
+                CrawlerWorkerPoolTest.STUB.getBytes(StandardCharsets.UTF_8));
+        String python = System.getProperty("crawler.test.python", "python3");
+        pool = new CrawlerWorkerPool(Arrays.asList(python, script.toString()), dir, dir.resolve("staging"),
+                threads, queueCapacity, 10_000);
+        jobPool = PriceCrawlerServiceImpl.newJobPool(threads, queueCapacity);
+        CrawlJobStore store = new CrawlJobStore(dir.resolve("jobs"), 10, System::currentTimeMillis);
+        return new PriceCrawlerServiceImpl(pool, new CsvSplitterService(4), store, jobPool);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        if (jobPool != null) {
+            jobPool.shutdown();
+            // 等执行线程写完任务记录，再由 @TempDir 清理目录
+            jobPool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static Map<String, Object> awaitFinished(PriceCrawlerServiceImpl service, String jobId) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            Map<String, Object> job = service.getCrawlJob(jobId);
+            Object status = job.get("status");
+            if (CrawlJob.SUCCEEDED.equals(status) || CrawlJob.FAILED.equals(status)) {
+                return job;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("任务未在 10 秒内结束: " + jobId);
+    }
+
+    @Test
+    void submitCrawlJob_shouldReturnImmediately_andRecordFailure_whenScriptErrors() throws Exception {
+        PriceCrawlerServiceImpl service = newService(1, 4);
+
+        Map<String, Object> submitted = service.submitCrawlJob("2024-01-01", "2024-01-31", "error");
+        String jobId = (String) submitted.get("job_id");
+
+        assertThat(jobId).isNotEmpty();
+        assertThat(submitted.get("status")).isEqualTo(CrawlJob.QUEUED);
+        Map<String, Object> finished = awaitFinished(service, jobId);
+        assertThat(finished.get("status")).isEqualTo(CrawlJob.FAILED);
+        assertThat((String) finished.get("error")).contains("接口异常");
+
+        // 任务记录已持久化，重启后仍可查询
+        CrawlJobStore restarted = new CrawlJobStore(dir.resolve("jobs"), 10, System::currentTimeMillis);
+        assertThat(restarted.get(jobId).getStatus()).isEqualTo(CrawlJob.FAILED);
+        assertThat(service.getCrawlJob("0123")).isNull();
+    }
+
+    @Test
+    void submitCrawlJob_shouldReject_whenJobQueueIsFull() throws Exception {
+        PriceCrawlerServiceImpl service = newService(1, 1);
+
+        String running = (String) service.submitCrawlJob("2024-01-01", "2024-01-31", "slow-error").get("job_id");
+        // 等待第一个任务开始执行，第二个任务占满队列
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (CrawlJob.QUEUED.equals(service.getCrawlJob(running).get("status"))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        String queued = (String) service.submitCrawlJob("2024-02-01", "2024-02-29", "slow-error").get("job_id");
+
+        assertThatThrownBy(() -> service.submitCrawlJob("2024-03-01", "2024-03-31", "slow-error"))
+                .isInstanceOf(RejectedExecutionException.class);
+        assertThat(service.getCrawlJob(queued).get("status")).isEqualTo(CrawlJob.QUEUED);
+        // 被拒绝的任务不留记录
+        try (Stream<Path> files = Files.list(dir.resolve("jobs"))) {
+            assertThat(files.filter(p -> p.toString().endsWith(".json")).count()).isEqualTo(2);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package service.farmer;
+
+import dto.farmer.PricePredictionResponseDTO;
+import util.ExcelParser;
+import util.PriceFileParser;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 价格预测按规格并行的压测工具（非单元测试，不会被 surefire 执行）
+ *
+ * 读取仓库根目录的样例 xlsx（也可以通过 --file 指定，多次出现则依次测试），分别在请求线程上逐个规格预测
+ * 和提交到预测线程池并行预测，输出每次预测的平均耗时、加速比，并检查两种方式的结果是否完全一致。
+ * 样例文件规格较少时可以用 --specs 把已有规格复制成更多份（价格按份数平移，避免结果完全相同）。
+ *
+ * 运行方式：
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=service.farmer.PricePredictionLoadHarness \
+ *       -Dexec.args="--days 30 --rounds 3 --threads 8 --specs 20"
+ */
+public class PricePredictionLoadHarness {
+
+    public static void main(String[] args) throws Exception {
+        int days = 30;
+        int rounds = 3;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int specs = 0;
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--days": days = Integer.parseInt(args[i + 1]); break;
+                case "--rounds": rounds = Integer.parseInt(args[i + 1]); break;
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--specs": specs = Integer.parseInt(args[i + 1]); break;
+                case "--file": files.add(Paths.get(args[i + 1])); break;
+                default: System.err.println("未知参数: " + args[i]);
+            }
+        }
+        if (files.isEmpty()) {
+            // 在 farmer_happy_backend 目录下运行时样例文件在上一级
+            for (String name : new String[] {"农产品价格样例数据.xlsx", "农产品价格样例数据-简化版.xlsx"}) {
+                Path candidate = Paths.get("..", name);
+                files.add(Files.exists(candidate) ? candidate : Paths.get(name));
+            }
+        }
+
+        Path dir = Files.createTempDirectory("price-predict-harness");
+        UploadedSeriesStore store = new UploadedSeriesStore(100, 1L << 30, 0, dir, System::currentTimeMillis);
+        ForkJoinPool pool = PricePredictionService.newPredictionPool(threads);
+        PricePredictionService sequential = new PricePredictionService(store, null, 0);
+        PricePredictionService parallel = new PricePredictionService(store, pool, 0);
+
+        System.out.printf("压测参数: days=%d, rounds=%d, threads=%d%n", days, rounds, threads);
+        System.out.printf("%-36s %6s %14s %14s %8s %10s%n", "file", "specs", "sequential(ms)", "parallel(ms)",
+                "speedup", "identical");
+        try {
+            for (Path file : files) {
+                Map<String, List<ExcelParser.DataPoint>> series;
+                try (InputStream in = Files.newInputStream(file)) {
+                    series = new PriceFileParser().parse(in, file.getFileName().toString());
+                }
+                if (specs > series.size()) {
+                    series = replicate(series, specs);
+                }
+                String fileId = UUID.randomUUID().toString();
+                store.put(fileId, series);
+
+                // 预热
+                PricePredictionResponseDTO expected = sequential.predict(fileId, days, "timeseries");
+                PricePredictionResponseDTO actual = parallel.predict(fileId, days, "timeseries");
+                boolean identical = expected.getSeriesData().equals(actual.getSeriesData())
+                        && expected.getCalculationDetails().equals(actual.getCalculationDetails());
+
+                // 两种方式交替执行，避免 JIT 预热只照顾到后测的一方
+                double sequentialMs = 0;
+                double parallelMs = 0;
+                for (int r = 0; r < rounds; r++) {
+                    sequentialMs += time(sequential, fileId, days) / rounds;
+                    parallelMs += time(parallel, fileId, days) / rounds;
+                }
+                System.out.printf("%-36s %6d %14.1f %14.1f %7.2fx %10s%n", file.getFileName(), series.size(),
+                        sequentialMs, parallelMs, sequentialMs / parallelMs, identical ? "yes" : "NO");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static double time(PricePredictionService service, String fileId, int days) {
+        long begin = System.nanoTime();
+        service.predict(fileId, days, "timeseries");
+        return (System.nanoTime() - begin) / 1_000_000.0;
+    }
+
+    private static Map<String, List<ExcelParser.DataPoint>> replicate(Map<String, List<ExcelParser.DataPoint>> series,
+                                                                      int specs) {
+        Map<String, List<ExcelParser.DataPoint>> out = new LinkedHashMap<>(series);
+        List<Map.Entry<String, List<ExcelParser.DataPoint>>> source = new ArrayList<>(series.entrySet());
+        for (int copy = 1; out.size() < specs; copy++) {
+            for (Map.Entry<String, List<ExcelParser.DataPoint>> entry : source) {
+                if (out.size() >= specs || entry.getValue() == null) {
+                    continue;
+                }
+                List<ExcelParser.DataPoint> shifted = new ArrayList<>(entry.getValue().size());
+                for (ExcelParser.DataPoint point : entry.getValue()) {
+                    shifted.add(new ExcelParser.DataPoint(point.getDate(), point.getPrice() + copy * 0.37));
+                }
+                out.put(entry.getKey() + "#" + copy, shifted);
+            }
+        }
+        return out;
+    }
+}
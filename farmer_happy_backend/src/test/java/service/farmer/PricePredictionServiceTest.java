@@ -0,0 +1,130 @@
+package service.farmer;
+
+import dto.farmer.PricePredictionResponseDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import util.ExcelParser;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PricePredictionServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final ForkJoinPool pool = PricePredictionService.newPredictionPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    // 多个规格，价格带趋势、周周期和少量缺失日期
+    static Map<String, List<ExcelParser.DataPoint>> sampleSeries(int specs, int days) {
+        Map<String, List<ExcelParser.DataPoint>> series = new LinkedHashMap<>();
+        long start = 1_700_000_000_000L;
+        for (int s = 0; s < specs; s++) {
+            List<ExcelParser.DataPoint> points = new ArrayList<>();
+            for (int d = 0; d < days; d++) {
+                if ((d + s) % 11 == 5) {
+                    continue;
+                }
+                double price = 3.0 + s * 0.5 + d * 0.01 * (s % 3 - 1) + Math.sin(d * 2 * Math.PI / 7) * 0.2
+                        + ((d * 31 + s * 17) % 13) * 0.01;
+                points.add(new ExcelParser.DataPoint(new Date(start + d * 86_400_000L), price));
+            }
+            series.put("规格" + (char) ('A' + s), points);
+        }
+        return series;
+    }
+
+    private String upload(UploadedSeriesStore store, Map<String, List<ExcelParser.DataPoint>> series) {
+        String fileId = UUID.randomUUID().toString();
+        store.put(fileId, series);
+        return fileId;
+    }
+
+    @Test
+    void predict_shouldMatchSequentialResults_whenSpecsRunInParallel() {
+        UploadedSeriesStore store = new UploadedSeriesStore(10, 1 << 24, 0, dir, System::currentTimeMillis);
+        String fileId = upload(store, sampleSeries(6, 120));
+
+        PricePredictionResponseDTO sequential = new PricePredictionService(store, null, 0).predict(fileId, 14, "timeseries");
+        PricePredictionResponseDTO parallel = new PricePredictionService(store, pool, 60_000).predict(fileId, 14, "timeseries");
+
+        assertThat(parallel.getSeriesData()).hasSize(6).isEqualTo(sequential.getSeriesData());
+        assertThat(parallel.getCalculationDetails()).isEqualTo(sequential.getCalculationDetails());
+        assertThat(parallel.getPredictedData()).isEqualTo(sequential.getPredictedData());
+        assertThat(parallel.getModelMetrics()).isEqualTo(sequential.getModelMetrics());
+        assertThat(parallel.getTrend()).isEqualTo(sequential.getTrend());
+    }
+
+    @Test
+    void predict_shouldPickSameModels_whenGridSearchRunsInParallelWithPruning() {
+        UploadedSeriesStore store = new UploadedSeriesStore(10, 1 << 24, 0, dir, System::currentTimeMillis);
+        // 噪声较大、R² 偏低的序列会进入季节模型候选；长短不同的序列对应不同的折数
+        Map<String, List<ExcelParser.DataPoint>> series = new LinkedHashMap<>();
+        long start = 1_700_000_000_000L;
+        int[] lengths = {45, 130, 260, 400};
+        for (int s = 0; s < lengths.length; s++) {
+            List<ExcelParser.DataPoint> points = new ArrayList<>();
+            for (int d = 0; d < lengths[s]; d++) {
+                double noise = ((d * 7919L + s * 104_729L) % 1000) / 1000.0 - 0.5;
+                double price = 5.0 + Math.sin(d * 2 * Math.PI / 30) * 0.3 + noise * (0.4 + s * 0.2);
+                points.add(new ExcelParser.DataPoint(new Date(start + d * 86_400_000L), price));
+            }
+            series.put("噪声" + s, points);
+        }
+        String fileId = upload(store, series);
+
+        for (int days : new int[] {7, 30, 90}) {
+            PricePredictionResponseDTO sequential = new PricePredictionService(store, null, 0)
+                    .predict(fileId, days, "timeseries");
+            PricePredictionResponseDTO parallel = new PricePredictionService(store, pool, 60_000)
+                    .predict(fileId, days, "timeseries");
+            assertThat(parallel.getSeriesData()).isEqualTo(sequential.getSeriesData());
+            assertThat(parallel.getCalculationDetails()).isEqualTo(sequential.getCalculationDetails());
+        }
+    }
+
+    @Test
+    void predict_shouldReportFirstFailingSpecWithOriginalMessage() {
+        UploadedSeriesStore store = new UploadedSeriesStore(10, 1 << 24, 0, dir, System::currentTimeMillis);
+        Map<String, List<ExcelParser.DataPoint>> series = sampleSeries(3, 60);
+        series.put("规格B", series.get("规格B").subList(0, 5));
+        String fileId = upload(store, series);
+
+        assertThatThrownBy(() -> new PricePredictionService(store, pool, 60_000).predict(fileId, 7, "timeseries"))
+                .isExactlyInstanceOf(IllegalArgumentException.class)
+                .hasMessage("数据量不足，至少需要10条数据才能使用ARIMA模型");
+    }
+
+    @Test
+    void predict_shouldFailFastAndCancelRemainingSpecs_whenTimeoutExpires() {
+        UploadedSeriesStore store = new UploadedSeriesStore(10, 1 << 24, 0, dir, System::currentTimeMillis);
+        ForkJoinPool single = PricePredictionService.newPredictionPool(1);
+        try {
+            String fileId = upload(store, sampleSeries(20, 400));
+            long begin = System.nanoTime();
+            assertThatThrownBy(() -> new PricePredictionService(store, single, 50).predict(fileId, 30, "timeseries"))
+                    .hasMessageContaining("超时");
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin)).isLessThan(5_000);
+            // 剩余规格在下一次回测前停止，线程池很快空闲
+            assertThat(single.awaitQuiescence(10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            single.shutdownNow();
+        }
+    }
+}
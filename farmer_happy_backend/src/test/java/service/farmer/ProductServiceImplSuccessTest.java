@@ -11,6 +11,7 @@ import dto.farmer.ProductCreateRequestDTO;
 import entity.User;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -167,12 +168,69 @@ class ProductServiceImplSuccessTest {
         when(rsList.getDouble("price")).thenReturn(10.0);
         when(rsList.getInt("stock")).thenReturn(5);
         when(rsList.getString("status")).thenReturn("pending_review");
-        when(rsList.getString("main_image_url")).thenReturn("img0");
+
+        // 主图由 ImageBatchLoader 按整页商品ID一次查询
+        PreparedStatement stmtImages = mock(PreparedStatement.class);
+        ResultSet rsImages = mock(ResultSet.class);
+        when(conn.prepareStatement(startsWith("SELECT product_id, image_url FROM product_images WHERE product_id IN ("))).thenReturn(stmtImages);
+        when(stmtImages.executeQuery()).thenReturn(rsImages);
+        when(rsImages.next()).thenReturn(true, false);
+        when(rsImages.getLong("product_id")).thenReturn(100L);
+        when(rsImages.getString("image_url")).thenReturn("img0");
 
         List<ProductListResponseDTO> list = service.getProductList("13800138000", null, null);
         assertEquals(1, list.size());
         assertEquals("100", list.get(0).getProduct_id());
         assertEquals("T", list.get(0).getTitle());
+        assertEquals("img0", list.get(0).getMain_image_url());
+    }
+
+    @Test
+    void getAllOnShelfProducts_shouldReturnCursorFromLastKeptRow_whenMoreRowsThanPageSize() throws Exception {
+        PreparedStatement stmtList = mock(PreparedStatement.class);
+        ResultSet rsList = mock(ResultSet.class);
+        when(conn.prepareStatement(startsWith("SELECT p.product_id, p.title, p.price, p.stock, p.status, p.detailed_description")))
+                .thenReturn(stmtList);
+        when(stmtList.executeQuery()).thenReturn(rsList);
+        when(rsList.next()).thenReturn(true, true, false);
+        when(rsList.getLong("product_id")).thenReturn(101L, 100L);
+        when(rsList.getTimestamp("created_at")).thenReturn(new Timestamp(2000L), new Timestamp(1000L));
+        PreparedStatement stmtImages = mock(PreparedStatement.class);
+        when(conn.prepareStatement(startsWith("SELECT product_id, image_url FROM product_images WHERE product_id IN (")))
+                .thenReturn(stmtImages);
+        when(stmtImages.executeQuery()).thenReturn(mock(ResultSet.class));
+
+        util.Page<ProductListResponseDTO> page = service.getAllOnShelfProducts(null, 1);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals("101", page.getItems().get(0).getProduct_id());
+        util.PageCursor next = util.PageCursor.decode(page.getNextCursor(), DatabaseManager.ON_SHELF_CURSOR_SORT);
+        assertEquals("101", next.getId());
+        assertEquals(2000L, next.getKey());
+        verify(stmtList).setInt(1, 2);
+    }
+
+    @Test
+    void getAllOnShelfProducts_shouldReturnAllRowsWithoutLimit_whenUnpaged() throws Exception {
+        PreparedStatement stmtList = mock(PreparedStatement.class);
+        ResultSet rsList = mock(ResultSet.class);
+        when(conn.prepareStatement(argThat((String sql) -> sql != null
+                && sql.startsWith("SELECT p.product_id, p.title, p.price, p.stock, p.status, p.detailed_description")
+                && !sql.contains("LIMIT")))).thenReturn(stmtList);
+        when(stmtList.executeQuery()).thenReturn(rsList);
+        when(rsList.next()).thenReturn(true, true, false);
+        when(rsList.getLong("product_id")).thenReturn(101L, 100L);
+        when(rsList.getTimestamp("created_at")).thenReturn(new Timestamp(2000L), new Timestamp(1000L));
+        PreparedStatement stmtImages = mock(PreparedStatement.class);
+        when(conn.prepareStatement(startsWith("SELECT product_id, image_url FROM product_images WHERE product_id IN (")))
+                .thenReturn(stmtImages);
+        when(stmtImages.executeQuery()).thenReturn(mock(ResultSet.class));
+
+        util.Page<ProductListResponseDTO> page = service.getAllOnShelfProducts(null, util.PageCursor.UNPAGED);
+
+        assertEquals(2, page.getItems().size());
+        assertFalse(page.isPaged());
+        assertNull(page.getNextCursor());
     }
 
     @Test
@@ -202,6 +260,10 @@ class ProductServiceImplSuccessTest {
         ProductStatusUpdateResponseDTO r = service.onShelfProduct("100", "13800138000");
         assertEquals("100", r.getProduct_id());
         assertEquals("on_shelf", r.getStatus());
+        // 身份校验（缓存未命中时另借连接）在借出本方法的连接之前完成
+        InOrder order = inOrder(authService, databaseManager);
+        order.verify(authService).checkUserTypeExists(user.getUid(), "farmer");
+        order.verify(databaseManager).getConnection();
     }
 
     @Test
@@ -459,7 +521,15 @@ class ProductServiceImplSuccessTest {
         when(rsList.getDouble("price")).thenReturn(10.0);
         when(rsList.getInt("stock")).thenReturn(5);
         when(rsList.getString("status")).thenReturn("on_shelf");
-        when(rsList.getString("main_image_url")).thenReturn("img0");
+
+        // 主图由 ImageBatchLoader 按整页商品ID一次查询
+        PreparedStatement stmtImages = mock(PreparedStatement.class);
+        ResultSet rsImages = mock(ResultSet.class);
+        when(conn.prepareStatement(startsWith("SELECT product_id, image_url FROM product_images WHERE product_id IN ("))).thenReturn(stmtImages);
+        when(stmtImages.executeQuery()).thenReturn(rsImages);
+        when(rsImages.next()).thenReturn(true, false);
+        when(rsImages.getLong("product_id")).thenReturn(100L);
+        when(rsImages.getString("image_url")).thenReturn("img0");
 
         List<ProductListResponseDTO> list = service.getProductList("13800138000", "on_shelf", "T");
         assertEquals(1, list.size());
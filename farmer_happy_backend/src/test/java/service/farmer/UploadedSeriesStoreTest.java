@@ -0,0 +1,99 @@
+package service.farmer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import util.ExcelParser;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UploadedSeriesStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private static Map<String, List<ExcelParser.DataPoint>> series(int points) {
+        Map<String, List<ExcelParser.DataPoint>> series = new LinkedHashMap<>();
+        List<ExcelParser.DataPoint> apples = new ArrayList<>();
+        for (int i = 0; i < points; i++) {
+            apples.add(new ExcelParser.DataPoint(new Date(1_700_000_000_000L + i * 86_400_000L), 3.5 + i));
+        }
+        series.put("红富士", apples);
+        series.put("散装", new ArrayList<>());
+        return series;
+    }
+
+    private static String newId() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Test
+    void get_shouldReloadSpilledSeriesFromDisk_whenResidentBytesExceedLimit() {
+        // 上限只够放下一个 100 点的序列
+        UploadedSeriesStore store = new UploadedSeriesStore(10, 10_000, 0, dir, now::get);
+        String first = newId();
+        String second = newId();
+        store.put(first, series(100));
+        store.put(second, series(100));
+
+        assertThat(store.getStats()).containsEntry("resident_entries", 1).containsEntry("spills", 1L)
+                .containsEntry("entries", 2);
+        assertThat((Long) store.getStats().get("resident_bytes")).isLessThanOrEqualTo(10_000L);
+
+        Map<String, List<ExcelParser.DataPoint>> loaded = store.get(first);
+        assertThat(loaded).containsOnlyKeys("红富士", "散装");
+        assertThat(loaded.get("红富士")).hasSize(100);
+        assertThat(loaded.get("红富士").get(99).getPrice()).isEqualTo(102.5);
+        assertThat(loaded.get("红富士").get(99).getDate().getTime()).isEqualTo(1_700_000_000_000L + 99 * 86_400_000L);
+        assertThat(store.getStats()).containsEntry("loads", 1L).containsEntry("spills", 2L);
+    }
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsed_andExpireIdleEntriesWithTheirFiles() throws Exception {
+        UploadedSeriesStore store = new UploadedSeriesStore(2, 1 << 20, 60_000, dir, now::get);
+        String a = newId();
+        String b = newId();
+        String c = newId();
+        store.put(a, series(5));
+        store.put(b, series(5));
+        store.get(a);
+        store.put(c, series(5));
+
+        assertThat(store.get(b)).isNull();
+        assertThat(store.get(a)).isNotNull();
+        assertThat(store.getStats()).containsEntry("evictions", 1L);
+        assertThat(Files.exists(dir.resolve(b + ".series"))).isFalse();
+
+        now.addAndGet(60_000);
+        assertThat(store.get(c)).isNull();
+        assertThat(store.getStats()).containsEntry("entries", 0).containsEntry("resident_bytes", 0L)
+                .containsEntry("disk_bytes", 0L);
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void constructor_shouldRecoverUnexpiredFiles_afterRestart() {
+        UploadedSeriesStore before = new UploadedSeriesStore(10, 1 << 20, 0, dir, now::get);
+        String fileId = newId();
+        before.put(fileId, series(30));
+
+        UploadedSeriesStore after = new UploadedSeriesStore(10, 1 << 20, 0, dir, now::get);
+        assertThat(after.getStats()).containsEntry("entries", 1).containsEntry("resident_entries", 0);
+        assertThat(after.get(fileId).get("红富士")).hasSize(30);
+        assertThat(after.get("not-a-file-id")).isNull();
+    }
+}
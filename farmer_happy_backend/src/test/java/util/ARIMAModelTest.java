@@ -0,0 +1,87 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ARIMAModelTest {
+
+    private static double[] series(int n, int seed) {
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            double noise = ((i * 7919L + seed * 104_729L) % 1000) / 1000.0 - 0.5;
+            y[i] = 6.0 + i * 0.01 + Math.sin(i * 2 * Math.PI / 7) * 0.4 + noise * 0.3;
+        }
+        return y;
+    }
+
+    private static List<ARIMAModel.Point> points(double[] y, int length) {
+        List<ARIMAModel.Point> points = new ArrayList<>();
+        for (int i = 0; i < length; i++) {
+            points.add(new ARIMAModel.Point(i + 1, y[i]));
+        }
+        return points;
+    }
+
+    private static double[] forecasts(ARIMAModel model, int horizon) {
+        double[] out = new double[horizon];
+        for (int i = 1; i <= horizon; i++) {
+            out[i - 1] = model.predict(i);
+        }
+        return out;
+    }
+
+    @Test
+    void train_shouldMatchListApi_whenTrainedOnArrayPrefixWithSharedPreparedSeries() {
+        double[] y = series(200, 1);
+        int trainSize = 170;
+        ARIMAModel.ARIMAParams[] grid = {
+                new ARIMAModel.ARIMAParams(2, 1, 1),
+                new ARIMAModel.ARIMAParams(1, 0, 2),
+                new ARIMAModel.ARIMAParams(1, 1, 1, 0, 1, 0, 7),
+                new ARIMAModel.ARIMAParams(1, 0, 1, 1, 1, 1, 30)
+        };
+
+        for (ARIMAModel.ARIMAParams params : grid) {
+            ARIMAModel expected = new ARIMAModel();
+            expected.train(points(y, trainSize), params);
+
+            ARIMAModel actual = new ARIMAModel();
+            actual.train(y, trainSize, params, ARIMAModel.prepareSeries(y, trainSize, params));
+
+            assertThat(actual.getDifferencedData()).isEqualTo(expected.getDifferencedData());
+            assertThat(actual.getResiduals()).isEqualTo(expected.getResiduals());
+            assertThat(forecasts(actual, 30)).isEqualTo(forecasts(expected, 30));
+            ARIMAModel.Metrics a = actual.evaluate();
+            ARIMAModel.Metrics e = expected.evaluate();
+            assertThat(new double[] {a.rSquared, a.mae, a.rmse, a.aic}).isEqualTo(new double[] {e.rSquared, e.mae, e.rmse, e.aic});
+        }
+    }
+
+    @Test
+    void predict_shouldNotDependOnCallOrderOrEarlierTraining_whenModelIsReused() {
+        ARIMAModel.ARIMAParams params = new ARIMAModel.ARIMAParams(2, 1, 2);
+        double[] y = series(120, 2);
+
+        ARIMAModel fresh = new ARIMAModel();
+        fresh.train(points(y, y.length), params);
+        double[] expected = forecasts(fresh, 40);
+
+        // 先在更长的序列上训练并预测，再用同一个实例训练目标序列
+        ARIMAModel reused = new ARIMAModel();
+        reused.train(points(series(300, 3), 300), new ARIMAModel.ARIMAParams(1, 0, 1));
+        forecasts(reused, 60);
+        reused.train(points(y, y.length), params);
+
+        double[] descending = new double[40];
+        for (int i = 40; i >= 1; i--) {
+            descending[i - 1] = reused.predict(i);
+        }
+        assertThat(descending).isEqualTo(expected);
+        assertThat(forecasts(reused, 40)).isEqualTo(expected);
+        assertThat(reused.predict(0)).isEqualTo(fresh.predict(0)).isEqualTo(y[y.length - 1]);
+    }
+}
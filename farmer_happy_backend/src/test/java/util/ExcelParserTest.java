@@ -0,0 +1,179 @@
+package util;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExcelParserTest {
+
+    private static Date day(String date) {
+        return Date.from(LocalDate.parse(date).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * 表头 + 各种单元格写法：日期单元格、字符串日期、公式价格、带货币符号的字符串价格、负价格、空行、无法解析的日期
+     */
+    private static byte[] priceWorkbook(Supplier<Workbook> factory, boolean withSpec) throws Exception {
+        try (Workbook workbook = factory.get()) {
+            Sheet sheet = workbook.createSheet("data");
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("日期");
+            header.createCell(1).setCellValue("价格");
+            if (withSpec) {
+                header.createCell(3).setCellValue(" 规格 ");
+            }
+
+            Row r = sheet.createRow(1);
+            r.createCell(0).setCellValue(day("2024-01-03"));
+            r.getCell(0).setCellStyle(dateStyle);
+            r.createCell(1).setCellValue(3.5);
+            if (withSpec) r.createCell(3).setCellValue("大果");
+
+            r = sheet.createRow(2);
+            r.createCell(0).setCellValue("2024/01/01");
+            r.createCell(1).setCellValue("¥2.5");
+            if (withSpec) r.createCell(3).setCellValue("小果");
+
+            r = sheet.createRow(3);
+            r.createCell(0).setCellValue("2024-01-02");
+            r.createCell(1).setCellFormula("1+1.25");
+            if (withSpec) r.createCell(3).setCellValue("大果");
+
+            // 负价格、无法解析的日期、缺价格的行都跳过；第 5 行留空
+            r = sheet.createRow(4);
+            r.createCell(0).setCellValue("2024-01-04");
+            r.createCell(1).setCellValue(-1);
+            r = sheet.createRow(6);
+            r.createCell(0).setCellValue("不是日期");
+            r.createCell(1).setCellValue(9);
+            r = sheet.createRow(7);
+            r.createCell(0).setCellValue("2024-01-05");
+
+            r = sheet.createRow(8);
+            r.createCell(0).setCellValue(day("2024-01-06"));
+            r.getCell(0).setCellStyle(dateStyle);
+            r.createCell(1).setCellValue(" 4.75 ");
+            if (withSpec) r.createCell(3).setCellValue("  ");
+
+            // 保存公式的计算结果（SXSSF 不支持整表计算）
+            if (!(workbook instanceof SXSSFWorkbook)) {
+                workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            workbook.write(out);
+            if (workbook instanceof SXSSFWorkbook) {
+                ((SXSSFWorkbook) workbook).dispose();
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static List<String> describe(List<ExcelParser.DataPoint> points) {
+        List<String> out = new ArrayList<>();
+        for (ExcelParser.DataPoint p : points) {
+            LocalDate date = p.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+            out.add(date + "=" + p.getPrice());
+        }
+        return out;
+    }
+
+    @Test
+    void parse_shouldReadDatesPricesAndFormulas_whenXlsx() throws Exception {
+        byte[] xlsx = priceWorkbook(XSSFWorkbook::new, false);
+
+        List<ExcelParser.DataPoint> points = new ExcelParser().parse(new ByteArrayInputStream(xlsx), "prices.xlsx");
+
+        assertThat(describe(points)).containsExactly(
+                "2024-01-01=2.5", "2024-01-02=2.25", "2024-01-03=3.5", "2024-01-06=4.75");
+    }
+
+    @Test
+    void parse_shouldMatchWorkbookReader_whenInlineStringsOrXls() throws Exception {
+        List<String> expected = describe(new ExcelParser().parse(
+                new ByteArrayInputStream(priceWorkbook(XSSFWorkbook::new, false)), "prices.xlsx"));
+
+        // SXSSF 写出的是内联字符串，公式没有缓存结果时按 0 处理（与 XSSFCell 相同）
+        List<String> inline = describe(new ExcelParser().parse(
+                new ByteArrayInputStream(priceWorkbook(SXSSFWorkbook::new, false)), "prices.xlsx"));
+        List<String> xls = describe(new ExcelParser().parse(
+                new ByteArrayInputStream(priceWorkbook(HSSFWorkbook::new, false)), "prices.xls"));
+
+        assertThat(inline).containsExactly("2024-01-01=2.5", "2024-01-02=0.0", "2024-01-03=3.5", "2024-01-06=4.75");
+        assertThat(xls).isEqualTo(expected);
+    }
+
+    @Test
+    void parseBySpec_shouldGroupBySpecColumn_whenHeaderHasSpec() throws Exception {
+        byte[] xlsx = priceWorkbook(XSSFWorkbook::new, true);
+
+        Map<String, List<ExcelParser.DataPoint>> bySpec =
+                new PriceFileParser().parse(new ByteArrayInputStream(xlsx), "prices.xlsx");
+
+        assertThat(bySpec).containsOnlyKeys("大果", "小果", "默认");
+        assertThat(describe(bySpec.get("大果"))).containsExactly("2024-01-02=2.25", "2024-01-03=3.5");
+        assertThat(describe(bySpec.get("小果"))).containsExactly("2024-01-01=2.5");
+        assertThat(describe(bySpec.get("默认"))).containsExactly("2024-01-06=4.75");
+    }
+
+    @Test
+    void parseBySpec_shouldReturnSingleDefaultSeries_whenNoSpecColumn() throws Exception {
+        byte[] xlsx = priceWorkbook(XSSFWorkbook::new, false);
+
+        Map<String, List<ExcelParser.DataPoint>> bySpec =
+                new ExcelParser().parseBySpec(new ByteArrayInputStream(xlsx), "prices.xlsx");
+
+        assertThat(bySpec).containsOnlyKeys("默认");
+        assertThat(bySpec.get("默认")).hasSize(4);
+    }
+
+    @Test
+    void parse_shouldRejectFile_whenLargerThanLimit() throws Exception {
+        byte[] xlsx = priceWorkbook(XSSFWorkbook::new, false);
+        byte[] xls = priceWorkbook(HSSFWorkbook::new, false);
+
+        assertThatThrownBy(() -> new ExcelParser(xlsx.length - 1).parse(new ByteArrayInputStream(xlsx), "prices.xlsx"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("文件大小不能超过");
+        assertThatThrownBy(() -> new ExcelParser(xls.length - 1).parse(new ByteArrayInputStream(xls), "prices.xls"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("文件大小不能超过");
+        assertThat(new ExcelParser(xlsx.length).parse(new ByteArrayInputStream(xlsx), "prices.xlsx")).hasSize(4);
+    }
+
+    @Test
+    void parse_shouldRejectFile_whenTooFewRows() throws Exception {
+        byte[] xlsx;
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Row row = workbook.createSheet("data").createRow(0);
+            row.createCell(0).setCellValue("日期");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            workbook.write(out);
+            xlsx = out.toByteArray();
+        }
+
+        assertThatThrownBy(() -> new ExcelParser().parse(new ByteArrayInputStream(xlsx), "prices.xlsx"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Excel文件至少需要2行数据（表头+数据）");
+    }
+}
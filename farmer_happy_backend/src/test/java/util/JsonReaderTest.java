@@ -0,0 +1,83 @@
+package util;
+
+import exception.RequestBodyTooLargeException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonReaderTest {
+
+    @Test
+    void parseObject_shouldReturnLegacyValueTypes() throws IOException {
+        String json = "{ \"title\": \"红富士\\n\\u82f9\\u679c\\ud83c\\udf4e\", \"stock\": 12, \"big\": 9876543210,"
+                + " \"price\": 12.50, \"on\": true, \"off\": false, \"none\": null,"
+                + " \"images\": [\"a.png\", 1, [2]], \"spec\": {\"weight\": \"5kg\", \"tag\": \"}\"} }";
+
+        Map<String, Object> body = parse(json.getBytes(StandardCharsets.UTF_8), 0, 7);
+
+        assertThat(body.get("title")).isEqualTo("红富士\n苹果🍎");
+        assertThat(body.get("stock")).isEqualTo(12);
+        assertThat(body.get("big")).isEqualTo(9876543210L);
+        assertThat(body.get("price")).isEqualTo(12.5);
+        assertThat(body.get("on")).isEqualTo(Boolean.TRUE);
+        assertThat(body.get("off")).isEqualTo(Boolean.FALSE);
+        assertThat(body).containsKey("none");
+        assertThat(body.get("none")).isNull();
+        assertThat(body.get("images")).isEqualTo(Arrays.asList("a.png", 1, Arrays.asList(2)));
+        // 嵌套对象与原解析器一样保留为原始文本
+        assertThat(body.get("spec")).isEqualTo("{\"weight\": \"5kg\", \"tag\": \"}\"}");
+    }
+
+    @Test
+    void parseObject_shouldReadLargeBase64Field_acrossBufferBoundaries() throws IOException {
+        byte[] file = new byte[300 * 1024];
+        new Random(42).nextBytes(file);
+        String base64 = "data:image/png;base64," + Base64.getEncoder().encodeToString(file);
+        byte[] json = ("{\"fileName\":\"价格.xlsx\",\"file\":\"" + base64 + "\",\"images\":[\"" + base64 + "\"]}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        Map<String, Object> body = parse(json, 0, 1000);
+
+        assertThat(body.get("fileName")).isEqualTo("价格.xlsx");
+        assertThat(body.get("file")).isEqualTo(base64);
+        assertThat(body.get("images")).isEqualTo(Arrays.asList(base64));
+    }
+
+    @Test
+    void parseObject_shouldRejectOversizedBody_andMalformedJson() {
+        byte[] json = "{\"remark\":\"0123456789012345678901234567890123456789\"}".getBytes(StandardCharsets.UTF_8);
+
+        // 声明的 Content-Length 超限时不读取请求体
+        assertThatThrownBy(() -> JsonReader.parseObject(new ByteArrayInputStream(json), 16, json.length))
+                .isInstanceOf(RequestBodyTooLargeException.class);
+        // 长度未知时读取过程中超限
+        assertThatThrownBy(() -> parse(json, 16, 8)).isInstanceOf(RequestBodyTooLargeException.class);
+
+        assertThatThrownBy(() -> parse("{\"a\":1,}".getBytes(StandardCharsets.UTF_8), 0, 8))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("JSON格式错误");
+        assertThatThrownBy(() -> parse("{\"a\":\"unterminated".getBytes(StandardCharsets.UTF_8), 0, 8))
+                .isInstanceOf(IOException.class);
+    }
+
+    // 模拟网络分片：每次 read 最多返回 chunk 字节，长度未知
+    private static Map<String, Object> parse(byte[] json, long maxBytes, int chunk) throws IOException {
+        InputStream in = new ByteArrayInputStream(json) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunk));
+            }
+        };
+        return JsonReader.parseObject(in, maxBytes, -1);
+    }
+}
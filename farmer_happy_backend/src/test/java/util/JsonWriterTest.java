@@ -0,0 +1,126 @@
+package util;
+
+import config.JsonSerializerConfig;
+import dto.buyer.OrderListItemDTO;
+import dto.buyer.OrderListResponseDTO;
+import dto.farmer.ProductListResponseDTO;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonWriterTest {
+
+    @BeforeAll
+    static void registerSerializers() {
+        JsonSerializerConfig.registerAll();
+    }
+
+    @Test
+    void toJson_shouldKeepLegacyFieldLayout_forRegisteredDtos() throws IOException {
+        OrderListItemDTO full = new OrderListItemDTO();
+        full.setOrderId("o1");
+        full.setProductId("p1");
+        full.setTitle("苹果");
+        full.setQuantity(2);
+        full.setTotalAmount(new BigDecimal("19.90"));
+        full.setStatus("pending");
+        full.setCreatedAt("2024-01-01 10:00:00");
+        full.setMainImageUrl("/uploads/a.png");
+        OrderListItemDTO sparse = new OrderListItemDTO();
+        sparse.setOrderId("o2");
+
+        ProductListResponseDTO product = new ProductListResponseDTO();
+        product.setProduct_id("p1");
+        product.setPrice(12.5);
+        product.setStock(3);
+        product.setImages(Arrays.asList("a.png", "b.png"));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("code", 200);
+        response.put("orders", new OrderListResponseDTO(Arrays.asList(full, sparse)));
+        response.put("products", Arrays.asList(product));
+
+        assertThat(JsonWriter.toJson(response)).isEqualTo("{\"code\":200,"
+                + "\"orders\":{\"list\":[{\"order_id\":\"o1\",\"product_id\":\"p1\",\"title\":\"苹果\",\"quantity\":2,"
+                + "\"total_amount\":19.90,\"status\":\"pending\",\"created_at\":\"2024-01-01 10:00:00\","
+                + "\"main_image_url\":\"/uploads/a.png\"},{\"order_id\":\"o2\"}]},"
+                + "\"products\":[{\"product_id\":\"p1\",\"price\":12.5,\"stock\":3,\"images\":[\"a.png\",\"b.png\"]}]}");
+    }
+
+    @Test
+    void toJson_shouldWritePagingFields_onlyForPagedListResponses() throws IOException {
+        OrderListResponseDTO paged = new OrderListResponseDTO(Arrays.asList());
+        paged.setPaged(true);
+        paged.setNextCursor("abc");
+        OrderListResponseDTO lastPage = new OrderListResponseDTO(Arrays.asList());
+        lastPage.setPaged(true);
+
+        assertThat(JsonWriter.toJson(paged)).isEqualTo("{\"list\":[],\"next_cursor\":\"abc\",\"has_more\":true}");
+        assertThat(JsonWriter.toJson(lastPage)).isEqualTo("{\"list\":[],\"next_cursor\":null,\"has_more\":false}");
+        assertThat(JsonWriter.toJson(new OrderListResponseDTO(Arrays.asList()))).isEqualTo("{\"list\":[]}");
+    }
+
+    @Test
+    void toJson_shouldEscapeControlCharacters_andEncodeUtf8() throws IOException {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("text", "引号\"反斜杠\\换行\n\u0001😀");
+        map.put("nan", Double.NaN);
+        map.put("nothing", null);
+        map.put("flag", Boolean.TRUE);
+
+        byte[] bytes = JsonWriter.toBytes(map);
+
+        String expected = "{\"text\":\"引号\\\"反斜杠\\\\换行\\n\\u0001😀\",\"nan\":null,\"nothing\":null,\"flag\":true}";
+        assertThat(bytes).isEqualTo(expected.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writeValue_shouldSwitchToStreaming_whenPayloadExceedsBuffer() throws IOException {
+        List<String> items = new ArrayList<>();
+        StringBuilder expected = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) {
+            items.add("商品-" + i);
+            expected.append(i == 0 ? "" : ",").append("\"商品-").append(i).append('"');
+        }
+        expected.append(']');
+
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        int[] opened = {0};
+        boolean[] completed = {false};
+        JsonWriter writer = JsonWriter.acquire(new JsonWriter.Sink() {
+            @Override
+            public OutputStream open() {
+                opened[0]++;
+                return streamed;
+            }
+
+            @Override
+            public void complete(byte[] bytes, int length) {
+                completed[0] = true;
+            }
+        });
+        try {
+            writer.writeValue(items);
+            assertThat(writer.isCommitted()).isTrue();
+            writer.finish();
+        } finally {
+            writer.release();
+        }
+
+        assertThat(opened[0]).isEqualTo(1);
+        assertThat(completed[0]).isFalse();
+        assertThat(new String(streamed.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(expected.toString());
+    }
+}
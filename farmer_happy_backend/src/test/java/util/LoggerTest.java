@@ -0,0 +1,96 @@
+package util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoggerTest {
+
+    private final ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+    private AsyncLogAppender appender;
+
+    @AfterEach
+    void tearDown() {
+        if (appender != null) {
+            appender.shutdown(1000);
+        }
+        Logger.setLevel(Logger.Level.INFO);
+    }
+
+    @Test
+    void appender_shouldDeliverEventsFromManyThreads_andRouteWarnToErr() throws Exception {
+        appender = new AsyncLogAppender(1024, print(outBytes), print(errBytes));
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int id = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    while (!appender.offer(new AsyncLogAppender.Event(Logger.Level.INFO, "Test", "t" + id + "-" + i, null))) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        appender.offer(new AsyncLogAppender.Event(Logger.Level.WARN, "Test", "出错了", new IllegalStateException("boom")));
+        appender.flush(2000);
+
+        String out = outBytes.toString("UTF-8");
+        assertThat(out.split(System.lineSeparator())).hasSize(400);
+        assertThat(out).contains(" INFO  [").contains("] Test - t3-99");
+        String err = errBytes.toString("UTF-8");
+        assertThat(err).contains(" WARN  [").contains("Test - 出错了").contains("IllegalStateException: boom");
+        assertThat(appender.getWrittenCount()).isEqualTo(401L);
+    }
+
+    @Test
+    void appender_shouldDropInsteadOfBlocking_whenBufferIsFull() {
+        appender = new AsyncLogAppender(4, print(outBytes), print(errBytes));
+        int accepted = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (appender.offer(new AsyncLogAppender.Event(Logger.Level.INFO, "Test", "m" + i, null))) {
+                accepted++;
+            }
+        }
+        appender.flush(2000);
+
+        assertThat(accepted + appender.getDroppedCount()).isEqualTo(10000L);
+        assertThat(appender.getWrittenCount()).isEqualTo(accepted);
+    }
+
+    @Test
+    void logger_shouldGateByLevel_andTruncateLongMessages() {
+        Logger log = Logger.getLogger(LoggerTest.class);
+        Logger.setLevel(Logger.Level.WARN);
+        assertThat(log.isDebugEnabled()).isFalse();
+        assertThat(log.isInfoEnabled()).isFalse();
+        assertThat(log.isEnabled(Logger.Level.ERROR)).isTrue();
+        Logger.setLevel(Logger.Level.OFF);
+        assertThat(log.isEnabled(Logger.Level.ERROR)).isFalse();
+
+        assertThat(Logger.truncate("abc", 5)).isEqualTo("abc");
+        assertThat(Logger.truncate("abcdefgh", 5)).isEqualTo("abcde...(共 8 字符，已截断)");
+        assertThat(Logger.parseLevel(" debug ", Logger.Level.INFO)).isEqualTo(Logger.Level.DEBUG);
+        assertThat(Logger.parseLevel("verbose", Logger.Level.INFO)).isEqualTo(Logger.Level.INFO);
+    }
+
+    private static PrintStream print(ByteArrayOutputStream bytes) {
+        try {
+            return new PrintStream(bytes, true, StandardCharsets.UTF_8.name());
+        } catch (java.io.UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
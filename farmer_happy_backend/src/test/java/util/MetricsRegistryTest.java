@@ -0,0 +1,64 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MetricsRegistryTest {
+
+    @Test
+    void toPrometheus_shouldGroupSeriesByName_andRenderHistogramAsSummary() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("http_requests_total", "请求数", "status", "200").add(3);
+        registry.histogram("http_request_duration_seconds", "请求耗时", "status", "200").recordMicros(1500);
+        registry.register(samples -> {
+            samples.gauge("db_pool_active", "活跃连接", 2);
+            samples.counter("http_requests_total", "请求数", 1, "status", "say \"hi\"");
+        });
+
+        String text = registry.toPrometheus();
+
+        assertThat(text).contains("# TYPE http_requests_total counter\n"
+                + "http_requests_total{status=\"200\"} 3\n"
+                + "http_requests_total{status=\"say \\\"hi\\\"\"} 1\n");
+        assertThat(text).contains("# TYPE http_request_duration_seconds summary\n");
+        assertThat(text).contains("http_request_duration_seconds{status=\"200\",quantile=\"0.99\"} 0.0015");
+        assertThat(text).contains("http_request_duration_seconds_count{status=\"200\"} 1\n");
+        assertThat(text).contains("db_pool_active 2\n");
+        assertThat(text.split("# TYPE http_requests_total", -1)).hasSize(2);
+    }
+
+    @Test
+    void toJson_shouldExposeLabelsAndLatencySummary() {
+        MetricsRegistry registry = new MetricsRegistry();
+        LatencyHistogram histogram = registry.histogram("db_operation_duration_seconds", "耗时",
+                "operation", "DatabaseManager.findOrderById");
+        for (int i = 1; i <= 100; i++) {
+            histogram.recordMicros(i * 100L);
+        }
+
+        Map<String, Object> json = registry.toJson();
+
+        Map<?, ?> family = (Map<?, ?>) json.get("db_operation_duration_seconds");
+        assertThat(family.get("type")).isEqualTo("summary");
+        Map<?, ?> series = (Map<?, ?>) ((List<?>) family.get("series")).get(0);
+        assertThat(((Map<?, ?>) series.get("labels")).get("operation")).isEqualTo("DatabaseManager.findOrderById");
+        Map<?, ?> latency = (Map<?, ?>) series.get("latency");
+        assertThat(latency.get("count")).isEqualTo(100L);
+        assertThat((Long) latency.get("p99_us")).isBetween(9900L, 10000L);
+        assertThat((Long) latency.get("p50_us")).isBetween(5000L, 5000L + 5000L / 8);
+    }
+
+    @Test
+    void counter_shouldReturnSameSeries_andRejectTypeConflict() {
+        MetricsRegistry registry = new MetricsRegistry();
+        assertThat(registry.counter("x_total", "x", "a", "1")).isSameAs(registry.counter("x_total", "x", "a", "1"));
+        assertThat(registry.counter("x_total", "x", "a", "1")).isNotSameAs(registry.counter("x_total", "x", "a", "2"));
+        assertThatThrownBy(() -> registry.histogram("x_total", "x", "a", "1"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,74 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    @Test
+    void decode_shouldRoundTripEncodedCursor_andTreatBlankAsFirstPage() {
+        String token = PageCursor.of("newest", 1700000000123L, "CNT|42").encode();
+
+        PageCursor cursor = PageCursor.decode(token, "newest");
+
+        assertThat(token).doesNotContain("=", "+", "/");
+        assertThat(cursor.getKey()).isEqualTo(1700000000123L);
+        assertThat(cursor.getId()).isEqualTo("CNT|42");
+        assertThat(PageCursor.decode(null, "newest")).isNull();
+        assertThat(PageCursor.decode("  ", "newest")).isNull();
+    }
+
+    @Test
+    void decode_shouldReject_whenTokenMalformedOrFromAnotherSort() {
+        String hottest = PageCursor.of("hottest", 10L, "CNT-1").encode();
+
+        assertThatThrownBy(() -> PageCursor.decode(hottest, "newest"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("排序方式");
+        assertThatThrownBy(() -> PageCursor.decode("%%%", "newest"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("无效的分页游标");
+        assertThatThrownBy(() -> PageCursor.decode("bmV3ZXN0fGFiY3x4", "newest"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("无效的分页游标");
+    }
+
+    @Test
+    void pageSize_shouldDefaultAndCap_andRejectNonPositive() {
+        assertThat(PageCursor.pageSize(null)).isEqualTo(PageCursor.DEFAULT_PAGE_SIZE);
+        assertThat(PageCursor.pageSize("5")).isEqualTo(5);
+        assertThat(PageCursor.pageSize("100000")).isEqualTo(PageCursor.MAX_PAGE_SIZE);
+        assertThatThrownBy(() -> PageCursor.pageSize("0")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageCursor.pageSize("abc")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void pageSize_shouldBeUnpaged_onlyWhenNeitherCursorNorPageSizeSent() {
+        assertThat(PageCursor.pageSize(null, null)).isEqualTo(PageCursor.UNPAGED);
+        assertThat(PageCursor.pageSize(" ", "")).isEqualTo(PageCursor.UNPAGED);
+        assertThat(PageCursor.pageSize("abc", null)).isEqualTo(PageCursor.DEFAULT_PAGE_SIZE);
+        assertThat(PageCursor.pageSize(null, "5")).isEqualTo(5);
+
+        Page<Integer> all = Page.of(Arrays.asList(30, 20, 10), PageCursor.UNPAGED,
+                last -> PageCursor.of("orders", last, "id-" + last));
+        assertThat(all.getItems()).containsExactly(30, 20, 10);
+        assertThat(all.isPaged()).isFalse();
+        assertThat(all.hasMore()).isFalse();
+    }
+
+    @Test
+    void pageOf_shouldTrimExtraRow_andBuildCursorFromLastKeptRow() {
+        List<Integer> fetched = Arrays.asList(30, 20, 10);
+
+        Page<Integer> full = Page.of(fetched, 2, last -> PageCursor.of("orders", last, "id-" + last));
+        Page<Integer> lastPage = Page.of(fetched, 3, last -> PageCursor.of("orders", last, "id-" + last));
+
+        assertThat(full.getItems()).containsExactly(30, 20);
+        assertThat(full.hasMore()).isTrue();
+        assertThat(PageCursor.decode(full.getNextCursor(), "orders").getId()).isEqualTo("id-20");
+        assertThat(lastPage.getItems()).containsExactly(30, 20, 10);
+        assertThat(lastPage.getNextCursor()).isNull();
+    }
+}